@@ -0,0 +1,99 @@
+package halfEdgeMesh;
+
+/// \file CoordArrayStore.java
+/// Vertex coordinates stored in a single float array.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.Arrays;
+
+/** Vertex coordinates packed into a single float array.
+ * <ul>
+ * <li> Coordinates of vertex iv are in
+ *   coord[iv*dimension..(iv*dimension+dimension-1)].
+ * <li> Array grows (doubles) as needed.  Memory is proportional
+ *   to the max vertex index, so vertex indices should be dense.
+ * </ul>
+ */
+public class CoordArrayStore extends CoordStoreBase {
+
+	/** Initial capacity (number of vertices). */
+	static final int INITIAL_CAPACITY = 16;
+
+	/** Packed vertex coordinates. */
+	protected float[] coord;
+
+
+	public CoordArrayStore(int dimension)
+	{
+		super(dimension);
+		coord = new float[INITIAL_CAPACITY*dimension];
+	}
+
+	/** Return packed coordinate array.
+	 * <ul> <li> Array may be reallocated when vertices are added. </ul>
+	 */
+	public float[] Array()
+	{ return coord; }
+
+	public float Get(int iv, int ic)
+	{ return coord[iv*dimension+ic]; }
+
+	public void Set(int iv, int ic, float c)
+	{ coord[iv*dimension+ic] = c; }
+
+	public int Capacity()
+	{ return coord.length/dimension; }
+
+	public void EnsureCapacity(int numv)
+	{
+		if (numv <= Capacity()) { return; }
+
+		int new_capacity = Math.max(numv, 2*Capacity());
+		coord = Arrays.copyOf(coord, new_capacity*dimension);
+	}
+
+	public long EstimateBytes()
+	{
+		return MeshFootprint.ObjectBytes(getClass()) +
+			MeshFootprint.ArrayBytes(coord.length, 4);
+	}
+
+	public int VertexBytes()
+	{ return 4*dimension; }
+
+	public void CopyFrom(CoordStoreBase store0, int numv)
+	{
+		if (!(store0 instanceof CoordArrayStore)) {
+			super.CopyFrom(store0, numv);
+			return;
+		}
+
+		EnsureCapacity(numv);
+		System.arraycopy
+			(((CoordArrayStore) store0).coord, 0, coord, 0, numv*dimension);
+	}
+
+	public void GetCoord(int iv, float[] vcoord)
+	{ System.arraycopy(coord, iv*dimension, vcoord, 0, dimension); }
+
+	public void SetCoord(int iv, float[] vcoord)
+	{ System.arraycopy(vcoord, 0, coord, iv*dimension, dimension); }
+
+}
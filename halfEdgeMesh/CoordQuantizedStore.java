@@ -0,0 +1,495 @@
+package halfEdgeMesh;
+
+/// \file CoordQuantizedStore.java
+/// Vertex coordinates quantized relative to a bounding box.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.Arrays;
+
+/** Vertex coordinates quantized to nbits bit integers
+ *    relative to a bounding box.
+ * <ul>
+ * <li> Coordinate c in [cmin[ic],cmax[ic]] is stored as integer
+ *   q = round((c-cmin[ic])/step[ic]) in [0..(2^nbits-1)],
+ *   where step[ic] = (cmax[ic]-cmin[ic])/(2^nbits-1).
+ *   Get() returns cmin[ic] + q*step[ic].
+ * <li> 16 bit coordinates are stored in a char array,
+ *   2 bytes per coordinate.  21 bit coordinates are packed
+ *   three per long, 8 bytes per three coordinates.
+ *   In 3D, this is 6 or 8 bytes per vertex, instead of 12.
+ * <li> Until the bounding box is fixed, coordinates are stored
+ *   as 32 bit floats.  The box is fixed by the constructor
+ *   with cmin and cmax, or by the first call to ExtendBoundingBox().
+ *   The floats are then quantized once.
+ * <li> Once the box is fixed, Set() does not change it.
+ *   Coordinates outside the box are clamped to the box.
+ *   Use IsInRange() to check a coordinate before setting it.
+ * <li> The maximum error is step[ic]/2, plus rounding of the
+ *   returned float.  Each call to ExtendBoundingBox() that enlarges
+ *   a fixed box requantizes the coordinates along that axis,
+ *   adding at most step[ic]/2 (of the new step) to the error.
+ * <li> Array grows (doubles) as needed.  Memory is proportional
+ *   to the max vertex index, so vertex indices should be dense.
+ * </ul>
+ */
+public class CoordQuantizedStore extends CoordStoreBase {
+
+	/** Initial capacity (number of vertices). */
+	static final int INITIAL_CAPACITY = 16;
+
+	/** Number of 21 bit coordinates packed in each long. */
+	static final int CODES_PER_LONG = 3;
+
+	/** Number of bits per coordinate.  16 or 21. */
+	protected final int nbits;
+
+	/** Max quantized coordinate, 2^nbits-1. */
+	protected final int max_code;
+
+	/** Number of longs per vertex, if nbits is 21. */
+	protected final int num_longs_per_vertex;
+
+	/** Quantized coordinates, if nbits is 16.
+	 * <ul> <li> Coordinate ic of vertex iv is code16[iv*dimension+ic]. </ul>
+	 */
+	protected char[] code16;
+
+	/** Packed quantized coordinates, if nbits is 21.
+	 * <ul> <li> Coordinate ic of vertex iv is in bits
+	 *   [21*(ic%3)..(21*(ic%3)+20)] of
+	 *   code21[iv*num_longs_per_vertex+ic/3]. </ul>
+	 */
+	protected long[] code21;
+
+	/** Unquantized coordinates, until the bounding box is fixed.
+	 * <ul>
+	 * <li> Coordinate ic of vertex iv is staged_coord[iv*dimension+ic].
+	 * <li> null once the bounding box is fixed.
+	 * </ul>
+	 */
+	protected float[] staged_coord;
+
+	/** One plus the max index of a vertex whose staged coordinates
+	 *    were set by Set().
+	 */
+	protected int num_staged;
+
+	/** Number of vertices whose coordinates can be stored. */
+	protected int capacity;
+
+	/** Min corner of bounding box. */
+	protected final float[] cmin;
+
+	/** Max corner of bounding box. */
+	protected final float[] cmax;
+
+	/** Spacing between quantized coordinates along each axis. */
+	protected final double[] step;
+
+
+	/** Construct store with no bounding box.
+	 * <ul> <li> Coordinates are stored as floats until
+	 *   ExtendBoundingBox() fixes the box. </ul>
+	 * @param nbits Number of bits per coordinate.  16 or 21.
+	 */
+	public CoordQuantizedStore(int dimension, int nbits) throws Exception
+	{
+		super(dimension);
+
+		if (nbits != 16 && nbits != 21) {
+			throw new Exception
+				("Illegal argument to CoordQuantizedStore. Number of bits " +
+					String.valueOf(nbits) + " is not 16 or 21.");
+		}
+
+		this.nbits = nbits;
+		this.max_code = (1 << nbits)-1;
+		this.num_longs_per_vertex = (dimension+CODES_PER_LONG-1)/CODES_PER_LONG;
+		this.cmin = new float[dimension];
+		this.cmax = new float[dimension];
+		this.step = new double[dimension];
+		this.staged_coord = new float[INITIAL_CAPACITY*dimension];
+		this.capacity = INITIAL_CAPACITY;
+	}
+
+	/** Construct store with fixed bounding box [cmin,cmax].
+	 * @param nbits Number of bits per coordinate.  16 or 21.
+	 */
+	public CoordQuantizedStore
+	(int dimension, int nbits, float[] cmin, float[] cmax) throws Exception
+	{
+		this(dimension, nbits);
+		_FixBox(cmin, cmax);
+	}
+
+
+	// *** Get functions ***
+
+	/** Return number of bits per coordinate. */
+	public int QuantizationBits()
+	{ return nbits; }
+
+	/** Return true if the bounding box is fixed
+	 *    and coordinates are quantized.
+	 */
+	public boolean IsBoxFixed()
+	{ return (staged_coord == null); }
+
+	/** Return min coordinate of bounding box along axis ic.
+	 * @pre IsBoxFixed().
+	 */
+	public float BoxMin(int ic)
+	{ return cmin[ic]; }
+
+	/** Return max coordinate of bounding box along axis ic.
+	 * @pre IsBoxFixed().
+	 */
+	public float BoxMax(int ic)
+	{ return cmax[ic]; }
+
+	/** Return spacing between quantized coordinates along axis ic.
+	 * <ul> <li> Maximum quantization error is half the spacing. </ul>
+	 * @pre IsBoxFixed().
+	 */
+	public double Step(int ic)
+	{ return step[ic]; }
+
+	/** Return true if the box is not fixed, or if c is within
+	 *    half a step of the bounding box along axis ic.
+	 */
+	public boolean IsInRange(int ic, float c)
+	{
+		if (staged_coord != null) { return true; }
+		return (c >= cmin[ic] - step[ic]/2 && c <= cmax[ic] + step[ic]/2);
+	}
+
+	public float Get(int iv, int ic)
+	{
+		if (staged_coord != null)
+		{ return staged_coord[iv*dimension+ic]; }
+		return _Decode(ic, _GetCode(iv, ic));
+	}
+
+	public void GetCoord(int iv, float[] coord)
+	{
+		for (int ic = 0; ic < dimension; ic++)
+		{ coord[ic] = Get(iv, ic); }
+	}
+
+	public int Capacity()
+	{ return capacity; }
+
+	public int VertexBytes()
+	{
+		if (staged_coord != null) { return 4*dimension; }
+		else if (nbits == 16) { return 2*dimension; }
+		else { return 8*num_longs_per_vertex; }
+	}
+
+	public long EstimateBytes()
+	{
+		long num_bytes = MeshFootprint.ObjectBytes(getClass()) +
+			3*MeshFootprint.ArrayBytes(dimension, 4);
+		if (staged_coord != null)
+		{ num_bytes += MeshFootprint.ArrayBytes(staged_coord.length, 4); }
+		else if (nbits == 16)
+		{ num_bytes += MeshFootprint.ArrayBytes(code16.length, 2); }
+		else
+		{ num_bytes += MeshFootprint.ArrayBytes(code21.length, 8); }
+		return num_bytes;
+	}
+
+
+	// *** Set functions ***
+
+	/** Set coordinate ic of vertex iv to c.
+	 * <ul> <li> If the box is fixed, clamps c to the box. </ul>
+	 */
+	public void Set(int iv, int ic, float c)
+	{
+		if (staged_coord != null) {
+			staged_coord[iv*dimension+ic] = c;
+			num_staged = Math.max(num_staged, iv+1);
+		}
+		else
+		{ _SetCode(iv, ic, _Encode(ic, c)); }
+	}
+
+	/** Set all coordinates of vertex iv to the quantized values
+	 *    closest to 0.
+	 * <ul> <li> Staged zero coordinates are not used to fix
+	 *   the bounding box, unless vertex iv is later set. </ul>
+	 */
+	public void SetZero(int iv)
+	{
+		for (int ic = 0; ic < dimension; ic++) {
+			if (staged_coord != null)
+			{ staged_coord[iv*dimension+ic] = 0.0f; }
+			else
+			{ _SetCode(iv, ic, _Encode(ic, 0.0f)); }
+		}
+	}
+
+	public void EnsureCapacity(int numv)
+	{
+		if (numv <= capacity) { return; }
+		_Allocate(Math.max(numv, 2*capacity));
+	}
+
+	/** Extend bounding box to contain coordinates coord[]
+	 *    of num_vertices vertices.
+	 * <ul>
+	 * <li> If the box is not fixed, fixes the box to contain coord[]
+	 *   and the staged coordinates of vertices
+	 *   [num_vertices..(num_staged-1)], and quantizes
+	 *   the staged coordinates.
+	 * <li> If the box is fixed and coord[] is outside the box,
+	 *   enlarges the box and requantizes all stored coordinates once.
+	 * </ul>
+	 */
+	public void ExtendBoundingBox(float[] coord, int num_vertices)
+	{
+		final float[] c0 = new float[dimension];
+		final float[] c1 = new float[dimension];
+		Arrays.fill(c0, Float.POSITIVE_INFINITY);
+		Arrays.fill(c1, Float.NEGATIVE_INFINITY);
+		for (int iv = 0; iv < num_vertices; iv++) {
+			for (int ic = 0; ic < dimension; ic++) {
+				c0[ic] = Math.min(c0[ic], coord[iv*dimension+ic]);
+				c1[ic] = Math.max(c1[ic], coord[iv*dimension+ic]);
+			}
+		}
+
+		if (staged_coord == null) {
+			if (num_vertices == 0) { return; }
+			for (int ic = 0; ic < dimension; ic++)
+			{ _ExtendBox(ic, c0[ic], c1[ic]); }
+			return;
+		}
+
+		for (int iv = num_vertices; iv < num_staged; iv++) {
+			for (int ic = 0; ic < dimension; ic++) {
+				c0[ic] = Math.min(c0[ic], staged_coord[iv*dimension+ic]);
+				c1[ic] = Math.max(c1[ic], staged_coord[iv*dimension+ic]);
+			}
+		}
+
+		if (num_vertices == 0 && num_staged == 0) {
+			// No coordinates to determine the box.
+			return;
+		}
+
+		_FixBox(c0, c1);
+	}
+
+	/** Copy coordinates of vertices [0..(numv-1)] from store0.
+	 * <ul> <li> If store0 is quantized with the same number of bits,
+	 *   copies its bounding box and quantized coordinates,
+	 *   or its staged coordinates, so coordinates are not requantized. </ul>
+	 */
+	public void CopyFrom(CoordStoreBase store0, int numv)
+	{
+		if (!(store0 instanceof CoordQuantizedStore) ||
+			store0.QuantizationBits() != nbits) {
+			super.CopyFrom(store0, numv);
+			return;
+		}
+
+		final CoordQuantizedStore qstore0 = (CoordQuantizedStore) store0;
+		EnsureCapacity(numv);
+		if (qstore0.staged_coord != null) {
+			if (staged_coord == null) {
+				super.CopyFrom(store0, numv);
+				return;
+			}
+			System.arraycopy
+				(qstore0.staged_coord, 0, staged_coord, 0, numv*dimension);
+			num_staged = Math.max(num_staged, Math.min(numv, qstore0.num_staged));
+			return;
+		}
+
+		System.arraycopy(qstore0.cmin, 0, cmin, 0, dimension);
+		System.arraycopy(qstore0.cmax, 0, cmax, 0, dimension);
+		System.arraycopy(qstore0.step, 0, step, 0, dimension);
+		if (staged_coord != null) {
+			staged_coord = null;
+			num_staged = 0;
+			_AllocateCodes();
+		}
+		if (nbits == 16) {
+			System.arraycopy(qstore0.code16, 0, code16, 0, numv*dimension);
+		}
+		else {
+			System.arraycopy
+				(qstore0.code21, 0, code21, 0, numv*num_longs_per_vertex);
+		}
+	}
+
+	/** Move coordinates of each vertex iv to vertex new_vertex_index[iv].
+	 * <ul> <li> Copies quantized (or staged) coordinates,
+	 *   so coordinates are not requantized. </ul>
+	 */
+	public void Renumber(int[] new_vertex_index, int numv)
+	{
+		if (staged_coord != null) {
+			final float[] new_staged_coord = new float[staged_coord.length];
+			for (int iv = 0; iv < new_vertex_index.length; iv++) {
+				final int ivnew = new_vertex_index[iv];
+				if (ivnew < 0) { continue; }
+				System.arraycopy
+					(staged_coord, iv*dimension,
+						new_staged_coord, ivnew*dimension, dimension);
+			}
+			staged_coord = new_staged_coord;
+			num_staged = Math.min(num_staged, numv);
+		}
+		else if (nbits == 16) {
+			final char[] new_code16 = new char[code16.length];
+			for (int iv = 0; iv < new_vertex_index.length; iv++) {
+				final int ivnew = new_vertex_index[iv];
+				if (ivnew < 0) { continue; }
+				System.arraycopy
+					(code16, iv*dimension, new_code16, ivnew*dimension, dimension);
+			}
+			code16 = new_code16;
+		}
+		else {
+			final long[] new_code21 = new long[code21.length];
+			for (int iv = 0; iv < new_vertex_index.length; iv++) {
+				final int ivnew = new_vertex_index[iv];
+				if (ivnew < 0) { continue; }
+				System.arraycopy
+					(code21, iv*num_longs_per_vertex,
+						new_code21, ivnew*num_longs_per_vertex, num_longs_per_vertex);
+			}
+			code21 = new_code21;
+		}
+	}
+
+
+	// *** Internal (protected) functions ***
+
+	/** Allocate arrays for new_capacity vertices.
+	 *  - Allocates staged_coord if the box is not fixed,
+	 *    and quantized coordinates otherwise.
+	 *  - Copies existing coordinates.
+	 */
+	protected void _Allocate(int new_capacity)
+	{
+		if (staged_coord != null)
+		{ staged_coord = Arrays.copyOf(staged_coord, new_capacity*dimension); }
+		else if (nbits == 16)
+		{ code16 = Arrays.copyOf(code16, new_capacity*dimension); }
+		else
+		{ code21 = Arrays.copyOf(code21, new_capacity*num_longs_per_vertex); }
+		capacity = new_capacity;
+	}
+
+	/** Allocate quantized coordinate arrays for capacity vertices. */
+	protected void _AllocateCodes()
+	{
+		if (nbits == 16)
+		{ code16 = new char[capacity*dimension]; }
+		else
+		{ code21 = new long[capacity*num_longs_per_vertex]; }
+	}
+
+	/** Fix bounding box to [c0,c1] and quantize staged coordinates.
+	 *  - Frees staged_coord.
+	 */
+	protected void _FixBox(float[] c0, float[] c1)
+	{
+		for (int ic = 0; ic < dimension; ic++) {
+			cmin[ic] = c0[ic];
+			cmax[ic] = c1[ic];
+			step[ic] = (((double) cmax[ic]) - cmin[ic])/max_code;
+		}
+
+		_AllocateCodes();
+
+		final float[] coord = staged_coord;
+		staged_coord = null;
+		num_staged = 0;
+		for (int iv = 0; iv < capacity; iv++) {
+			for (int ic = 0; ic < dimension; ic++)
+			{ _SetCode(iv, ic, _Encode(ic, coord[iv*dimension+ic])); }
+		}
+	}
+
+	/** Return quantized coordinate ic of vertex iv. */
+	protected int _GetCode(int iv, int ic)
+	{
+		if (nbits == 16)
+		{ return code16[iv*dimension+ic]; }
+		else {
+			final long x = code21[iv*num_longs_per_vertex+ic/CODES_PER_LONG];
+			return (int) ((x >>> (21*(ic%CODES_PER_LONG))) & max_code);
+		}
+	}
+
+	/** Set quantized coordinate ic of vertex iv to q. */
+	protected void _SetCode(int iv, int ic, int q)
+	{
+		if (nbits == 16)
+		{ code16[iv*dimension+ic] = (char) q; }
+		else {
+			final int k = iv*num_longs_per_vertex+ic/CODES_PER_LONG;
+			final int shift = 21*(ic%CODES_PER_LONG);
+			code21[k] = (code21[k] & ~(((long) max_code) << shift)) |
+				(((long) q) << shift);
+		}
+	}
+
+	/** Return quantized value of coordinate c along axis ic.
+	 *  - Clamps c to the bounding box.
+	 */
+	protected int _Encode(int ic, float c)
+	{
+		if (step[ic] == 0) { return 0; }
+		final long q = Math.round((c - cmin[ic])/step[ic]);
+		return (int) Math.max(0, Math.min(max_code, q));
+	}
+
+	/** Return coordinate represented by quantized value q along axis ic. */
+	protected float _Decode(int ic, int q)
+	{ return (float) (cmin[ic] + q*step[ic]); }
+
+	/** Extend fixed bounding box along axis ic to contain [c0,c1].
+	 *  - Requantizes all stored coordinates along axis ic
+	 *    if the box changes.
+	 */
+	protected void _ExtendBox(int ic, float c0, float c1)
+	{
+		if (c0 >= cmin[ic] && c1 <= cmax[ic])
+		{ return; }
+
+		final float old_cmin = cmin[ic];
+		final double old_step = step[ic];
+
+		cmin[ic] = Math.min(cmin[ic], c0);
+		cmax[ic] = Math.max(cmax[ic], c1);
+		step[ic] = (((double) cmax[ic]) - cmin[ic])/max_code;
+
+		for (int iv = 0; iv < capacity; iv++) {
+			final float c = (float) (old_cmin + _GetCode(iv, ic)*old_step);
+			_SetCode(iv, ic, _Encode(ic, c));
+		}
+	}
+}
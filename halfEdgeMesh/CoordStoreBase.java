@@ -0,0 +1,164 @@
+package halfEdgeMesh;
+
+/// \file CoordStoreBase.java
+/// Mesh level storage of vertex coordinates.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+/** Abstract base class for storing the coordinates of all mesh vertices.
+ * <ul>
+ * <li> Coordinates are keyed by vertex index.
+ * <li> One coordinate store is shared by all vertices of a mesh.
+ *   VertexBase.Coord() reads the coordinates from the store.
+ * <li> Get and Set functions do not check their arguments.
+ * </ul>
+ */
+public abstract class CoordStoreBase {
+
+	/** Number of coordinates per vertex. */
+	protected final int dimension;
+
+	/** Construct store for vertices with dimension coordinates. */
+	public CoordStoreBase(int dimension)
+	{ this.dimension = dimension; }
+
+	/** Return number of coordinates per vertex. */
+	public int Dimension()
+	{ return dimension; }
+
+	/** Return coordinate ic of vertex iv. */
+	public abstract float Get(int iv, int ic);
+
+	/** Set coordinate ic of vertex iv to c.
+	 * @pre iv is less than Capacity().
+	 */
+	public abstract void Set(int iv, int ic, float c);
+
+	/** Return number of vertices whose coordinates can be stored
+	 *    without reallocation.
+	 */
+	public abstract int Capacity();
+
+	/** Ensure that the store can hold coordinates of vertices
+	 *    [0..(numv-1)] without reallocation.
+	 */
+	public abstract void EnsureCapacity(int numv);
+
+	/** Return estimated bytes used by the store.
+	 * @see MeshFootprint
+	 */
+	public abstract long EstimateBytes();
+
+	/** Return bytes used to store the coordinates of one vertex. */
+	public abstract int VertexBytes();
+
+	/** Return true if coordinate c along axis ic can be stored
+	 *    without clamping.
+	 * <ul> <li> Quantized stores with a fixed bounding box return
+	 *   false for c outside the box.  Default returns true. </ul>
+	 */
+	public boolean IsInRange(int ic, float c)
+	{ return true; }
+
+	/** Return number of bits per quantized coordinate.
+	 * <ul> <li> Return 0 if coordinates are not quantized. </ul>
+	 */
+	public int QuantizationBits()
+	{ return 0; }
+
+	/** Prepare store to hold coordinates coord[] of num_vertices vertices.
+	 * <ul> <li> Quantized stores extend their bounding box.
+	 *   Default does nothing. </ul>
+	 */
+	public void ExtendBoundingBox(float[] coord, int num_vertices)
+	{}
+
+	/** Move coordinates of each vertex iv to vertex new_vertex_index[iv].
+	 * <ul>
+	 * <li> Ignores iv if new_vertex_index[iv] is negative.
+	 * <li> Coordinates of vertices not moved to are undefined.
+	 * </ul>
+	 * @param numv Number of new vertex indices.
+	 *   New indices are in range [0..(numv-1)].
+	 * @pre numv is at most Capacity().
+	 */
+	public void Renumber(int[] new_vertex_index, int numv)
+	{
+		// Copy coordinates, since new and old vertex indices overlap.
+		final float[] coord = new float[numv*dimension];
+		final float[] vcoord = new float[dimension];
+		for (int iv = 0; iv < new_vertex_index.length; iv++) {
+			final int ivnew = new_vertex_index[iv];
+			if (ivnew < 0) { continue; }
+			GetCoord(iv, vcoord);
+			System.arraycopy(vcoord, 0, coord, ivnew*dimension, dimension);
+		}
+
+		for (int iv = 0; iv < numv; iv++) {
+			System.arraycopy(coord, iv*dimension, vcoord, 0, dimension);
+			SetCoord(iv, vcoord);
+		}
+	}
+
+
+	/** Copy coordinates of vertices [0..(numv-1)] from store0.
+	 * <ul> <li> Default reads all coordinates, extends the bounding box,
+	 *   and then sets each vertex's coordinates.
+	 *   Subclasses copy directly from stores of the same type. </ul>
+	 * @pre store0 has the same dimension and numv is at most store0.Capacity().
+	 */
+	public void CopyFrom(CoordStoreBase store0, int numv)
+	{
+		final float[] coord = new float[numv*dimension];
+		final float[] vcoord = new float[dimension];
+		for (int iv = 0; iv < numv; iv++) {
+			store0.GetCoord(iv, vcoord);
+			System.arraycopy(vcoord, 0, coord, iv*dimension, dimension);
+		}
+
+		EnsureCapacity(numv);
+		ExtendBoundingBox(coord, numv);
+		for (int iv = 0; iv < numv; iv++) {
+			System.arraycopy(coord, iv*dimension, vcoord, 0, dimension);
+			SetCoord(iv, vcoord);
+		}
+	}
+
+	/** Copy coordinates of vertex iv into coord[]. */
+	public void GetCoord(int iv, float[] coord)
+	{
+		for (int ic = 0; ic < dimension; ic++)
+		{ coord[ic] = Get(iv, ic); }
+	}
+
+	/** Set coordinates of vertex iv to coord[]. */
+	public void SetCoord(int iv, float[] coord)
+	{
+		for (int ic = 0; ic < dimension; ic++)
+		{ Set(iv, ic, coord[ic]); }
+	}
+
+	/** Set all coordinates of vertex iv to 0. */
+	public void SetZero(int iv)
+	{
+		for (int ic = 0; ic < dimension; ic++)
+		{ Set(iv, ic, 0.0f); }
+	}
+
+}
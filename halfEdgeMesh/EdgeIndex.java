@@ -0,0 +1,209 @@
+package halfEdgeMesh;
+
+/// \file EdgeIndex.java
+/// Hash table of mesh edges keyed by vertex pairs.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.Arrays;
+
+/** Hash table from (from vertex, to vertex) pairs to half edges.
+ * <ul>
+ * <li> Key is a long packing the two vertex indices.
+ * <li> Open addressing with linear probing.  No boxing and
+ *   no per entry objects.
+ * <li> Removal shifts later entries in the probe sequence back,
+ *   so the table contains no tombstones.
+ * <li> Table size is a power of two and at most half full.
+ * </ul>
+ */
+public class EdgeIndex {
+
+	/** Initial table size. */
+	static final int INITIAL_TABLE_SIZE = 64;
+
+	/** Key of empty table slot.  Never equals Key(iv0,iv1). */
+	static final long EMPTY_KEY = -1L;
+
+	/** Table keys. */
+	protected long[] key;
+
+	/** Table values.  value[i] is null if key[i] is EMPTY_KEY. */
+	protected HalfEdgeBase[] value;
+
+	/** Number of entries in the table. */
+	protected int num_entries = 0;
+
+	/** Table size minus one.  Table size is a power of two. */
+	protected int mask;
+
+
+	public EdgeIndex()
+	{ _Allocate(INITIAL_TABLE_SIZE); }
+
+	/** Return key for vertex pair (iv0,iv1).
+	 * @pre iv0 and iv1 are non-negative.
+	 */
+	public static long Key(int iv0, int iv1)
+	{ return ((((long) iv0) << 32) | (iv1 & 0xffffffffL)); }
+
+	/** Return number of entries. */
+	public int Size()
+	{ return num_entries; }
+
+	/** Return half edge stored with key k.
+	 * <ul> 
+	 * <li> Return null if key k is not in table. 
+	 * <li> Probes at most key.length entries of a single key[] array,
+	 *   so Get() terminates even if another thread is modifying
+	 *   or resizing the table.  (The result is then unreliable.)
+	 * </ul>
+	 */
+	public HalfEdgeBase Get(long k)
+	{
+		final long[] key = this.key;
+		final int mask = key.length-1;
+		int i = _Hash(k) & mask;
+		for (int n = 0; n < key.length && key[i] != EMPTY_KEY; n++) {
+			if (key[i] == k) { return value[i]; }
+			i = (i+1) & mask;
+		}
+
+		return null;
+	}
+
+	/** Store half_edge with key k.
+	 * <ul> <li> Replaces any half edge stored with key k. </ul>
+	 */
+	public void Put(long k, HalfEdgeBase half_edge)
+	{
+		if (2*(num_entries+1) > key.length)
+		{ _Resize(2*key.length); }
+
+		int i = _Hash(k) & mask;
+		while (key[i] != EMPTY_KEY) {
+			if (key[i] == k) {
+				value[i] = half_edge;
+				return;
+			}
+			i = (i+1) & mask;
+		}
+
+		key[i] = k;
+		value[i] = half_edge;
+		num_entries++;
+	}
+
+	/** Remove key k.
+	 * <ul> <li> Does nothing if key k is not in table. </ul>
+	 */
+	public void Remove(long k)
+	{
+		int i = _Hash(k) & mask;
+		while (key[i] != k) {
+			if (key[i] == EMPTY_KEY) { return; }
+			i = (i+1) & mask;
+		}
+
+		// Shift back later entries whose probe sequence passes through i.
+		int j = i;
+		while (true) {
+			j = (j+1) & mask;
+			if (key[j] == EMPTY_KEY) { break; }
+
+			final int jhome = _Hash(key[j]) & mask;
+			// Move key[j] to i if jhome is not cyclically in (i,j].
+			if (((j-jhome) & mask) >= ((j-i) & mask)) {
+				key[i] = key[j];
+				value[i] = value[j];
+				i = j;
+			}
+		}
+
+		key[i] = EMPTY_KEY;
+		value[i] = null;
+		num_entries--;
+	}
+
+	/** Remove all entries. */
+	public void Clear()
+	{
+		Arrays.fill(key, EMPTY_KEY);
+		Arrays.fill(value, null);
+		num_entries = 0;
+	}
+
+
+	/** Return estimated bytes used by the edge index.
+	 * @see MeshFootprint
+	 */
+	public long EstimateBytes()
+	{
+		return MeshFootprint.ObjectBytes(getClass()) +
+			MeshFootprint.ArrayBytes(key.length, 8) +
+			MeshFootprint.ArrayBytes(value.length, MeshFootprint.REFERENCE_BYTES);
+	}
+
+	/** Return estimated bytes in empty table slots. */
+	public long EstimateUnusedBytes()
+	{
+		return ((long) (key.length - num_entries))*
+			(8 + MeshFootprint.REFERENCE_BYTES);
+	}
+
+	// *** Internal (protected) functions ***
+
+	/** Return hash of key k. */
+	protected static int _Hash(long k)
+	{
+		// Mixing function from MurmurHash3 (fmix64).
+		k ^= (k >>> 33);
+		k *= 0xff51afd7ed558ccdL;
+		k ^= (k >>> 33);
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= (k >>> 33);
+		return (int) k;
+	}
+
+	/** Allocate empty table of size table_size.
+	 * @pre table_size is a power of two.
+	 */
+	protected void _Allocate(int table_size)
+	{
+		key = new long[table_size];
+		value = new HalfEdgeBase[table_size];
+		Arrays.fill(key, EMPTY_KEY);
+		mask = table_size-1;
+		num_entries = 0;
+	}
+
+	/** Resize table and reinsert all entries. */
+	protected void _Resize(int table_size)
+	{
+		final long[] key0 = key;
+		final HalfEdgeBase[] value0 = value;
+
+		_Allocate(table_size);
+		for (int i = 0; i < key0.length; i++) {
+			if (key0[i] != EMPTY_KEY)
+			{ Put(key0[i], value0[i]); }
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+package halfEdgeMesh;
+
+/// \file ElementArrayTable.java
+/// Table of mesh elements stored in a dense array.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/** Table of mesh elements stored in a dense array indexed by element index.
+ * <ul>
+ * <li> Lookup is a single array access.  No boxing and no hashing.
+ * <li> Bitmap is_alive marks which array slots contain elements.
+ *   Slots of removed elements are tombstones (bit cleared, slot set to null).
+ * <li> Array grows (doubles) as needed.  Memory is proportional
+ *   to the max element index, so indices should be dense.
+ * </ul>
+ * @param <T> Type of element stored in the table.
+ */
+public class ElementArrayTable<T> extends ElementTableBase<T> {
+
+	/** Initial array capacity. */
+	static final int INITIAL_CAPACITY = 16;
+
+	/** Array of elements.  element[i] is null if no element has index i. */
+	protected Object[] element = new Object[INITIAL_CAPACITY];
+
+	/** is_alive.get(i) is true if some element has index i. */
+	protected BitSet is_alive = new BitSet();
+
+	/** Number of elements in the table. */
+	protected int num_elements = 0;
+
+
+	public void EnsureCapacity(int capacity)
+	{
+		if (capacity <= element.length) { return; }
+
+		int new_capacity = Math.max(capacity, 2*element.length);
+		element = Arrays.copyOf(element, new_capacity);
+	}
+
+	/** Return array capacity. */
+	public int Capacity()
+	{ return element.length; }
+
+
+	@SuppressWarnings("unchecked")
+	public T Get(int i)
+	{
+		if (i < 0 || i >= element.length) { return null; }
+		return (T) element[i];
+	}
+
+	public void Put(int i, T x)
+	{
+		EnsureCapacity(i+1);
+		if (!is_alive.get(i)) {
+			is_alive.set(i);
+			num_elements++;
+		}
+		element[i] = x;
+	}
+
+	public void Remove(int i)
+	{
+		if (!ContainsIndex(i)) { return; }
+
+		is_alive.clear(i);
+		element[i] = null;
+		num_elements--;
+	}
+
+	public boolean ContainsIndex(int i)
+	{
+		if (i < 0) { return false; }
+		return is_alive.get(i);
+	}
+
+	public int Size()
+	{ return num_elements; }
+
+	/** Return max index of any element in the table.
+	 * <ul> <li> Runs in time proportional to the number of
+	 *   64-bit words in bitmap is_alive. </ul>
+	 */
+	public int MaxIndex()
+	{ return is_alive.length()-1; }
+
+	public Set<Integer> IndexSet()
+	{ return index_set; }
+
+	/** Return iterator over indices of elements in the table.
+	 * <ul> <li> Iterates in increasing index order, using bitmap is_alive. </ul>
+	 */
+	public PrimitiveIterator.OfInt IndexIterator()
+	{
+		return new PrimitiveIterator.OfInt() {
+
+			int inext = is_alive.nextSetBit(0);
+
+			public boolean hasNext()
+			{ return (inext >= 0); }
+
+			public int nextInt()
+			{
+				if (inext < 0)
+				{ throw new NoSuchElementException(); }
+
+				int i = inext;
+				inext = is_alive.nextSetBit(i+1);
+				return i;
+			}
+		};
+	}
+
+	public IntStream IndexStream()
+	{ return is_alive.stream(); }
+
+	public void ForEachIndex(IntConsumer action)
+	{
+		for (int i = is_alive.nextSetBit(0); i >= 0; i = is_alive.nextSetBit(i+1))
+		{ action.accept(i); }
+	}
+
+	@SuppressWarnings("unchecked")
+	public void ForEach(Consumer<? super T> action)
+	{
+		for (int i = is_alive.nextSetBit(0); i >= 0; i = is_alive.nextSetBit(i+1))
+		{ action.accept((T) element[i]); }
+	}
+
+	public void Clear()
+	{
+		Arrays.fill(element, null);
+		is_alive.clear();
+		num_elements = 0;
+	}
+
+	public boolean IsArrayTable()
+	{ return true; }
+
+	/** Return estimated bytes used by the table.
+	 * <ul> <li> Includes the element array and bitmap is_alive. </ul>
+	 */
+	public long EstimateBytes()
+	{
+		return MeshFootprint.ObjectBytes(getClass()) +
+			MeshFootprint.ArrayBytes(element.length, MeshFootprint.REFERENCE_BYTES) +
+			MeshFootprint.ObjectBytes(BitSet.class) +
+			MeshFootprint.ArrayBytes(is_alive.size()/64, 8);
+	}
+
+	/** Return estimated bytes in unused array slots.
+	 * <ul> <li> Includes slots of removed elements. </ul>
+	 */
+	public long EstimateUnusedBytes()
+	{ return ((long) (element.length - num_elements))*MeshFootprint.REFERENCE_BYTES; }
+
+
+	/** Set of indices of table elements.
+	 *  - Backed by bitmap is_alive.
+	 *  - Iterates in increasing index order.
+	 */
+	protected final Set<Integer> index_set = new AbstractSet<Integer>() {
+
+		public int size()
+		{ return num_elements; }
+
+		public boolean contains(Object x)
+		{ return (x instanceof Integer) && ContainsIndex((Integer) x); }
+
+		public Iterator<Integer> iterator()
+		{ return IndexIterator(); }
+	};
+}
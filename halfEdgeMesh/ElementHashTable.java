@@ -0,0 +1,87 @@
+package halfEdgeMesh;
+
+/// \file ElementHashTable.java
+/// Table of mesh elements stored in a hash table.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.*;
+import java.util.function.*;
+
+/** Table of mesh elements stored in a hash table.
+ * <ul> <li> Indices need not be dense.  Memory is proportional
+ *   to the number of elements, but each lookup boxes the index. </ul>
+ * @param <T> Type of element stored in the table.
+ */
+public class ElementHashTable<T> extends ElementTableBase<T> {
+
+	/** Hash table of elements. */
+	protected HashMap<Integer,T> hashtable = new HashMap<Integer,T>();
+
+	public T Get(int i)
+	{ return hashtable.get(i); }
+
+	public void Put(int i, T x)
+	{ hashtable.put(i, x); }
+
+	public void Remove(int i)
+	{ hashtable.remove(i); }
+
+	public boolean ContainsIndex(int i)
+	{ return hashtable.containsKey(i); }
+
+	public int Size()
+	{ return hashtable.size(); }
+
+	/** Return max index of any element in the table.
+	 * <ul> <li> Note: This is a time consuming operation
+	 *   that inspects all the hashtable keys. </ul>
+	 */
+	public int MaxIndex()
+	{
+		if (hashtable.size() == 0) { return(-1); }
+
+		// Otherwise:
+		return Collections.max(hashtable.keySet());
+	}
+
+	public Set<Integer> IndexSet()
+	{ return hashtable.keySet(); }
+
+	public void ForEach(Consumer<? super T> action)
+	{ hashtable.values().forEach(action); }
+
+	public void Clear()
+	{ hashtable.clear(); }
+
+	public boolean IsArrayTable()
+	{ return false; }
+
+	/** Return estimated bytes used by the table.
+	 * <ul> <li> Includes hash table nodes and boxed keys. </ul>
+	 */
+	public long EstimateBytes()
+	{
+		return MeshFootprint.ObjectBytes(getClass()) +
+			MeshFootprint.HashMapBytes(hashtable.size());
+	}
+
+	public long EstimateUnusedBytes()
+	{ return MeshFootprint.HashMapUnusedBytes(hashtable.size()); }
+}
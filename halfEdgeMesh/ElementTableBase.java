@@ -0,0 +1,148 @@
+package halfEdgeMesh;
+
+/// \file ElementTableBase.java
+/// Table of mesh elements (vertices, half edges or cells) keyed by index.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/** Abstract base class for tables of mesh elements.
+ * <ul>
+ * <li> Stores vertices, half edges or cells keyed by their (non-negative)
+ *   integer index.
+ * <li> ElementHashTable stores elements in a hash table.
+ * <li> ElementArrayTable stores elements in a dense array indexed
+ *   by element index.
+ * <li> Get functions do not check their arguments, other than
+ *   returning null for indices that are not in the table.
+ * </ul>
+ * @param <T> Type of element stored in the table.
+ */
+public abstract class ElementTableBase<T> {
+
+	/** Return element with index i.
+	 * <ul> <li> Return null if no element has index i. </ul>
+	 */
+	public abstract T Get(int i);
+
+	/** Store element x at index i.
+	 * <ul> <li> Replaces any element with index i. </ul>
+	 * @pre i is non-negative.
+	 */
+	public abstract void Put(int i, T x);
+
+	/** Remove element with index i.
+	 * <ul> <li> Does nothing if no element has index i. </ul>
+	 */
+	public abstract void Remove(int i);
+
+	/** Return true if some element has index i. */
+	public abstract boolean ContainsIndex(int i);
+
+	/** Return number of elements in the table. */
+	public abstract int Size();
+
+	/** Return max index of any element in the table.
+	 * <ul> <li> Return -1 if table is empty. </ul>
+	 */
+	public abstract int MaxIndex();
+
+	/** Return set of indices of elements in the table.
+	 * <ul> <li> Set is backed by the table.  Changes to the table
+	 *   are reflected in the set. </ul>
+	 */
+	public abstract Set<Integer> IndexSet();
+
+	/** Return iterator over indices of elements in the table.
+	 * <ul>
+	 * <li> nextInt() returns primitive int indices.  No boxing.
+	 * <li> Table should not be modified during the iteration.
+	 * </ul>
+	 */
+	public PrimitiveIterator.OfInt IndexIterator()
+	{
+		final Iterator<Integer> iter = IndexSet().iterator();
+		return new PrimitiveIterator.OfInt() {
+
+			public boolean hasNext()
+			{ return iter.hasNext(); }
+
+			public int nextInt()
+			{ return iter.next(); }
+		};
+	}
+
+	/** Return stream of indices of elements in the table. */
+	public IntStream IndexStream()
+	{ return IndexSet().stream().mapToInt(Integer::intValue); }
+
+	/** Apply action to the index of each element in the table.
+	 * <ul> <li> Action should not add or remove table elements. </ul>
+	 */
+	public void ForEachIndex(IntConsumer action)
+	{
+		for (PrimitiveIterator.OfInt iter = IndexIterator(); iter.hasNext(); )
+		{ action.accept(iter.nextInt()); }
+	}
+
+	/** Apply action to each element in the table.
+	 * <ul> <li> Action should not add or remove table elements. </ul>
+	 */
+	public void ForEach(Consumer<? super T> action)
+	{
+		for (PrimitiveIterator.OfInt iter = IndexIterator(); iter.hasNext(); )
+		{ action.accept(Get(iter.nextInt())); }
+	}
+
+	/** Remove all elements from the table. */
+	public abstract void Clear();
+
+	/** Return true if elements are stored in a dense array. */
+	public abstract boolean IsArrayTable();
+
+	/** Return estimated bytes used by the table.
+	 * <ul> <li> Does not include the elements themselves. </ul>
+	 * @see MeshFootprint
+	 */
+	public abstract long EstimateBytes();
+
+	/** Return estimated bytes of allocated but unused table capacity. */
+	public abstract long EstimateUnusedBytes();
+
+	/** Ensure that the table can store elements with indices
+	 *    [0..(capacity-1)] without reallocation.
+	 * <ul> <li> Does nothing unless elements are stored in an array. </ul>
+	 */
+	public void EnsureCapacity(int capacity)
+	{}
+
+
+	/** Copy all elements in table0 into this table. */
+	public void CopyFrom(ElementTableBase<T> table0)
+	{
+		for (PrimitiveIterator.OfInt iter = table0.IndexIterator(); iter.hasNext(); ) {
+			final int i = iter.nextInt();
+			Put(i, table0.Get(i));
+		}
+	}
+
+}
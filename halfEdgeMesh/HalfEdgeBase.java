@@ -41,6 +41,11 @@ public abstract class HalfEdgeBase {
 	/// - Equals itself (this) if half edge is a boundary half edge.
 	protected HalfEdgeBase next_half_edge_around_edge;
 	
+	/// Reference to previous half edge around edge.
+	/// - Half edges around edge form a doubly linked cyclic list.
+	/// - Equals itself (this) if half edge is a boundary half edge.
+	protected HalfEdgeBase prev_half_edge_around_edge;
+	
 	/// Reference to from vertex.
 	protected VertexBase from_vertex;
 	
@@ -52,6 +57,7 @@ public abstract class HalfEdgeBase {
 		next_half_edge_in_cell = null;
 		prev_half_edge_in_cell = null;
 		next_half_edge_around_edge = this;
+		prev_half_edge_around_edge = this;
 		from_vertex = null;
 		cell = null;
 	}
@@ -198,28 +204,10 @@ public abstract class HalfEdgeBase {
 	}
 	
 	/** Return previous half edge around edge. 
-	 *  - Runs in time proportional to the number of half edges around edge.
+	 *  - Runs in constant time.
 	 */
-	protected HalfEdgeBase PrevHalfEdgeAroundEdge() throws Exception
-	{
-		// Cannot have more than max_num half edges around an edge.
-		int max_numh =
-				FromVertex().NumHalfEdgesFrom() +
-				ToVertex().NumHalfEdgesFrom();
-		
-		HalfEdgeBase half_edge = NextHalfEdgeAroundEdge();
-		for (int k = 0; k < max_numh; k++) {
-			
-			if (this == half_edge.NextHalfEdgeAroundEdge())
-			{ return half_edge; }
-			
-			half_edge = half_edge.NextHalfEdgeAroundEdge();
-		}
-		
-		// Should never reach here. Data structure inconsistency.
-		throw new Exception
-			("Programming error.  Unable to find previous half edge around edge.");
-	}
+	protected HalfEdgeBase PrevHalfEdgeAroundEdge()
+	{ return prev_half_edge_around_edge; }
 	
 	
 	/** Return true if this half edge and half_edgeB
@@ -46,6 +46,10 @@ package halfEdgeMesh;
 */
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.*;
+import java.util.stream.*;
 import java.io.PrintStream;
 
 
@@ -62,18 +66,29 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	 */
 	protected HalfEdgeMeshFactoryBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> factory;
 
-	/** Hash table of all vertices. */
-	protected HashMap<Integer,VERTEX_TYPE> vertex_hashtable = new HashMap<Integer,VERTEX_TYPE>();
+	/** Table of all vertices.
+	 *  - Hash table by default.  Dense array if SetArrayStorage(true).
+	 */
+	protected ElementTableBase<VERTEX_TYPE> vertex_table = new ElementHashTable<VERTEX_TYPE>();
 	
-	/** Hash table of all half edges. */
-	protected HashMap<Integer,HALF_EDGE_TYPE> half_edge_hashtable = new HashMap<Integer,HALF_EDGE_TYPE>();
+	/** Table of all half edges.
+	 *  - Hash table by default.  Dense array if SetArrayStorage(true).
+	 */
+	protected ElementTableBase<HALF_EDGE_TYPE> half_edge_table = new ElementHashTable<HALF_EDGE_TYPE>();
 	
-	/** Hash table of all cells. */
-	protected HashMap<Integer,CELL_TYPE> cell_hashtable = new HashMap<Integer,CELL_TYPE>();
+	/** Table of all cells.
+	 *  - Hash table by default.  Dense array if SetArrayStorage(true).
+	 */
+	protected ElementTableBase<CELL_TYPE> cell_table = new ElementHashTable<CELL_TYPE>();
 	
 	/// Upper bound on the vertex index.  
 	/// - Could be greater than the maximum if some vertices are deleted.
 	protected int _max_vertex_index = -1;
+
+	/** Vertex coordinates, packed into a single array.
+	 * <ul> <li> Shared by all mesh vertices. </ul>
+	 */
+	protected CoordStoreBase coord_store = new CoordArrayStore(VertexBase.Dimension());
 	
 	/// Upper bound on the half edge index.  
 	/// - Could be greater than the maximum if some half edges are deleted.
@@ -83,24 +98,82 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	/// - Could be greater than the maximum if some half edges are deleted.
 	protected int _max_cell_index = -1;
 	
+	/// If true, new vertices, half edges and cells reuse indices
+	///   of deleted vertices, half edges and cells.
+	/// - If false, new indices are always (max index)+1.
+	protected boolean flag_reuse_indices = false;
+	
+	/// Indices of deleted vertices available for reuse.
+	/// - Only used if flag_reuse_indices is true.
+	protected IndexFreeList vertex_free_list = new IndexFreeList();
+	
+	/// Indices of deleted half edges available for reuse.
+	/// - Only used if flag_reuse_indices is true.
+	protected IndexFreeList half_edge_free_list = new IndexFreeList();
+	
+	/// Indices of deleted cells available for reuse.
+	/// - Only used if flag_reuse_indices is true.
+	protected IndexFreeList cell_free_list = new IndexFreeList();
+	
+	/// Hash table from (from vertex, to vertex) to half edge.
+	/// - Null if edge index is not used.
+	/// - Every half edge has an entry for its endpoints, but entries
+	///   may be stale (referencing deleted or relinked half edges).
+	///   Stale entries are detected and repaired by FindHalfEdge().
+	protected EdgeIndex edge_index = null;
+	
+	/// If true, FindHalfEdge() repairs stale edge index entries.
+	/// - If false, FindHalfEdge() does not modify the edge index,
+	///   so that multiple threads can call it concurrently.
+	protected boolean flag_repair_edge_index = true;
+	
+	/// Thread whose FindHalfEdge() calls repair stale edge index entries,
+	///   even if flag_repair_edge_index is false.  Null if none.
+	/// - Set only by a thread with exclusive access to the mesh,
+	///   e.g., holding a write lock, and reset before releasing it.
+	/// - No other thread ever reads its own Thread here,
+	///   so other threads never repair the edge index.
+	protected volatile Thread edge_index_repair_thread = null;
+	
+	/// Number of edges, i.e., number of cycles of half edges around edges.
+	/// - Maintained by every function that adds, deletes or relinks
+	///   half edges around edges.
+	protected int _num_edges = 0;
+	
+	/// Number of boundary edges, i.e., edges with exactly one half edge.
+	protected int _num_boundary_edges = 0;
+	
+	/// Number of vertices with no half edges from the vertex.
+	protected int _num_isolated_vertices = 0;
+	
+	/// _num_cells_of_size[numv] is the number of cells with numv vertices.
+	/// - Array grows as needed.
+	protected int[] _num_cells_of_size = new int[8];
+	
+	/// Snapshot of the mesh for RollbackToSnapshot().
+	/// - Null if no snapshot is active.
+	/// - While a snapshot is active, each vertex, half edge and cell
+	///   is copied into the snapshot before it is first changed.
+	protected MeshSnapshot snapshot = null;
+	
 	
 	// Get functions.
 	
 	/** Return vertex with index iv. */
 	public VERTEX_TYPE Vertex(int iv)
-	{ return vertex_hashtable.get(iv); }
+	{ return vertex_table.Get(iv); }
 	
-	/** Return set of vertex indices (vertex_hashtable keys). */
+	/** Return set of vertex indices (vertex_table keys). */
 	public Set<Integer> VertexIndices()
-	{ return vertex_hashtable.keySet(); }
+	{ return vertex_table.IndexSet(); }
 		
 	/** Return half edge with index ihalf_edge. */
 	public HALF_EDGE_TYPE HalfEdge(int ihalf_edge)
-	{ return half_edge_hashtable.get(ihalf_edge); }
+	{ return half_edge_table.Get(ihalf_edge); }
 	
-	/** Return set of half edge indices (half_edge_hashtable keys). */
+	/** Return set of half edge indices (half_edge_table keys). */
 	public Set<Integer> HalfEdgeIndices()
-	{ return half_edge_hashtable.keySet(); }
+	{ return half_edge_table.IndexSet(); }
 	
 	/** Return list of edges
 	 *  - Edges are represented by half_edges, one half_edge per edge.
@@ -109,8 +182,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		List<HALF_EDGE_TYPE> elist = new ArrayList<HALF_EDGE_TYPE>();
 		
-		for (Integer ihalf_edge:HalfEdgeIndices()) {
-			HALF_EDGE_TYPE half_edge = HalfEdge(ihalf_edge);
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			HALF_EDGE_TYPE half_edge = HalfEdge(iter.nextInt());
 			if (half_edge == half_edge.MinIndexHalfEdgeAroundEdge())
 			{ elist.add(half_edge); }
 		}
@@ -120,40 +193,172 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	
 	/** Return cell with index icell. */
 	public CELL_TYPE Cell(int icell)
-	{ return cell_hashtable.get(icell); }
+	{ return cell_table.Get(icell); }
 	
-	/** Return set of cell indices (cell_hasthable keys). */
+	/** Return set of cell indices (cell_table keys). */
 	public Set<Integer> CellIndices()
-	{ return cell_hashtable.keySet(); }
+	{ return cell_table.IndexSet(); }
+	
+	
+	// *** Primitive iteration over vertices, half edges and cells ***
+	
+	/** Return iterator over vertex indices.
+	 *  - nextInt() returns primitive int indices.  No boxing.
+	 *  - Mesh should not be modified during the iteration.
+	 */
+	public PrimitiveIterator.OfInt VertexIndexIterator()
+	{ return vertex_table.IndexIterator(); }
+	
+	/** Return iterator over half edge indices.
+	 *  - nextInt() returns primitive int indices.  No boxing.
+	 *  - Mesh should not be modified during the iteration.
+	 */
+	public PrimitiveIterator.OfInt HalfEdgeIndexIterator()
+	{ return half_edge_table.IndexIterator(); }
+	
+	/** Return iterator over cell indices.
+	 *  - nextInt() returns primitive int indices.  No boxing.
+	 *  - Mesh should not be modified during the iteration.
+	 */
+	public PrimitiveIterator.OfInt CellIndexIterator()
+	{ return cell_table.IndexIterator(); }
+	
+	/** Return stream of vertex indices. */
+	public IntStream VertexIndexStream()
+	{ return vertex_table.IndexStream(); }
+	
+	/** Return stream of half edge indices. */
+	public IntStream HalfEdgeIndexStream()
+	{ return half_edge_table.IndexStream(); }
+	
+	/** Return stream of cell indices. */
+	public IntStream CellIndexStream()
+	{ return cell_table.IndexStream(); }
+	
+	/** Apply action to each vertex index.
+	 *  - Action should not add or delete vertices.
+	 */
+	public void ForEachVertexIndex(IntConsumer action)
+	{ vertex_table.ForEachIndex(action); }
+	
+	/** Apply action to each half edge index.
+	 *  - Action should not add or delete half edges.
+	 */
+	public void ForEachHalfEdgeIndex(IntConsumer action)
+	{ half_edge_table.ForEachIndex(action); }
+	
+	/** Apply action to each cell index.
+	 *  - Action should not add or delete cells.
+	 */
+	public void ForEachCellIndex(IntConsumer action)
+	{ cell_table.ForEachIndex(action); }
+	
+	/** Apply action to each vertex.
+	 *  - Action should not add or delete vertices.
+	 */
+	public void ForEachVertex(Consumer<? super VERTEX_TYPE> action)
+	{ vertex_table.ForEach(action); }
+	
+	/** Apply action to each half edge.
+	 *  - Action should not add or delete half edges.
+	 */
+	public void ForEachHalfEdge(Consumer<? super HALF_EDGE_TYPE> action)
+	{ half_edge_table.ForEach(action); }
+	
+	/** Apply action to each cell.
+	 *  - Action should not add or delete cells.
+	 */
+	public void ForEachCell(Consumer<? super CELL_TYPE> action)
+	{ cell_table.ForEach(action); }
+	
+	
+	/** Return true if deleted vertices, half edges and cells
+	 *    are recycled by the factory for new ones. */
+	public boolean FlagPoolElements()
+	{ return factory.FlagPool(); }
 	
-	/** Return number of vertices. (Number of vertices in vertex_hashtable.) */
+	/** Return true if edge index is used for FindEdge() and FindHalfEdge(). */
+	public boolean FlagEdgeIndex()
+	{ return (edge_index != null); }
+	
+	/** Return store of vertex coordinates. */
+	public CoordStoreBase CoordStore()
+	{ return coord_store; }
+
+	/** Return number of vertices. (Number of vertices in vertex_table.) */
 	public int NumVertices()
-	{ return vertex_hashtable.size(); }
+	{ return vertex_table.Size(); }
 	
-	/** Return number of half edges. (Number of half edges in half_edge_hashtable.) */
+	/** Return number of half edges. (Number of half edges in half_edge_table.) */
 	public int NumHalfEdges()
-	{ return half_edge_hashtable.size(); }
+	{ return half_edge_table.Size(); }
 	
-	/** Return number of cells. (Number of cells in cell_hashtable.) */
+	/** Return number of cells. (Number of cells in cell_table.) */
 	public int NumCells()
-	{ return cell_hashtable.size(); }
+	{ return cell_table.Size(); }
 	
+	/** Return number of edges. 
+	 * - Runs in constant time.  Same as CountNumEdges().
+	 */
+	public int NumEdges()
+	{ return _num_edges; }
 	
-	/** Return max index in a hashtable.
-	 * - Return -1 if hashtable is empty.
-	 * - Note: This is a time consuming operation that inspects all the hashtable keys.
-	 * @param <VALUE_TYPE>
-	 * @param hashtable
-	 * @return
+	/** Return number of boundary edges. 
+	 * - Runs in constant time.  Same as CountNumBoundaryEdges().
+	 */
+	public int NumBoundaryEdges()
+	{ return _num_boundary_edges; }
+	
+	/** Return number of isolated vertices.
+	 * - Runs in constant time.  Same as CountNumIsolatedVertices().
+	 */
+	public int NumIsolatedVertices()
+	{ return _num_isolated_vertices; }
+	
+	/** Return number of cells with numv vertices.
+	 * - Runs in constant time.  Same as CountNumCellsOfSize(numv).
 	 */
-	protected <VALUE_TYPE> int _MaxIndex(HashMap<Integer,VALUE_TYPE> hashtable)
+	public int NumCellsOfSize(int numv)
 	{
-		if (hashtable.size() == 0) { return(-1); }
-		
-		// Otherwise:
-		return Collections.max(hashtable.keySet());
+		if (numv < 0 || numv >= _num_cells_of_size.length)
+		{ return 0; }
+		return _num_cells_of_size[numv];
+	}
+	
+	/** Return number of cells with numv or more vertices.
+	 * - Runs in time proportional to the maximum cell size.
+	 *   Same as CountNumCellsOfSizeGE(numv).
+	 */
+	public int NumCellsOfSizeGE(int numv)
+	{
+		int num_cells = 0;
+		for (int k = Math.max(numv,0); k < _num_cells_of_size.length; k++)
+		{ num_cells += _num_cells_of_size[k]; }
+		return num_cells;
 	}
 	
+	/** Return true if vertices, half edges and cells
+	 *    are stored in dense arrays indexed by element index. */
+	public boolean IsArrayStorage()
+	{ return vertex_table.IsArrayTable(); }
+	
+	/** Return true if new vertices, half edges and cells
+	 *    reuse indices of deleted ones. */
+	public boolean FlagReuseIndices()
+	{ return flag_reuse_indices; }
+	
+	
+	/** Return max index in a table.
+	 * - Return -1 if table is empty.
+	 * - Note: For hash tables, this is a time consuming operation
+	 *   that inspects all the hashtable keys.
+	 * @param <VALUE_TYPE>
+	 * @param table
+	 * @return
+	 */
+	protected <VALUE_TYPE> int _MaxIndex(ElementTableBase<VALUE_TYPE> table)
+	{ return table.MaxIndex(); }
+	
 	
 	/** Return upper bound on vertex indices in the half edge mesh.
 	 * <ul> 
@@ -191,18 +396,66 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	 */
 	public HalfEdgeBase FindEdge(VertexBase v0, VertexBase v1)
 	{
-		HalfEdgeBase half_edge =
-				v0.FindHalfEdgeTo(v1.Index());
+		HalfEdgeBase half_edge = FindHalfEdge(v0, v1);
 		
 		if (half_edge != null)
 		{ return half_edge; }
 		
-		half_edge = v1.FindHalfEdgeTo(v0.Index());
+		half_edge = FindHalfEdge(v1, v0);
+		
+		return half_edge;
+	}
+	
+	
+	/** Find half edge (vfrom,vto), if it exists.
+	 * - Return null if no half edge found.
+	 * - Takes constant (expected) time if edge index is used.
+	 *   Otherwise, same as vfrom.FindHalfEdgeTo(vto.Index()).
+	 * - If more than one half edge is (vfrom,vto), the half edge returned
+	 *   with the edge index may differ from the one returned without it.
+	 */
+	public HalfEdgeBase FindHalfEdge(VertexBase vfrom, VertexBase vto)
+	{
+		if (edge_index == null)
+		{ return vfrom.FindHalfEdgeTo(vto.Index()); }
+		
+		final long key = EdgeIndex.Key(vfrom.Index(), vto.Index());
+		HalfEdgeBase half_edge = edge_index.Get(key);
+		if (half_edge == null) {
+			// No half edge (vfrom,vto).
+			return null;
+		}
+		
+		if (_IsValidEdgeIndexEntry(half_edge, vfrom, vto))
+		{ return half_edge; }
+		
+		// Stale entry. Search vfrom.half_edge_from[] and repair entry.
+		half_edge = vfrom.FindHalfEdgeTo(vto.Index());
+		if (!_IsEdgeIndexRepairedByCurrentThread())
+		{ return half_edge; }
+		else if (half_edge == null)
+		{ edge_index.Remove(key); }
+		else
+		{ edge_index.Put(key, half_edge); }
 		
 		return half_edge;
 	}
 	
 	
+	/** Return true if edge index entry half_edge is 
+	 *    a half edge (vfrom,vto) in the mesh.
+	 * - Return false if the entry is stale.
+	 */
+	protected boolean _IsValidEdgeIndexEntry
+	(HalfEdgeBase half_edge, VertexBase vfrom, VertexBase vto)
+	{
+		return (half_edge.from_vertex == vfrom &&
+				half_edge.next_half_edge_in_cell != null &&
+				half_edge.next_half_edge_in_cell.from_vertex == vto &&
+				half_edge_table.Get(half_edge.Index()) == half_edge);
+	}
+	
+	
 	// *** Count functions ***
 	
 	/** Count the number of isolated vertices.
@@ -211,8 +464,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	public int CountNumIsolatedVertices()
 	{
 		int num_isolated_vertices = 0;
-		for (Integer iv: VertexIndices()) {
-			VERTEX_TYPE v = Vertex(iv);
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
+			VERTEX_TYPE v = Vertex(iter.nextInt());
 			if (v.NumHalfEdgesFrom() == 0)
 			{ num_isolated_vertices++; }
 		}
@@ -225,8 +478,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	public int CountNumEdges()
 	{
 		int num_edges = 0;
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
-			HalfEdgeBase half_edge = HalfEdge(ihalf_edge);
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			HalfEdgeBase half_edge = HalfEdge(iter.nextInt());
 			HalfEdgeBase min_index_half_edge =
 					half_edge.MinIndexHalfEdgeAroundEdge();
 			if (half_edge == min_index_half_edge)
@@ -242,8 +495,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	public int CountNumBoundaryEdges()
 	{
 		int num_boundary_edges = 0;
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
-			HALF_EDGE_TYPE half_edge = HalfEdge(ihalf_edge);
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			HALF_EDGE_TYPE half_edge = HalfEdge(iter.nextInt());
 			if (half_edge.IsBoundary())
 			{ num_boundary_edges++; }
 		}
@@ -257,8 +510,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	public int CountNumCellsOfSize(int numv)
 	{
 		int num_cells = 0;
-		for (Integer icell: CellIndices()) {
-			CELL_TYPE cell = Cell(icell);
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
+			CELL_TYPE cell = Cell(iter.nextInt());
 			if (cell.NumVertices() == numv)
 			{ num_cells++; }
 		}
@@ -273,8 +526,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	public int CountNumCellsOfSizeGE(int numv)
 	{
 		int num_cells = 0;
-		for (Integer icell: CellIndices()) {
-			CELL_TYPE cell = Cell(icell);
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
+			CELL_TYPE cell = Cell(iter.nextInt());
 			if (cell.NumVertices() >= numv)
 			{ num_cells++; }
 		}
@@ -294,329 +547,2550 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	/** Count number of pentagons */
 	public int CountNumPentagons()
 	{ return CountNumCellsOfSize(5); }
-	
-	
 
+
+	// *** Storage functions ***
+
+	/** Return immutable snapshot of the mesh stored in
+	 *    int and float buffers.
+	 * <ul>
+	 * <li> Snapshot uses the same vertex, half edge and cell indices.
+	 * <li> Later changes to the mesh are not reflected in the snapshot.
+	 * <li> Throws exception if the mesh is too large for the
+	 *   snapshot buffers.
+	 * <li> To build a snapshot from flat arrays of cell vertices
+	 *   without building the mesh, use the HalfEdgeMeshFrozen constructor.
+	 * </ul>
+	 * @param flag_off_heap If true, store snapshot in direct
+	 *   (off-heap) buffers, outside the Java heap.
+	 *   Otherwise, store snapshot in buffers wrapping int and float arrays.
+	 */
+	public HalfEdgeMeshFrozen Freeze(boolean flag_off_heap) throws Exception
+	{ return new HalfEdgeMeshFrozen(this, flag_off_heap); }
+
+	/** Return immutable snapshot of the mesh stored in int and float arrays. */
+	public HalfEdgeMeshFrozen Freeze() throws Exception
+	{ return Freeze(false); }
+
+
+	/** Store vertex coordinates quantized to nbits bits
+	 *    relative to the bounding box, or as 32 bit floats.
+	 * <ul>
+	 * <li> Quantized coordinates use 16 or 21 bits,
+	 *   instead of 32, per coordinate.  Coordinates are dequantized
+	 *   by VertexBase.Coord() and CoordStore().Get(), so reading
+	 *   coordinates is unchanged, other than the quantization error.
+	 * <li> Bounding box contains all current vertices.
+	 *   Once the box is fixed, SetCoord() throws an exception
+	 *   for coordinates outside the box.
+	 * <li> If the mesh has no vertices, the box is not fixed
+	 *   and coordinates are stored as floats until AddCells()
+	 *   with coordinates sets the box from the coordinates read.
+	 *   To fix the box after setting coordinates with SetCoord(),
+	 *   call SetCoordQuantization() again.
+	 * <li> Converting quantized coordinates back to floats
+	 *   does not recover the lost precision.
+	 * </ul>
+	 * @param nbits Number of bits per coordinate: 16 or 21,
+	 *   or 0 to store 32 bit floats.
+	 * @see CoordQuantizedStore
+	 */
+	public void SetCoordQuantization(int nbits) throws Exception
+	{
+		final int dimension = coord_store.Dimension();
+		final float[] cmin = new float[dimension];
+		final float[] cmax = new float[dimension];
+		if (NumVertices() == 0)
+		{ _SetCoordStore(_NewCoordStore(nbits, null, null)); }
+		else {
+			ComputeBoundingBox(cmin, cmax);
+			_SetCoordStore(_NewCoordStore(nbits, cmin, cmax));
+		}
+	}
 	
-	
-	// *** Internal (protected) functions ***
-	
-	/// Create vertex with index iv, if it does not yet exist.
-	/// - Returns reference to vertex.
-	/// - Returns reference to vertex, if vertex already exists.
-	protected VERTEX_TYPE _CreateVertex(int iv) throws Exception
+	/** Store vertex coordinates quantized to nbits bits
+	 *    relative to bounding box [cmin,cmax].
+	 * <ul>
+	 * <li> Box is extended to contain all current vertices.
+	 * <li> SetCoord() throws an exception for coordinates outside the box.
+	 * </ul>
+	 * @param nbits Number of bits per coordinate: 16 or 21.
+	 */
+	public void SetCoordQuantization
+	(int nbits, float[] cmin, float[] cmax) throws Exception
 	{
-		if (iv < 0) {
-			throw new Exception("Illegal argument to HalfEdgeMeshBase::_CreateVertex.  Vertex index must be non-negative.");
+		if (nbits == 0) {
+			throw new Exception
+				("Illegal argument to SetCoordQuantization. Number of bits must be 16 or 21.");
 		}
 		
-		VERTEX_TYPE v = vertex_hashtable.get(iv);
-		if (v == null)
-		{
-			/// Cast to VERTEX_TYPE. Needed even though factory.NewVertex() should create vertex of type VERTEX_TYPE.
-			v = (VERTEX_TYPE) factory.NewVertex();
-			v.index = iv;
-			vertex_hashtable.put(iv,v);
+		final int dimension = coord_store.Dimension();
+		final float[] cmin2 = Arrays.copyOf(cmin, dimension);
+		final float[] cmax2 = Arrays.copyOf(cmax, dimension);
+		if (NumVertices() > 0) {
+			final float[] vmin = new float[dimension];
+			final float[] vmax = new float[dimension];
+			ComputeBoundingBox(vmin, vmax);
+			for (int d = 0; d < dimension; d++) {
+				cmin2[d] = Math.min(cmin2[d], vmin[d]);
+				cmax2[d] = Math.max(cmax2[d], vmax[d]);
+			}
 		}
 		
-		_max_vertex_index = Math.max(_max_vertex_index, iv);
-		
-		return v;
+		_SetCoordStore(_NewCoordStore(nbits, cmin2, cmax2));
 	}
 	
-	
-	/// Add half_edgeB after half_edgeA to cyclic list of half edges around edge.
-	protected void _LinkHalfEdgesAroundEdge
-		(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
-	{
-		HalfEdgeBase temp = half_edgeA.NextHalfEdgeAroundEdge();
-		half_edgeA.next_half_edge_around_edge = half_edgeB;
-		half_edgeB.next_half_edge_around_edge = temp;
-	}
+	/** Return number of bits per quantized coordinate.
+	 * <ul> <li> Return 0 if coordinates are stored as 32 bit floats. </ul>
+	 */
+	public int CoordQuantizationBits()
+	{ return coord_store.QuantizationBits(); }
 	
 	
-	/**
-	 * Merge two linked lists of half edges around an edge to form
-	 *   a single linked list.
-	 * - Added by R. Wenger: 11-23-2023
+	/** Compute bounding box of the vertex coordinates.
+	 * <ul> <li> If the mesh has no vertices, sets cmin[] to
+	 *   Float.MAX_VALUE and cmax[] to -Float.MAX_VALUE. </ul>
 	 */
-	protected void _MergeHalfEdgesAroundEdge
-	(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	public void ComputeBoundingBox(float[] cmin, float[] cmax)
 	{
-		final HalfEdgeBase next_half_edge_around_edgeA =
-			half_edgeA.NextHalfEdgeAroundEdge();
-		final HalfEdgeBase next_half_edge_around_edgeB =
-			half_edgeB.NextHalfEdgeAroundEdge();
-		half_edgeA.next_half_edge_around_edge = 
-			next_half_edge_around_edgeB;
-		half_edgeB.next_half_edge_around_edge =
-			next_half_edge_around_edgeA;
+		final int dimension = coord_store.Dimension();
+		final float[] vcoord = new float[dimension];
+		Arrays.fill(cmin, 0, dimension, Float.MAX_VALUE);
+		Arrays.fill(cmax, 0, dimension, -Float.MAX_VALUE);
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
+			coord_store.GetCoord(iter.nextInt(), vcoord);
+			for (int d = 0; d < dimension; d++) {
+				cmin[d] = Math.min(cmin[d], vcoord[d]);
+				cmax[d] = Math.max(cmax[d], vcoord[d]);
+			}
+		}
 	}
-	
-	
-	/** Add half edge with index ihalf_edge to half_edge_hashtable.
-	 * - Returns new half edge.
-	 * @pre No existing half edge has index ihalf_edge.
+
+
+	/** Return estimated memory footprint of the mesh.
+	 * <ul>
+	 * <li> Estimates bytes used by vertices, coordinates, half edges,
+	 *   cells, vertex lists of half edges, element tables, edge index,
+	 *   free index lists and pooled elements.
+	 * <li> Also estimates bytes of allocated but unused capacity,
+	 *   e.g., table slots and coordinates of deleted elements.
+	 * <li> Runs in time proportional to the number of vertices.
+	 * </ul>
+	 * @see MeshFootprint
 	 */
-	protected HALF_EDGE_TYPE _AddHalfEdge(int ihalf_edge)
+	public MeshFootprint EstimateFootprint()
 	{
-		/// Cast to HALF_EDGE_TYPE. Needed even though factory.NewHalfEdge() 
-		///   should create half edge of type HALF_EDGE_TYPE.
-		HALF_EDGE_TYPE half_edge = (HALF_EDGE_TYPE) factory.NewHalfEdge();
-		half_edge.index = ihalf_edge;
-		half_edge_hashtable.put(ihalf_edge, half_edge);
-		_max_half_edge_index = Math.max(_max_half_edge_index, ihalf_edge);
-		return half_edge;
+		final MeshFootprint footprint = new MeshFootprint();
+		final long vertex_object_bytes =
+			_EstimateElementObjectBytes(vertex_table, factory.vertex_pool);
+		final long half_edge_object_bytes =
+			_EstimateElementObjectBytes(half_edge_table, factory.half_edge_pool);
+		final long cell_object_bytes =
+			_EstimateElementObjectBytes(cell_table, factory.cell_pool);
+
+		footprint.vertex_bytes = NumVertices()*vertex_object_bytes;
+		footprint.half_edge_bytes = NumHalfEdges()*half_edge_object_bytes;
+		footprint.cell_bytes = NumCells()*cell_object_bytes;
+
+		footprint.coord_bytes = coord_store.EstimateBytes();
+		footprint.unused_bytes +=
+			Math.max(0L, ((long) (coord_store.Capacity() - NumVertices()))*
+				coord_store.VertexBytes());
+
+		vertex_table.ForEach(v -> {
+			if (v.half_edge_from.length > 0) {
+				footprint.adjacency_bytes +=
+					MeshFootprint.ArrayBytes
+						(v.half_edge_from.length, MeshFootprint.REFERENCE_BYTES);
+				footprint.unused_bytes +=
+					(v.half_edge_from.length - v.num_half_edge_from)*
+						MeshFootprint.REFERENCE_BYTES;
+			}
+		});
+
+		footprint.table_bytes = vertex_table.EstimateBytes() +
+			half_edge_table.EstimateBytes() + cell_table.EstimateBytes();
+		footprint.unused_bytes += vertex_table.EstimateUnusedBytes() +
+			half_edge_table.EstimateUnusedBytes() + cell_table.EstimateUnusedBytes();
+
+		if (edge_index != null) {
+			footprint.edge_index_bytes = edge_index.EstimateBytes();
+			footprint.unused_bytes += edge_index.EstimateUnusedBytes();
+		}
+
+		// Free lists and pooled elements are entirely unused capacity.
+		footprint.free_list_bytes = vertex_free_list.EstimateBytes() +
+			half_edge_free_list.EstimateBytes() + cell_free_list.EstimateBytes();
+		footprint.pool_bytes =
+			factory.NumPooledVertices()*vertex_object_bytes +
+			factory.NumPooledHalfEdges()*half_edge_object_bytes +
+			factory.NumPooledCells()*cell_object_bytes;
+		footprint.unused_bytes += footprint.free_list_bytes + footprint.pool_bytes;
+
+		return footprint;
 	}
-	
-	/** Add new half edge.
-	 * 	- Returns half edge.
-	 *  - New half edge index is determined internally by the function.
+
+
+	/** Return estimated bytes of each element object in table or pool.
+	 * <ul>
+	 * <li> Uses the class of some element in table, or in pool
+	 *   if table is empty.  Returns 0 if both are empty.
+	 * <li> Does not create elements, so does not change the factory
+	 *   or its pools.
+	 * </ul>
 	 */
-	protected HALF_EDGE_TYPE _AddNewHalfEdge()
+	protected static <T> long _EstimateElementObjectBytes
+	(ElementTableBase<T> table, List<T> pool)
 	{
-		Integer ihalf_edge = MaxHalfEdgeIndex()+1;
-		return _AddHalfEdge(ihalf_edge);
+		final PrimitiveIterator.OfInt iter = table.IndexIterator();
+		if (iter.hasNext())
+		{ return MeshFootprint.ObjectBytes(table.Get(iter.nextInt()).getClass()); }
+		else if (pool.size() > 0)
+		{ return MeshFootprint.ObjectBytes(pool.get(0).getClass()); }
+		else
+		{ return 0; }
 	}
 	
 	
-	/** Add half edge with index ihalf_edge and set cell, and from_vertex.
-	 * - Returns new half edge.
-	 * - Add half_edge to from_vertex.half_edge_from.
-	 * - Increment cell.num_vertices.
-	 * @pre No existing half edge has index ihalf_edge.
+	/** Store vertices, half edges and cells in dense arrays
+	 *    or in hash tables.
+	 * <ul>
+	 * <li> If flag_array_storage is true, store vertices, half edges
+	 *   and cells in dense arrays indexed by element index.
+	 *   Lookup by index is a single array access.
+	 *   Memory is proportional to the max element index.
+	 * <li> If flag_array_storage is false, store vertices, half edges
+	 *   and cells in hash tables.  (Default.)
+	 * <li> Elements already in the mesh are moved to the new tables.
+	 * </ul>
 	 */
-	protected HALF_EDGE_TYPE 
-		_AddHalfEdge(int ihalf_edge, CellBase cell, VertexBase from_vertex)
+	public void SetArrayStorage(boolean flag_array_storage)
 	{
-		HALF_EDGE_TYPE half_edge = _AddHalfEdge(ihalf_edge);
-		half_edge.cell = cell;
-		half_edge.from_vertex = from_vertex;
-		
-		// Add half_edge to from_vertex.half_edge_list.
-		from_vertex.half_edge_from.add(half_edge);
+		if (flag_array_storage == IsArrayStorage()) {
+			// Nothing to change.
+			return;
+		}
+
+		vertex_table = _NewElementTable(vertex_table, flag_array_storage);
+		half_edge_table = _NewElementTable(half_edge_table, flag_array_storage);
+		cell_table = _NewElementTable(cell_table, flag_array_storage);
+	}
+
+
+	/** Reuse indices of deleted vertices, half edges and cells.
+	 * <ul>
+	 * <li> If flag_reuse is true, AddNewVertex(), AddNewCell()
+	 *   and internal routines creating new half edges reuse
+	 *   the index most recently freed by a deletion (LIFO).
+	 *   Index space stays compact across long sequences of edits,
+	 *   e.g., SplitCell(), JoinTwoCells() or TriangulateCellFromVertex().
+	 * <li> If flag_reuse is false, new indices are always
+	 *   one plus the max index.  (Default.)
+	 * <li> Note: When indices are reused, an index of a deleted element
+	 *   may later refer to a different, new element.  Routines that save
+	 *   indices across edits must not assume that a deleted element's
+	 *   index stays unused.
+	 * <li> When reuse is turned on, all gaps in the current index ranges
+	 *   are added to the free lists.
+	 * </ul>
+	 */
+	public void SetReuseIndices(boolean flag_reuse)
+	{
+		if (flag_reuse == flag_reuse_indices) {
+			// Nothing to change.
+			return;
+		}
 		
-		cell.num_vertices++;
+		flag_reuse_indices = flag_reuse;
+		vertex_free_list.Clear();
+		half_edge_free_list.Clear();
+		cell_free_list.Clear();
 		
-		return half_edge;
+		if (flag_reuse) {
+			_CollectFreeIndices(vertex_table, MaxVertexIndex(), vertex_free_list);
+			_CollectFreeIndices(half_edge_table, MaxHalfEdgeIndex(), half_edge_free_list);
+			_CollectFreeIndices(cell_table, MaxCellIndex(), cell_free_list);
+		}
 	}
 	
 	
-	/** Add new half edge and set cell, and from_vertex.
-	 * - Returns new half edge.
-	 * - New half edge index is determined internally by the function.
-	 * - Add half_edge to from_vertex.half_edge_from.
-	 * - Increment cell.num_vertices.
-	 * @pre No existing half edge has index ihalf_edge.
+	/** Push all indices in [0..max_index] that are not in table
+	 *    onto free_list.
+	 *  - Indices are pushed in decreasing order, so smaller indices
+	 *    are reused first.
 	 */
-	protected HALF_EDGE_TYPE 
-		_AddNewHalfEdge(CellBase cell, VertexBase from_vertex)
+	protected <VALUE_TYPE> void _CollectFreeIndices
+	(ElementTableBase<VALUE_TYPE> table, int max_index, IndexFreeList free_list)
 	{
-		int ihalf_edge = MaxHalfEdgeIndex()+1;
-		return _AddHalfEdge(ihalf_edge, cell, from_vertex);
+		for (int i = max_index; i >= 0; i--) {
+			if (!table.ContainsIndex(i))
+			{ free_list.Push(i); }
+		}
 	}
-	
-	/// Link half edges in cell.
-	protected void _LinkHalfEdgesInCell
-	(HALF_EDGE_TYPE hprev, HALF_EDGE_TYPE hnext) throws Exception
+
+
+	/** Return new table containing all elements in table0.
+	 * @param flag_array_storage If true, return ElementArrayTable.
+	 *   Otherwise, return ElementHashTable.
+	 */
+	protected <VALUE_TYPE> ElementTableBase<VALUE_TYPE> _NewElementTable
+	(ElementTableBase<VALUE_TYPE> table0, boolean flag_array_storage)
 	{
-		if (hprev.Cell() != hnext.Cell())
-		{
-			throw new Exception("Error in _LinkHalfEdgesInCell. Half edges are in different cells.");
-		}
-	
-		hprev.next_half_edge_in_cell = hnext;
-		hnext.prev_half_edge_in_cell = hprev;
+		ElementTableBase<VALUE_TYPE> table = _NewElementTable(flag_array_storage);
+		table.EnsureCapacity(table0.MaxIndex()+1);
+		table.CopyFrom(table0);
+		return table;
 	}
-	
-	
-	/** Relink half edges in cell. 
-	 *  - No checks.
+
+	/** Return new empty table.
+	 * @param flag_array_storage If true, return ElementArrayTable.
+	 *   Otherwise, return ElementHashTable.
 	 */
-	protected void _RelinkHalfEdgesInCell
-	(HalfEdgeBase hprev, HalfEdgeBase hnext)
+	protected <VALUE_TYPE> ElementTableBase<VALUE_TYPE> _NewElementTable
+	(boolean flag_array_storage)
 	{
-		hprev.next_half_edge_in_cell = hnext;
-		hnext.prev_half_edge_in_cell = hprev;
+		if (flag_array_storage)
+		{ return new ElementArrayTable<VALUE_TYPE>(); }
+		else
+		{ return new ElementHashTable<VALUE_TYPE>(); }
+	}
+
+
+	/** Return new empty coordinate store.
+	 * @param nbits Number of bits per quantized coordinate.
+	 *   If 0, return CoordArrayStore.
+	 * @param cmin Min corner of bounding box.  If null, box is empty.
+	 * @param cmax Max corner of bounding box.
+	 */
+	protected CoordStoreBase _NewCoordStore
+	(int nbits, float[] cmin, float[] cmax) throws Exception
+	{
+		final int dimension = VertexBase.Dimension();
+		if (nbits == 0)
+		{ return new CoordArrayStore(dimension); }
+		else if (cmin == null)
+		{ return new CoordQuantizedStore(dimension, nbits); }
+		else
+		{ return new CoordQuantizedStore(dimension, nbits, cmin, cmax); }
 	}
+
+	/** Copy all vertex coordinates into store and replace coord_store.
+	 *  - Points every vertex at the new store.
+	 */
+	protected void _SetCoordStore(CoordStoreBase store)
+	{
+		final float[] vcoord = new float[store.Dimension()];
+		store.EnsureCapacity(coord_store.Capacity());
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			coord_store.GetCoord(iv, vcoord);
+			store.SetCoord(iv, vcoord);
+			vertex_table.Get(iv).coord_store = store;
+		}
+		coord_store = store;
+	}
+
+
+
 	
 	
-	/// Add half edge.
-	/// - Returns new half edge.
-	/// @pre No existing half edge has index ihalf_edge.
-	protected HALF_EDGE_TYPE _AddAndLinkHalfEdge
-	(int ihalf_edge, CellBase cell, VertexBase vfrom, VertexBase vto, HalfEdgeBase hprev) throws Exception
+	/** Use a hash table of vertex pairs to find half edges
+	 *    in FindEdge() and FindHalfEdge().
+	 * <ul>
+	 * <li> Replaces the search through the half edges from each vertex.
+	 *   Useful if vertices have many incident edges.
+	 * <li> Edge index is maintained as half edges are added, 
+	 *   deleted, split or collapsed.
+	 * <li> If flag_edge_index is false, deletes edge index.
+	 * </ul>
+	 */
+	public void SetEdgeIndex(boolean flag_edge_index)
 	{
-		if (cell == null || vfrom == null || vto == null)
-		{
-			throw new Exception
-				("Illegal arguments to HalfEdgeMesh::_AddAndLinkHalfEdge.  Arguments cell, vfrom, vto cannot be null.");
+		if (flag_edge_index == FlagEdgeIndex()) {
+			// Nothing to change.
+			return;
 		}
 		
-		HALF_EDGE_TYPE half_edge = _AddHalfEdge(ihalf_edge);
+		if (!flag_edge_index) {
+			edge_index = null;
+			return;
+		}
 		
-		half_edge.cell = cell;
-		cell.num_vertices++;
-		half_edge.from_vertex = vfrom;
-		half_edge.prev_half_edge_in_cell = hprev;
-		if (hprev != null)
-			{ hprev.next_half_edge_in_cell = half_edge; }
+		edge_index = new EdgeIndex();
+		ForEachHalfEdge(half_edge -> _IndexHalfEdge(half_edge));
+	}
+	
+	
+	/** Set repair of stale edge index entries by FindHalfEdge().
+	 * <ul>
+	 * <li> If flag_repair is true, FindHalfEdge() replaces a stale
+	 *   edge index entry by the half edge it finds.  (Default.)
+	 * <li> If flag_repair is false, FindHalfEdge() and FindEdge()
+	 *   do not modify the mesh, so they can be called concurrently
+	 *   by multiple threads.  Stale entries cost a search
+	 *   of vfrom.half_edge_from[] on each lookup.
+	 *   FindHalfEdge() calls by the thread set by
+	 *   SetEdgeIndexRepairThread() still repair entries.
+	 * </ul>
+	 */
+	public void SetRepairEdgeIndex(boolean flag_repair)
+	{ flag_repair_edge_index = flag_repair; }
+	
+	
+	/** Set thread whose FindHalfEdge() calls repair stale 
+	 *    edge index entries, even if SetRepairEdgeIndex(false) was called.
+	 * <ul>
+	 * <li> Call with the current thread after acquiring exclusive access 
+	 *   to the mesh (e.g., a write lock), and with null before 
+	 *   releasing it.  FindHalfEdge() calls from other threads 
+	 *   still do not modify the edge index.
+	 * <li> Used by HMeshEditConcurrent.Write().
+	 * </ul>
+	 * @param thread Thread, or null to allow no thread.
+	 */
+	public void SetEdgeIndexRepairThread(Thread thread)
+	{ edge_index_repair_thread = thread; }
+	
+	
+	/** Return true if FindHalfEdge() called by the current thread
+	 *    repairs stale edge index entries.
+	 */
+	protected boolean _IsEdgeIndexRepairedByCurrentThread()
+	{
+		return (flag_repair_edge_index ||
+				edge_index_repair_thread == Thread.currentThread());
+	}
+	
+	
+	/** Set pooling of deleted vertices, half edges and cells.
+	 * <ul>
+	 * <li> If flag_pool is true, deleted vertices, half edges and cells
+	 *   are kept by the factory and reused, after calling Init(),
+	 *   for new vertices, half edges and cells.
+	 *   Reduces object allocation and garbage collection in long
+	 *   sequences of edits, e.g., SplitCell(), JoinTwoCells() 
+	 *   or TriangulateCellFromVertex().
+	 * <li> With pooling, references to deleted elements must not be
+	 *   kept across edit operations, since the same object may be
+	 *   reused as a different element.
+	 * <li> Subclasses of VertexBase, HalfEdgeBase or CellBase with 
+	 *   additional fields should reset those fields in Init().
+	 * <li> If flag_pool is false, empties the pools.
+	 * </ul>
+	 */
+	public void SetPoolElements(boolean flag_pool)
+	{ factory.SetPool(flag_pool); }
+	
+	
+	// *** Snapshot functions ***
+	
+	/** Take snapshot of the mesh.
+	 * <ul>
+	 * <li> Takes constant time.  Nothing is copied when the snapshot
+	 *   is taken.  Afterwards, each vertex, half edge and cell
+	 *   is copied into the snapshot the first time it is changed,
+	 *   so edits copy only the elements they touch.
+	 * <li> RollbackToSnapshot() restores the mesh to the snapshot.
+	 * <li> Only one snapshot is active at a time.  Taking a snapshot
+	 *   releases the previous snapshot.
+	 * <li> While a snapshot is active, deleted elements are not
+	 *   recycled by the factory (SetPoolElements()), and 
+	 *   AddCellsParallel() runs sequentially.
+	 * <li> With quantized coordinates (SetCoordQuantization()),
+	 *   AddCells() with coordinates may fix or enlarge the bounding box,
+	 *   quantizing all coordinates.  Rollback restores the coordinates
+	 *   of changed vertices, but not the bounding box or
+	 *   the quantization of the other vertices.
+	 * </ul>
+	 */
+	public MeshSnapshot TakeSnapshot()
+	{
+		snapshot = new MeshSnapshot(this);
+		_MarkFreeLists();
+		return snapshot;
+	}
+	
+	
+	/// Mark free lists so that RollbackToSnapshot() can restore them.
+	protected void _MarkFreeLists()
+	{
+		vertex_free_list.Mark();
+		half_edge_free_list.Mark();
+		cell_free_list.Mark();
+	}
+	
+	
+	/// Restore free lists to their contents at the snapshot.
+	/// - Compact() and SetReuseIndices() clear the free lists
+	///   and their marks.  In that case, rebuild the free lists
+	///   from the gaps in the restored index ranges.
+	/// @pre Elements and max indices have been restored.
+	protected void _RestoreFreeLists() throws Exception
+	{
+		if (vertex_free_list.IsMarked() && half_edge_free_list.IsMarked() &&
+			cell_free_list.IsMarked()) {
+			vertex_free_list.RestoreToMark();
+			half_edge_free_list.RestoreToMark();
+			cell_free_list.RestoreToMark();
+			return;
+		}
+		
+		vertex_free_list.Clear();
+		half_edge_free_list.Clear();
+		cell_free_list.Clear();
+		if (flag_reuse_indices) {
+			_CollectFreeIndices(vertex_table, MaxVertexIndex(), vertex_free_list);
+			_CollectFreeIndices(half_edge_table, MaxHalfEdgeIndex(), half_edge_free_list);
+			_CollectFreeIndices(cell_table, MaxCellIndex(), cell_free_list);
+		}
+		_MarkFreeLists();
+	}
+	
+	
+	/** Return active snapshot, or null if no snapshot is active. */
+	public MeshSnapshot Snapshot()
+	{ return snapshot; }
+	
+	
+	/** Stop recording changes and discard the snapshot.
+	 *  - Keeps all changes made since the snapshot.
+	 */
+	public void ReleaseSnapshot()
+	{
+		snapshot = null;
+		vertex_free_list.ClearMark();
+		half_edge_free_list.ClearMark();
+		cell_free_list.ClearMark();
+	}
+	
+	
+	/** Restore the mesh to the active snapshot.
+	 * <ul>
+	 * <li> Takes time proportional to the number of elements
+	 *   changed or created since the snapshot.
+	 * <li> Vertices, half edges and cells that were in the mesh
+	 *   at the snapshot are restored in place, with the same indices.
+	 *   Elements created since the snapshot are removed.
+	 * <li> Free lists are restored, so new elements get the same
+	 *   indices as they would have at the snapshot.  After Compact()
+	 *   or SetReuseIndices(), free lists are instead rebuilt
+	 *   from the gaps in the index ranges.
+	 * <li> Snapshot remains active, recording changes made
+	 *   after the rollback.
+	 * </ul>
+	 */
+	public void RollbackToSnapshot() throws Exception
+	{
+		if (snapshot == null) {
+			throw new Exception
+				("Error in RollbackToSnapshot(). No active snapshot.");
+		}
+		
+		_RemoveSnapshotElementsFromTables();
+		_RestoreSnapshotVertices();
+		_RestoreSnapshotHalfEdges();
+		_RestoreSnapshotCells();
+		
+		_max_vertex_index = snapshot.max_vertex_index;
+		_max_half_edge_index = snapshot.max_half_edge_index;
+		_max_cell_index = snapshot.max_cell_index;
+		_num_edges = snapshot.num_edges;
+		_num_boundary_edges = snapshot.num_boundary_edges;
+		_num_isolated_vertices = snapshot.num_isolated_vertices;
+		_num_cells_of_size = snapshot.num_cells_of_size.clone();
+		
+		_RestoreFreeLists();
+		
+		if (snapshot.flag_renumbered) {
+			// All elements were changed.  Rebuild edge index.
+			if (edge_index != null) {
+				edge_index = new EdgeIndex();
+				ForEachHalfEdge(half_edge -> _IndexHalfEdge(half_edge));
+			}
+		}
+		else if (edge_index != null) {
+			// Endpoints of a restored half edge or of the half edge 
+			//   preceding it in its cell may have changed.
+			for (Map.Entry<HalfEdgeBase,MeshSnapshot.HalfEdgeState> entry:
+					snapshot.half_edge_state.entrySet()) {
+				final MeshSnapshot.HalfEdgeState state = entry.getValue();
+				if (state == null || !state.flag_in_mesh) { continue; }
+				final HalfEdgeBase half_edge = entry.getKey();
+				_IndexHalfEdge(half_edge);
+				_IndexHalfEdge(half_edge.prev_half_edge_in_cell);
+			}
+		}
+		
+		snapshot._Clear();
+	}
+	
+	
+	// *** Copy functions ***
+	
+	/** Copy vertices, coordinates, half edges and cells of mesh0
+	 *    into this mesh.
+	 * <ul>
+	 * <li> This mesh must be empty.
+	 * <li> Elements are created by this mesh's factory, so mesh0
+	 *   may be an instance of a different subclass of HalfEdgeMeshBase.
+	 *   Fields added by subclasses of VertexBase, HalfEdgeBase
+	 *   or CellBase are not copied.
+	 * <li> Copied elements have the same indices as in mesh0.
+	 *   Half edges around each edge and in each half_edge_from[] list
+	 *   are in the same order as in mesh0.
+	 * <li> Links are copied by mapping each mesh0 element to the
+	 *   new element with the same index through arrays indexed by
+	 *   element index.  Half edges are not matched or searched,
+	 *   so copying takes time linear in the max element indices.
+	 * <li> Keeps the storage settings of this mesh, e.g.,
+	 *   SetArrayStorage(), SetEdgeIndex(), SetReuseIndices(),
+	 *   and SetCoordQuantization().
+	 * <li> If both meshes reuse indices, free indices are reused
+	 *   in the same order as in mesh0.
+	 * </ul>
+	 */
+	public void CopyFrom(HalfEdgeMeshBase<?,?,?> mesh0) throws Exception
+	{
+		if (NumVertices() > 0 || NumHalfEdges() > 0 || NumCells() > 0) {
+			throw new Exception
+				("Error in CopyFrom(). Mesh is not empty.");
+		}
+		
+		final int numv = mesh0.MaxVertexIndex()+1;
+		final int numh = mesh0.MaxHalfEdgeIndex()+1;
+		final int numc = mesh0.MaxCellIndex()+1;
+		
+		// vertex[iv] (half_edge[ihalf_edge], cell[icell]) is the copy
+		//   of the mesh0 vertex (half edge, cell) with index iv
+		//   (ihalf_edge, icell).
+		final VertexBase[] vertex = new VertexBase[numv];
+		final HalfEdgeBase[] half_edge = new HalfEdgeBase[numh];
+		final CellBase[] cell = new CellBase[numc];
+		
+		vertex_table.EnsureCapacity(numv);
+		half_edge_table.EnsureCapacity(numh);
+		cell_table.EnsureCapacity(numc);
+		coord_store.CopyFrom(mesh0.coord_store, numv);
+		
+		for (PrimitiveIterator.OfInt iter = mesh0.VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			final VERTEX_TYPE v = factory.NewVertex();
+			v.index = iv;
+			v.coord_store = coord_store;
+			vertex_table.Put(iv, v);
+			vertex[iv] = v;
+		}
+		
+		for (PrimitiveIterator.OfInt iter = mesh0.HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			final int ihalf_edge = iter.nextInt();
+			final HALF_EDGE_TYPE half_edgeA = factory.NewHalfEdge();
+			half_edgeA.index = ihalf_edge;
+			half_edge_table.Put(ihalf_edge, half_edgeA);
+			half_edge[ihalf_edge] = half_edgeA;
+		}
+		
+		for (PrimitiveIterator.OfInt iter = mesh0.CellIndexIterator(); iter.hasNext(); ) {
+			final int icell = iter.nextInt();
+			final CellBase cell0 = mesh0.Cell(icell);
+			final CELL_TYPE cellA = factory.NewCell();
+			cellA.index = icell;
+			cellA.num_vertices = cell0.num_vertices;
+			if (cell0.half_edge != null)
+			{ cellA.half_edge = half_edge[cell0.half_edge.index]; }
+			cell_table.Put(icell, cellA);
+			cell[icell] = cellA;
+		}
+		
+		for (PrimitiveIterator.OfInt iter = mesh0.HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			final int ihalf_edge = iter.nextInt();
+			final HalfEdgeBase half_edge0 = mesh0.HalfEdge(ihalf_edge);
+			final HalfEdgeBase half_edgeA = half_edge[ihalf_edge];
+			half_edgeA.next_half_edge_in_cell = 
+				half_edge[half_edge0.next_half_edge_in_cell.index];
+			half_edgeA.prev_half_edge_in_cell = 
+				half_edge[half_edge0.prev_half_edge_in_cell.index];
+			half_edgeA.next_half_edge_around_edge =
+				half_edge[half_edge0.next_half_edge_around_edge.index];
+			half_edgeA.prev_half_edge_around_edge =
+				half_edge[half_edge0.prev_half_edge_around_edge.index];
+			half_edgeA.from_vertex = vertex[half_edge0.from_vertex.index];
+			half_edgeA.cell = cell[half_edge0.cell.index];
+		}
+		
+		for (PrimitiveIterator.OfInt iter = mesh0.VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			final VertexBase v0 = mesh0.Vertex(iv);
+			final VertexBase v = vertex[iv];
+			final int num_half_edge_from = v0.num_half_edge_from;
+			if (num_half_edge_from == 0) { continue; }
+			v.half_edge_from = new HalfEdgeBase[num_half_edge_from];
+			for (int k = 0; k < num_half_edge_from; k++)
+			{ v.half_edge_from[k] = half_edge[v0.half_edge_from[k].index]; }
+			v.num_half_edge_from = num_half_edge_from;
+		}
+		
+		_max_vertex_index = mesh0._max_vertex_index;
+		_max_half_edge_index = mesh0._max_half_edge_index;
+		_max_cell_index = mesh0._max_cell_index;
+		_num_edges = mesh0._num_edges;
+		_num_boundary_edges = mesh0._num_boundary_edges;
+		_num_isolated_vertices = mesh0._num_isolated_vertices;
+		_num_cells_of_size = mesh0._num_cells_of_size.clone();
+		
+		if (flag_reuse_indices) {
+			if (mesh0.flag_reuse_indices) {
+				// Reuse indices in the same order as mesh0.
+				vertex_free_list.CopyFrom(mesh0.vertex_free_list);
+				half_edge_free_list.CopyFrom(mesh0.half_edge_free_list);
+				cell_free_list.CopyFrom(mesh0.cell_free_list);
+			}
+			else {
+				_CollectFreeIndices(vertex_table, MaxVertexIndex(), vertex_free_list);
+				_CollectFreeIndices(half_edge_table, MaxHalfEdgeIndex(), half_edge_free_list);
+				_CollectFreeIndices(cell_table, MaxCellIndex(), cell_free_list);
+			}
+		}
+		
+		if (edge_index != null)
+		{ ForEachHalfEdge(half_edgeA -> _IndexHalfEdge(half_edgeA)); }
+		
+		if (snapshot != null) {
+			ForEachVertex(v -> snapshot._RecordNewVertex(v));
+			ForEachHalfEdge(half_edgeA -> snapshot._RecordNewHalfEdge(half_edgeA));
+			ForEachCell(cellA -> snapshot._RecordNewCell(cellA));
+		}
+	}
+	
+	
+	// *** Renumber functions ***
+	
+	/** Return new vertex indices that number vertices contiguously.
+	 * <ul>
+	 * <li> Returned array has length MaxVertexIndex()+1.
+	 * <li> Vertices are numbered 0,1,2,... in increasing order
+	 *   of their current indices.
+	 * <li> Entry is -1 for indices of deleted (or never created) vertices.
+	 * <li> Does not modify the mesh.
+	 * </ul>
+	 * @param flag_skip_isolated_vertices If true, isolated vertices
+	 *   (vertices with no incident cells) are not numbered
+	 *   and have entry -1.
+	 */
+	public int[] ComputeCompactVertexIndices(boolean flag_skip_isolated_vertices)
+	{
+		final int[] new_vertex_index = new int[MaxVertexIndex()+1];
+		Arrays.fill(new_vertex_index, -1);
+		
+		int numv = 0;
+		for (int iv = 0; iv <= MaxVertexIndex(); iv++) {
+			final VERTEX_TYPE v = vertex_table.Get(iv);
+			if (v == null) { continue; }
+			if (flag_skip_isolated_vertices && v.NumHalfEdgesFrom() == 0)
+			{ continue; }
+			
+			new_vertex_index[iv] = numv;
+			numv++;
+		}
+		
+		return new_vertex_index;
+	}
+	
+	
+	/** Renumber vertices, half edges and cells so that
+	 *    their indices are contiguous.
+	 * <ul>
+	 * <li> After Compact(), vertex indices are [0..(NumVertices()-1)],
+	 *   half edge indices are [0..(NumHalfEdges()-1)] and
+	 *   cell indices are [0..(NumCells()-1)].
+	 * <li> Relative order of indices is preserved.
+	 * <li> Returns the map from old to new indices.
+	 * <li> Note: Invalidates any saved vertex, half edge or cell indices.
+	 *   Use the returned RenumberInfo to update them.
+	 *   References to vertex, half edge and cell objects remain valid.
+	 * </ul>
+	 * @param flag_delete_isolated_vertices If true, delete isolated
+	 *   vertices (vertices with no incident cells, e.g., vertices
+	 *   left by CollapseEdge()) before renumbering.
+	 */
+	public RenumberInfo Compact(boolean flag_delete_isolated_vertices)
+	{
+		final int[] new_vertex_index = 
+			ComputeCompactVertexIndices(flag_delete_isolated_vertices);
+		final int[] new_half_edge_index = 
+			_ComputeCompactIndices(half_edge_table, MaxHalfEdgeIndex());
+		final int[] new_cell_index = 
+			_ComputeCompactIndices(cell_table, MaxCellIndex());
+		
+		if (flag_delete_isolated_vertices) {
+			for (int iv = 0; iv < new_vertex_index.length; iv++) {
+				if (new_vertex_index[iv] < 0 && vertex_table.ContainsIndex(iv))
+				{ _DeleteVertex(vertex_table.Get(iv)); }
+			}
+		}
+		
+		RenumberInfo renumber_info =
+			new RenumberInfo(new_vertex_index, new_half_edge_index, new_cell_index);
+		_Renumber(renumber_info);
+		
+		return renumber_info;
+	}
+	
+	
+	/** Renumber vertices, half edges and cells so that
+	 *    their indices are contiguous.
+	 *  - Does not delete isolated vertices.
+	 */
+	public RenumberInfo Compact()
+	{ return Compact(false); }
+	
+	
+	/** Renumber vertices, cells and half edges along a Hilbert curve.
+	 * <ul>
+	 * <li> Vertices are numbered in order along a Hilbert curve
+	 *   through their coordinates, and cells in order along a Hilbert
+	 *   curve through their centroids.  Half edges are numbered
+	 *   cell by cell, in the new cell order.
+	 * <li> Vertices, half edges and cells that are close in space get
+	 *   nearby indices, so sweeps over indices, e.g., in
+	 *   MeasureMeshBase, CheckAll() or OffFileWriterBase, access
+	 *   memory with good locality.
+	 * <li> Like Compact(), indices become contiguous.
+	 *   Returns the map from old to new indices.
+	 * <li> Note: Invalidates any saved vertex, half edge or cell indices.
+	 * </ul>
+	 */
+	public RenumberInfo ReorderByHilbertCurve()
+	{ return _ReorderAlongCurve(true); }
+	
+	
+	/** Renumber vertices, cells and half edges along a Morton (Z-order) curve.
+	 * <ul>
+	 * <li> Same as ReorderByHilbertCurve(), but uses a Morton curve,
+	 *   which is faster to compute and has slightly worse locality.
+	 * </ul>
+	 */
+	public RenumberInfo ReorderByMortonCurve()
+	{ return _ReorderAlongCurve(false); }
+	
+	
+	/** Renumber vertices, cells and half edges along a space filling curve.
+	 * <ul>
+	 * <li> Coordinates are snapped to a grid with 2^nbits cells 
+	 *   along the longest side of the bounding box, where 
+	 *   nbits*dimension is 30.  Ties are broken by the old index.
+	 * </ul>
+	 * @param flag_hilbert If true, use a Hilbert curve.  
+	 *   Otherwise, use a Morton curve.
+	 */
+	protected RenumberInfo _ReorderAlongCurve(boolean flag_hilbert)
+	{
+		final int dimension = coord_store.Dimension();
+		final int nbits = 30/dimension;
+		final float[] vcoord = new float[dimension];
+		final int[] grid_coord = new int[dimension];
+		
+		final float[] cmin = new float[dimension];
+		final float[] cmax = new float[dimension];
+		ComputeBoundingBox(cmin, cmax);
+		
+		float max_extent = 0;
+		for (int d = 0; d < dimension; d++)
+		{ max_extent = Math.max(max_extent, cmax[d]-cmin[d]); }
+		final float scale = (max_extent > 0) ? (1 << nbits)/max_extent : 0;
+		
+		// Sort vertices by (curve key, index).
+		final long[] vkey = new long[NumVertices()];
+		int k = 0;
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			coord_store.GetCoord(iv, vcoord);
+			vkey[k] = 
+				(_CurveKey(vcoord, cmin, scale, nbits, grid_coord, flag_hilbert) << 32) | iv;
+			k++;
+		}
+		Arrays.sort(vkey);
+		
+		final int[] new_vertex_index = new int[MaxVertexIndex()+1];
+		Arrays.fill(new_vertex_index, -1);
+		for (k = 0; k < vkey.length; k++)
+		{ new_vertex_index[(int) vkey[k]] = k; }
+		
+		// Sort cells by (curve key of centroid, index).
+		final long[] ckey = new long[NumCells()];
+		final float[] centroid = new float[dimension];
+		k = 0;
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
+			final int icell = iter.nextInt();
+			final CELL_TYPE cell = Cell(icell);
+			Arrays.fill(centroid, 0);
+			HalfEdgeBase half_edge = cell.HalfEdge();
+			for (int i = 0; i < cell.NumVertices(); i++) {
+				coord_store.GetCoord(half_edge.FromVertexIndex(), vcoord);
+				for (int d = 0; d < dimension; d++)
+				{ centroid[d] += vcoord[d]; }
+				half_edge = half_edge.NextHalfEdgeInCell();
+			}
+			for (int d = 0; d < dimension; d++)
+			{ centroid[d] /= cell.NumVertices(); }
+			
+			ckey[k] = 
+				(_CurveKey(centroid, cmin, scale, nbits, grid_coord, flag_hilbert) << 32) | icell;
+			k++;
+		}
+		Arrays.sort(ckey);
+		
+		// Number half edges cell by cell.
+		final int[] new_cell_index = new int[MaxCellIndex()+1];
+		final int[] new_half_edge_index = new int[MaxHalfEdgeIndex()+1];
+		Arrays.fill(new_cell_index, -1);
+		Arrays.fill(new_half_edge_index, -1);
+		int ihalf_edge_new = 0;
+		for (k = 0; k < ckey.length; k++) {
+			final int icell = (int) ckey[k];
+			final CELL_TYPE cell = Cell(icell);
+			new_cell_index[icell] = k;
+			
+			HalfEdgeBase half_edge = cell.HalfEdge();
+			for (int i = 0; i < cell.NumVertices(); i++) {
+				new_half_edge_index[half_edge.Index()] = ihalf_edge_new;
+				ihalf_edge_new++;
+				half_edge = half_edge.NextHalfEdgeInCell();
+			}
+		}
+		
+		RenumberInfo renumber_info =
+			new RenumberInfo(new_vertex_index, new_half_edge_index, new_cell_index);
+		_Renumber(renumber_info);
+		
+		return renumber_info;
+	}
+	
+	
+	/** Return Hilbert or Morton key of the grid point containing coord.
+	 * @param grid_coord Work array of length Dimension().
+	 */
+	protected static long _CurveKey
+	(float[] coord, float[] cmin, float scale, int nbits, int[] grid_coord,
+			boolean flag_hilbert)
+	{
+		SpaceFillingCurve.ToGrid(coord, cmin, scale, nbits, grid_coord);
+		if (flag_hilbert)
+		{ return SpaceFillingCurve.HilbertKey(grid_coord, nbits); }
+		else
+		{ return SpaceFillingCurve.MortonKey(grid_coord, nbits); }
+	}
+	
+	
+	/** Return new indices that number the elements of table contiguously.
+	 *  - Entry is -1 for indices not in table.
+	 */
+	protected <VALUE_TYPE> int[] _ComputeCompactIndices
+	(ElementTableBase<VALUE_TYPE> table, int max_index)
+	{
+		final int[] new_index = new int[max_index+1];
+		Arrays.fill(new_index, -1);
+		
+		int n = 0;
+		for (int i = 0; i <= max_index; i++) {
+			if (table.ContainsIndex(i)) {
+				new_index[i] = n;
+				n++;
+			}
+		}
+		
+		return new_index;
+	}
+	
+	
+	/** Renumber vertices, half edges and cells.
+	 * <ul>
+	 * <li> Vertex iv gets index renumber_info.new_vertex_index[iv].
+	 *   Similarly for half edges and cells.
+	 * <li> Moves vertex coordinates to the new vertex indices.
+	 * <li> Rebuilds the edge index, if used, and clears the free lists.
+	 * </ul>
+	 * @pre Every vertex, half edge and cell in the mesh has a new index.
+	 * @pre New indices of vertices (half edges, cells) are distinct
+	 *   and are [0..(NumVertices()-1)] ([0..(NumHalfEdges()-1)],
+	 *   [0..(NumCells()-1)]).
+	 */
+	protected void _Renumber(RenumberInfo renumber_info)
+	{
+		final int[] new_vertex_index = renumber_info.new_vertex_index;
+		final int[] new_half_edge_index = renumber_info.new_half_edge_index;
+		final int[] new_cell_index = renumber_info.new_cell_index;
+		final boolean flag_array_storage = IsArrayStorage();
+		final int numv = NumVertices();
+		final int numh = NumHalfEdges();
+		final int numc = NumCells();
+		
+		if (snapshot != null) {
+			// Renumbering changes every vertex, half edge and cell.
+			ForEachVertex(v -> _SnapshotVertex(v));
+			ForEachHalfEdge(half_edge -> _SnapshotHalfEdge(half_edge));
+			ForEachCell(cell -> _SnapshotCell(cell));
+			snapshot.flag_renumbered = true;
+		}
+		
+		coord_store.Renumber(new_vertex_index, numv);
+		
+		ElementTableBase<VERTEX_TYPE> new_vertex_table = 
+			_NewElementTable(flag_array_storage);
+		new_vertex_table.EnsureCapacity(numv);
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			final VERTEX_TYPE v = vertex_table.Get(iv);
+			final int ivnew = new_vertex_index[iv];
+			v.index = ivnew;
+			new_vertex_table.Put(ivnew, v);
+		}
+		vertex_table = new_vertex_table;
+		
+		ElementTableBase<HALF_EDGE_TYPE> new_half_edge_table =
+			_NewElementTable(flag_array_storage);
+		new_half_edge_table.EnsureCapacity(numh);
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			final int ihalf_edge = iter.nextInt();
+			final HALF_EDGE_TYPE half_edge = half_edge_table.Get(ihalf_edge);
+			half_edge.index = new_half_edge_index[ihalf_edge];
+			new_half_edge_table.Put(half_edge.index, half_edge);
+		}
+		half_edge_table = new_half_edge_table;
+		
+		ElementTableBase<CELL_TYPE> new_cell_table =
+			_NewElementTable(flag_array_storage);
+		new_cell_table.EnsureCapacity(numc);
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
+			final int icell = iter.nextInt();
+			final CELL_TYPE cell = cell_table.Get(icell);
+			cell.index = new_cell_index[icell];
+			new_cell_table.Put(cell.index, cell);
+		}
+		cell_table = new_cell_table;
+		
+		_max_vertex_index = numv-1;
+		_max_half_edge_index = numh-1;
+		_max_cell_index = numc-1;
+		
+		// No gaps in the index ranges.
+		vertex_free_list.Clear();
+		half_edge_free_list.Clear();
+		cell_free_list.Clear();
+		
+		if (edge_index != null) {
+			// Edge index keys are vertex indices.
+			edge_index = new EdgeIndex();
+			ForEachHalfEdge(half_edge -> _IndexHalfEdge(half_edge));
+		}
+	}
+	
+	
+	// *** Internal (protected) functions ***
+	
+	/** Add entry for half_edge to edge index.
+	 * - Does nothing if edge index is not used or
+	 *   next_half_edge_in_cell is not set.
+	 */
+	protected void _IndexHalfEdge(HalfEdgeBase half_edge)
+	{
+		if (edge_index == null) { return; }
+		if (half_edge.next_half_edge_in_cell == null) { return; }
+		
+		edge_index.Put
+			(EdgeIndex.Key(half_edge.FromVertexIndex(), half_edge.ToVertexIndex()),
+				half_edge);
+	}
+	
+	/** Remove entry for half_edge from edge index.
+	 * - Call before deleting half_edge or changing its endpoints.
+	 * - If some other half edge has the same endpoints,
+	 *   replace half_edge by that half edge.
+	 * - Does nothing if edge index is not used, if
+	 *   next_half_edge_in_cell is not set, or if the entry
+	 *   does not reference half_edge.
+	 */
+	protected void _UnindexHalfEdge(HalfEdgeBase half_edge)
+	{
+		if (edge_index == null) { return; }
+		if (half_edge.next_half_edge_in_cell == null) { return; }
+		
+		final VertexBase vfrom = half_edge.FromVertex();
+		final int ivto = half_edge.ToVertexIndex();
+		final long key = EdgeIndex.Key(vfrom.Index(), ivto);
+		if (edge_index.Get(key) != half_edge) { return; }
+		
+		for (int k = 0; k < vfrom.NumHalfEdgesFrom(); k++) {
+			final HalfEdgeBase half_edgeB = vfrom.KthHalfEdgeFrom(k);
+			if (half_edgeB != half_edge &&
+				half_edgeB.next_half_edge_in_cell != null &&
+				half_edgeB.ToVertexIndex() == ivto) {
+				edge_index.Put(key, half_edgeB);
+				return;
+			}
+		}
+		
+		edge_index.Remove(key);
+	}
+	
+	
+	/** Return index for a new element.
+	 *  - If flag_reuse_indices, return index popped from free_list,
+	 *    skipping indices that were reused by explicit Add calls
+	 *    (e.g. AddCell(icell,...)) after they were freed.
+	 *  - Otherwise, or if free_list is empty, return max_index+1.
+	 */
+	protected <VALUE_TYPE> int _NewIndex
+	(ElementTableBase<VALUE_TYPE> table, int max_index, IndexFreeList free_list)
+	{
+		if (flag_reuse_indices) {
+			int i = free_list.Pop();
+			while (i >= 0) {
+				if (!table.ContainsIndex(i))
+				{ return i; }
+				i = free_list.Pop();
+			}
+		}
+		
+		return max_index+1;
+	}
+	
+	/// Return index for a new vertex.
+	protected int _NewVertexIndex()
+	{ return _NewIndex(vertex_table, MaxVertexIndex(), vertex_free_list); }
+	
+	/// Return index for a new half edge.
+	protected int _NewHalfEdgeIndex()
+	{ return _NewIndex(half_edge_table, MaxHalfEdgeIndex(), half_edge_free_list); }
+	
+	/// Return index for a new cell.
+	protected int _NewCellIndex()
+	{ return _NewIndex(cell_table, MaxCellIndex(), cell_free_list); }
+	
+	
+	/// Remove vertex from vertex_table.
+	/// - Frees index for reuse, if flag_reuse_indices is true.
+	/// - Does not recycle v while a snapshot is active,
+	///   since RollbackToSnapshot() may restore v.
+	protected void _RemoveVertexFromTable(VertexBase v)
+	{
+		_SnapshotVertex(v);
+		int iv = v.Index();
+		// Element from the table has type VERTEX_TYPE.
+		final VERTEX_TYPE vA = vertex_table.Get(iv);
+		vertex_table.Remove(iv);
+		if (v.NumHalfEdgesFrom() == 0)
+		{ _num_isolated_vertices--; }
+		if (snapshot == null && vA == v) {
+			v._ClearHalfEdgesFrom();
+			factory.RecycleVertex(vA);
+		}
+		if (flag_reuse_indices)
+		{ vertex_free_list.Push(iv); }
+	}
+	
+	/// Remove half edge from half_edge_table.
+	/// - Unlinks half edge from half edges around edge.
+	/// - Frees index for reuse, if flag_reuse_indices is true.
+	/// - Does not recycle half_edge while a snapshot is active.
+	protected void _RemoveHalfEdgeFromTable(HalfEdgeBase half_edge)
+	{
+		_SnapshotHalfEdge(half_edge);
+		int ihalf_edge = half_edge.Index();
+		_UnlinkHalfEdgeFromHalfEdgesAroundEdge(half_edge);
+		_num_edges--;
+		_num_boundary_edges--;
+		// Element from the table has type HALF_EDGE_TYPE.
+		final HALF_EDGE_TYPE half_edgeA = half_edge_table.Get(ihalf_edge);
+		half_edge_table.Remove(ihalf_edge);
+		if (snapshot == null && half_edgeA == half_edge)
+		{ factory.RecycleHalfEdge(half_edgeA); }
+		if (flag_reuse_indices)
+		{ half_edge_free_list.Push(ihalf_edge); }
+	}
+	
+	/// Remove cell from cell_table.
+	/// - Frees index for reuse, if flag_reuse_indices is true.
+	/// - Does not recycle cell while a snapshot is active.
+	protected void _RemoveCellFromTable(CellBase cell)
+	{
+		_SnapshotCell(cell);
+		int icell = cell.Index();
+		// Element from the table has type CELL_TYPE.
+		final CELL_TYPE cellA = cell_table.Get(icell);
+		cell_table.Remove(icell);
+		_DecrementNumCellsOfSize(cell.NumVertices());
+		if (snapshot == null && cellA == cell)
+		{ factory.RecycleCell(cellA); }
+		if (flag_reuse_indices)
+		{ cell_free_list.Push(icell); }
+	}
+
+
+	// *** Record changes in snapshot ***
+
+	/// Copy v into snapshot, if a snapshot is active and
+	///   v was not already copied or created after the snapshot.
+	/// - Call before changing v.
+	protected void _SnapshotVertex(VertexBase v)
+	{
+		if (snapshot == null || v == null) { return; }
+		if (snapshot.vertex_state.containsKey(v)) { return; }
+		snapshot._SaveVertex(v, vertex_table.Get(v.index) == v);
+	}
+
+	/// Copy half_edge into snapshot, if a snapshot is active and
+	///   half_edge was not already copied or created after the snapshot.
+	/// - Call before changing half_edge.
+	protected void _SnapshotHalfEdge(HalfEdgeBase half_edge)
+	{
+		if (snapshot == null || half_edge == null) { return; }
+		if (snapshot.half_edge_state.containsKey(half_edge)) { return; }
+		snapshot._SaveHalfEdge
+			(half_edge, half_edge_table.Get(half_edge.index) == half_edge);
+	}
+
+	/// Copy cell into snapshot, if a snapshot is active and
+	///   cell was not already copied or created after the snapshot.
+	/// - Call before changing cell.
+	protected void _SnapshotCell(CellBase cell)
+	{
+		if (snapshot == null || cell == null) { return; }
+		if (snapshot.cell_state.containsKey(cell)) { return; }
+		snapshot._SaveCell(cell, cell_table.Get(cell.index) == cell);
+	}
+
+	/// Move boundary half edge to v.half_edge_from[0].
+	/// - Copies v into snapshot, if a snapshot is active.
+	protected void _MoveBoundaryHalfEdgeToHalfEdgeFrom0(VertexBase v)
+	{
+		_SnapshotVertex(v);
+		v.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
+	}
+
+	/// Remove all elements changed or created since the snapshot
+	///   from the vertex, half edge and cell tables.
+	protected void _RemoveSnapshotElementsFromTables()
+	{
+		for (VertexBase v: snapshot.vertex_state.keySet()) {
+			if (vertex_table.Get(v.index) == v)
+			{ vertex_table.Remove(v.index); }
+		}
+		for (HalfEdgeBase half_edge: snapshot.half_edge_state.keySet()) {
+			if (half_edge_table.Get(half_edge.index) == half_edge)
+			{ half_edge_table.Remove(half_edge.index); }
+		}
+		for (CellBase cell: snapshot.cell_state.keySet()) {
+			if (cell_table.Get(cell.index) == cell)
+			{ cell_table.Remove(cell.index); }
+		}
+	}
+
+	/// Restore vertices copied into snapshot and recycle
+	///   vertices created since the snapshot.
+	/// @pre _RemoveSnapshotElementsFromTables() was called.
+	protected void _RestoreSnapshotVertices()
+	{
+		coord_store.EnsureCapacity(snapshot.max_vertex_index+1);
+		for (Map.Entry<VertexBase,MeshSnapshot.VertexState> entry:
+				snapshot.vertex_state.entrySet()) {
+			// Snapshot keys are vertices of this mesh, so the cast is safe.
+			//   Keys have type VertexBase since _SnapshotVertex() is called
+			//   with VertexBase references, e.g., half_edge.from_vertex.
+			@SuppressWarnings("unchecked")
+			final VERTEX_TYPE v = (VERTEX_TYPE) entry.getKey();
+			final MeshSnapshot.VertexState state = entry.getValue();
+			if (state == null) {
+				factory.RecycleVertex(v);
+				continue;
+			}
+
+			v.index = state.index;
+			v.half_edge_from = state.half_edge_from;
+			v.num_half_edge_from = state.half_edge_from.length;
+			v.coord_store = coord_store;
+			if (state.flag_in_mesh) {
+				vertex_table.Put(v.index, v);
+				coord_store.SetCoord(v.index, state.coord);
+			}
+		}
+	}
+
+	/// Restore half edges copied into snapshot and recycle
+	///   half edges created since the snapshot.
+	/// @pre _RemoveSnapshotElementsFromTables() was called.
+	protected void _RestoreSnapshotHalfEdges()
+	{
+		for (Map.Entry<HalfEdgeBase,MeshSnapshot.HalfEdgeState> entry:
+				snapshot.half_edge_state.entrySet()) {
+			// Snapshot keys are half edges of this mesh.
+			//   (See _RestoreSnapshotVertices().)
+			@SuppressWarnings("unchecked")
+			final HALF_EDGE_TYPE half_edge = (HALF_EDGE_TYPE) entry.getKey();
+			final MeshSnapshot.HalfEdgeState state = entry.getValue();
+			if (state == null) {
+				factory.RecycleHalfEdge(half_edge);
+				continue;
+			}
+
+			half_edge.index = state.index;
+			half_edge.next_half_edge_in_cell = state.next_half_edge_in_cell;
+			half_edge.prev_half_edge_in_cell = state.prev_half_edge_in_cell;
+			half_edge.next_half_edge_around_edge = state.next_half_edge_around_edge;
+			half_edge.prev_half_edge_around_edge = state.prev_half_edge_around_edge;
+			half_edge.from_vertex = state.from_vertex;
+			half_edge.cell = state.cell;
+			if (state.flag_in_mesh)
+			{ half_edge_table.Put(half_edge.index, half_edge); }
+		}
+	}
+
+	/// Restore cells copied into snapshot and recycle
+	///   cells created since the snapshot.
+	/// @pre _RemoveSnapshotElementsFromTables() was called.
+	protected void _RestoreSnapshotCells()
+	{
+		for (Map.Entry<CellBase,MeshSnapshot.CellState> entry:
+				snapshot.cell_state.entrySet()) {
+			// Snapshot keys are cells of this mesh.
+			//   (See _RestoreSnapshotVertices().)
+			@SuppressWarnings("unchecked")
+			final CELL_TYPE cell = (CELL_TYPE) entry.getKey();
+			final MeshSnapshot.CellState state = entry.getValue();
+			if (state == null) {
+				factory.RecycleCell(cell);
+				continue;
+			}
+
+			cell.index = state.index;
+			cell.half_edge = state.half_edge;
+			cell.num_vertices = state.num_vertices;
+			if (state.flag_in_mesh)
+			{ cell_table.Put(cell.index, cell); }
+		}
+	}
+	
+	
+	// *** Maintain counts ***
+	
+	/// Increment number of cells with numv vertices.
+	protected void _IncrementNumCellsOfSize(int numv)
+	{
+		if (numv >= _num_cells_of_size.length) {
+			_num_cells_of_size = Arrays.copyOf
+				(_num_cells_of_size, Math.max(2*_num_cells_of_size.length, numv+1));
+		}
+		_num_cells_of_size[numv]++;
+	}
+	
+	/// Decrement number of cells with numv vertices.
+	protected void _DecrementNumCellsOfSize(int numv)
+	{ _num_cells_of_size[numv]--; }
+	
+	/// Set cell.num_vertices to numv and update number of cells of each size.
+	protected void _ChangeCellNumVertices(CellBase cell, int numv)
+	{
+		_SnapshotCell(cell);
+		_DecrementNumCellsOfSize(cell.num_vertices);
+		cell.num_vertices = numv;
+		_IncrementNumCellsOfSize(numv);
+	}
+	
+	/// Add half_edge to v.half_edge_from[] and update number of isolated vertices.
+	protected void _AddHalfEdgeToVertexList(VertexBase v, HalfEdgeBase half_edge)
+	{
+		_SnapshotVertex(v);
+		if (v.NumHalfEdgesFrom() == 0)
+		{ _num_isolated_vertices--; }
+		v._AddHalfEdgeFrom(half_edge);
+	}
+	
+	/// Update number of edges and boundary edges before merging
+	///   the half edges around half_edgeA and the half edges around half_edgeB.
+	/// @pre half_edgeA and half_edgeB are in different cycles.
+	protected void _CountMergeOfHalfEdgesAroundEdge
+	(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	{
+		_num_edges--;
+		if (half_edgeA.IsBoundary())
+		{ _num_boundary_edges--; }
+		if (half_edgeB.IsBoundary())
+		{ _num_boundary_edges--; }
+	}
+	
+	
+	/// Create vertex with index iv, if it does not yet exist.
+	/// - Returns reference to vertex.
+	/// - Returns reference to vertex, if vertex already exists.
+	protected VERTEX_TYPE _CreateVertex(int iv) throws Exception
+	{
+		if (iv < 0) {
+			throw new Exception("Illegal argument to HalfEdgeMeshBase::_CreateVertex.  Vertex index must be non-negative.");
+		}
+		
+		VERTEX_TYPE v = vertex_table.Get(iv);
+		if (v == null)
+		{
+			/// Cast to VERTEX_TYPE. Needed even though factory.NewVertex() should create vertex of type VERTEX_TYPE.
+			v = (VERTEX_TYPE) factory.ReuseOrNewVertex();
+			v.index = iv;
+			coord_store.EnsureCapacity(iv+1);
+			v.coord_store = coord_store;
+			v.Init();
+			vertex_table.Put(iv,v);
+			_num_isolated_vertices++;
+			if (snapshot != null)
+			{ snapshot._RecordNewVertex(v); }
+		}
+		
+		_max_vertex_index = Math.max(_max_vertex_index, iv);
+		
+		return v;
+	}
+	
+	
+	/// Add half_edgeB after half_edgeA to cyclic list of half edges around edge.
+	/// @pre half_edgeB is not linked to any other half edge around edge.
+	protected void _LinkHalfEdgesAroundEdge
+		(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	{
+		_num_edges--;
+		_num_boundary_edges--;
+		if (half_edgeA.IsBoundary())
+		{ _num_boundary_edges--; }
+		
+		HalfEdgeBase temp = half_edgeA.NextHalfEdgeAroundEdge();
+		_SnapshotHalfEdge(half_edgeA);
+		_SnapshotHalfEdge(half_edgeB);
+		_SnapshotHalfEdge(temp);
+		half_edgeA.next_half_edge_around_edge = half_edgeB;
+		half_edgeB.prev_half_edge_around_edge = half_edgeA;
+		half_edgeB.next_half_edge_around_edge = temp;
+		temp.prev_half_edge_around_edge = half_edgeB;
+	}
+	
+	
+	/**
+	 * Merge two linked lists of half edges around an edge to form
+	 *   a single linked list.
+	 * - Added by R. Wenger: 11-23-2023
+	 */
+	protected void _MergeHalfEdgesAroundEdge
+	(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	{
+		_CountMergeOfHalfEdgesAroundEdge(half_edgeA, half_edgeB);
+		_SnapshotSplice(half_edgeA, half_edgeB);
+		_SpliceHalfEdgesAroundEdge(half_edgeA, half_edgeB);
+	}
+
+
+	/** Copy half edges changed by splicing the cycles around
+	 *    half_edgeA and half_edgeB into snapshot.
+	 * - Does nothing if no snapshot is active.
+	 */
+	protected void _SnapshotSplice
+	(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	{
+		if (snapshot == null) { return; }
+		_SnapshotHalfEdge(half_edgeA);
+		_SnapshotHalfEdge(half_edgeB);
+		_SnapshotHalfEdge(half_edgeA.next_half_edge_around_edge);
+		_SnapshotHalfEdge(half_edgeB.next_half_edge_around_edge);
+	}
+	
+	
+	/** Splice the cycles of half edges around half_edgeA and half_edgeB
+	 *    into a single cycle.
+	 * - Does not update the number of edges or boundary edges.
+	 */
+	protected static void _SpliceHalfEdgesAroundEdge
+	(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
+	{
+		final HalfEdgeBase next_half_edge_around_edgeA =
+			half_edgeA.NextHalfEdgeAroundEdge();
+		final HalfEdgeBase next_half_edge_around_edgeB =
+			half_edgeB.NextHalfEdgeAroundEdge();
+		half_edgeA.next_half_edge_around_edge = 
+			next_half_edge_around_edgeB;
+		next_half_edge_around_edgeB.prev_half_edge_around_edge = half_edgeA;
+		half_edgeB.next_half_edge_around_edge =
+			next_half_edge_around_edgeA;
+		next_half_edge_around_edgeA.prev_half_edge_around_edge = half_edgeB;
+	}
+	
+	
+	/** Add half edge with index ihalf_edge to half_edge_table.
+	 * - Returns new half edge.
+	 * @pre No existing half edge has index ihalf_edge.
+	 */
+	protected HALF_EDGE_TYPE _AddHalfEdge(int ihalf_edge)
+	{
+		/// Cast to HALF_EDGE_TYPE. Needed even though factory.NewHalfEdge() 
+		///   should create half edge of type HALF_EDGE_TYPE.
+		HALF_EDGE_TYPE half_edge = (HALF_EDGE_TYPE) factory.ReuseOrNewHalfEdge();
+		half_edge.Init();
+		half_edge.index = ihalf_edge;
+		half_edge_table.Put(ihalf_edge, half_edge);
+		if (snapshot != null)
+		{ snapshot._RecordNewHalfEdge(half_edge); }
+		
+		// New half edge is a boundary edge.
+		_num_edges++;
+		_num_boundary_edges++;
+		_max_half_edge_index = Math.max(_max_half_edge_index, ihalf_edge);
+		return half_edge;
+	}
+	
+	/** Add new half edge.
+	 * 	- Returns half edge.
+	 *  - New half edge index is determined internally by the function.
+	 */
+	protected HALF_EDGE_TYPE _AddNewHalfEdge()
+	{
+		int ihalf_edge = _NewHalfEdgeIndex();
+		return _AddHalfEdge(ihalf_edge);
+	}
+	
+	
+	/** Add half edge with index ihalf_edge and set cell, and from_vertex.
+	 * - Returns new half edge.
+	 * - Add half_edge to from_vertex.half_edge_from.
+	 * - Increment cell.num_vertices.
+	 * @pre No existing half edge has index ihalf_edge.
+	 */
+	protected HALF_EDGE_TYPE 
+		_AddHalfEdge(int ihalf_edge, CellBase cell, VertexBase from_vertex)
+	{
+		HALF_EDGE_TYPE half_edge = _AddHalfEdge(ihalf_edge);
+		half_edge.cell = cell;
+		half_edge.from_vertex = from_vertex;
+		
+		// Add half_edge to from_vertex.half_edge_list.
+		_AddHalfEdgeToVertexList(from_vertex, half_edge);
+		
+		_ChangeCellNumVertices(cell, cell.num_vertices+1);
+		
+		return half_edge;
+	}
+	
+	
+	/** Add new half edge and set cell, and from_vertex.
+	 * - Returns new half edge.
+	 * - New half edge index is determined internally by the function.
+	 * - Add half_edge to from_vertex.half_edge_from.
+	 * - Increment cell.num_vertices.
+	 * @pre No existing half edge has index ihalf_edge.
+	 */
+	protected HALF_EDGE_TYPE 
+		_AddNewHalfEdge(CellBase cell, VertexBase from_vertex)
+	{
+		int ihalf_edge = _NewHalfEdgeIndex();
+		return _AddHalfEdge(ihalf_edge, cell, from_vertex);
+	}
+	
+	/// Link half edges in cell.
+	protected void _LinkHalfEdgesInCell
+	(HALF_EDGE_TYPE hprev, HALF_EDGE_TYPE hnext) throws Exception
+	{
+		if (hprev.Cell() != hnext.Cell())
+		{
+			throw new Exception("Error in _LinkHalfEdgesInCell. Half edges are in different cells.");
+		}
+	
+		_SnapshotHalfEdge(hprev);
+		_SnapshotHalfEdge(hnext);
+		hprev.next_half_edge_in_cell = hnext;
+		hnext.prev_half_edge_in_cell = hprev;
+		_IndexHalfEdge(hprev);
+	}
+	
+	
+	/** Relink half edges in cell. 
+	 *  - No checks.
+	 */
+	protected void _RelinkHalfEdgesInCell
+	(HalfEdgeBase hprev, HalfEdgeBase hnext)
+	{
+		_UnindexHalfEdge(hprev);
+		_SnapshotHalfEdge(hprev);
+		_SnapshotHalfEdge(hnext);
+		hprev.next_half_edge_in_cell = hnext;
+		hnext.prev_half_edge_in_cell = hprev;
+		_IndexHalfEdge(hprev);
+	}
+	
+	
+	/// Add half edge.
+	/// - Returns new half edge.
+	/// @pre No existing half edge has index ihalf_edge.
+	protected HALF_EDGE_TYPE _AddAndLinkHalfEdge
+	(int ihalf_edge, CellBase cell, VertexBase vfrom, VertexBase vto, HalfEdgeBase hprev) throws Exception
+	{
+		if (cell == null || vfrom == null || vto == null)
+		{
+			throw new Exception
+				("Illegal arguments to HalfEdgeMesh::_AddAndLinkHalfEdge.  Arguments cell, vfrom, vto cannot be null.");
+		}
+		
+		HALF_EDGE_TYPE half_edge = _AddHalfEdge(ihalf_edge);
+		
+		half_edge.cell = cell;
+		_ChangeCellNumVertices(cell, cell.num_vertices+1);
+		half_edge.from_vertex = vfrom;
+		half_edge.prev_half_edge_in_cell = hprev;
+		if (hprev != null) {
+			_SnapshotHalfEdge(hprev);
+			hprev.next_half_edge_in_cell = half_edge;
+		}
+		
+		// Link half edge with other half edges around edge.
+		HalfEdgeBase half_edgeB = FindHalfEdge(vto, vfrom);
+		if (half_edgeB == null) {
+			// Check whether there is a half edge around edge with the same
+			// orientation as half_edge.
+			HalfEdgeBase half_edgeC = FindHalfEdge(vfrom, vto);
+			if (half_edgeC == null)
+			{ 
+				half_edge.next_half_edge_around_edge = half_edge;
+				half_edge.prev_half_edge_around_edge = half_edge;
+			}
+			else
+			{
+				// Link half_edge with half_edgeC, even though they
+				//   have the same orientation.
+				_LinkHalfEdgesAroundEdge(half_edgeC, half_edge);
+			}
+		}
+		else {
+			_LinkHalfEdgesAroundEdge(half_edgeB, half_edge);
+		}
+		
+		_AddHalfEdgeToVertexList(vfrom, half_edge);
+		
+		if (edge_index != null) {
+			// half_edge.next_half_edge_in_cell is not yet set.
+			edge_index.Put(EdgeIndex.Key(vfrom.Index(), vto.Index()), half_edge);
+		}
+		
+		return half_edge;
+	}
+	
+	/** Move boundary half edge to half_edge_from[0] for each vertex
+	 *  in cell_vertex[].
+	 * @param cell_vertex
+	 * @throws Exception
+	 */
+	protected void _MoveBoundaryHalfEdgeToHalfEdgeFrom0
+		(ArrayList<Integer> cell_vertex) throws Exception
+	{
+		for (int i = 0; i < cell_vertex.size(); i++) {
+			int iv = cell_vertex.get(i);
+			VERTEX_TYPE v = Vertex(iv);
+			if (v == null) {
+				throw new Exception("Programming error. Attempt to access non-existant vertex in _MoveBoundaryHalfEdgeToHalfEdgeFrom0()");
+			}
+			
+			_MoveBoundaryHalfEdgeToHalfEdgeFrom0(v);
+		}
+	}
+	
+	
+	/** Add cell with index icell.
+	 	@pre No existing cell has index icell. */
+	protected CELL_TYPE _AddCell(int icell)
+	{
+		/// Cast to CELL_TYPE. Needed even though factory.NewCell() should create cell of type CELL_TYPE.
+		CELL_TYPE cell = (CELL_TYPE) factory.ReuseOrNewCell();
+		cell.Init();
+		cell.index = icell;
+		cell_table.Put(icell, cell);
+		if (snapshot != null)
+		{ snapshot._RecordNewCell(cell); }
+		_IncrementNumCellsOfSize(0);
+		_max_cell_index = Math.max(_max_cell_index, icell);
+		return cell;
+	}
+
+	
+	// *** Public AddVertices(), AddCell() functions ***
+
+	/** Add vertex with index iv.
+	 *  - Returns vertex.
+	 *  @param iv Vertex index.  Should not already be in VertexIndices().
+	 */
+	public VERTEX_TYPE AddVertex(int iv)
+		throws Exception
+	{
+		if (vertex_table.ContainsIndex(iv)) {
+			throw new Exception
+				("Illegal argument to AddVertex().  Vertex " + 
+					String.valueOf(iv) + " aready exists.");
+		}
+		
+		return _CreateVertex(iv);
+	}
+	
+	
+	/** Add new vertex.
+	 *  - Returns vertex.
+	 *  - New vertex index is determined internally by the function.
+	 */
+	public VERTEX_TYPE AddNewVertex() throws Exception
+	{
+		int ivnew = _NewVertexIndex();
+		return AddVertex(ivnew);
+	}
+	
+	
+	/** Add vertices [0..(numv-1)] to the mesh. */
+	public void AddVertices(int numv) throws Exception
+	{
+		// Avoid repeated reallocation of the vertex array.
+		vertex_table.EnsureCapacity(numv);
+		coord_store.EnsureCapacity(numv);
+
+		for (int iv = 0; iv < numv; iv++)
+		{ _CreateVertex(iv); }
+	}
+	
+	
+	/** Add cell with index icell.
+	    @param icell Cell index. Precondition: No existing cell has index icell. 
+	 */
+	public CELL_TYPE AddCell(int icell, ArrayList<Integer> cell_vertex) throws Exception
+	{
+		if (cell_vertex.size() < 3) {
+			throw new Exception("Illegal argument to AddCell.  Vector cell_vertex must have 3 or more vertices.");
+		}
+		
+		CELL_TYPE cell = _AddCell(icell);
+		
+		// Create first half edge.
+		int iv0 = cell_vertex.get(0);
+		int iv1 = cell_vertex.get(1);
+		VERTEX_TYPE v0 = _CreateVertex(iv0);
+		VERTEX_TYPE v1 = _CreateVertex(iv1);
+		int ihalf_edge0 = _NewHalfEdgeIndex();
+		HALF_EDGE_TYPE half_edge0 = _AddAndLinkHalfEdge(ihalf_edge0, cell, v0, v1, null);
+		cell.half_edge = half_edge0;
+		
+		HALF_EDGE_TYPE hprev = half_edge0;
+		
+		for (int i0 = 1; i0 < cell_vertex.size(); i0++) {
+			int i1 = (i0+1)%cell_vertex.size();
+			iv0 = cell_vertex.get(i0);
+			iv1 = cell_vertex.get(i1);
+			v0 = Vertex(iv0);
+			v1 = _CreateVertex(iv1);
+			int ihalf_edge = _NewHalfEdgeIndex();
+			HALF_EDGE_TYPE half_edge = 
+					_AddAndLinkHalfEdge(ihalf_edge, cell, v0, v1, hprev);
+			hprev = half_edge;
+		}
+		
+		// Link last half edge (hprev) and first half edge (half_edge0).
+		_LinkHalfEdgesInCell(hprev, half_edge0);
+
+		// - This call must be AFTER _LinkHalfEdgesInCell(hprev, half_edge0).
+		_MoveBoundaryHalfEdgeToHalfEdgeFrom0(cell_vertex);
+		
+		if (cell_vertex.size() != cell.NumVertices()) {
+			throw new Exception("Error in AddCell().  Incorrect number of vertices in cell.");
+		}
+
+		return cell;
+	}
+	
+	
+	/** Add new cell.
+	 *  - Returns new cell.
+	 *  - New cell index is determined internally by the function.
+	 */
+	public CELL_TYPE AddNewCell(ArrayList<Integer> cell_vertex) throws Exception
+	{
+		int icell = _NewCellIndex();
+		return AddCell(icell, cell_vertex);
+	}
+	
+	
+	/** Add cells whose vertices are stored in flat arrays.
+	 * <ul>
+	 * <li> Cell k has vertices cell_vertex[cell_first[k]..(cell_first[k+1]-1)].
+	 *   Array cell_first[] has length (number of cells)+1,
+	 *   cell_first[0] is 0 and the last entry is cell_vertex.length.
+	 * <li> New cells have indices MaxCellIndex()+1, MaxCellIndex()+2, ...
+	 *   The half edges of each cell have consecutive indices,
+	 *   in the order of the cell vertices, as with AddCell().
+	 * <li> If coord[] is not null, add vertices [0..(numv-1)] with
+	 *   coordinates coord[], where numv is coord.length/Dimension().
+	 * <li> Vertices in cell_vertex[] are created if they do not exist.
+	 * <li> Same resulting mesh as calling AddCell() for each cell,
+	 *   including the order of half edges around each edge
+	 *   and in each half_edge_from[] list.
+	 * <li> Much faster than calling AddCell() for each cell.
+	 *   Half edges around each edge are matched by a single bucket sort
+	 *   of the edge endpoints, instead of by searching the half edges
+	 *   from each vertex.  (See _LinkNewHalfEdges().)
+	 * </ul>
+	 * @param cell_first Location in cell_vertex[] of the first vertex of each cell.
+	 * @param cell_vertex Cell vertices.
+	 * @param coord Vertex coordinates.  Coordinates of vertex iv are
+	 *   coord[iv*Dimension()..(iv*Dimension()+Dimension()-1)].  May be null.
+	 */
+	public void AddCells(int[] cell_first, int[] cell_vertex, float[] coord)
+		throws Exception
+	{
+		final int numc = cell_first.length-1;
+		final int numh = cell_vertex.length;
+		final int ivmax = _CheckAddCellsArguments(cell_first, cell_vertex);
+		
+		if (coord != null) 
+		{ _AddVerticesWithCoord(coord); }
+		
+		// Avoid repeated reallocation of arrays.
+		vertex_table.EnsureCapacity(ivmax+1);
+		coord_store.EnsureCapacity(ivmax+1);
+		
+		final boolean flag_existing_half_edges = (NumHalfEdges() > 0);
+		final int icell0 = MaxCellIndex()+1;
+		final int ihalf_edge0 = MaxHalfEdgeIndex()+1;
+		cell_table.EnsureCapacity(icell0+numc);
+		half_edge_table.EnsureCapacity(ihalf_edge0+numh);
+		
+		// Create cells and half edges and link half edges in each cell.
+		final HalfEdgeBase[] half_edge = new HalfEdgeBase[numh];
+		for (int k = 0; k < numc; k++) {
+			final CELL_TYPE cell = _AddCell(icell0+k);
+			final int j0 = cell_first[k];
+			final int j1 = cell_first[k+1];
+			for (int j = j0; j < j1; j++) {
+				final HALF_EDGE_TYPE half_edgeA = _AddHalfEdge(ihalf_edge0+j);
+				half_edgeA.cell = cell;
+				half_edgeA.from_vertex = _CreateVertex(cell_vertex[j]);
+				half_edge[j] = half_edgeA;
+			}
+			
+			_LinkHalfEdgesInCell(cell, half_edge, j0, j1);
+			_DecrementNumCellsOfSize(0);
+			_IncrementNumCellsOfSize(cell.num_vertices);
+		}
+		
+		_LinkNewHalfEdges
+			(half_edge, ivmax, ihalf_edge0, flag_existing_half_edges, false);
+		
+		if (edge_index != null) {
+			for (int j = 0; j < numh; j++) 
+			{ _IndexHalfEdge(half_edge[j]); }
+		}
+	}
+	
+	
+	/** Add cells whose vertices are stored in flat arrays, 
+	 *    using multiple threads.
+	 * <ul>
+	 * <li> Same arguments and same resulting mesh as AddCells(),
+	 *   and so as calling AddCell() for each cell.
+	 * <li> Cells and half edges are created and linked in cells,
+	 *   half edges are linked around edges, and half_edge_from[]
+	 *   lists are filled, by parallel streams running on
+	 *   the common fork-join pool.
+	 * <li> Vertex creation and insertion into the element tables
+	 *   and the edge index are sequential, since these are not thread safe.
+	 * <li> The factory functions NewHalfEdge() and NewCell() 
+	 *   are called from multiple threads and must be thread safe.
+	 * <li> Calls AddCells() while a snapshot is active,
+	 *   since changes are recorded in the snapshot sequentially.
+	 * </ul>
+	 * @param cell_first Location in cell_vertex[] of the first vertex of each cell.
+	 * @param cell_vertex Cell vertices.
+	 * @param coord Vertex coordinates.  May be null.
+	 */
+	public void AddCellsParallel
+	(int[] cell_first, int[] cell_vertex, float[] coord) throws Exception
+	{
+		if (snapshot != null) {
+			AddCells(cell_first, cell_vertex, coord);
+			return;
+		}
+		
+		final int numc = cell_first.length-1;
+		final int numh = cell_vertex.length;
+		final int ivmax = _CheckAddCellsArguments(cell_first, cell_vertex);
+		
+		if (coord != null) 
+		{ _AddVerticesWithCoord(coord); }
+		
+		vertex_table.EnsureCapacity(ivmax+1);
+		coord_store.EnsureCapacity(ivmax+1);
+		
+		// vertex[iv] is vertex iv, if iv is in cell_vertex[].
+		final VertexBase[] vertex = new VertexBase[ivmax+1];
+		for (int j = 0; j < numh; j++) {
+			final int iv = cell_vertex[j];
+			if (vertex[iv] == null)
+			{ vertex[iv] = _CreateVertex(iv); }
+		}
+		
+		final boolean flag_existing_half_edges = (NumHalfEdges() > 0);
+		final int icell0 = MaxCellIndex()+1;
+		final int ihalf_edge0 = MaxHalfEdgeIndex()+1;
+		
+		// Create cells and half edges and link half edges in each cell.
+		// - Each thread sets different list entries.  Parallel stream
+		//   completes before lists are read.
+		final ArrayList<CELL_TYPE> new_cell = 
+			new ArrayList<>(Collections.nCopies(numc, null));
+		final ArrayList<HALF_EDGE_TYPE> new_half_edge = 
+			new ArrayList<>(Collections.nCopies(numh, null));
+		final HalfEdgeBase[] half_edge = new HalfEdgeBase[numh];
+		IntStream.range(0, numc).parallel().forEach(k -> {
+			final CELL_TYPE cellA = factory.NewCell();
+			cellA.index = icell0+k;
+			final int j0 = cell_first[k];
+			final int j1 = cell_first[k+1];
+			for (int j = j0; j < j1; j++) {
+				final HALF_EDGE_TYPE half_edgeA = factory.NewHalfEdge();
+				half_edgeA.index = ihalf_edge0+j;
+				half_edgeA.cell = cellA;
+				half_edgeA.from_vertex = vertex[cell_vertex[j]];
+				half_edge[j] = half_edgeA;
+				new_half_edge.set(j, half_edgeA);
+			}
+			
+			_LinkHalfEdgesInCell(cellA, half_edge, j0, j1);
+			new_cell.set(k, cellA);
+		});
+		
+		// Element tables are not thread safe.
+		cell_table.EnsureCapacity(icell0+numc);
+		for (int k = 0; k < numc; k++) {
+			cell_table.Put(icell0+k, new_cell.get(k));
+			_IncrementNumCellsOfSize(new_cell.get(k).num_vertices);
+		}
+		_max_cell_index = Math.max(_max_cell_index, icell0+numc-1);
+		
+		half_edge_table.EnsureCapacity(ihalf_edge0+numh);
+		for (int j = 0; j < numh; j++)
+		{ half_edge_table.Put(ihalf_edge0+j, new_half_edge.get(j)); }
+		_max_half_edge_index = Math.max(_max_half_edge_index, ihalf_edge0+numh-1);
+		
+		// Count each new half edge as a boundary edge, as in _AddHalfEdge().
+		_num_edges += numh;
+		_num_boundary_edges += numh;
+		
+		_LinkNewHalfEdges
+			(half_edge, ivmax, ihalf_edge0, flag_existing_half_edges, true);
+		
+		if (edge_index != null) {
+			for (int j = 0; j < numh; j++) 
+			{ _IndexHalfEdge(half_edge[j]); }
+		}
+	}
+	
+	
+	/** Check arguments to AddCells() and AddCellsParallel().
+	 * - Returns maximum vertex index in cell_vertex[], or -1
+	 *   if cell_vertex[] is empty.
+	 */
+	protected static int _CheckAddCellsArguments
+	(int[] cell_first, int[] cell_vertex) throws Exception
+	{
+		final int numc = cell_first.length-1;
+		final int numh = cell_vertex.length;
+		
+		if (numc < 0 || cell_first[0] != 0 || cell_first[numc] != numh) {
+			throw new Exception
+				("Illegal argument to AddCells.  Array cell_first[] must start with 0 and end with cell_vertex.length.");
+		}
+		
+		for (int k = 0; k < numc; k++) {
+			if (cell_first[k+1]-cell_first[k] < 3) {
+				throw new Exception
+					("Illegal argument to AddCells.  Cell " + String.valueOf(k) +
+						" must have 3 or more vertices.");
+			}
+		}
+		
+		int ivmax = -1;
+		for (int j = 0; j < numh; j++) {
+			if (cell_vertex[j] < 0) {
+				throw new Exception
+					("Illegal argument to AddCells.  Vertex indices must be non-negative.");
+			}
+			ivmax = Math.max(ivmax, cell_vertex[j]);
+		}
+		
+		return ivmax;
+	}
+	
+	
+	/** Add vertices [0..(numv-1)] with coordinates coord[],
+	 *    where numv is coord.length/Dimension().
+	 */
+	protected void _AddVerticesWithCoord(float[] coord) throws Exception
+	{
+		final int dimension = VertexBase.Dimension();
+		final int numv = coord.length/dimension;
+		final float[] vcoord = new float[dimension];
+		AddVertices(numv);
+		if (snapshot != null) {
+			for (int iv = 0; iv < numv; iv++)
+			{ _SnapshotVertex(vertex_table.Get(iv)); }
+		}
+		coord_store.ExtendBoundingBox(coord, numv);
+		for (int iv = 0; iv < numv; iv++) {
+			System.arraycopy(coord, iv*dimension, vcoord, 0, dimension);
+			coord_store.SetCoord(iv, vcoord);
+		}
+	}
+	
+	
+	/** Link half_edge[j0..(j1-1)] into a cycle of half edges in cell.
+	 * - Set cell.half_edge and cell.num_vertices.
+	 */
+	protected static void _LinkHalfEdgesInCell
+	(CellBase cell, HalfEdgeBase[] half_edge, int j0, int j1)
+	{
+		for (int j = j0; j < j1; j++) {
+			final HalfEdgeBase hnext = half_edge[(j+1 < j1) ? j+1 : j0];
+			half_edge[j].next_half_edge_in_cell = hnext;
+			hnext.prev_half_edge_in_cell = half_edge[j];
+		}
+		
+		cell.half_edge = half_edge[j0];
+		cell.num_vertices = j1-j0;
+	}
+	
+	
+	/** Link new half edges around edges and add them to
+	 *    half_edge_from[] lists, exactly as AddCell() would,
+	 *    if called for each new cell in order.
+	 * <ul>
+	 * <li> AddCell() links each new half edge after the half edge
+	 *   returned by FindHalfEdge(), and moves a boundary half edge
+	 *   to half_edge_from[0] of each cell vertex after each cell.
+	 *   Both depend on the order of the cells.
+	 * <li> Half edges are grouped by edge by a bucket sort
+	 *   of the edge endpoints.  The cell where each edge stops
+	 *   being a boundary edge is computed from the groups.
+	 * <li> The half_edge_from[] list of each vertex is built by replaying
+	 *   the new half edges from the vertex, moving boundary half edges
+	 *   after each cell.  The list is also searched wherever
+	 *   FindHalfEdge() would search it.
+	 * <li> The half edges around each edge are then linked by replaying
+	 *   the new half edges of the edge, in index order.
+	 * <li> Each vertex and each edge is processed by a single thread,
+	 *   so threads never modify the same vertices or half edges.
+	 *   Does not call FindHalfEdge() and does not modify the edge index.
+	 * <li> Updates number of edges, boundary edges and isolated vertices.
+	 *   Assumes that each half edge in half_edge[] is counted
+	 *   as a boundary edge.
+	 * </ul>
+	 * @param half_edge Half edges of the new cells, in cell order,
+	 *   with cell and from_vertex set and linked in cells.
+	 *   Half edge half_edge[j] has index ihalf_edge0+j.
+	 *   Half edges should not be in any half_edge_from[] list.
+	 * @param ivmax Maximum index of any half edge endpoint.
+	 * @param ihalf_edge0 Index of half_edge[0].  Half edges
+	 *   already in the mesh have smaller indices.
+	 * @param flag_link_existing If true, link new half edges with
+	 *   the half edges already in the mesh with the same endpoints.
+	 * @param flag_parallel If true, use parallel streams.
+	 *   Should be false if a snapshot is active.
+	 */
+	protected void _LinkNewHalfEdges
+	(HalfEdgeBase[] half_edge, int ivmax, int ihalf_edge0,
+			boolean flag_link_existing, boolean flag_parallel)
+	{
+		final int numh = half_edge.length;
+		
+		// Repair of stale edge index entries changes which half edges
+		//   FindHalfEdge() returns, so AddCell() links may depend on it.
+		final boolean flag_repair = _IsEdgeIndexRepairedByCurrentThread();
+		
+		// edge_key[edge_first[iv]..(edge_first[iv+1]-1)] are keys of
+		//   half edges whose smaller endpoint is iv.
+		final int[] edge_first = new int[ivmax+2];
+		final int[] edge_list = _BucketLocations
+			(numh, ivmax+1, j -> _MinEndpointIndex(half_edge[j]),
+				edge_first, flag_parallel);
+		final long[] edge_key = new long[numh];
+		
+		// If half_edge[j] is first in its edge group,
+		//   existing_half_edge[j] is some half edge already in the mesh
+		//   with the same endpoints, or null.
+		final HalfEdgeBase[] existing_half_edge =
+			flag_link_existing ? new HalfEdgeBase[numh] : null;
+		
+		// Index of the cell that makes the edge of half_edge[j]
+		//   an interior edge, i.e., adds its second half edge.
+		final int[] icell_interior = new int[numh];
+		final Map<HalfEdgeBase,Integer> existing_icell_interior =
+			new ConcurrentHashMap<>();
+		
+		// is_queried[j] is true if half_edge[j] is linked
+		//   with the half edge returned by FindHalfEdge()
+		//   and the edge already has two or more half edges.
+		final boolean[] is_queried = new boolean[numh];
+		
+		_IndexStream(ivmax+1, flag_parallel).forEach
+			(iv -> _GroupHalfEdgesInBucket
+				(half_edge, edge_list, edge_key, edge_first[iv], edge_first[iv+1],
+					existing_half_edge, icell_interior,
+					existing_icell_interior, is_queried));
+		
+		// For query q of half_edge[query_j[q/2]], query_found[q] is
+		//   the half edge (to,from), if q is even, or (from,to), if q is odd,
+		//   that FindHalfEdge() would find before the half edge is added.
+		final int[] query_j =
+			_IndexStream(numh, flag_parallel).filter(j -> is_queried[j]).toArray();
+		final int numq = 2*query_j.length;
+		final HalfEdgeBase[] query_found = new HalfEdgeBase[numq];
+		final int[] query_first = new int[ivmax+2];
+		final int[] query_list = _BucketLocations
+			(numq, ivmax+1, q -> _QueryVertexIndex(half_edge[query_j[q/2]], q),
+				query_first, flag_parallel);
+		
+		final int[] from_first = new int[ivmax+2];
+		final int[] from_list = _BucketLocations
+			(numh, ivmax+1, j -> half_edge[j].from_vertex.index,
+				from_first, flag_parallel);
+		
+		final int num_connected = _IndexStream(ivmax+1, flag_parallel).map
+			(iv -> _AddNewHalfEdgesToVertexList
+				(half_edge, from_list, from_first[iv], from_first[iv+1],
+					query_j, query_list, query_first[iv], query_first[iv+1],
+					query_found, ihalf_edge0,
+					icell_interior, existing_icell_interior)).sum();
+		_num_isolated_vertices -= num_connected;
+		
+		final long num_removed = _IndexStream(ivmax+1, flag_parallel).mapToLong
+			(iv -> _LinkHalfEdgesInBucket
+				(half_edge, edge_key, edge_first[iv], edge_first[iv+1],
+					existing_half_edge, query_j, query_found, flag_repair)).sum();
+		_SubtractNumRemovedEdges(num_removed);
+	}
+	
+	
+	/** Return stream of integers [0..(n-1)],
+	 *    parallel if flag_parallel is true.
+	 */
+	protected static IntStream _IndexStream(int n, boolean flag_parallel)
+	{
+		final IntStream stream = IntStream.range(0, n);
+		if (flag_parallel) { return stream.parallel(); }
+		else { return stream; }
+	}
+	
+	
+	/** Bucket sort locations [0..(n-1)] by bucket.applyAsInt().
+	 * <ul>
+	 * <li> Returns array of locations, where the locations in bucket b
+	 *   are in [first[b]..(first[b+1]-1)].
+	 * <li> Locations in each bucket are in arbitrary order
+	 *   if flag_parallel is true.
+	 * </ul>
+	 * @param numb Number of buckets.
+	 * @param first Array of length numb+1.  Set by this function.
+	 */
+	protected static int[] _BucketLocations
+	(int n, int numb, IntUnaryOperator bucket, int[] first,
+			boolean flag_parallel)
+	{
+		final AtomicIntegerArray bucket_size = new AtomicIntegerArray(numb);
+		_IndexStream(n, flag_parallel).forEach
+			(j -> bucket_size.incrementAndGet(bucket.applyAsInt(j)));
 		
-		// Link half edge with other half edges around edge.
-		HalfEdgeBase half_edgeB = vto.FindHalfEdgeTo(vfrom.Index());
-		if (half_edgeB == null) {
-			// Check whether there is a half edge around edge with the same
-			// orientation as half_edge.
-			HalfEdgeBase half_edgeC = vfrom.FindHalfEdgeTo(vto.Index());
-			if (half_edgeC == null)
-			{ half_edge.next_half_edge_around_edge = half_edge; }
-			else
-			{
-				// Link half_edge with half_edgeC, even though they
-				//   have the same orientation.
-				_LinkHalfEdgesAroundEdge(half_edgeC, half_edge);
-			}
-		}
-		else {
-			_LinkHalfEdgesAroundEdge(half_edgeB, half_edge);
-		}
+		first[0] = 0;
+		for (int b = 0; b < numb; b++)
+		{ first[b+1] = first[b] + bucket_size.get(b); }
 		
-		vfrom.half_edge_from.add(half_edge);
+		final int[] list = new int[n];
+		final AtomicIntegerArray bucket_fill = new AtomicIntegerArray(numb);
+		_IndexStream(n, flag_parallel).forEach(j -> {
+			final int b = bucket.applyAsInt(j);
+			list[first[b]+bucket_fill.getAndIncrement(b)] = j;
+		});
 		
-		return half_edge;
+		return list;
 	}
 	
-	/** Move boundary half edge to half_edge_from[0] for each vertex
-	 *  in cell_vertex[].
-	 * @param cell_vertex
-	 * @throws Exception
+	
+	/** Set key[kstart..(kend-1)] to the sorted keys of the half edges
+	 *    in list[kstart..(kend-1)] and find where each edge
+	 *    becomes an interior edge.
+	 * <ul>
+	 * <li> All half edges in list[kstart..(kend-1)] have
+	 *   the same smaller endpoint.
+	 * <li> Reads, but does not modify, half edges already in the mesh.
+	 * </ul>
 	 */
-	protected void _MoveBoundaryHalfEdgeToHalfEdgeFrom0
-		(ArrayList<Integer> cell_vertex) throws Exception
+	protected static void _GroupHalfEdgesInBucket
+	(HalfEdgeBase[] half_edge, int[] list, long[] key, int kstart, int kend,
+			HalfEdgeBase[] existing_half_edge, int[] icell_interior,
+			Map<HalfEdgeBase,Integer> existing_icell_interior,
+			boolean[] is_queried)
 	{
-		for (int i = 0; i < cell_vertex.size(); i++) {
-			int iv = cell_vertex.get(i);
-			VERTEX_TYPE v = Vertex(iv);
-			if (v == null) {
-				throw new Exception("Programming error. Attempt to access non-existant vertex in _MoveBoundaryHalfEdgeToHalfEdgeFrom0()");
+		for (int k = kstart; k < kend; k++)
+		{ key[k] = _HalfEdgeBucketKey(half_edge[list[k]], list[k]); }
+		Arrays.sort(key, kstart, kend);
+		
+		int k0 = kstart;
+		while (k0 < kend) {
+			final int k1 = _EndOfEdgeGroup(key, k0, kend);
+			final int jA = (int) key[k0];
+			final HalfEdgeBase half_edgeA = half_edge[jA];
+			
+			HalfEdgeBase half_edgeC = null;
+			if (existing_half_edge != null) {
+				half_edgeC = _FindEdgeInHalfEdgeFromLists
+					(half_edgeA.from_vertex, half_edgeA.ToVertex());
+				existing_half_edge[jA] = half_edgeC;
+			}
+			final int num_existing = _NumHalfEdgesAroundEdgeUpTo2(half_edgeC);
+			
+			int icell = Integer.MAX_VALUE;
+			if (num_existing >= 2)
+			{ icell = -1; }
+			else if (num_existing + (k1-k0) >= 2)
+			{ icell = half_edge[(int) key[k0+1-num_existing]].cell.index; }
+			
+			if (num_existing == 1)
+			{ existing_icell_interior.put(half_edgeC, icell); }
+			
+			for (int k = k0; k < k1; k++) {
+				final int j = (int) key[k];
+				icell_interior[j] = icell;
+				if (num_existing + (k-k0) >= 2)
+				{ is_queried[j] = true; }
 			}
 			
-			v.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
+			k0 = k1;
 		}
 	}
 	
 	
-	/** Add cell with index icell.
-	 	@pre No existing cell has index icell. */
-	protected CELL_TYPE _AddCell(int icell)
+	/** Return the end of the group of keys in key[k0..(kend-1)]
+	 *    with the same endpoints as key[k0].
+	 */
+	protected static int _EndOfEdgeGroup(long[] key, int k0, int kend)
 	{
-		/// Cast to CELL_TYPE. Needed even though factory.NewCell() should create cell of type CELL_TYPE.
-		CELL_TYPE cell = (CELL_TYPE) factory.NewCell();
-		cell.index = icell;
-		cell_hashtable.put(icell, cell);
-		_max_cell_index = Math.max(_max_cell_index, icell);
-		return cell;
+		int k1 = k0+1;
+		while (k1 < kend && (key[k1] >>> 32) == (key[k0] >>> 32))
+		{ k1++; }
+		return k1;
 	}
-
 	
-	// *** Public AddVertices(), AddCell() functions ***
-
-	/** Add vertex with index iv.
-	 *  - Returns vertex.
-	 *  @param iv Vertex index.  Should not already be in VertexIndices().
+	
+	/** Return some half edge with endpoints v0 and v1 in
+	 *    v0.half_edge_from[] or v1.half_edge_from[], or null.
+	 * - Does not use the edge index.
 	 */
-	public VERTEX_TYPE AddVertex(int iv)
-		throws Exception
+	protected static HalfEdgeBase _FindEdgeInHalfEdgeFromLists
+	(VertexBase v0, VertexBase v1)
 	{
-		if (VertexIndices().contains(iv)) {
-			throw new Exception
-				("Illegal argument to AddVertex().  Vertex " + 
-					String.valueOf(iv) + " aready exists.");
-		}
-		
-		return _CreateVertex(iv);
+		final HalfEdgeBase half_edge = v0.FindHalfEdgeTo(v1.index);
+		if (half_edge != null) { return half_edge; }
+		return v1.FindHalfEdgeTo(v0.index);
 	}
 	
 	
-	/** Add new vertex.
-	 *  - Returns vertex.
-	 *  - New vertex index is determined internally by the function.
+	/** Return number of half edges around the edge containing half_edge,
+	 *    or 2 if there are more than 2 half edges.
+	 * - Return 0 if half_edge is null.
 	 */
-	public VERTEX_TYPE AddNewVertex() throws Exception
+	protected static int _NumHalfEdgesAroundEdgeUpTo2(HalfEdgeBase half_edge)
 	{
-		Integer ivnew = MaxVertexIndex()+1;
-		return AddVertex(ivnew);
+		if (half_edge == null) { return 0; }
+		else if (half_edge.IsBoundary()) { return 1; }
+		else { return 2; }
 	}
 	
 	
-	/** Add vertices [0..(numv-1)] to the mesh. */
-	public void AddVertices(int numv) throws Exception
+	/** Return index of the vertex whose half_edge_from[] list
+	 *    is searched by query q of half_edge.
+	 * - Even queries search for (to,from) and odd queries for (from,to).
+	 */
+	protected static int _QueryVertexIndex(HalfEdgeBase half_edge, int q)
 	{
-		for (int iv = 0; iv < numv; iv++)
-		{ _CreateVertex(iv); }
+		if (q%2 == 0) { return half_edge.ToVertexIndex(); }
+		else { return half_edge.from_vertex.index; }
 	}
 	
 	
-	/** Add cell with index icell.
-	    @param icell Cell index. Precondition: No existing cell has index icell. 
+	/** Add new half edges in list[k0..(k1-1)] to the half_edge_from[] list
+	 *    of their from vertex, as AddCell() would.
+	 * <ul>
+	 * <li> Half edges are added in index order.  After the half edges
+	 *   of each cell are added, a boundary half edge is moved
+	 *   to half_edge_from[0], as in AddCell().
+	 * <li> Answers queries in query_list[q0..(q1-1)] on
+	 *   the half_edge_from[] list as it is before each queried half edge
+	 *   is added, and sets query_found[].
+	 * <li> Returns 1 if the vertex was isolated, and 0 otherwise.
+	 * </ul>
 	 */
-	public CELL_TYPE AddCell(int icell, ArrayList<Integer> cell_vertex) throws Exception
+	protected int _AddNewHalfEdgesToVertexList
+	(HalfEdgeBase[] half_edge, int[] list, int k0, int k1,
+			int[] query_j, int[] query_list, int q0, int q1,
+			HalfEdgeBase[] query_found, int ihalf_edge0,
+			int[] icell_interior, Map<HalfEdgeBase,Integer> existing_icell_interior)
 	{
-		if (cell_vertex.size() < 3) {
-			throw new Exception("Illegal argument to AddCell.  Vector cell_vertex must have 3 or more vertices.");
-		}
+		if (k0 == k1) { return 0; }
 		
-		CELL_TYPE cell = _AddCell(icell);
+		Arrays.sort(list, k0, k1);
+		Arrays.sort(query_list, q0, q1);
 		
-		// Create first half edge.
-		int iv0 = cell_vertex.get(0);
-		int iv1 = cell_vertex.get(1);
-		VERTEX_TYPE v0 = _CreateVertex(iv0);
-		VERTEX_TYPE v1 = _CreateVertex(iv1);
-		int ihalf_edge0 = MaxHalfEdgeIndex() + 1;
-		HALF_EDGE_TYPE half_edge0 = _AddAndLinkHalfEdge(ihalf_edge0, cell, v0, v1, null);
-		cell.half_edge = half_edge0;
+		final VertexBase v = half_edge[list[k0]].from_vertex;
+		final int flag_was_isolated = (v.num_half_edge_from == 0) ? 1 : 0;
+		_SnapshotVertex(v);
+		v._EnsureHalfEdgeFromLength(v.num_half_edge_from+(k1-k0));
 		
-		HALF_EDGE_TYPE hprev = half_edge0;
-		int ihalf_edge = ihalf_edge0;
+		// Cell of half edges added since boundary half edges were moved,
+		//   or -1 if no half edges were added.
+		int icell_added = -1;
+		int k = k0;
+		int q = q0;
+		while (k < k1 || q < q1) {
+			final int jA = (k < k1) ? list[k] : Integer.MAX_VALUE;
+			final int jQ = (q < q1) ? query_j[query_list[q]/2] : Integer.MAX_VALUE;
+			final int icell = half_edge[Math.min(jA, jQ)].cell.index;
+			
+			if (icell_added >= 0 && icell_added < icell) {
+				_MoveBoundaryHalfEdgeAfterCell
+					(v, icell_added, ihalf_edge0, icell_interior,
+						existing_icell_interior);
+				icell_added = -1;
+			}
+			
+			// Query half edge before adding it.
+			if (jQ <= jA) {
+				final HalfEdgeBase half_edgeQ = half_edge[jQ];
+				final int iq = query_list[q];
+				if (iq%2 == 0)
+				{ query_found[iq] = v.FindHalfEdgeTo(half_edgeQ.from_vertex.index); }
+				else
+				{ query_found[iq] = v.FindHalfEdgeTo(half_edgeQ.ToVertexIndex()); }
+				q++;
+			}
+			else {
+				v._AddHalfEdgeFrom(half_edge[jA]);
+				icell_added = icell;
+				k++;
+			}
+		}
 		
-		for (int i0 = 1; i0 < cell_vertex.size(); i0++) {
-			int i1 = (i0+1)%cell_vertex.size();
-			iv0 = cell_vertex.get(i0);
-			iv1 = cell_vertex.get(i1);
-			v0 = Vertex(iv0);
-			v1 = _CreateVertex(iv1);
-			ihalf_edge++;
-			HALF_EDGE_TYPE half_edge = 
-					_AddAndLinkHalfEdge(ihalf_edge, cell, v0, v1, hprev);
-			hprev = half_edge;
+		if (icell_added >= 0) {
+			_MoveBoundaryHalfEdgeAfterCell
+				(v, icell_added, ihalf_edge0, icell_interior,
+					existing_icell_interior);
 		}
 		
-		// Link last half edge (hprev) and first half edge (half_edge0).
-		_LinkHalfEdgesInCell(hprev, half_edge0);
-
-		// - This call must be AFTER _LinkHalfEdgesInCell(hprev, half_edge0).
-		_MoveBoundaryHalfEdgeToHalfEdgeFrom0(cell_vertex);
+		return flag_was_isolated;
+	}
+	
+	
+	/** Move boundary half edge to v.half_edge_from[0],
+	 *    as AddCell() would after adding cell icell.
+	 * - Boundary half edges are determined from icell_interior[]
+	 *   and existing_icell_interior, since half edges around
+	 *   new edges are not yet linked.
+	 */
+	protected static void _MoveBoundaryHalfEdgeAfterCell
+	(VertexBase v, int icell, int ihalf_edge0, int[] icell_interior,
+			Map<HalfEdgeBase,Integer> existing_icell_interior)
+	{
+		v._MoveBoundaryHalfEdgeToHalfEdgeFrom0
+			(half_edge -> {
+				if (half_edge.index >= ihalf_edge0)
+				{ return (icell < icell_interior[half_edge.index-ihalf_edge0]); }
+				
+				final Integer icellB = existing_icell_interior.get(half_edge);
+				if (icellB != null) { return (icell < icellB); }
+				return half_edge.IsBoundary();
+			});
+	}
+	
+	
+	/** Link half edges in key[kstart..(kend-1)] with half edges with
+	 *    the same endpoints into cycles of half edges around edges,
+	 *    as AddCell() would.
+	 * <ul>
+	 * <li> Keys in key[kstart..(kend-1)] are sorted by
+	 *   _GroupHalfEdgesInBucket().
+	 * <li> Each half edge is linked after the half edge that
+	 *   FindHalfEdge() would return, found from query_found[]
+	 *   or from the half edges already linked.  Models the changes
+	 *   to stale edge index entries that FindHalfEdge() would make,
+	 *   but does not modify the edge index.
+	 * <li> Modifies only half edges in key[kstart..(kend-1)] and
+	 *   existing half edges with the same endpoints.
+	 *   Does not modify the number of edges or boundary edges.
+	 * <li> Returns the decrease in the number of edges and boundary edges,
+	 *   packed by _PackNumRemovedEdges(), assuming that each half edge
+	 *   in key[kstart..(kend-1)] was counted as a boundary edge.
+	 * </ul>
+	 */
+	protected long _LinkHalfEdgesInBucket
+	(HalfEdgeBase[] half_edge, long[] key, int kstart, int kend,
+			HalfEdgeBase[] existing_half_edge,
+			int[] query_j, HalfEdgeBase[] query_found, boolean flag_repair)
+	{
+		int num_edges_removed = 0;
+		int num_boundary_edges_removed = 0;
 		
-		if (cell_vertex.size() != cell.NumVertices()) {
-			throw new Exception("Error in AddCell().  Incorrect number of vertices in cell.");
+		int k0 = kstart;
+		while (k0 < kend) {
+			final int k1 = _EndOfEdgeGroup(key, k0, kend);
+			final HalfEdgeBase half_edgeA = half_edge[(int) key[k0]];
+			final VertexBase vA = half_edgeA.from_vertex;
+			final HalfEdgeBase half_edgeC =
+				(existing_half_edge == null) ? null : existing_half_edge[(int) key[k0]];
+			final int num_existing = _NumHalfEdgesAroundEdgeUpTo2(half_edgeC);
+			
+			// entry[0] and entry[1] are the edge index entries
+			//   for (vA,vB) and (vB,vA), where vB is half_edgeA.ToVertex().
+			HalfEdgeBase[] entry = null;
+			boolean[] is_valid = null;
+			if (edge_index != null) {
+				final VertexBase vB = half_edgeA.ToVertex();
+				entry = new HalfEdgeBase[]
+					{ edge_index.Get(EdgeIndex.Key(vA.index, vB.index)),
+						edge_index.Get(EdgeIndex.Key(vB.index, vA.index)) };
+				is_valid = new boolean[]
+					{ entry[0] != null && _IsValidEdgeIndexEntry(entry[0], vA, vB),
+						entry[1] != null && _IsValidEdgeIndexEntry(entry[1], vB, vA) };
+			}
+			
+			for (int k = k0; k < k1; k++) {
+				final int j = (int) key[k];
+				final HalfEdgeBase half_edgeB = half_edge[j];
+				final VertexBase vfrom = half_edgeB.from_vertex;
+				final VertexBase vto = half_edgeB.ToVertex();
+				
+				// Half edges (vto,vfrom) and (vfrom,vto) in vto.half_edge_from[]
+				//   and vfrom.half_edge_from[], before half_edgeB is added.
+				HalfEdgeBase half_edge_to = null;
+				HalfEdgeBase half_edge_from = null;
+				final int num_linked = num_existing + (k-k0);
+				if (num_linked >= 2) {
+					final int iq = 2*Arrays.binarySearch(query_j, j);
+					half_edge_to = query_found[iq];
+					half_edge_from = query_found[iq+1];
+				}
+				else if (num_linked == 1) {
+					// Only half edge around edge.
+					final HalfEdgeBase half_edgeD =
+						(num_existing == 1) ? half_edgeC : half_edgeA;
+					if (half_edgeD.from_vertex == vto) { half_edge_to = half_edgeD; }
+					if (half_edgeD.from_vertex == vfrom) { half_edge_from = half_edgeD; }
+				}
+				
+				HalfEdgeBase hprev;
+				if (edge_index == null)
+				{ hprev = (half_edge_to != null) ? half_edge_to : half_edge_from; }
+				else {
+					hprev = _EdgeIndexEntryAfterSearch
+						(entry, is_valid, (vto == vA) ? 0 : 1, half_edge_to, flag_repair);
+					if (hprev == null) {
+						hprev = _EdgeIndexEntryAfterSearch
+							(entry, is_valid, (vfrom == vA) ? 0 : 1, half_edge_from,
+								flag_repair);
+					}
+					
+					// AddCell() puts half_edgeB in the edge index.
+					entry[(vfrom == vA) ? 0 : 1] = half_edgeB;
+					is_valid[(vfrom == vA) ? 0 : 1] = true;
+				}
+				
+				if (hprev == null) {
+					half_edgeB.next_half_edge_around_edge = half_edgeB;
+					half_edgeB.prev_half_edge_around_edge = half_edgeB;
+				}
+				else {
+					num_edges_removed++;
+					num_boundary_edges_removed++;
+					if (hprev.IsBoundary())
+					{ num_boundary_edges_removed++; }
+					
+					final HalfEdgeBase hnext = hprev.next_half_edge_around_edge;
+					_SnapshotHalfEdge(hprev);
+					_SnapshotHalfEdge(hnext);
+					hprev.next_half_edge_around_edge = half_edgeB;
+					half_edgeB.prev_half_edge_around_edge = hprev;
+					half_edgeB.next_half_edge_around_edge = hnext;
+					hnext.prev_half_edge_around_edge = half_edgeB;
+				}
+			}
+			
+			k0 = k1;
 		}
-
-		return cell;
+		
+		return _PackNumRemovedEdges
+			(num_edges_removed, num_boundary_edges_removed);
 	}
 	
 	
-	/** Add new cell.
-	 *  - Returns new cell.
-	 *  - New cell index is determined internally by the function.
+	/** Return the half edge FindHalfEdge() would return
+	 *    for edge index entry entry[i].
+	 * <ul>
+	 * <li> If entry[i] is stale, FindHalfEdge() returns half_edge_found,
+	 *   the half edge found in the half_edge_from[] list,
+	 *   and repairs the entry if flag_repair is true.
+	 * <li> Repairs entry[i] and is_valid[i], not the edge index.
+	 * </ul>
 	 */
-	public CELL_TYPE AddNewCell(ArrayList<Integer> cell_vertex) throws Exception
+	protected static HalfEdgeBase _EdgeIndexEntryAfterSearch
+	(HalfEdgeBase[] entry, boolean[] is_valid, int i,
+			HalfEdgeBase half_edge_found, boolean flag_repair)
 	{
-		Integer icell = MaxCellIndex()+1;
-		return AddCell(icell, cell_vertex);
+		if (entry[i] == null || is_valid[i]) { return entry[i]; }
+		
+		if (flag_repair) {
+			entry[i] = half_edge_found;
+			is_valid[i] = true;
+		}
+		return half_edge_found;
+	}
+	
+	
+	/** Pack decrease in number of edges and boundary edges into a long.
+	 * - Packed values can be added, since both are non-negative
+	 *   and less than 2^31.
+	 */
+	protected static long _PackNumRemovedEdges
+	(int num_edges_removed, int num_boundary_edges_removed)
+	{ return (((long) num_edges_removed) << 32) | num_boundary_edges_removed; }
+	
+	
+	/** Subtract packed number of removed edges and boundary edges
+	 *    from _num_edges and _num_boundary_edges.
+	 */
+	protected void _SubtractNumRemovedEdges(long num_removed)
+	{
+		_num_edges -= (int) (num_removed >>> 32);
+		_num_boundary_edges -= (int) (num_removed & 0xFFFFFFFFL);
+	}
+	
+	
+	/** Return smaller of the two endpoint indices of half_edge. */
+	protected static int _MinEndpointIndex(HalfEdgeBase half_edge)
+	{
+		return Math.min(half_edge.from_vertex.index,
+				half_edge.next_half_edge_in_cell.from_vertex.index);
 	}
 	
 	
+	/** Return sort key (larger endpoint index, j) of half_edge,
+	 *    where j is the location of half_edge in some array.
+	 */
+	protected static long _HalfEdgeBucketKey(HalfEdgeBase half_edge, int j)
+	{
+		final int ivmax = Math.max(half_edge.from_vertex.index,
+				half_edge.next_half_edge_in_cell.from_vertex.index);
+		return (((long) ivmax) << 32) | j;
+	}
+
+
 	/** Delete cell with index icell.
 	 *  @param icell Cell index. Should be in CellIndices().
 	 */
@@ -630,25 +3104,41 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	/** Set coordinate ic of vertex iv. */
 	public void SetCoord(int iv, int ic, float c) throws Exception
 	{
-		VERTEX_TYPE v = _CreateVertex(iv);
+		_SnapshotVertex(_CreateVertex(iv));
 		
 		if (ic < 0 || ic >= VERTEX_TYPE.Dimension())
 		{ throw new Exception("Illegal argument to HalfEdgeMeshBase::SetCoord. Coordinate ic is out of bounds."); }
 		
-		v.coord[ic] = c;
+		_CheckCoordInRange(iv, ic, c);
+		coord_store.Set(iv, ic, c);
 	}
 	
 	
 	/** Set coordinates of vertex iv. */
 	public void SetCoord(int iv, float coord[]) throws Exception
 	{
-		VERTEX_TYPE v = _CreateVertex(iv);
+		_SnapshotVertex(_CreateVertex(iv));
 
 		if (coord.length < VERTEX_TYPE.Dimension())
 		{ throw new Exception("Error in SetCoord(). Argument coord[] has too few coordinates."); }
 		
 		for (int ic = 0; ic < VERTEX_TYPE.Dimension(); ic++)
-		{ v.coord[ic] = coord[ic]; }
+		{ _CheckCoordInRange(iv, ic, coord[ic]); }
+		coord_store.SetCoord(iv, coord);
+	}
+	
+	
+	/** Throw exception if coordinate c is outside the bounding box
+	 *    of quantized coordinates.
+	 */
+	protected void _CheckCoordInRange(int iv, int ic, float c) throws Exception
+	{
+		if (!coord_store.IsInRange(ic, c)) {
+			throw new Exception
+				("Error in SetCoord(). Coordinate " + String.valueOf(ic) +
+					" of vertex " + String.valueOf(iv) + " (" + String.valueOf(c) +
+					") is outside the bounding box of quantized coordinates.");
+		}
 	}
 	
 	
@@ -701,7 +3191,6 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		VertexBase v0 = half_edge0.FromVertex();
 		int list_length = v0.NumHalfEdgesFrom();
-		int ilast = list_length-1;
 		
 		for (int k = 0; k < list_length; k++) {
 			HalfEdgeBase half_edge = 
@@ -709,15 +3198,15 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			
 			if (half_edge0 == half_edge) {
 				VertexBase v1 = half_edge.ToVertex();
-				HalfEdgeBase last_half_edge =
-						v0.KthHalfEdgeFrom(ilast);
-				v0.half_edge_from.set(k, last_half_edge);
-				v0.half_edge_from.remove(ilast);
+				_SnapshotVertex(v0);
+				v0._RemoveKthHalfEdgeFrom(k);
+				if (v0.NumHalfEdgesFrom() == 0)
+				{ _num_isolated_vertices++; }
 				
 				// Deleting a half_edge can create a boundary half edge
 				//  at v0 or v1.
-				v0.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
-				v1.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
+				_MoveBoundaryHalfEdgeToHalfEdgeFrom0(v0);
+				_MoveBoundaryHalfEdgeToHalfEdgeFrom0(v1);
 				
 				return;	
 			}	
@@ -735,12 +3224,19 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 		HalfEdgeBase prev_half_edge_in_cell = half_edge.PrevHalfEdgeInCell();
 		HalfEdgeBase next_half_edge_in_cell = half_edge.NextHalfEdgeInCell();
 
+		_UnindexHalfEdge(half_edge);
+		_UnindexHalfEdge(prev_half_edge_in_cell);
+		_SnapshotHalfEdge(half_edge);
+		_SnapshotHalfEdge(prev_half_edge_in_cell);
+		_SnapshotHalfEdge(next_half_edge_in_cell);
+		_SnapshotCell(cell);
 		prev_half_edge_in_cell.next_half_edge_in_cell =
 			next_half_edge_in_cell;
 		next_half_edge_in_cell.prev_half_edge_in_cell =
 			prev_half_edge_in_cell;
+		_IndexHalfEdge(prev_half_edge_in_cell);
 		
-		cell.num_vertices = cell.num_vertices-1;
+		_ChangeCellNumVertices(cell, cell.num_vertices-1);
 		if (cell.HalfEdge() == half_edge)
 		{ cell.half_edge = next_half_edge_in_cell; }
 		
@@ -750,16 +3246,39 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	}
 	
 	
-	/** Unlink half edge from linked list of half edges around edge. */
+	/** Unlink half edge from linked list of half edges around edge. 
+	 *  - Runs in constant time.
+	 */
 	protected void _UnlinkHalfEdgeFromHalfEdgesAroundEdge(HalfEdgeBase half_edge)
-	throws Exception
 	{
 		HalfEdgeBase prev_half_edge_around_edge = half_edge.PrevHalfEdgeAroundEdge();
+		HalfEdgeBase next_half_edge_around_edge = half_edge.NextHalfEdgeAroundEdge();
+		
+		if (next_half_edge_around_edge == half_edge) {
+			// half_edge is already unlinked.
+			return;
+		}
+		
+		_SnapshotHalfEdge(half_edge);
+		_SnapshotHalfEdge(prev_half_edge_around_edge);
+		_SnapshotHalfEdge(next_half_edge_around_edge);
+		
+		// half_edge becomes a boundary edge.
+		_num_edges++;
+		_num_boundary_edges++;
+		if (prev_half_edge_around_edge == next_half_edge_around_edge) {
+			// Other half edge around edge becomes a boundary edge.
+			_num_boundary_edges++;
+		}
+		
 		prev_half_edge_around_edge.next_half_edge_around_edge =
-				half_edge.NextHalfEdgeAroundEdge();
+				next_half_edge_around_edge;
+		next_half_edge_around_edge.prev_half_edge_around_edge =
+				prev_half_edge_around_edge;
 		
 		// Link half_edge to self.
 		half_edge.next_half_edge_around_edge = half_edge;
+		half_edge.prev_half_edge_around_edge = half_edge;
 	}
 	
 	/** Move all half edges from v0 to be from v1.
@@ -768,28 +3287,58 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	protected void 
 		_MoveVertexHalfEdgeFromList(VertexBase v0, VertexBase v1)
 	{
-		for (int k = 0; k < v0.NumHalfEdgesFrom(); k++) {
+		final int numh0 = v0.NumHalfEdgesFrom();
+		
+		// Edge index entries for half edges from or to v0 change.
+		for (int k = 0; k < numh0; k++) {
 			HalfEdgeBase half_edge = v0.KthHalfEdgeFrom(k);
+			_UnindexHalfEdge(half_edge);
+			_UnindexHalfEdge(half_edge.PrevHalfEdgeInCell());
+		}
+		
+		_SnapshotVertex(v0);
+		_SnapshotVertex(v1);
+		for (int k = 0; k < numh0; k++) {
+			HalfEdgeBase half_edge = v0.KthHalfEdgeFrom(k);
+			_SnapshotHalfEdge(half_edge);
 			half_edge.from_vertex = v1;
 		}
 		
 		// Append v0.half_edge_from[] to v1.half_edge_from[].
-		v1.half_edge_from.addAll(v0.half_edge_from);
+		if (numh0 > 0) {
+			_num_isolated_vertices++;
+			if (v1.NumHalfEdgesFrom() == 0)
+			{ _num_isolated_vertices--; }
+		}
+		v1._MoveHalfEdgesFrom(v0);
 		
-		v0.half_edge_from.clear();
+		// Moved half edges are last in v1.half_edge_from[].
+		for (int k = v1.NumHalfEdgesFrom()-numh0; k < v1.NumHalfEdgesFrom(); k++) {
+			HalfEdgeBase half_edge = v1.KthHalfEdgeFrom(k);
+			_IndexHalfEdge(half_edge);
+			_IndexHalfEdge(half_edge.PrevHalfEdgeInCell());
+		}
 	}
 	
 	
-	/** Swap next half edge around edge. */
+	/** Swap next half edge around edge. 
+	 *  @pre half_edgeA and half_edgeB are in different cycles
+	 *    of half edges around edges.  Swap merges the two cycles.
+	 */
 	protected void
 		_SwapNextHalfEdgeAroundEdge
 		(HalfEdgeBase half_edgeA, HalfEdgeBase half_edgeB)
 	{
+		_CountMergeOfHalfEdgesAroundEdge(half_edgeA, half_edgeB);
+		
 		HalfEdgeBase tempA = half_edgeA.NextHalfEdgeAroundEdge();
 		HalfEdgeBase tempB = half_edgeB.NextHalfEdgeAroundEdge();
+		_SnapshotSplice(half_edgeA, half_edgeB);
 		
 		half_edgeA.next_half_edge_around_edge = tempB;
+		tempB.prev_half_edge_around_edge = half_edgeA;
 		half_edgeB.next_half_edge_around_edge = tempA;
+		tempA.prev_half_edge_around_edge = half_edgeB;
 	}
 	
 	
@@ -808,7 +3357,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			_SwapNextHalfEdgeAroundEdge(half_edgeA, half_edgeB);
 			
 			// half_edgeA is no longer a boundary edge.
-			v1.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
+			_MoveBoundaryHalfEdgeToHalfEdgeFrom0(v1);
 		}
 	}
 	
@@ -818,12 +3367,13 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	protected void 
 		_DeleteHalfEdge(HalfEdgeBase half_edge0) throws Exception
 	{	
+		_UnindexHalfEdge(half_edge0);
 		_UnlinkHalfEdgeFromHalfEdgesAroundEdge(half_edge0);
 		_RemoveHalfEdgeFromVertexList(half_edge0);
+		_SnapshotHalfEdge(half_edge0);
 		half_edge0.next_half_edge_in_cell = null;
 		half_edge0.prev_half_edge_in_cell = null;
-		int ihalf_edge0 = half_edge0.Index();
-		half_edge_hashtable.remove(ihalf_edge0);
+		_RemoveHalfEdgeFromTable(half_edge0);
 	}
 
 	
@@ -857,18 +3407,17 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			
 			if (next_half_edge_around_edge == half_edge) {
 				// Delete half edge.
-				int ihalf_edge = half_edge.Index();
-				half_edge_hashtable.remove(ihalf_edge);
+				_UnindexHalfEdge(half_edge);
+				_RemoveHalfEdgeFromTable(half_edge);
 				_RemoveHalfEdgeFromVertexList(half_edge);
 				
 				return;
 			}
 			else {
 				// Delete next_half_edge_around_edge.
-				half_edge.next_half_edge_around_edge =
-						next_half_edge_around_edge.NextHalfEdgeAroundEdge();
-				int inext_half_edge = next_half_edge_around_edge.Index();
-				half_edge_hashtable.remove(inext_half_edge);
+				// - _RemoveHalfEdgeFromTable() unlinks it from half_edge.
+				_UnindexHalfEdge(next_half_edge_around_edge);
+				_RemoveHalfEdgeFromTable(next_half_edge_around_edge);
 				
 				_RemoveHalfEdgeFromVertexList(next_half_edge_around_edge);
 			}
@@ -879,8 +3428,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	/** Delete vertex. */
 	protected void _DeleteVertex(VertexBase v)
 	{
-		int iv = v.Index();
-		vertex_hashtable.remove(iv);
+		_RemoveVertexFromTable(v);
 	}
 	
 	
@@ -888,8 +3436,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	protected void _DeleteCell(CellBase cell) throws Exception
 	{
 		_DeleteCellHalfEdges(cell);
-		int icell = cell.Index();
-		cell_hashtable.remove(icell);
+		_RemoveCellFromTable(cell);
 	}
 	
 	
@@ -1019,7 +3566,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		ErrorInfo error_info = new ErrorInfo();
 		
-		int ivmax = _MaxIndex(vertex_hashtable);
+		int ivmax = _MaxIndex(vertex_table);
 		if (_max_vertex_index < ivmax) {
 			error_info.SetError(ivmax);
 			error_info.SetMessage
@@ -1029,8 +3576,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			return error_info;
 		}
 
-		for (Integer iv: VertexIndices()) {
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
 
+			final int iv = iter.nextInt();
 			VERTEX_TYPE v = Vertex(iv);
 			
 			if (v.Index() != iv) {
@@ -1088,7 +3636,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		ErrorInfo error_info = new ErrorInfo();
 	
-		int ihmax = _MaxIndex(half_edge_hashtable);
+		int ihmax = _MaxIndex(half_edge_table);
 		if (_max_half_edge_index < ihmax) {
 			error_info.SetError(ihmax);
 			error_info.SetMessage
@@ -1099,8 +3647,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 		}
 		
 		// First check for bad indices or null pointers.
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
 		
+			final int ihalf_edge = iter.nextInt();
 			HALF_EDGE_TYPE half_edge = HalfEdge(ihalf_edge);
 			
 			if (half_edge.Index() != ihalf_edge) {
@@ -1119,7 +3668,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 				return error_info;
 			}
 			
-			int num_match = Collections.frequency(vfrom.half_edge_from, half_edge);
+			int num_match = vfrom._CountHalfEdgeFrom(half_edge);
 			if (num_match < 1) {
 				error_info.SetError(ihalf_edge);
 				error_info.SetMessage
@@ -1168,12 +3717,23 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 						" is missing next half edge around edge.");
 				return error_info;
 			}
+			
+			if (half_edge.NextHalfEdgeAroundEdge().PrevHalfEdgeAroundEdge() 
+					!= half_edge) {
+				error_info.SetError(ihalf_edge);
+				error_info.SetMessage
+				("Half edge " + half_edge.IndexAndEndpointsStr(",") +
+						" does not equal previous half edge around edge" +
+						" of its next half edge around edge.");
+				return error_info;
+			}
 		}
 		
 		
 		// Check for mismatches between half edges.
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
 			
+			final int ihalf_edge = iter.nextInt();
 			HALF_EDGE_TYPE half_edge = HalfEdge(ihalf_edge);
 			
 			VertexBase vfrom = half_edge.FromVertex();
@@ -1240,12 +3800,13 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			}
 		}
 		
-		// Hash map tracking visited half edges.
+		// Bitmap tracking visited half edges.
 		// Avoid revisiting (reprocessing) visited half edges.
-		HashSet<Integer> is_visited = new HashSet<Integer>();
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
+		BitSet is_visited = new BitSet(MaxHalfEdgeIndex()+1);
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
 			
-			if (is_visited.contains(ihalf_edge))
+			final int ihalf_edge = iter.nextInt();
+			if (is_visited.get(ihalf_edge))
 			{ continue; }
 			
 			HALF_EDGE_TYPE half_edge = HalfEdge(ihalf_edge);
@@ -1271,7 +3832,8 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			HalfEdgeBase half_edgeX = half_edge;
 			for (int k = 0; k < numh; k++) {
 				int ihalf_edgeX = half_edgeX.Index();
-				is_visited.add(ihalf_edgeX);
+				is_visited.set(ihalf_edgeX);
+				half_edgeX = half_edgeX.NextHalfEdgeAroundEdge();
 			}
 		}
 		
@@ -1289,7 +3851,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		ErrorInfo error_info = new ErrorInfo();
 
-		int icmax = _MaxIndex(cell_hashtable);
+		int icmax = _MaxIndex(cell_table);
 		if (_max_cell_index < icmax) {
 			error_info.SetError(icmax);
 			error_info.SetMessage
@@ -1299,8 +3861,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 			return error_info;
 		}
 		
-		for (Integer icell: CellIndices()) {
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
 		
+			final int icell = iter.nextInt();
 			CELL_TYPE cell = Cell(icell);
 			
 			if (cell.Index() != icell) {
@@ -1361,6 +3924,111 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	}
 	
 	
+	/** Check that edge index has an entry for every half edge.
+	 *  - Does nothing if edge index is not used.
+	 *  @return Returns error flag, index of problem half edge,
+	 *    and error message.
+	 */
+	public ErrorInfo CheckEdgeIndex()
+	{
+		ErrorInfo error_info = new ErrorInfo();
+		
+		if (edge_index == null) {
+			// Edge index is not used.
+			return error_info;
+		}
+		
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			final int ihalf_edge = iter.nextInt();
+			HalfEdgeBase half_edge = HalfEdge(ihalf_edge);
+			final long key = 
+				EdgeIndex.Key(half_edge.FromVertexIndex(), half_edge.ToVertexIndex());
+			if (edge_index.Get(key) == null) {
+				error_info.SetError(ihalf_edge);
+				error_info.SetMessage
+					("Edge index is missing half edge " +
+						half_edge.IndexAndEndpointsStr(",") + ".");
+				return error_info;
+			}
+		}
+		
+		return error_info;
+	}
+	
+	
+	/** Check that maintained counts of edges, boundary edges,
+	 *    isolated vertices and cells of each size are correct.
+	 *  - Compares NumEdges(), NumBoundaryEdges(), NumIsolatedVertices()
+	 *    and NumCellsOfSize() against full counts of the mesh.
+	 *  @return Returns error flag and error message.
+	 */
+	public ErrorInfo CheckCounts()
+	{
+		ErrorInfo error_info = new ErrorInfo();
+		
+		final int num_edges = CountNumEdges();
+		if (NumEdges() != num_edges) {
+			error_info.SetError(-1);
+			error_info.SetMessage
+				("Incorrect number of edges " + String.valueOf(NumEdges()) +
+					".  Mesh has " + String.valueOf(num_edges) + " edges.");
+			return error_info;
+		}
+		
+		final int num_boundary_edges = CountNumBoundaryEdges();
+		if (NumBoundaryEdges() != num_boundary_edges) {
+			error_info.SetError(-1);
+			error_info.SetMessage
+				("Incorrect number of boundary edges " + 
+					String.valueOf(NumBoundaryEdges()) + ".  Mesh has " + 
+					String.valueOf(num_boundary_edges) + " boundary edges.");
+			return error_info;
+		}
+		
+		final int num_isolated_vertices = CountNumIsolatedVertices();
+		if (NumIsolatedVertices() != num_isolated_vertices) {
+			error_info.SetError(-1);
+			error_info.SetMessage
+				("Incorrect number of isolated vertices " + 
+					String.valueOf(NumIsolatedVertices()) + ".  Mesh has " + 
+					String.valueOf(num_isolated_vertices) + " isolated vertices.");
+			return error_info;
+		}
+		
+		// num_cells_of_size[numv] is the number of cells with numv vertices.
+		int[] num_cells_of_size = new int[_num_cells_of_size.length];
+		for (PrimitiveIterator.OfInt iter = CellIndexIterator(); iter.hasNext(); ) {
+			final int numv = Cell(iter.nextInt()).NumVertices();
+			if (numv >= num_cells_of_size.length) 
+			{ num_cells_of_size = Arrays.copyOf(num_cells_of_size, numv+1); }
+			num_cells_of_size[numv]++;
+		}
+		
+		for (int numv = 0; numv < num_cells_of_size.length; numv++) {
+			final int n = num_cells_of_size[numv];
+			if (NumCellsOfSize(numv) != n) {
+				error_info.SetError(-1);
+				error_info.SetMessage
+					("Incorrect number of cells with " + String.valueOf(numv) +
+						" vertices " + String.valueOf(NumCellsOfSize(numv)) +
+						".  Mesh has " + String.valueOf(n) + " such cells.");
+				return error_info;
+			}
+		}
+		
+		if (NumCellsOfSizeGE(0) != NumCells()) {
+			error_info.SetError(-1);
+			error_info.SetMessage
+				("Incorrect number of cells of each size.  Total is " + 
+					String.valueOf(NumCellsOfSizeGE(0)) + ", not " + 
+					String.valueOf(NumCells()) + ".");
+			return error_info;
+		}
+		
+		return error_info;
+	}
+	
+	
 	/** Check vertices, half edges, and cells.
 	 *  @return Returns error flag and error message.
 	 */
@@ -1380,6 +4048,14 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 		if (error_info.FlagError())
 		{ return error_info; }
 		
+		error_info = CheckEdgeIndex();
+		if (error_info.FlagError())
+		{ return error_info; }
+		
+		error_info = CheckCounts();
+		if (error_info.FlagError())
+		{ return error_info; }
+		
 		// No errors found.
 		return (new ErrorInfo());
 	}
@@ -1394,8 +4070,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		OrientationInfo orientation_info = new OrientationInfo();
 		
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
 			
+			final int ihalf_edge = iter.nextInt();
 			HalfEdgeBase half_edge = HalfEdge(ihalf_edge);
 			HalfEdgeBase half_edgeB = half_edge.NextHalfEdgeAroundEdge();
 			
@@ -1426,8 +4103,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		ManifoldInfo manifold_info = new ManifoldInfo();
 		
-		for (Integer ihalf_edge: HalfEdgeIndices()) {
+		for (PrimitiveIterator.OfInt iter = HalfEdgeIndexIterator(); iter.hasNext(); ) {
 		
+			final int ihalf_edge = iter.nextInt();
 			HalfEdgeBase half_edge = HalfEdge(ihalf_edge);
 			int nume = half_edge.CountNumHalfEdgesAroundEdge();
 			
@@ -1450,8 +4128,9 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	{
 		ManifoldInfo manifold_info = new ManifoldInfo();
 		
-		for (Integer iv: VertexIndices()) {
+		for (PrimitiveIterator.OfInt iter = VertexIndexIterator(); iter.hasNext(); ) {
 			
+			final int iv = iter.nextInt();
 			VertexBase v = Vertex(iv);
 			
 			int numh = v.NumHalfEdgesFrom();
@@ -1552,10 +4231,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	 */
 	public void PrintCellVertices(PrintStream out, String prefix)
 	{
-		for (int icell:CellIndices()) {
-			CellBase cell = Cell(icell);
-			cell.PrintVertices(out, prefix);
-		}
+		ForEachCell(cell -> cell.PrintVertices(out, prefix));
 	}
 	
 	
@@ -1565,10 +4241,7 @@ public abstract class HalfEdgeMeshBase<VERTEX_TYPE extends VertexBase, HALF_EDGE
 	 */
 	public void PrintEdgesIncidentOnVertices(PrintStream out, String prefix)
 	{
-		for (int iv:VertexIndices()) {
-			VertexBase v = Vertex(iv);
-			v.PrintIncidentEdges(out, prefix);
-		}
+		ForEachVertex(v -> v.PrintIncidentEdges(out, prefix));
 	}
 	
 	
@@ -1,7 +1,15 @@
 package halfEdgeMesh;
 
+import java.util.*;
+
 /** Abstract base class for half edge mesh factory.
- * <ul> <li> Factory creates mesh vertices, half edges and cells.</ul>
+ * <ul> 
+ * <li> Factory creates mesh vertices, half edges and cells.
+ * <li> If pooling is on, the factory keeps deleted vertices,
+ *   half edges and cells, and returns them from ReuseOrNewVertex(),
+ *   ReuseOrNewHalfEdge() and ReuseOrNewCell() instead of
+ *   creating new objects.
+ * </ul>
  * 
  * @param <VERTEX_TYPE> Type of vertex created by the factory.
  * @param <HALF_EDGE_TYPE> Type of half edge created by the factory.
@@ -9,6 +17,20 @@ package halfEdgeMesh;
  */
 public abstract class HalfEdgeMeshFactoryBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> {
 
+	/** If true, deleted elements are kept for reuse. */
+	protected boolean flag_pool = false;
+	
+	/** Deleted vertices available for reuse. */
+	protected ArrayList<VERTEX_TYPE> vertex_pool = new ArrayList<VERTEX_TYPE>();
+	
+	/** Deleted half edges available for reuse. */
+	protected ArrayList<HALF_EDGE_TYPE> half_edge_pool = 
+		new ArrayList<HALF_EDGE_TYPE>();
+	
+	/** Deleted cells available for reuse. */
+	protected ArrayList<CELL_TYPE> cell_pool = new ArrayList<CELL_TYPE>();
+	
+	
 	/// New vertex.
 	public abstract VERTEX_TYPE NewVertex();
 	
@@ -17,4 +39,87 @@ public abstract class HalfEdgeMeshFactoryBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TY
 	
 	// New cell.
 	public abstract CELL_TYPE NewCell();
+	
+	
+	// *** Element pool ***
+	
+	/** Return true if deleted elements are kept for reuse. */
+	public boolean FlagPool()
+	{ return flag_pool; }
+	
+	/** Set flag_pool.
+	 * <ul>
+	 * <li> If flag is false, empties the pools.
+	 * </ul>
+	 */
+	public void SetPool(boolean flag)
+	{
+		flag_pool = flag;
+		if (!flag) { ClearPool(); }
+	}
+	
+	/** Empty the pools, releasing the pooled elements. */
+	public void ClearPool()
+	{
+		vertex_pool.clear();
+		half_edge_pool.clear();
+		cell_pool.clear();
+	}
+	
+	/** Return number of vertices in pool. */
+	public int NumPooledVertices()
+	{ return vertex_pool.size(); }
+	
+	/** Return number of half edges in pool. */
+	public int NumPooledHalfEdges()
+	{ return half_edge_pool.size(); }
+	
+	/** Return number of cells in pool. */
+	public int NumPooledCells()
+	{ return cell_pool.size(); }
+	
+	/** Return a pooled vertex, or a new vertex if the pool is empty.
+	 * - Pooled vertex still has the field values of the deleted vertex.
+	 *   Caller must reset it, i.e., call Init().
+	 */
+	public VERTEX_TYPE ReuseOrNewVertex()
+	{
+		final int n = vertex_pool.size();
+		if (n == 0) { return NewVertex(); }
+		return vertex_pool.remove(n-1);
+	}
+	
+	/** Return a pooled half edge, or a new half edge if the pool is empty.
+	 * - Pooled half edge still has the field values of the deleted 
+	 *   half edge.  Caller must reset it, i.e., call Init().
+	 */
+	public HALF_EDGE_TYPE ReuseOrNewHalfEdge()
+	{
+		final int n = half_edge_pool.size();
+		if (n == 0) { return NewHalfEdge(); }
+		return half_edge_pool.remove(n-1);
+	}
+	
+	/** Return a pooled cell, or a new cell if the pool is empty.
+	 * - Pooled cell still has the field values of the deleted cell.
+	 *   Caller must reset it, i.e., call Init().
+	 */
+	public CELL_TYPE ReuseOrNewCell()
+	{
+		final int n = cell_pool.size();
+		if (n == 0) { return NewCell(); }
+		return cell_pool.remove(n-1);
+	}
+	
+	/** Add deleted vertex v to the pool, if pooling is on. */
+	public void RecycleVertex(VERTEX_TYPE v)
+	{ if (flag_pool) { vertex_pool.add(v); } }
+	
+	/** Add deleted half_edge to the pool, if pooling is on. */
+	public void RecycleHalfEdge(HALF_EDGE_TYPE half_edge)
+	{ if (flag_pool) { half_edge_pool.add(half_edge); } }
+	
+	/** Add deleted cell to the pool, if pooling is on. */
+	public void RecycleCell(CELL_TYPE cell)
+	{ if (flag_pool) { cell_pool.add(cell); } }
 }
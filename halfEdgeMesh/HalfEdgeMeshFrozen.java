@@ -0,0 +1,938 @@
+package halfEdgeMesh;
+
+/// \file HalfEdgeMeshFrozen.java
+/// Immutable, compact (struct of arrays) snapshot of a half edge mesh.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+
+import java.nio.*;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/** Immutable snapshot of a half edge mesh stored in integer
+ *    and float buffers.
+ * <ul>
+ * <li> Created by HalfEdgeMeshBase.Freeze(), or directly from
+ *   flat arrays of cell vertices and coordinates,
+ *   without creating any vertex, half edge or cell objects.
+ * <li> Each field is stored in a single buffer.  By default,
+ *   buffers wrap int, float and byte arrays.
+ * <li> If requested, snapshot is stored in direct (off-heap) buffers.
+ *   Direct buffers are allocated outside the Java heap, so very large
+ *   snapshots do not increase garbage collection time.
+ *   Each buffer is limited to Integer.MAX_VALUE bytes.
+ * <li> Vertices, half edges and cells are identified by the same
+ *   indices as in the mesh that was frozen.
+ * <li> Half edge links (next/prev in cell, next around edge),
+ *   from vertices and cells are stored in int buffers indexed by
+ *   half edge index.
+ * <li> Half edges from each vertex are stored in a single int buffer
+ *   (compressed rows) indexed by vertex_half_edge_from_first.
+ * <li> Vertex coordinates are packed into a single float buffer.
+ * <li> Snapshot is never modified after construction, so it can
+ *   be shared by multiple threads without synchronization.
+ *   Changes to the original mesh are NOT reflected in the snapshot.
+ * <li> Buffer entries for indices of deleted (or never created)
+ *   elements are -1.
+ * <li> Like HalfEdgeMeshBase, get functions do not check their arguments.
+ * </ul>
+ */
+public class HalfEdgeMeshFrozen {
+
+	/** Vertex dimension. Number of vertex coordinates. */
+	protected final int dimension;
+
+	protected final int num_vertices;
+	protected final int num_half_edges;
+	protected final int num_cells;
+	protected final int num_edges;
+	protected final int num_boundary_edges;
+	protected final int num_isolated_vertices;
+
+	/** num_cells_of_size[numv] is the number of cells with numv vertices. */
+	protected final int[] num_cells_of_size;
+
+	protected final int max_vertex_index;
+	protected final int max_half_edge_index;
+	protected final int max_cell_index;
+
+	/** True if snapshot is stored in direct (off-heap) buffers.
+	 * <ul> <li> Otherwise, buffers wrap arrays. </ul>
+	 */
+	protected final boolean flag_off_heap;
+
+	/** is_vertex.get(iv) is 1 if mesh has a vertex with index iv. */
+	protected final ByteBuffer is_vertex;
+
+	/** Vertex coordinates.
+	 * <ul> <li> Coordinates of vertex iv are in
+	 *   coord[iv*dimension..(iv*dimension+dimension-1)]. </ul>
+	 */
+	protected final FloatBuffer coord;
+
+	/** Half edges from vertex iv are in
+	 *   vertex_half_edge_from[vertex_half_edge_from_first[iv]..
+	 *     (vertex_half_edge_from_first[iv+1]-1)].
+	 */
+	protected final IntBuffer vertex_half_edge_from_first;
+
+	/** Indices of half edges from each vertex. */
+	protected final IntBuffer vertex_half_edge_from;
+
+	protected final IntBuffer next_half_edge_in_cell;
+	protected final IntBuffer prev_half_edge_in_cell;
+	protected final IntBuffer next_half_edge_around_edge;
+	protected final IntBuffer from_vertex;
+
+	/** half_edge_cell[ihalf_edge] is index of cell containing ihalf_edge. */
+	protected final IntBuffer half_edge_cell;
+
+	/** cell_half_edge[icell] is index of some half edge in icell. */
+	protected final IntBuffer cell_half_edge;
+
+	/** cell_num_vertices[icell] is number of vertices of icell.
+	 * <ul> <li> -1 if mesh has no cell with index icell. </ul>
+	 */
+	protected final IntBuffer cell_num_vertices;
+
+
+	/** Construct snapshot of mesh.
+	 * @param flag_off_heap If true, store snapshot in direct (off-heap) buffers.
+	 *   Otherwise, store snapshot in arrays.
+	 */
+	protected HalfEdgeMeshFrozen
+	(HalfEdgeMeshBase<?,?,?> mesh, boolean flag_off_heap) throws Exception
+	{
+		this.flag_off_heap = flag_off_heap;
+		dimension = VertexBase.Dimension();
+
+		num_vertices = mesh.NumVertices();
+		num_half_edges = mesh.NumHalfEdges();
+		num_cells = mesh.NumCells();
+		num_edges = mesh.NumEdges();
+		num_boundary_edges = mesh.NumBoundaryEdges();
+		num_isolated_vertices = mesh.NumIsolatedVertices();
+		num_cells_of_size = mesh._num_cells_of_size.clone();
+
+		max_vertex_index = mesh.MaxVertexIndex();
+		max_half_edge_index = mesh.MaxHalfEdgeIndex();
+		max_cell_index = mesh.MaxCellIndex();
+
+		final int numv = max_vertex_index+1;
+		final int numh = max_half_edge_index+1;
+		final int numc = max_cell_index+1;
+
+		is_vertex = _NewByteBuffer(numv, flag_off_heap);
+		coord = _NewFloatBuffer(((long) numv)*dimension, flag_off_heap);
+		vertex_half_edge_from_first = _NewIntBuffer(numv+1L, 0, flag_off_heap);
+		vertex_half_edge_from = _NewIntBuffer(num_half_edges, 0, flag_off_heap);
+		next_half_edge_in_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		prev_half_edge_in_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		next_half_edge_around_edge = _NewIntBuffer(numh, -1, flag_off_heap);
+		from_vertex = _NewIntBuffer(numh, -1, flag_off_heap);
+		half_edge_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		cell_half_edge = _NewIntBuffer(numc, -1, flag_off_heap);
+		cell_num_vertices = _NewIntBuffer(numc, -1, flag_off_heap);
+
+		// Count half edges from each vertex.
+		for (PrimitiveIterator.OfInt iter = mesh.VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			VertexBase v = mesh.Vertex(iv);
+			is_vertex.put(iv, (byte) 1);
+			vertex_half_edge_from_first.put(iv+1, v.NumHalfEdgesFrom());
+			for (int ic = 0; ic < dimension; ic++)
+			{ coord.put(iv*dimension+ic, v.Coord(ic)); }
+		}
+
+		for (int iv = 0; iv < numv; iv++) {
+			vertex_half_edge_from_first.put
+				(iv+1, vertex_half_edge_from_first.get(iv+1) +
+					vertex_half_edge_from_first.get(iv));
+		}
+
+		for (PrimitiveIterator.OfInt iter = mesh.VertexIndexIterator(); iter.hasNext(); ) {
+			final int iv = iter.nextInt();
+			VertexBase v = mesh.Vertex(iv);
+			final int k0 = vertex_half_edge_from_first.get(iv);
+			for (int k = 0; k < v.NumHalfEdgesFrom(); k++)
+			{ vertex_half_edge_from.put(k0+k, v.KthHalfEdgeFrom(k).Index()); }
+		}
+
+		for (PrimitiveIterator.OfInt iter = mesh.HalfEdgeIndexIterator(); iter.hasNext(); ) {
+			final int ihalf_edge = iter.nextInt();
+			HalfEdgeBase half_edge = mesh.HalfEdge(ihalf_edge);
+			next_half_edge_in_cell.put
+				(ihalf_edge, half_edge.NextHalfEdgeInCell().Index());
+			prev_half_edge_in_cell.put
+				(ihalf_edge, half_edge.PrevHalfEdgeInCell().Index());
+			next_half_edge_around_edge.put
+				(ihalf_edge, half_edge.NextHalfEdgeAroundEdge().Index());
+			from_vertex.put(ihalf_edge, half_edge.FromVertexIndex());
+			half_edge_cell.put(ihalf_edge, half_edge.CellIndex());
+		}
+
+		for (PrimitiveIterator.OfInt iter = mesh.CellIndexIterator(); iter.hasNext(); ) {
+			final int icell = iter.nextInt();
+			CellBase cell = mesh.Cell(icell);
+			cell_num_vertices.put(icell, cell.NumVertices());
+			if (cell.HalfEdge() != null)
+			{ cell_half_edge.put(icell, cell.HalfEdge().Index()); }
+		}
+	}
+
+
+	/** Construct snapshot of the mesh with cells stored in flat arrays.
+	 * <ul>
+	 * <li> Same snapshot as Freeze() of a new HalfEdgeMeshBase
+	 *   built by AddCells(cell_first, cell_vertex, coord),
+	 *   with no edge index.  Cell k has index k and cell_vertex[j]
+	 *   is the from vertex of half edge j.
+	 * <li> Builds the snapshot directly in the buffers.
+	 *   Does not create any vertex, half edge or cell objects.
+	 * <li> Half edges are linked around edges and half edges from
+	 *   each vertex are ordered as in AddCells().
+	 *   (See HalfEdgeMeshBase._LinkNewHalfEdges().)
+	 * </ul>
+	 * @param cell_first Location in cell_vertex[] of the first vertex of each cell.
+	 * @param cell_vertex Cell vertices.
+	 * @param coord Vertex coordinates.  Coordinates of vertex iv are
+	 *   coord[iv*Dimension()..(iv*Dimension()+Dimension()-1)].  May be null.
+	 * @param flag_off_heap If true, store snapshot in direct (off-heap) buffers.
+	 *   Otherwise, store snapshot in arrays.
+	 */
+	public HalfEdgeMeshFrozen
+	(int[] cell_first, int[] cell_vertex, float[] coord, boolean flag_off_heap)
+		throws Exception
+	{
+		this.flag_off_heap = flag_off_heap;
+		dimension = VertexBase.Dimension();
+
+		final int numc = cell_first.length-1;
+		final int numh = cell_vertex.length;
+		final int ivmax = 
+			HalfEdgeMeshBase._CheckAddCellsArguments(cell_first, cell_vertex);
+		final int num_coord_vertices = 
+			(coord == null) ? 0 : coord.length/dimension;
+		final int numv = Math.max(ivmax+1, num_coord_vertices);
+
+		max_vertex_index = numv-1;
+		max_half_edge_index = numh-1;
+		max_cell_index = numc-1;
+		num_half_edges = numh;
+		num_cells = numc;
+
+		is_vertex = _NewByteBuffer(numv, flag_off_heap);
+		this.coord = _NewFloatBuffer(((long) numv)*dimension, flag_off_heap);
+		vertex_half_edge_from_first = _NewIntBuffer(numv+1L, 0, flag_off_heap);
+		vertex_half_edge_from = _NewIntBuffer(numh, 0, flag_off_heap);
+		next_half_edge_in_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		prev_half_edge_in_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		next_half_edge_around_edge = _NewIntBuffer(numh, -1, flag_off_heap);
+		from_vertex = _NewIntBuffer(numh, -1, flag_off_heap);
+		half_edge_cell = _NewIntBuffer(numh, -1, flag_off_heap);
+		cell_half_edge = _NewIntBuffer(numc, -1, flag_off_heap);
+		cell_num_vertices = _NewIntBuffer(numc, -1, flag_off_heap);
+
+		// Link half edges in each cell.
+		int max_cell_size = 0;
+		for (int k = 0; k < numc; k++) {
+			final int j0 = cell_first[k];
+			final int j1 = cell_first[k+1];
+			for (int j = j0; j < j1; j++) {
+				from_vertex.put(j, cell_vertex[j]);
+				half_edge_cell.put(j, k);
+				next_half_edge_in_cell.put(j, (j+1 < j1) ? j+1 : j0);
+				prev_half_edge_in_cell.put(j, (j > j0) ? j-1 : j1-1);
+			}
+			cell_half_edge.put(k, j0);
+			cell_num_vertices.put(k, j1-j0);
+			max_cell_size = Math.max(max_cell_size, j1-j0);
+		}
+
+		num_cells_of_size = new int[max_cell_size+1];
+		for (int k = 0; k < numc; k++)
+		{ num_cells_of_size[cell_first[k+1]-cell_first[k]]++; }
+
+		// Vertices [0..(num_coord_vertices-1)] and all cell vertices
+		//   are mesh vertices.
+		for (int iv = 0; iv < num_coord_vertices; iv++) {
+			is_vertex.put(iv, (byte) 1);
+			for (int ic = 0; ic < dimension; ic++)
+			{ this.coord.put(iv*dimension+ic, coord[iv*dimension+ic]); }
+		}
+		for (int j = 0; j < numh; j++)
+		{ is_vertex.put(cell_vertex[j], (byte) 1); }
+
+		// from_list[from_first[iv]..(from_first[iv+1]-1)] are the half edges
+		//   from vertex iv, in index order.
+		final int[] from_first = new int[ivmax+2];
+		final int[] from_list = HalfEdgeMeshBase._BucketLocations
+			(numh, ivmax+1, j -> cell_vertex[j], from_first, false);
+
+		int nv = 0;
+		int num_isolated = 0;
+		for (int iv = 0; iv < numv; iv++) {
+			final int k0 = (iv <= ivmax) ? from_first[iv] : numh;
+			vertex_half_edge_from_first.put(iv, k0);
+			if (is_vertex.get(iv) == 0) { continue; }
+			nv++;
+			if (iv > ivmax || from_first[iv+1] == k0)
+			{ num_isolated++; }
+		}
+		vertex_half_edge_from_first.put(numv, numh);
+		num_vertices = nv;
+		num_isolated_vertices = num_isolated;
+
+		final long num_edges_and_boundary_edges =
+			_LinkHalfEdges(from_list, from_first, ivmax);
+		num_edges = (int) (num_edges_and_boundary_edges >>> 32);
+		num_boundary_edges = (int) (num_edges_and_boundary_edges & 0xFFFFFFFFL);
+	}
+
+
+	/** Return new byte buffer of length n with all entries set to 0.
+	 * @param flag_off_heap If true, return direct buffer.
+	 *   Otherwise, return buffer wrapping a byte array.
+	 */
+	protected static ByteBuffer _NewByteBuffer(long n, boolean flag_off_heap)
+		throws Exception
+	{
+		if (flag_off_heap) { return _NewDirectBuffer(n, 1); }
+		return ByteBuffer.wrap(new byte[_ArrayLength(n)]);
+	}
+
+	/** Return new float buffer of length n with all entries set to 0.
+	 * @param flag_off_heap If true, return direct buffer.
+	 *   Otherwise, return buffer wrapping a float array.
+	 */
+	protected static FloatBuffer _NewFloatBuffer(long n, boolean flag_off_heap)
+		throws Exception
+	{
+		if (flag_off_heap) { return _NewDirectBuffer(n, 4).asFloatBuffer(); }
+		return FloatBuffer.wrap(new float[_ArrayLength(n)]);
+	}
+
+	/** Return new int buffer of length n with all entries set to x.
+	 * @param flag_off_heap If true, return direct buffer.
+	 *   Otherwise, return buffer wrapping an int array.
+	 */
+	protected static IntBuffer _NewIntBuffer(long n, int x, boolean flag_off_heap)
+		throws Exception
+	{
+		if (flag_off_heap) {
+			final IntBuffer buffer = _NewDirectBuffer(n, 4).asIntBuffer();
+			if (x != 0) {
+				for (int i = 0; i < buffer.capacity(); i++)
+				{ buffer.put(i, x); }
+			}
+			return buffer;
+		}
+
+		final int[] array = new int[_ArrayLength(n)];
+		if (x != 0) { Arrays.fill(array, x); }
+		return IntBuffer.wrap(array);
+	}
+
+	/** Return n as an array length.
+	 * <ul> <li> Throws exception if n is greater than Integer.MAX_VALUE. </ul>
+	 */
+	protected static int _ArrayLength(long n) throws Exception
+	{
+		if (n > Integer.MAX_VALUE) {
+			throw new Exception
+				("Error in HalfEdgeMeshFrozen.  Too many entries (" +
+					String.valueOf(n) + ") to store in a single array.");
+		}
+		return (int) n;
+	}
+
+	/** Return new direct byte buffer holding n entries
+	 *    of entry_size bytes each.
+	 * <ul> <li> Throws exception if buffer would have more than
+	 *   Integer.MAX_VALUE bytes. </ul>
+	 */
+	protected static ByteBuffer _NewDirectBuffer(long n, int entry_size)
+		throws Exception
+	{
+		final long num_bytes = n * entry_size;
+		if (num_bytes > Integer.MAX_VALUE) {
+			throw new Exception
+				("Error in HalfEdgeMeshFrozen.  Mesh is too large for off-heap storage." +
+					"  Buffer of " + String.valueOf(num_bytes) +
+					" bytes exceeds limit of " + String.valueOf(Integer.MAX_VALUE) + 
+					" bytes.");
+		}
+		return ByteBuffer.allocateDirect((int) num_bytes).order(ByteOrder.nativeOrder());
+	}
+
+
+	// *** Build from flat arrays ***
+
+	/** Link half edges around edges and fill half edges from each vertex,
+	 *    as HalfEdgeMeshBase.AddCells() would.
+	 * <ul>
+	 * <li> Same algorithm as HalfEdgeMeshBase._LinkNewHalfEdges()
+	 *   on an empty mesh, with no edge index, using indices
+	 *   instead of half edge objects.
+	 * <li> Half edges are grouped by edge by a bucket sort of the
+	 *   edge endpoints.  The half edges from each vertex are replayed
+	 *   in index order, moving a boundary half edge to the first location
+	 *   after each cell, and answering the searches AddCell() would make.
+	 *   Each half edge is then linked after the half edge
+	 *   that search found.
+	 * <li> Returns the number of edges and boundary edges,
+	 *   packed into a long.
+	 * </ul>
+	 * @pre Half edges are linked in cells and from_vertex
+	 *   and half_edge_cell are set.
+	 */
+	protected long _LinkHalfEdges(int[] from_list, int[] from_first, int ivmax)
+	{
+		final int numh = from_list.length;
+		final IntUnaryOperator to_vertex =
+			j -> from_vertex.get(next_half_edge_in_cell.get(j));
+
+		// edge_key[edge_first[iv]..(edge_first[iv+1]-1)] are keys
+		//   (larger endpoint, j) of half edges whose smaller endpoint is iv.
+		final int[] edge_first = new int[ivmax+2];
+		final int[] edge_list = HalfEdgeMeshBase._BucketLocations
+			(numh, ivmax+1,
+				j -> Math.min(from_vertex.get(j), to_vertex.applyAsInt(j)),
+				edge_first, false);
+		final long[] edge_key = new long[numh];
+		for (int k = 0; k < numh; k++) {
+			final int j = edge_list[k];
+			final int iv1 = Math.max(from_vertex.get(j), to_vertex.applyAsInt(j));
+			edge_key[k] = (((long) iv1) << 32) | j;
+		}
+
+		// Index of the cell that makes the edge of half edge j
+		//   an interior edge, i.e., adds its second half edge.
+		final int[] icell_interior = new int[numh];
+
+		// is_queried[j] is true if the edge of half edge j
+		//   already has two or more half edges when j is added.
+		final boolean[] is_queried = new boolean[numh];
+
+		int num_edges = 0;
+		int num_boundary_edges = 0;
+		for (int iv = 0; iv <= ivmax; iv++) {
+			final int kend = edge_first[iv+1];
+			Arrays.sort(edge_key, edge_first[iv], kend);
+			int k0 = edge_first[iv];
+			while (k0 < kend) {
+				final int k1 = HalfEdgeMeshBase._EndOfEdgeGroup(edge_key, k0, kend);
+				final int icell = (k1-k0 >= 2) ?
+					half_edge_cell.get((int) edge_key[k0+1]) : Integer.MAX_VALUE;
+				for (int k = k0; k < k1; k++) {
+					final int j = (int) edge_key[k];
+					icell_interior[j] = icell;
+					if (k-k0 >= 2) { is_queried[j] = true; }
+				}
+
+				num_edges++;
+				if (k1-k0 == 1) { num_boundary_edges++; }
+				k0 = k1;
+			}
+		}
+
+		// For query q of half edge query_j[q/2], query_found[q] is
+		//   the half edge (to,from), if q is even, or (from,to), if q is odd,
+		//   found before the half edge is added, or -1.
+		final int[] query_j =
+			IntStream.range(0, numh).filter(j -> is_queried[j]).toArray();
+		final int numq = 2*query_j.length;
+		final int[] query_found = new int[numq];
+		final int[] query_first = new int[ivmax+2];
+		final int[] query_list = HalfEdgeMeshBase._BucketLocations
+			(numq, ivmax+1,
+				q -> (q%2 == 0) ?
+					to_vertex.applyAsInt(query_j[q/2]) : from_vertex.get(query_j[q/2]),
+				query_first, false);
+
+		// Sequential bucket sort keeps from_list[] and query_list[]
+		//   in index order within each bucket.
+		for (int iv = 0; iv <= ivmax; iv++) {
+			_AddHalfEdgesFromVertex
+				(from_list, from_first[iv], from_first[iv+1],
+					query_j, query_list, query_first[iv], query_first[iv+1],
+					query_found, icell_interior, to_vertex);
+		}
+
+		for (int iv = 0; iv <= ivmax; iv++) {
+			final int kend = edge_first[iv+1];
+			int k0 = edge_first[iv];
+			while (k0 < kend) {
+				final int k1 = HalfEdgeMeshBase._EndOfEdgeGroup(edge_key, k0, kend);
+				final int jA = (int) edge_key[k0];
+				for (int k = k0; k < k1; k++) {
+					final int j = (int) edge_key[k];
+					final int ivfrom = from_vertex.get(j);
+					final int ivto = to_vertex.applyAsInt(j);
+
+					// Half edges (ivto,ivfrom) and (ivfrom,ivto) from ivto and ivfrom,
+					//   before half edge j is added.
+					int half_edge_to = -1;
+					int half_edge_from = -1;
+					if (k-k0 >= 2) {
+						final int iq = 2*Arrays.binarySearch(query_j, j);
+						half_edge_to = query_found[iq];
+						half_edge_from = query_found[iq+1];
+					}
+					else if (k-k0 == 1) {
+						// Only half edge around edge is jA.
+						if (from_vertex.get(jA) == ivto) { half_edge_to = jA; }
+						if (from_vertex.get(jA) == ivfrom) { half_edge_from = jA; }
+					}
+
+					final int hprev = (half_edge_to >= 0) ? half_edge_to : half_edge_from;
+					if (hprev < 0)
+					{ next_half_edge_around_edge.put(j, j); }
+					else {
+						next_half_edge_around_edge.put
+							(j, next_half_edge_around_edge.get(hprev));
+						next_half_edge_around_edge.put(hprev, j);
+					}
+				}
+				k0 = k1;
+			}
+		}
+
+		return (((long) num_edges) << 32) | num_boundary_edges;
+	}
+
+	/** Add half edges in list[k0..(k1-1)] to the half edges
+	 *    from their from vertex, as AddCell() would.
+	 * <ul>
+	 * <li> Half edges are added in index order to the row of
+	 *   vertex_half_edge_from starting at vertex_half_edge_from_first.
+	 *   After the half edges of each cell are added, a boundary half edge
+	 *   is moved to the start of the row, as in AddCell().
+	 * <li> Answers queries in query_list[q0..(q1-1)] on the row
+	 *   as it is before each queried half edge is added,
+	 *   and sets query_found[].
+	 * </ul>
+	 */
+	protected void _AddHalfEdgesFromVertex
+	(int[] list, int k0, int k1, int[] query_j, int[] query_list, int q0, int q1,
+			int[] query_found, int[] icell_interior, IntUnaryOperator to_vertex)
+	{
+		if (k0 == k1) {
+			// No half edges from vertex.
+			for (int q = q0; q < q1; q++)
+			{ query_found[query_list[q]] = -1; }
+			return;
+		}
+
+		final int row0 = vertex_half_edge_from_first.get
+			(from_vertex.get(list[k0]));
+
+		// Cell of half edges added since boundary half edges were moved,
+		//   or -1 if no half edges were added.
+		int icell_added = -1;
+		int num = 0;
+		int k = k0;
+		int q = q0;
+		while (k < k1 || q < q1) {
+			final int jA = (k < k1) ? list[k] : Integer.MAX_VALUE;
+			final int jQ = (q < q1) ? query_j[query_list[q]/2] : Integer.MAX_VALUE;
+			final int icell = half_edge_cell.get(Math.min(jA, jQ));
+
+			if (icell_added >= 0 && icell_added < icell) {
+				_MoveBoundaryHalfEdgeToRowStart(row0, num, icell_added, icell_interior);
+				icell_added = -1;
+			}
+
+			// Query half edge before adding it.
+			if (jQ <= jA) {
+				final int iq = query_list[q];
+				final int iv = (iq%2 == 0) ?
+					from_vertex.get(jQ) : to_vertex.applyAsInt(jQ);
+				query_found[iq] = -1;
+				for (int i = 0; i < num; i++) {
+					final int ihalf_edge = vertex_half_edge_from.get(row0+i);
+					if (to_vertex.applyAsInt(ihalf_edge) == iv) {
+						query_found[iq] = ihalf_edge;
+						break;
+					}
+				}
+				q++;
+			}
+			else {
+				vertex_half_edge_from.put(row0+num, jA);
+				num++;
+				icell_added = icell;
+				k++;
+			}
+		}
+
+		if (icell_added >= 0)
+		{ _MoveBoundaryHalfEdgeToRowStart(row0, num, icell_added, icell_interior); }
+	}
+
+	/** Move a boundary half edge to vertex_half_edge_from[row0],
+	 *    as AddCell() would after adding cell icell.
+	 * <ul>
+	 * <li> Same rules as VertexBase._MoveBoundaryHalfEdgeToHalfEdgeFrom0().
+	 * <li> Half edge h is a boundary half edge after cell icell
+	 *   is added if icell is less than icell_interior[h].
+	 * </ul>
+	 * @param num Number of half edges in the row.
+	 */
+	protected void _MoveBoundaryHalfEdgeToRowStart
+	(int row0, int num, int icell, int[] icell_interior)
+	{
+		for (int k = 0; k < num; k++) {
+			final int ihalf_edge = vertex_half_edge_from.get(row0+k);
+			if (icell < icell_interior[ihalf_edge]) {
+				_SwapInRow(row0, 0, k);
+				return;
+			}
+		}
+
+		// No boundary half edges found.
+		// Check if the previous half edge in cell is a boundary half edge,
+		//   in case cells are inconsistently oriented.
+		for (int k = 0; k < num; k++) {
+			final int ihalf_edge = vertex_half_edge_from.get(row0+k);
+			if (icell < icell_interior[prev_half_edge_in_cell.get(ihalf_edge)]) {
+				_SwapInRow(row0, 0, k);
+				return;
+			}
+		}
+	}
+
+	/** Swap entries k0 and k1 in the row of vertex_half_edge_from
+	 *    starting at row0.
+	 */
+	protected void _SwapInRow(int row0, int k0, int k1)
+	{
+		final int ihalf_edge = vertex_half_edge_from.get(row0+k0);
+		vertex_half_edge_from.put(row0+k0, vertex_half_edge_from.get(row0+k1));
+		vertex_half_edge_from.put(row0+k1, ihalf_edge);
+	}
+
+
+	// *** Get functions ***
+
+	/** Return true if snapshot is stored in direct (off-heap) buffers. */
+	public boolean IsOffHeap()
+	{ return flag_off_heap; }
+
+	/** Return vertex dimension, i.e., number of vertex coordinates. */
+	public int Dimension()
+	{ return dimension; }
+
+	public int NumVertices()
+	{ return num_vertices; }
+
+	public int NumHalfEdges()
+	{ return num_half_edges; }
+
+	public int NumCells()
+	{ return num_cells; }
+
+	/** Return number of edges.  Runs in constant time. */
+	public int NumEdges()
+	{ return num_edges; }
+
+	/** Return number of boundary edges.  Runs in constant time. */
+	public int NumBoundaryEdges()
+	{ return num_boundary_edges; }
+
+	/** Return number of isolated vertices.  Runs in constant time. */
+	public int NumIsolatedVertices()
+	{ return num_isolated_vertices; }
+
+	/** Return number of cells with numv vertices.  Runs in constant time. */
+	public int NumCellsOfSize(int numv)
+	{
+		if (numv < 0 || numv >= num_cells_of_size.length)
+		{ return 0; }
+		return num_cells_of_size[numv];
+	}
+
+	/** Return number of cells with numv or more vertices. */
+	public int NumCellsOfSizeGE(int numv)
+	{
+		int num = 0;
+		for (int k = Math.max(numv,0); k < num_cells_of_size.length; k++)
+		{ num += num_cells_of_size[k]; }
+		return num;
+	}
+
+	/** Return max vertex index.
+	 * <ul> <li> Vertex indices are in range [0..MaxVertexIndex()]. </ul>
+	 */
+	public int MaxVertexIndex()
+	{ return max_vertex_index; }
+
+	/** Return max half edge index. */
+	public int MaxHalfEdgeIndex()
+	{ return max_half_edge_index; }
+
+	/** Return max cell index. */
+	public int MaxCellIndex()
+	{ return max_cell_index; }
+
+	/** Return true if mesh has a vertex with index iv. */
+	public boolean IsVertex(int iv)
+	{
+		if (iv < 0 || iv > max_vertex_index) { return false; }
+		return (is_vertex.get(iv) != 0);
+	}
+
+	/** Return true if mesh has a half edge with index ihalf_edge. */
+	public boolean IsHalfEdge(int ihalf_edge)
+	{
+		return (ihalf_edge >= 0 && ihalf_edge <= max_half_edge_index &&
+				FromVertexIndex(ihalf_edge) >= 0);
+	}
+
+	/** Return true if mesh has a cell with index icell. */
+	public boolean IsCell(int icell)
+	{
+		return (icell >= 0 && icell <= max_cell_index &&
+				CellNumVertices(icell) >= 0);
+	}
+
+
+	// *** Vertex functions ***
+
+	/** Return coordinate ic of vertex iv. */
+	public float Coord(int iv, int ic)
+	{ return coord.get(iv*dimension+ic); }
+
+	/** Copy coordinates of vertex iv into vcoord[]. */
+	public void GetCoord(int iv, float[] vcoord)
+	{
+		for (int ic = 0; ic < dimension; ic++)
+		{ vcoord[ic] = Coord(iv, ic); }
+	}
+
+	/** Return number of half edges whose from vertex is iv. */
+	public int NumHalfEdgesFrom(int iv)
+	{
+		return vertex_half_edge_from_first.get(iv+1) -
+				vertex_half_edge_from_first.get(iv);
+	}
+
+	/** Return index of the kth half edge whose from vertex is iv. */
+	public int KthHalfEdgeFrom(int iv, int k)
+	{ return vertex_half_edge_from.get(vertex_half_edge_from_first.get(iv)+k); }
+
+	/** Return true if vertex iv is on the boundary. */
+	public boolean IsBoundaryVertex(int iv)
+	{
+		if (NumHalfEdgesFrom(iv) == 0) {
+			// Vertex is not incident on any cells.
+			return true;
+		}
+
+		final int ihalf_edge0 = KthHalfEdgeFrom(iv, 0);
+		return (IsBoundaryHalfEdge(ihalf_edge0) ||
+				IsBoundaryHalfEdge(PrevHalfEdgeInCell(ihalf_edge0)));
+	}
+
+	/** Return index of half edge from iv0 to iv1.
+	 * <ul> <li> Return -1 if no half edge found. </ul>
+	 */
+	public int FindHalfEdgeTo(int iv0, int iv1)
+	{
+		final int num_half_edges_from = NumHalfEdgesFrom(iv0);
+		for (int k = 0; k < num_half_edges_from; k++) {
+			final int ihalf_edge = KthHalfEdgeFrom(iv0, k);
+			if (ToVertexIndex(ihalf_edge) == iv1)
+			{ return ihalf_edge; }
+		}
+
+		// No half edge found.
+		return -1;
+	}
+
+	/** Return index of half edge (iv0,iv1) or (iv1,iv0), if it exists.
+	 * <ul> <li> Return -1 if no edge found. </ul>
+	 */
+	public int FindEdge(int iv0, int iv1)
+	{
+		final int ihalf_edge = FindHalfEdgeTo(iv0, iv1);
+		if (ihalf_edge >= 0)
+		{ return ihalf_edge; }
+
+		return FindHalfEdgeTo(iv1, iv0);
+	}
+
+
+	// *** Half edge functions ***
+
+	public int NextHalfEdgeInCell(int ihalf_edge)
+	{ return next_half_edge_in_cell.get(ihalf_edge); }
+
+	public int PrevHalfEdgeInCell(int ihalf_edge)
+	{ return prev_half_edge_in_cell.get(ihalf_edge); }
+
+	public int NextHalfEdgeAroundEdge(int ihalf_edge)
+	{ return next_half_edge_around_edge.get(ihalf_edge); }
+
+	public int FromVertexIndex(int ihalf_edge)
+	{ return from_vertex.get(ihalf_edge); }
+
+	public int ToVertexIndex(int ihalf_edge)
+	{ return FromVertexIndex(NextHalfEdgeInCell(ihalf_edge)); }
+
+	public int CellIndex(int ihalf_edge)
+	{ return half_edge_cell.get(ihalf_edge); }
+
+	/** Return previous half edge around from vertex.
+	 * <ul> <li> See HalfEdgeBase.PrevHalfEdgeAroundFromVertex(). </ul>
+	 */
+	public int PrevHalfEdgeAroundFromVertex(int ihalf_edge)
+	{ return NextHalfEdgeAroundEdge(PrevHalfEdgeInCell(ihalf_edge)); }
+
+	/** Return true if half edge is a boundary half edge. */
+	public boolean IsBoundaryHalfEdge(int ihalf_edge)
+	{ return (NextHalfEdgeAroundEdge(ihalf_edge) == ihalf_edge); }
+
+	/** Return index of half edge with minimum index
+	 *    in cycle of half edges around edge.
+	 */
+	public int MinIndexHalfEdgeAroundEdge(int ihalf_edge)
+	{
+		// Cannot have more than max_num half edges around an edge.
+		final int max_num = NumHalfEdgesFrom(FromVertexIndex(ihalf_edge)) +
+							NumHalfEdgesFrom(ToVertexIndex(ihalf_edge));
+
+		int min_index = ihalf_edge;
+		int jhalf_edge = NextHalfEdgeAroundEdge(ihalf_edge);
+		for (int k = 0; jhalf_edge != ihalf_edge && k < max_num; k++) {
+			if (jhalf_edge < min_index)
+			{ min_index = jhalf_edge; }
+			jhalf_edge = NextHalfEdgeAroundEdge(jhalf_edge);
+		}
+
+		return min_index;
+	}
+
+
+	// *** Cell functions ***
+
+	/** Return index of some half edge in cell icell. */
+	public int CellHalfEdge(int icell)
+	{ return cell_half_edge.get(icell); }
+
+	/** Return number of vertices of cell icell. */
+	public int CellNumVertices(int icell)
+	{ return cell_num_vertices.get(icell); }
+
+	/** Copy indices of vertices of cell icell into cell_vertex[].
+	 * @pre cell_vertex.length is at least CellNumVertices(icell).
+	 */
+	public void GetCellVertexIndices(int icell, int[] cell_vertex)
+	{
+		int ihalf_edge = CellHalfEdge(icell);
+		final int numv = CellNumVertices(icell);
+		for (int k = 0; k < numv; k++) {
+			cell_vertex[k] = FromVertexIndex(ihalf_edge);
+			ihalf_edge = NextHalfEdgeInCell(ihalf_edge);
+		}
+	}
+
+
+	// *** Count functions ***
+
+	/** Count the number of isolated vertices. */
+	public int CountNumIsolatedVertices()
+	{
+		int num_isolated_vertices = 0;
+		for (int iv = 0; iv <= max_vertex_index; iv++) {
+			if (IsVertex(iv) && NumHalfEdgesFrom(iv) == 0)
+			{ num_isolated_vertices++; }
+		}
+
+		return num_isolated_vertices;
+	}
+
+	/** Count the number of mesh edges. */
+	public int CountNumEdges()
+	{
+		int num_edges = 0;
+		for (int ihalf_edge = 0; ihalf_edge <= max_half_edge_index; ihalf_edge++) {
+			if (FromVertexIndex(ihalf_edge) < 0) { continue; }
+			if (MinIndexHalfEdgeAroundEdge(ihalf_edge) == ihalf_edge)
+			{ num_edges++; }
+		}
+
+		return num_edges;
+	}
+
+	/** Count the number of boundary edges. */
+	public int CountNumBoundaryEdges()
+	{
+		int num_boundary_edges = 0;
+		for (int ihalf_edge = 0; ihalf_edge <= max_half_edge_index; ihalf_edge++) {
+			if (FromVertexIndex(ihalf_edge) < 0) { continue; }
+			if (IsBoundaryHalfEdge(ihalf_edge))
+			{ num_boundary_edges++; }
+		}
+
+		return num_boundary_edges;
+	}
+
+	/** Count number of cells with a given number of vertices. */
+	public int CountNumCellsOfSize(int numv)
+	{
+		int num_cells = 0;
+		for (int icell = 0; icell <= max_cell_index; icell++) {
+			if (CellNumVertices(icell) >= 0 && CellNumVertices(icell) == numv)
+			{ num_cells++; }
+		}
+
+		return num_cells;
+	}
+
+	/** Count number of cells with number of vertices
+	 *  greater than or equal to numv.
+	 */
+	public int CountNumCellsOfSizeGE(int numv)
+	{
+		int num_cells = 0;
+		for (int icell = 0; icell <= max_cell_index; icell++) {
+			if (CellNumVertices(icell) >= 0 && CellNumVertices(icell) >= numv)
+			{ num_cells++; }
+		}
+
+		return num_cells;
+	}
+
+	/** Count number of triangles */
+	public int CountNumTriangles()
+	{ return CountNumCellsOfSize(3); }
+
+	/** Count number of quadrilaterals */
+	public int CountNumQuads()
+	{ return CountNumCellsOfSize(4); }
+
+	/** Count number of pentagons */
+	public int CountNumPentagons()
+	{ return CountNumCellsOfSize(5); }
+
+}
@@ -0,0 +1,174 @@
+package halfEdgeMesh;
+
+/// \file IndexFreeList.java
+/// Stack of deleted element indices available for reuse.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.Arrays;
+
+/** Stack of free (deleted) element indices available for reuse.
+ * <ul>
+ * <li> Indices are reused in LIFO order.
+ * <li> Stored in a growable int array.  No boxing.
+ * </ul>
+ */
+public class IndexFreeList {
+
+	/** Initial stack capacity. */
+	static final int INITIAL_CAPACITY = 16;
+
+	/** Stack of free indices. */
+	protected int[] free_index = new int[INITIAL_CAPACITY];
+
+	/** Number of free indices in the stack. */
+	protected int num_free = 0;
+
+	/** Stack size at the mark, or -1 if the stack is not marked. */
+	protected int mark_size = -1;
+
+	/** Smallest stack size since the mark.
+	 *  - Zero if the stack is not marked.
+	 */
+	protected int min_size = 0;
+
+	/** Indices popped from below min_size since the mark,
+	 *    in the order they were popped.
+	 *  - Stack position of popped_index[k] is mark_size-1-k.
+	 */
+	protected int[] popped_index = null;
+
+
+	/** Push index i onto the stack. */
+	public void Push(int i)
+	{
+		if (num_free == free_index.length)
+		{ free_index = Arrays.copyOf(free_index, 2*free_index.length); }
+
+		free_index[num_free] = i;
+		num_free++;
+	}
+
+	/** Pop index from the stack.
+	 * <ul> <li> Return -1 if stack is empty. </ul>
+	 */
+	public int Pop()
+	{
+		if (num_free == 0) { return -1; }
+
+		num_free--;
+		if (num_free < min_size) {
+			// Save index so that RestoreToMark() can restore it.
+			//   Entry at num_free may be overwritten by a later Push().
+			min_size = num_free;
+			final int k = mark_size-1-num_free;
+			if (k == popped_index.length)
+			{ popped_index = Arrays.copyOf(popped_index, 2*popped_index.length); }
+			popped_index[k] = free_index[num_free];
+		}
+		return free_index[num_free];
+	}
+
+	/** Return number of free indices in the stack. */
+	public int Size()
+	{ return num_free; }
+
+	/** Return true if stack is empty. */
+	public boolean IsEmpty()
+	{ return (num_free == 0); }
+
+	/** Remove all indices from the stack.
+	 *  - Also removes the mark.
+	 */
+	public void Clear()
+	{
+		num_free = 0;
+		ClearMark();
+	}
+
+	/** Replace stack contents with a copy of list0.
+	 *  - Does not copy the mark of list0.  Removes the mark.
+	 */
+	public void CopyFrom(IndexFreeList list0)
+	{
+		free_index = Arrays.copyOf
+			(list0.free_index, Math.max(list0.num_free, INITIAL_CAPACITY));
+		num_free = list0.num_free;
+		ClearMark();
+	}
+
+
+	// *** Mark functions ***
+
+	/** Mark the current stack contents.
+	 * <ul>
+	 * <li> RestoreToMark() restores the stack to its contents
+	 *   at the mark.
+	 * <li> Time and space are proportional to the number of
+	 *   indices popped from below the mark, not to the stack size.
+	 * </ul>
+	 */
+	public void Mark()
+	{
+		mark_size = num_free;
+		min_size = num_free;
+		if (popped_index == null)
+		{ popped_index = new int[INITIAL_CAPACITY]; }
+	}
+
+	/** Restore the stack to its contents at the mark.
+	 * <ul> <li> The stack stays marked. </ul>
+	 */
+	public void RestoreToMark() throws Exception
+	{
+		if (mark_size < 0) {
+			throw new Exception
+				("Error in IndexFreeList.RestoreToMark(). Stack is not marked.");
+		}
+
+		for (int i = min_size; i < mark_size; i++)
+		{ free_index[i] = popped_index[mark_size-1-i]; }
+		num_free = mark_size;
+		min_size = mark_size;
+	}
+
+	/** Remove the mark. */
+	public void ClearMark()
+	{
+		mark_size = -1;
+		min_size = 0;
+		popped_index = null;
+	}
+
+	/** Return true if the stack is marked. */
+	public boolean IsMarked()
+	{ return (mark_size >= 0); }
+
+	/** Return estimated bytes used by the stack.
+	 * @see MeshFootprint
+	 */
+	public long EstimateBytes()
+	{
+		long num_bytes = MeshFootprint.ObjectBytes(getClass()) +
+			MeshFootprint.ArrayBytes(free_index.length, 4);
+		if (popped_index != null)
+		{ num_bytes += MeshFootprint.ArrayBytes(popped_index.length, 4); }
+		return num_bytes;
+	}
+}
@@ -0,0 +1,213 @@
+package halfEdgeMesh;
+
+/// \file MeshFootprint.java
+/// Estimate of the memory used by a half edge mesh.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/** Estimated memory footprint (in bytes) of a half edge mesh.
+ * <ul>
+ * <li> Computed by HalfEdgeMeshBase.EstimateFootprint().
+ * <li> Estimates assume a 64-bit JVM with compressed object
+ *   references (heap less than 32 GB): 12 byte object headers,
+ *   16 byte array headers, 4 byte references
+ *   and objects aligned to 8 bytes.
+ * <li> Each category includes its unused capacity, e.g.,
+ *   array slots of deleted elements or array growth slack.
+ *   unused_bytes is the sum of the unused capacity over all categories.
+ * </ul>
+ */
+public class MeshFootprint {
+
+	/** Bytes in an object header. */
+	public static final int OBJECT_HEADER_BYTES = 12;
+
+	/** Bytes in an array header (object header plus length). */
+	public static final int ARRAY_HEADER_BYTES = 16;
+
+	/** Bytes in an object reference. */
+	public static final int REFERENCE_BYTES = 4;
+
+	/** Object sizes are rounded up to a multiple of OBJECT_ALIGNMENT. */
+	public static final int OBJECT_ALIGNMENT = 8;
+
+	/** Bytes in vertex objects. */
+	public long vertex_bytes = 0;
+
+	/** Bytes in the vertex coordinate store. */
+	public long coord_bytes = 0;
+
+	/** Bytes in half edge objects. */
+	public long half_edge_bytes = 0;
+
+	/** Bytes in cell objects. */
+	public long cell_bytes = 0;
+
+	/** Bytes in the vertex lists of half edges (half_edge_from[]). */
+	public long adjacency_bytes = 0;
+
+	/** Bytes in the vertex, half edge and cell tables. */
+	public long table_bytes = 0;
+
+	/** Bytes in the edge index.  0 if no edge index. */
+	public long edge_index_bytes = 0;
+
+	/** Bytes in the lists of free (deleted) indices. */
+	public long free_list_bytes = 0;
+
+	/** Bytes in deleted vertices, half edges and cells
+	 *    kept by the factory for reuse.
+	 */
+	public long pool_bytes = 0;
+
+	/** Bytes of allocated but unused capacity.
+	 * <ul> <li> Included in the other categories. </ul>
+	 */
+	public long unused_bytes = 0;
+
+
+	// *** Get functions ***
+
+	/** Return bytes in vertex objects. */
+	public long VertexBytes()
+	{ return vertex_bytes; }
+
+	/** Return bytes in the vertex coordinate store. */
+	public long CoordBytes()
+	{ return coord_bytes; }
+
+	/** Return bytes in half edge objects. */
+	public long HalfEdgeBytes()
+	{ return half_edge_bytes; }
+
+	/** Return bytes in cell objects. */
+	public long CellBytes()
+	{ return cell_bytes; }
+
+	/** Return bytes in the vertex lists of half edges. */
+	public long AdjacencyBytes()
+	{ return adjacency_bytes; }
+
+	/** Return bytes in the vertex, half edge and cell tables. */
+	public long TableBytes()
+	{ return table_bytes; }
+
+	/** Return bytes in the edge index. */
+	public long EdgeIndexBytes()
+	{ return edge_index_bytes; }
+
+	/** Return bytes in the lists of free indices. */
+	public long FreeListBytes()
+	{ return free_list_bytes; }
+
+	/** Return bytes in pooled (deleted) elements. */
+	public long PoolBytes()
+	{ return pool_bytes; }
+
+	/** Return bytes of allocated but unused capacity. */
+	public long UnusedBytes()
+	{ return unused_bytes; }
+
+	/** Return total bytes over all categories. */
+	public long TotalBytes()
+	{
+		return vertex_bytes + coord_bytes + half_edge_bytes + cell_bytes +
+			adjacency_bytes + table_bytes + edge_index_bytes +
+			free_list_bytes + pool_bytes;
+	}
+
+
+	// *** Static size functions ***
+
+	/** Return x rounded up to a multiple of OBJECT_ALIGNMENT. */
+	public static long Align(long x)
+	{ return ((x + OBJECT_ALIGNMENT - 1)/OBJECT_ALIGNMENT)*OBJECT_ALIGNMENT; }
+
+	/** Return bytes in an array of length len
+	 *    with element_bytes bytes per element.
+	 */
+	public static long ArrayBytes(long len, int element_bytes)
+	{ return Align(ARRAY_HEADER_BYTES + len*element_bytes); }
+
+	/** Return bytes in an object of class c.
+	 * <ul>
+	 * <li> Sums the sizes of all instance fields of c
+	 *   and its superclasses.  Ignores field padding.
+	 * <li> Does not include objects referenced by the fields.
+	 * </ul>
+	 */
+	public static long ObjectBytes(Class<?> c)
+	{
+		long num_bytes = OBJECT_HEADER_BYTES;
+		for (Class<?> c2 = c; c2 != null; c2 = c2.getSuperclass()) {
+			for (Field field: c2.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) { continue; }
+				num_bytes += FieldBytes(field.getType());
+			}
+		}
+
+		return Align(num_bytes);
+	}
+
+	/** Return bytes in a field of type c. */
+	public static int FieldBytes(Class<?> c)
+	{
+		if (c == long.class || c == double.class) { return 8; }
+		if (c == int.class || c == float.class) { return 4; }
+		if (c == short.class || c == char.class) { return 2; }
+		if (c == byte.class || c == boolean.class) { return 1; }
+		return REFERENCE_BYTES;
+	}
+
+	/** Return estimated bytes in a java.util.HashMap
+	 *    with num_entries entries.
+	 * <ul>
+	 * <li> Includes the bucket array, one node per entry
+	 *   and one boxed Integer key per entry.
+	 * <li> Assumes the bucket array was sized for num_entries
+	 *   with the default load factor 0.75.
+	 * </ul>
+	 */
+	public static long HashMapBytes(int num_entries)
+	{
+		int num_buckets = 16;
+		while (0.75*num_buckets < num_entries) { num_buckets *= 2; }
+
+		final long node_bytes = Align(OBJECT_HEADER_BYTES + 4 + 3*REFERENCE_BYTES);
+		final long key_bytes = Align(OBJECT_HEADER_BYTES + 4);
+		final long map_bytes = Align(OBJECT_HEADER_BYTES + 4*4 + 4*REFERENCE_BYTES);
+
+		return map_bytes + ArrayBytes(num_buckets, REFERENCE_BYTES) +
+			num_entries*(node_bytes + key_bytes);
+	}
+
+	/** Return unused bytes in the bucket array of a java.util.HashMap
+	 *    with num_entries entries.
+	 */
+	public static long HashMapUnusedBytes(int num_entries)
+	{
+		int num_buckets = 16;
+		while (0.75*num_buckets < num_entries) { num_buckets *= 2; }
+		return ((long) (num_buckets - num_entries))*REFERENCE_BYTES;
+	}
+
+}
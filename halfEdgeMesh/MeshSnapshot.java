@@ -0,0 +1,321 @@
+package halfEdgeMesh;
+
+/// \file MeshSnapshot.java
+/// Copy-on-write snapshot of a half edge mesh.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.*;
+
+/** Copy-on-write snapshot of a half edge mesh.
+ * <ul>
+ * <li> Created by HalfEdgeMeshBase.TakeSnapshot() in constant time.
+ *   Records only the mesh counts and max indices.
+ * <li> While the snapshot is active, the first change to a vertex,
+ *   half edge or cell copies its fields (and vertex coordinates
+ *   and half_edge_from[] list) into the snapshot.  Later changes
+ *   to the same element copy nothing.  Elements created after
+ *   the snapshot are recorded, but not copied.
+ *   Edits therefore copy only the elements they touch.
+ * <li> HalfEdgeMeshBase.RollbackToSnapshot() restores the copied
+ *   elements and removes the created ones.  Vertex, half edge and
+ *   cell objects that existed at the snapshot are restored in place,
+ *   so references to them remain valid.
+ * <li> Get functions return the state of the mesh at the snapshot,
+ *   e.g., for comparing the edited mesh with the original.
+ *   Untouched elements are read from the mesh itself.
+ * <li> Element indices in the snapshot are the indices at the
+ *   time of the snapshot.
+ * <li> Only the fields of VertexBase, HalfEdgeBase and CellBase
+ *   are saved.  Fields added by subclasses, e.g., visited flags,
+ *   are not restored by rollback.
+ * </ul>
+ */
+public class MeshSnapshot {
+
+	/** Saved state of a vertex. */
+	protected static class VertexState {
+		int index;
+		boolean flag_in_mesh;
+		HalfEdgeBase[] half_edge_from;
+		float[] coord;
+	}
+
+	/** Saved state of a half edge. */
+	protected static class HalfEdgeState {
+		int index;
+		boolean flag_in_mesh;
+		HalfEdgeBase next_half_edge_in_cell;
+		HalfEdgeBase prev_half_edge_in_cell;
+		HalfEdgeBase next_half_edge_around_edge;
+		HalfEdgeBase prev_half_edge_around_edge;
+		VertexBase from_vertex;
+		CellBase cell;
+	}
+
+	/** Saved state of a cell. */
+	protected static class CellState {
+		int index;
+		boolean flag_in_mesh;
+		HalfEdgeBase half_edge;
+		int num_vertices;
+	}
+
+	// Mesh counts and max indices at the snapshot.
+	protected final int num_vertices;
+	protected final int num_half_edges;
+	protected final int num_cells;
+	protected final int num_edges;
+	protected final int num_boundary_edges;
+	protected final int num_isolated_vertices;
+	protected final int[] num_cells_of_size;
+	protected final int max_vertex_index;
+	protected final int max_half_edge_index;
+	protected final int max_cell_index;
+
+	/** True if the mesh was renumbered since the snapshot. */
+	protected boolean flag_renumbered = false;
+
+	/** Saved state of each vertex changed since the snapshot.
+	 *  - Value is null for vertices created since the snapshot.
+	 */
+	protected IdentityHashMap<VertexBase,VertexState> vertex_state =
+		new IdentityHashMap<VertexBase,VertexState>();
+
+	/** Saved state of each half edge changed since the snapshot.
+	 *  - Value is null for half edges created since the snapshot.
+	 */
+	protected IdentityHashMap<HalfEdgeBase,HalfEdgeState> half_edge_state =
+		new IdentityHashMap<HalfEdgeBase,HalfEdgeState>();
+
+	/** Saved state of each cell changed since the snapshot.
+	 *  - Value is null for cells created since the snapshot.
+	 */
+	protected IdentityHashMap<CellBase,CellState> cell_state =
+		new IdentityHashMap<CellBase,CellState>();
+
+	/** Changed vertices that were in the mesh at the snapshot,
+	 *    keyed by their index at the snapshot.
+	 */
+	protected HashMap<Integer,VertexBase> old_vertex =
+		new HashMap<Integer,VertexBase>();
+
+	/** Changed cells that were in the mesh at the snapshot,
+	 *    keyed by their index at the snapshot.
+	 */
+	protected HashMap<Integer,CellBase> old_cell =
+		new HashMap<Integer,CellBase>();
+
+	/** Mesh containing snapshot. */
+	protected final HalfEdgeMeshBase<?,?,?> mesh;
+
+
+	/** Constructor.  Records mesh counts and max indices. */
+	protected MeshSnapshot(HalfEdgeMeshBase<?,?,?> mesh)
+	{
+		this.mesh = mesh;
+		num_vertices = mesh.NumVertices();
+		num_half_edges = mesh.NumHalfEdges();
+		num_cells = mesh.NumCells();
+		num_edges = mesh._num_edges;
+		num_boundary_edges = mesh._num_boundary_edges;
+		num_isolated_vertices = mesh._num_isolated_vertices;
+		num_cells_of_size = mesh._num_cells_of_size.clone();
+		max_vertex_index = mesh._max_vertex_index;
+		max_half_edge_index = mesh._max_half_edge_index;
+		max_cell_index = mesh._max_cell_index;
+	}
+
+
+	// *** Get functions ***
+
+	/** Return number of vertices at the snapshot. */
+	public int NumVertices()
+	{ return num_vertices; }
+
+	/** Return number of half edges at the snapshot. */
+	public int NumHalfEdges()
+	{ return num_half_edges; }
+
+	/** Return number of cells at the snapshot. */
+	public int NumCells()
+	{ return num_cells; }
+
+	/** Return number of edges at the snapshot. */
+	public int NumEdges()
+	{ return num_edges; }
+
+	/** Return number of boundary edges at the snapshot. */
+	public int NumBoundaryEdges()
+	{ return num_boundary_edges; }
+
+	/** Return number of vertices copied since the snapshot. */
+	public int NumCopiedVertices()
+	{ return old_vertex.size(); }
+
+	/** Return number of half edges copied or created since the snapshot. */
+	public int NumChangedHalfEdges()
+	{ return half_edge_state.size(); }
+
+	/** Return number of cells copied since the snapshot. */
+	public int NumCopiedCells()
+	{ return old_cell.size(); }
+
+	/** Return indices (at the snapshot) of vertices changed
+	 *    since the snapshot.
+	 */
+	public Set<Integer> ChangedVertexIndices()
+	{ return Collections.unmodifiableSet(old_vertex.keySet()); }
+
+	/** Return indices (at the snapshot) of cells changed
+	 *    since the snapshot.
+	 */
+	public Set<Integer> ChangedCellIndices()
+	{ return Collections.unmodifiableSet(old_cell.keySet()); }
+
+	/** Copy coordinates of vertex iv at the snapshot into coord[].
+	 * <ul> <li> Return false if vertex iv was not in the mesh
+	 *   at the snapshot. </ul>
+	 */
+	public boolean GetCoord(int iv, float[] coord)
+	{
+		final VertexBase v = old_vertex.get(iv);
+		if (v != null) {
+			System.arraycopy(vertex_state.get(v).coord, 0, coord, 0, coord.length);
+			return true;
+		}
+
+		final VertexBase v2 = mesh.Vertex(iv);
+		if (v2 == null || vertex_state.containsKey(v2)) { return false; }
+		v2.GetCoord(coord);
+		return true;
+	}
+
+	/** Return indices (at the snapshot) of the vertices of cell icell
+ 	 *    at the snapshot.
+	 * <ul> <li> Return null if cell icell was not in the mesh
+	 *   at the snapshot. </ul>
+	 */
+	public int[] CellVertexIndices(int icell)
+	{
+		CellBase cell = old_cell.get(icell);
+		if (cell == null) {
+			cell = mesh.Cell(icell);
+			if (cell == null || cell_state.containsKey(cell)) { return null; }
+		}
+
+		final CellState cstate = cell_state.get(cell);
+		final int numv = (cstate == null) ? cell.num_vertices : cstate.num_vertices;
+		HalfEdgeBase half_edge = (cstate == null) ? cell.half_edge : cstate.half_edge;
+		final int[] cell_vertex = new int[numv];
+		for (int i = 0; i < numv; i++) {
+			final HalfEdgeState hstate = half_edge_state.get(half_edge);
+			final VertexBase v =
+				(hstate == null) ? half_edge.from_vertex : hstate.from_vertex;
+			cell_vertex[i] = _OldIndex(v);
+			half_edge = (hstate == null) ?
+				half_edge.next_half_edge_in_cell : hstate.next_half_edge_in_cell;
+		}
+
+		return cell_vertex;
+	}
+
+
+	// *** Record changes ***
+	// - Called by HalfEdgeMeshBase before changing an element.
+
+	/** Copy vertex v, if it was not already copied or created. */
+	protected void _SaveVertex(VertexBase v, boolean flag_in_mesh)
+	{
+		if (vertex_state.containsKey(v)) { return; }
+
+		final VertexState state = new VertexState();
+		state.index = v.index;
+		state.flag_in_mesh = flag_in_mesh;
+		state.half_edge_from = Arrays.copyOf(v.half_edge_from, v.num_half_edge_from);
+		state.coord = new float[VertexBase.Dimension()];
+		v.GetCoord(state.coord);
+		vertex_state.put(v, state);
+		if (flag_in_mesh) { old_vertex.put(v.index, v); }
+	}
+
+	/** Copy half edge, if it was not already copied or created. */
+	protected void _SaveHalfEdge(HalfEdgeBase half_edge, boolean flag_in_mesh)
+	{
+		if (half_edge_state.containsKey(half_edge)) { return; }
+
+		final HalfEdgeState state = new HalfEdgeState();
+		state.index = half_edge.index;
+		state.flag_in_mesh = flag_in_mesh;
+		state.next_half_edge_in_cell = half_edge.next_half_edge_in_cell;
+		state.prev_half_edge_in_cell = half_edge.prev_half_edge_in_cell;
+		state.next_half_edge_around_edge = half_edge.next_half_edge_around_edge;
+		state.prev_half_edge_around_edge = half_edge.prev_half_edge_around_edge;
+		state.from_vertex = half_edge.from_vertex;
+		state.cell = half_edge.cell;
+		half_edge_state.put(half_edge, state);
+	}
+
+	/** Copy cell, if it was not already copied or created. */
+	protected void _SaveCell(CellBase cell, boolean flag_in_mesh)
+	{
+		if (cell_state.containsKey(cell)) { return; }
+
+		final CellState state = new CellState();
+		state.index = cell.index;
+		state.flag_in_mesh = flag_in_mesh;
+		state.half_edge = cell.half_edge;
+		state.num_vertices = cell.num_vertices;
+		cell_state.put(cell, state);
+		if (flag_in_mesh) { old_cell.put(cell.index, cell); }
+	}
+
+	/** Record that v was created after the snapshot. */
+	protected void _RecordNewVertex(VertexBase v)
+	{ vertex_state.put(v, null); }
+
+	/** Record that half_edge was created after the snapshot. */
+	protected void _RecordNewHalfEdge(HalfEdgeBase half_edge)
+	{ half_edge_state.put(half_edge, null); }
+
+	/** Record that cell was created after the snapshot. */
+	protected void _RecordNewCell(CellBase cell)
+	{ cell_state.put(cell, null); }
+
+	/** Remove all recorded changes.
+	 *  - Called after the mesh is rolled back to the snapshot.
+	 */
+	protected void _Clear()
+	{
+		vertex_state.clear();
+		half_edge_state.clear();
+		cell_state.clear();
+		old_vertex.clear();
+		old_cell.clear();
+		flag_renumbered = false;
+	}
+
+	/** Return index of v at the snapshot. */
+	protected int _OldIndex(VertexBase v)
+	{
+		final VertexState state = vertex_state.get(v);
+		if (state == null) { return v.index; }
+		return state.index;
+	}
+}
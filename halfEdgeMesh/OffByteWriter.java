@@ -0,0 +1,330 @@
+package halfEdgeMesh;
+
+/// \file OffByteWriter.java
+/// Byte level writer for off files.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** Byte level writer for off files.
+ * <ul>
+ * <li> Formats integers and floats directly into a reusable
+ *   byte buffer.  Does not create String or other objects
+ *   for each number.
+ * <li> Writes the buffer to an OutputStream or a FileChannel
+ *   whenever it is full, so memory use does not depend on
+ *   the size of the file.
+ * <li> Floats are written exactly as String.valueOf() writes them.
+ *   Floats that are not formatted directly (e.g., very large
+ *   or very small floats, which String.valueOf() writes
+ *   in scientific notation) are written using String.valueOf().
+ * <li> Call Flush() after writing the last token.
+ * </ul>
+ */
+public class OffByteWriter {
+
+	/** Default buffer size. */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** Exact powers of ten, 10^0 to 10^MAX_FRACTION_DIGITS. */
+	protected static final long[] POW10 = {
+		1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+		100000000L, 1000000000L, 10000000000L, 100000000000L,
+		1000000000000L };
+
+	/** Maximum number of fraction digits of directly formatted floats.
+	 *  - Float times 10^MAX_FRACTION_DIGITS is exact as a double.
+	 */
+	protected static final int MAX_FRACTION_DIGITS = 12;
+
+	/** Integers less than INT_DIGITS_BOUND have at most 9 digits
+	 *    and are formatted using int arithmetic.
+	 */
+	protected static final long INT_DIGITS_BOUND = 1000000000L;
+
+	/** Largest integer such that all smaller integers
+	 *    are exactly represented as doubles.
+	 */
+	protected static final double MAX_EXACT_DOUBLE_INT = (double) (1L << 53);
+
+	/** Maximum number of bytes written by a single int or
+	 *    directly formatted float.
+	 */
+	protected static final int MAX_NUMBER_LENGTH = 32;
+
+	/** Output stream.  null if writing to a file channel. */
+	protected final OutputStream outfile;
+
+	/** File channel.  null if writing to an output stream. */
+	protected final FileChannel channel;
+
+	/** Buffer of bytes not yet written. */
+	protected final byte[] buffer;
+
+	/** ByteBuffer wrapping buffer.  null if writing to an output stream. */
+	protected final ByteBuffer byte_buffer;
+
+	/** Number of bytes in buffer. */
+	protected int pos = 0;
+
+
+	/** Constructor. */
+	public OffByteWriter(OutputStream outfile)
+	{ this(outfile, DEFAULT_BUFFER_SIZE); }
+
+	/** Constructor.
+	 * @param buffer_size Buffer size.
+	 */
+	public OffByteWriter(OutputStream outfile, int buffer_size)
+	{
+		this.outfile = outfile;
+		this.channel = null;
+		buffer = new byte[Math.max(buffer_size, 2*MAX_NUMBER_LENGTH)];
+		byte_buffer = null;
+	}
+
+	/** Constructor.  Write to channel at its current position. */
+	public OffByteWriter(FileChannel channel)
+	{ this(channel, DEFAULT_BUFFER_SIZE); }
+
+	/** Constructor.  Write to channel at its current position.
+	 * @param buffer_size Buffer size.
+	 */
+	public OffByteWriter(FileChannel channel, int buffer_size)
+	{
+		this.outfile = null;
+		this.channel = channel;
+		buffer = new byte[Math.max(buffer_size, 2*MAX_NUMBER_LENGTH)];
+		byte_buffer = ByteBuffer.wrap(buffer);
+	}
+
+
+	// *** Write functions ***
+
+	/** Write character c.
+	 * <ul> <li> Precondition: c is an ASCII character. </ul>
+	 */
+	public void WriteChar(char c) throws IOException
+	{
+		if (pos == buffer.length) { Flush(); }
+		buffer[pos] = (byte) c;
+		pos++;
+	}
+
+
+	/** Write s.
+	 * <ul> <li> Characters of s are written as bytes.
+	 *   Use only for ASCII strings. </ul>
+	 */
+	public void WriteString(String s) throws IOException
+	{
+		final int length = s.length();
+		int i = 0;
+		while (i < length) {
+			if (pos == buffer.length) { Flush(); }
+			final int n = Math.min(length-i, buffer.length-pos);
+			for (int j = 0; j < n; j++)
+			{ buffer[pos+j] = (byte) s.charAt(i+j); }
+			pos += n;
+			i += n;
+		}
+	}
+
+
+	/** Write end of line. */
+	public void WriteNewline() throws IOException
+	{ WriteChar('\n'); }
+
+
+	/** Write x in decimal. */
+	public void WriteInt(int x) throws IOException
+	{
+		_Reserve(MAX_NUMBER_LENGTH);
+		if (x < 0) {
+			buffer[pos] = '-';
+			pos++;
+		}
+		_FormatDigits(Math.abs((long) x), 0);
+	}
+
+
+	/** Write x exactly as String.valueOf(x) writes it. */
+	public void WriteFloat(float x) throws IOException
+	{
+		_Reserve(MAX_NUMBER_LENGTH);
+		if (!_FormatFloat(x)) { WriteString(String.valueOf(x)); }
+	}
+
+
+	/** Write all buffered bytes to the output stream or channel. */
+	public void Flush() throws IOException
+	{
+		if (pos == 0) { return; }
+
+		if (channel == null) {
+			outfile.write(buffer, 0, pos);
+		}
+		else {
+			byte_buffer.clear();
+			byte_buffer.limit(pos);
+			while (byte_buffer.hasRemaining())
+			{ channel.write(byte_buffer); }
+		}
+		pos = 0;
+	}
+
+
+	// *** Protected functions ***
+
+	/** Flush buffer if it has fewer than n free bytes. */
+	protected void _Reserve(int n) throws IOException
+	{
+		if (buffer.length - pos < n) { Flush(); }
+	}
+
+
+	/** Format non-negative x in decimal at buffer[pos],
+	 *    padded with leading zeros to at least min_digits digits.
+	 * <ul> <li> Precondition: Buffer has at least
+	 *   MAX_NUMBER_LENGTH free bytes. </ul>
+	 */
+	protected void _FormatDigits(long x, int min_digits)
+	{
+		if (x < INT_DIGITS_BOUND) {
+			_FormatIntDigits((int) x, min_digits);
+			return;
+		}
+
+		// Format in pieces of 9 digits to avoid long division.
+		final long y = x/INT_DIGITS_BOUND;
+		_FormatDigits(y, min_digits-9);
+		_FormatIntDigits((int) (x - y*INT_DIGITS_BOUND), 9);
+	}
+
+
+	/** Format non-negative x in decimal at buffer[pos],
+	 *    padded with leading zeros to at least min_digits digits.
+	 */
+	protected void _FormatIntDigits(int x, int min_digits)
+	{
+		int num_digits = 1;
+		while (num_digits < 10 && x >= POW10[num_digits])
+		{ num_digits++; }
+		num_digits = Math.max(num_digits, min_digits);
+
+		for (int k = pos+num_digits-1; k >= pos; k--) {
+			final int y = x/10;
+			buffer[k] = (byte) ('0' + (x - 10*y));
+			x = y;
+		}
+		pos += num_digits;
+	}
+
+
+	/** Format x at buffer[pos] exactly as String.valueOf(x) formats it.
+	 * <ul>
+	 * <li> Formats zero and floats whose absolute value is
+	 *   in the range [10^-3, 10^7).  (String.valueOf() writes
+	 *   other floats in scientific notation.)
+	 * <li> Writes the decimal with the fewest digits that rounds to x,
+	 *   with at least one digit after the decimal point.
+	 * <li> Returns false, and writes nothing, if x is not in
+	 *   the range, or if the decimal is not clearly determined
+	 *   (x is a power of two or the decimal is exactly halfway
+	 *   between two floats).
+	 * <li> Precondition: Buffer has at least MAX_NUMBER_LENGTH free bytes.
+	 * </ul>
+	 */
+	protected boolean _FormatFloat(float x)
+	{
+		final int bits = Float.floatToRawIntBits(x);
+		final boolean flag_negative = (bits < 0);
+
+		if ((bits & 0x7fffffff) == 0) {
+			if (flag_negative) {
+				buffer[pos] = '-';
+				pos++;
+			}
+			buffer[pos] = '0';
+			buffer[pos+1] = '.';
+			buffer[pos+2] = '0';
+			pos += 3;
+			return true;
+		}
+
+		final float absx = Math.abs(x);
+		if (!(absx >= 1e-3f && absx < 1e7f)) { return false; }
+
+		// Floats in [x-half_ulp,x+half_ulp] round to x.
+		//   Interval is not symmetric if x is a power of two.
+		if ((bits & 0x007fffff) == 0) { return false; }
+		final double half_ulp = 0.5*Math.ulp(absx);
+
+		// Find the fewest fraction digits k such that the nearest
+		//   decimal with k fraction digits is in [x-half_ulp,x+half_ulp].
+		// If k fraction digits suffice, so do k+1, so binary search k.
+		// absx*10^k, half_ulp*10^k and their differences are exact.
+		int kmax = MAX_FRACTION_DIGITS;
+		while (absx * (double) POW10[kmax] >= MAX_EXACT_DOUBLE_INT)
+		{ kmax--; }
+		if (!_IsNearestDecimalInInterval(absx, half_ulp, kmax)) { return false; }
+
+		int kmin = -1;
+		while (kmax - kmin > 1) {
+			final int k = (kmin + kmax)/2;
+			if (_IsNearestDecimalInInterval(absx, half_ulp, k)) { kmax = k; }
+			else { kmin = k; }
+		}
+
+		final int k = kmax;
+		final double scaled = absx * (double) POW10[k];
+		final double m = Math.rint(scaled);
+		if (Math.abs(m - scaled) == half_ulp * (double) POW10[k]) {
+			// Decimal is exactly halfway between two floats.
+			return false;
+		}
+
+		final long digits = (long) m;
+		if (flag_negative) {
+			buffer[pos] = '-';
+			pos++;
+		}
+		_FormatDigits(digits/POW10[k], 0);
+		buffer[pos] = '.';
+		pos++;
+		_FormatDigits(digits%POW10[k], Math.max(k, 1));
+		return true;
+	}
+
+
+	/** Return true if the nearest decimal to x with k fraction digits
+	 *    is in [x-half_ulp,x+half_ulp].
+	 * <ul> <li> Precondition: x*10^k is less than MAX_EXACT_DOUBLE_INT. </ul>
+	 */
+	protected static boolean _IsNearestDecimalInInterval
+	(float x, double half_ulp, int k)
+	{
+		final double scaled = x * (double) POW10[k];
+		return (Math.abs(Math.rint(scaled) - scaled) <= half_ulp * (double) POW10[k]);
+	}
+
+}
@@ -22,135 +22,821 @@ package halfEdgeMesh;
 */
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.IntStream;
 
 /** Class to read off files into HalfEdgeMesh. 
  *  @param <MESH_TYPE> Type of mesh.
  */
 public abstract class OffFileReaderBase<MESH_TYPE extends HalfEdgeMeshBase> {
 	
-	/// Get first line that is not blank or a comment.
-	/// - First non-blank character in a comment line is '#'.
-	/// - Returns null if there is no such line.
-	protected String get_next_non_comment_line(BufferedReader reader) throws IOException
+	/** If true, build mesh using multiple threads. */
+	protected boolean flag_parallel_build = false;
+	
+	/** Return true if reader builds mesh using multiple threads. */
+	public boolean FlagParallelBuild()
+	{ return flag_parallel_build; }
+	
+	/** Set flag_parallel_build.
+	 * <ul> 
+	 * <li> If flag is true, mesh is built with mesh.AddCellsParallel(),
+	 *   otherwise with mesh.AddCells().  Resulting mesh is the same.
+	 * <li> Mesh factory must be thread safe.
+	 * </ul>
+	 */
+	public void SetParallelBuild(boolean flag)
+	{ flag_parallel_build = flag; }
+	
+	/** If true, OpenAndReadFile() memory maps the file. */
+	protected boolean flag_memory_map = false;
+	
+	/** Return true if OpenAndReadFile() memory maps the file. */
+	public boolean FlagMemoryMap()
+	{ return flag_memory_map; }
+	
+	/** Set flag_memory_map.
+	 * <ul>
+	 * <li> If flag is true, OpenAndReadFile() reads the file
+	 *   with ReadFile(FileChannel,...), otherwise with
+	 *   ReadFile(InputStream,...).  Resulting mesh is the same.
+	 * <li> Default is false.
+	 * <li> Files that cannot be memory mapped, such as pipes,
+	 *   are read with ReadFile(InputStream,...).
+	 * <li> Mapped files stay mapped until the mapping is garbage collected.
+	 *   On some systems, mapped files cannot be deleted or
+	 *   overwritten until then.  Do not set flag to true if the
+	 *   program may overwrite the input file (e.g., writes
+	 *   the output mesh to the input file name).
+	 * </ul>
+	 */
+	public void SetMemoryMap(boolean flag)
+	{ flag_memory_map = flag; }
+	
+	/** If true, OpenAndReadFile() parses the file using multiple threads. */
+	protected boolean flag_parallel_read = false;
+	
+	/** Return true if OpenAndReadFile() parses the file 
+	 *    using multiple threads.
+	 */
+	public boolean FlagParallelRead()
+	{ return flag_parallel_read; }
+	
+	/** Set flag_parallel_read.
+	 * <ul>
+	 * <li> If flag is true, OpenAndReadFile() reads the file
+	 *   with ReadFileParallel().  Resulting mesh and error
+	 *   messages are the same.
+	 * <li> File is memory mapped, whatever the value of flag_memory_map.
+	 *   (See SetMemoryMap().)
+	 *   Files that cannot be memory mapped, such as pipes,
+	 *   are read with ReadFile(InputStream,...).
+	 * </ul>
+	 */
+	public void SetParallelRead(boolean flag)
+	{ flag_parallel_read = flag; }
+	
+	/** Minimum number of bytes in each chunk parsed by ReadFileParallel(). */
+	public static final int PARALLEL_READ_CHUNK_SIZE = 1 << 20;
+	
+	/** If true, ReadFile() parses the file and builds the mesh
+	 *    concurrently.
+	 */
+	protected boolean flag_pipelined_build = false;
+	
+	/** Return true if ReadFile() parses the file and builds the mesh
+	 *    concurrently.
+	 */
+	public boolean FlagPipelinedBuild()
+	{ return flag_pipelined_build; }
+	
+	/** Set flag_pipelined_build.
+	 * <ul>
+	 * <li> If flag is true, ReadFile() reads the file 
+	 *   with ReadFilePipelined().
+	 * <li> Not used by ReadFileParallel().
+	 * </ul>
+	 */
+	public void SetPipelinedBuild(boolean flag)
+	{ flag_pipelined_build = flag; }
+	
+	/** Number of polygons in each batch passed from the parser
+	 *    to the builder by ReadFilePipelined().
+	 */
+	public static final int PIPELINE_BATCH_SIZE = 1 << 16;
+	
+	/** Maximum number of parsed batches waiting to be built
+	 *    by ReadFilePipelined().
+	 */
+	public static final int PIPELINE_QUEUE_CAPACITY = 4;
+	
+	
+	/** Read off file.
+	 * <ul> <li> Precondition: Dimension of vertices is 3. </ul>
+	 */
+	public void ReadFile(InputStream infile, MESH_TYPE mesh) throws IOException, Exception
+	{ ReadFile(new OffTokenizer(infile), mesh); }
+	
+	
+	/** Read off file from channel.
+	 * <ul>
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * <li> Memory maps the channel.  Bytes are parsed without
+	 *   read() system calls or character decoding.
+	 * </ul>
+	 */
+	public void ReadFile(FileChannel channel, MESH_TYPE mesh) throws IOException, Exception
+	{ ReadFile(new OffTokenizer(channel), mesh); }
+	
+	
+	/** Read off file from tokenizer.
+	 * <ul> 
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * <li> Reads vertices and polygons directly into the flat arrays
+	 *   passed to mesh.AddCells().
+	 * </ul>
+	 */
+	public void ReadFile(OffTokenizer tokenizer, MESH_TYPE mesh) throws IOException, Exception
+	{
+		if (flag_pipelined_build) {
+			ReadFilePipelined(tokenizer, mesh);
+			return;
+		}
+		
+		// Read vertices and polygons into flat arrays and add
+		//   all polygons at once with mesh.AddCells().
+		final OffBatch batch = _ReadFlatArrays(tokenizer);
+		_AddCells(mesh, batch.poly_first, batch.poly_vert, batch.coord);
+	}
+	
+	
+	/** Read off file directly into a frozen mesh.
+	 * <ul>
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * <li> Same frozen mesh as reading the file with ReadFile()
+	 *   and calling mesh.Freeze(flag_off_heap), if the mesh
+	 *   has no edge index, but does not create any vertex,
+	 *   half edge or cell objects.
+	 * </ul>
+	 * @param flag_off_heap If true, store frozen mesh
+	 *   in direct (off-heap) buffers.
+	 */
+	public HalfEdgeMeshFrozen ReadFileFrozen
+	(OffTokenizer tokenizer, boolean flag_off_heap) throws IOException, Exception
 	{
-		String line = reader.readLine();
-		while (line != null) {
-			line.trim();
-			if (line.length() > 0) {
-				if (line.charAt(0) != '#') 
-				{ return line; }
+		final OffBatch batch = _ReadFlatArrays(tokenizer);
+		return new HalfEdgeMeshFrozen
+			(batch.poly_first, batch.poly_vert, batch.coord, flag_off_heap);
+	}
+	
+	
+	/** Read off file directly into a frozen mesh.
+	 * <ul> <li> See ReadFileFrozen(OffTokenizer,...). </ul>
+	 */
+	public HalfEdgeMeshFrozen ReadFileFrozen
+	(InputStream infile, boolean flag_off_heap) throws IOException, Exception
+	{ return ReadFileFrozen(new OffTokenizer(infile), flag_off_heap); }
+	
+	
+	/** Read off file from tokenizer, building the mesh while
+	 *    the file is parsed.
+	 * <ul>
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * <li> A separate thread parses the file.  It passes the vertex 
+	 *   coordinates and then batches of PIPELINE_BATCH_SIZE polygons
+	 *   to the calling thread through a queue holding at most
+	 *   PIPELINE_QUEUE_CAPACITY batches.  The calling thread adds
+	 *   each batch to the mesh with mesh.AddCells()
+	 *   (or mesh.AddCellsParallel()), while the next batches are parsed.
+	 * <li> Mesh is the same as with ReadFile(), including the order
+	 *   of half edges around each edge and in half_edge_from[] lists.
+	 *   Adding cells in batches with mesh.AddCells() gives the same mesh
+	 *   as adding them all at once.
+	 * <li> Throws the same errors as ReadFile().  The parser checks
+	 *   each polygon as it is read (see _ReadPolygonVertices()),
+	 *   so polygon numbers in error messages are indices in the file,
+	 *   not locations in the batch.
+	 * <li> On error, mesh may contain some of the file's polygons.
+	 * </ul>
+	 */
+	public void ReadFilePipelined(OffTokenizer tokenizer, MESH_TYPE mesh)
+		throws IOException, Exception
+	{
+		final BlockingQueue<OffBatch> queue = 
+			new ArrayBlockingQueue<OffBatch>(PIPELINE_QUEUE_CAPACITY);
+		final Thread parser = 
+			new Thread(() -> _ParseBatches(tokenizer, queue), "OffFileReader parser");
+		parser.setDaemon(true);
+		parser.start();
+		
+		Exception build_error = null;
+		try {
+			while (true) {
+				final OffBatch batch = queue.take();
+				if (batch.error instanceof Error) { throw (Error) batch.error; }
+				if (batch.error != null) { throw (Exception) batch.error; }
+				if (batch.flag_end) { break; }
+				
+				// After a build error, keep parsing, since ReadFile()
+				//   reports parse errors first.
+				if (build_error != null) { continue; }
+				
+				try {
+					_AddCells(mesh, batch.poly_first, batch.poly_vert, batch.coord);
+				}
+				catch (Exception e) {
+					build_error = e;
+				}
 			}
-			
-			// Line was empty or a comment.
-			// Read the next line.
-			line = reader.readLine();
+		}
+		finally {
+			parser.interrupt();
+			parser.join();
 		}
 		
-		return line;
+		if (build_error != null) { throw build_error; }
 	}
 	
 	
-	/** Read off file.
-	 * <ul> <li> Precondition: Dimension of vertices is 3. </ul>
+	/** Read off file from channel using multiple threads.
+	 * <ul>
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * <li> Splits the vertex and polygon lines into chunks
+	 *   of whole lines and parses the chunks in parallel 
+	 *   (using the common fork-join pool) into flat arrays.
+	 * <li> Resulting mesh is the same as ReadFile().
+	 *   On malformed input, throws the same exception as ReadFile().
+	 * </ul>
 	 */
-	public void ReadFile(InputStream infile, MESH_TYPE mesh) throws IOException, Exception
+	public void ReadFileParallel(FileChannel channel, MESH_TYPE mesh) throws IOException, Exception
+	{
+		final OffTokenizer tokenizer = new OffTokenizer(channel);
+		final int[] header = _ReadHeader(tokenizer);
+		final int numv = header[0];
+		final int numpoly = header[1];
+		final float[] coord = new float[3*numv];
+		
+		final OffChunk[] chunk = _SplitIntoChunks(channel, tokenizer.Position());
+		
+		// Count vertex and polygon lines in each chunk.
+		IntStream.range(0, chunk.length).parallel().forEach
+			(k -> _CountChunkLines(channel, chunk[k]));
+		
+		int num_lines = 0;
+		for (int k = 0; k < chunk.length; k++) {
+			if (chunk[k].error != null) { throw chunk[k].error; }
+			chunk[k].first_line = num_lines;
+			num_lines += chunk[k].num_lines;
+		}
+		
+		IntStream.range(0, chunk.length).parallel().forEach
+			(k -> _ParseChunk(channel, chunk[k], numv, numpoly, coord));
+		
+		// Throw the error ReadFile() would have found first.
+		for (int k = 0; k < chunk.length; k++) {
+			if (chunk[k].error != null) { throw chunk[k].error; }
+		}
+		if (num_lines < numv)
+		{ throw new IOException(_MissingVertexCoordMessage()); }
+		
+		final int[] poly_first = new int[numpoly+1];
+		if (num_lines - numv < numpoly)
+		{ throw new IOException(_MissingPolygonVerticesMessage()); }
+		
+		int num_poly_vert_total = 0;
+		for (int k = 0; k < chunk.length; k++) {
+			chunk[k].first_poly_vert = num_poly_vert_total;
+			num_poly_vert_total += chunk[k].num_poly_vert_total;
+		}
+		
+		final int[] poly_vert = new int[num_poly_vert_total];
+		IntStream.range(0, chunk.length).parallel().forEach(k -> {
+			final OffChunk chunkA = chunk[k];
+			int j = chunkA.first_poly_vert;
+			for (int i = 0; i < chunkA.num_poly; i++) {
+				j += chunkA.num_poly_vert[i];
+				poly_first[chunkA.first_poly+i+1] = j;
+			}
+			System.arraycopy(chunkA.poly_vert, 0, poly_vert,
+					chunkA.first_poly_vert, chunkA.num_poly_vert_total);
+		});
+		
+		_AddCells(mesh, poly_first, poly_vert, coord);
+	}
+	
+	
+	/** Open and read off file.
+	 * 	<ul> 
+	 * 	<li> Precondition: Dimension of vertices is 3.
+	 * 	<li> Reads the file with ReadFile(InputStream,...)
+	 * 	  if the file cannot be memory mapped, 
+	 * 	  whatever the values of flag_memory_map and flag_parallel_read.
+	 * 	</ul>
+	 *  @param input_filename Input file name.
+	 */
+	public void OpenAndReadFile(String input_filename, MESH_TYPE mesh)
+	{
+		File input_file = new File(input_filename);
+		try (FileInputStream file_stream = new FileInputStream(input_file)) {
+			final FileChannel channel = file_stream.getChannel();
+			if ((flag_parallel_read || flag_memory_map) &&
+				_CanMemoryMap(input_file, channel)) {
+				if (flag_parallel_read)
+				{ ReadFileParallel(channel, mesh); }
+				else
+				{ ReadFile(channel, mesh); }
+			}
+			else {
+				ReadFile(file_stream, mesh);
+			}
+		}
+		catch (IOException e) {
+			System.err.println("Error reading file " + input_filename + ".");
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+		catch (Exception e) {
+			System.err.println("Error reading file " + input_filename + ".");
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+	
+	
+	// *** Protected functions ***
+	
+	/** Return true if OpenAndReadFile() can memory map channel.
+	 * <ul>
+	 * <li> Returns false if input_file is not a regular file
+	 *   (e.g., a pipe), if the channel is empty or 
+	 *   if mapping the channel fails.
+	 * <li> Empty files are read as streams, which report
+	 *   the same error.
+	 * </ul>
+	 */
+	protected static boolean _CanMemoryMap(File input_file, FileChannel channel)
 	{
-		BufferedReader reader = new BufferedReader(new InputStreamReader(infile));
+		if (!input_file.isFile()) { return false; }
+		
+		try {
+			final long size = channel.size();
+			if (size == 0) { return false; }
+			
+			channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, 1));
+			return true;
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			return false;
+		}
+	}
+	
+	/** Vertices and polygons parsed from a chunk of an off file
+	 *    by ReadFileParallel().
+	 */
+	protected static class OffChunk {
+		
+		/** Chunk is bytes [start..(end-1)] of the file.
+		 *  - Chunks start at the start of a line.
+		 */
+		long start, end;
+		
+		/** Number of vertex and polygon lines (lines that are not
+		 *    blank or comments) before the chunk.
+		 */
+		int first_line = 0;
+		
+		/** Number of vertex and polygon lines in chunk. */
+		int num_lines = 0;
+		
+		/** Index of first polygon in chunk. */
+		int first_poly = 0;
+		
+		/** Number of polygons in chunk. */
+		int num_poly = 0;
+		
+		/** num_poly_vert[i] is the number of vertices
+		 *    of polygon (first_poly+i).
+		 */
+		int[] num_poly_vert = new int[0];
+		
+		/** Vertices of the chunk polygons. */
+		int[] poly_vert = new int[0];
 		
-		String line = reader.readLine();
+		/** Number of vertices in all chunk polygons. */
+		int num_poly_vert_total = 0;
+		
+		/** Location of poly_vert[0] in the flat polygon vertex array. */
+		int first_poly_vert = 0;
+		
+		/** First error in chunk.  null if no error. */
+		Exception error = null;
+	}
+	
+	
+	/** Vertex coordinates or polygons passed from the parser
+	 *    to the builder by ReadFilePipelined(),
+	 *    or all vertex coordinates and polygons read by _ReadFlatArrays().
+	 */
+	protected static class OffBatch {
+		
+		/** Vertex coordinates.  null if batch has only polygons. */
+		float[] coord = null;
+		
+		/** Location in poly_vert[] of the first vertex of each polygon. */
+		int[] poly_first = new int[] { 0 };
+		
+		/** Polygon vertices. */
+		int[] poly_vert = new int[0];
+		
+		/** Parse error.  null if no error. */
+		Throwable error = null;
+		
+		/** True if batch marks the end of the file. */
+		boolean flag_end = false;
+	}
+	
+	
+	/** Parse off file into batches and put them in queue.
+	 * <ul>
+	 * <li> Run by the parser thread of ReadFilePipelined().
+	 * <li> Puts the vertex coordinates, then batches of polygons,
+	 *   and then an end batch.  On a parse error, puts
+	 *   a batch containing the error and stops.
+	 * <li> Stops if the thread is interrupted.
+	 * </ul>
+	 */
+	protected void _ParseBatches
+	(OffTokenizer tokenizer, BlockingQueue<OffBatch> queue)
+	{
+		try {
+			try {
+				final int[] header = _ReadHeader(tokenizer);
+				final int numv = header[0];
+				final int numpoly = header[1];
+				
+				final OffBatch vertex_batch = new OffBatch();
+				vertex_batch.coord = new float[3*numv];
+				for (int iv = 0; iv < numv; iv++) {
+					if (!tokenizer.NextNonCommentLine())
+					{ throw new IOException(_MissingVertexCoordMessage()); }
+					
+					_ReadVertexCoord(tokenizer, iv, vertex_batch.coord);
+				}
+				queue.put(vertex_batch);
+				
+				int ipoly = 0;
+				do {
+					final int num_batch_poly = Math.min(numpoly-ipoly, PIPELINE_BATCH_SIZE);
+					final OffBatch batch = new OffBatch();
+					batch.poly_first = new int[num_batch_poly+1];
+					batch.poly_vert = new int[3*num_batch_poly];
+					int num_poly_vert_total = 0;
+					for (int i = 0; i < num_batch_poly; i++) {
+						if (!tokenizer.NextNonCommentLine())
+						{ throw new IOException(_MissingPolygonVerticesMessage()); }
+						
+						final int num_poly_vert = tokenizer.ReadInt();
+						batch.poly_vert = _ReadPolygonVertices
+							(tokenizer, ipoly+i, num_poly_vert, batch.poly_vert,
+								num_poly_vert_total);
+						num_poly_vert_total += num_poly_vert;
+						batch.poly_first[i+1] = num_poly_vert_total;
+					}
+					
+					batch.poly_vert = Arrays.copyOf(batch.poly_vert, num_poly_vert_total);
+					if (num_batch_poly > 0) { queue.put(batch); }
+					ipoly += num_batch_poly;
+				} while (ipoly < numpoly);
+				
+				final OffBatch end_batch = new OffBatch();
+				end_batch.flag_end = true;
+				queue.put(end_batch);
+			}
+			catch (InterruptedException e) {
+				throw e;
+			}
+			catch (Exception | Error e) {
+				// Pass Errors (e.g., OutOfMemoryError) to the builder,
+				//   so it does not wait forever.
+				final OffBatch error_batch = new OffBatch();
+				error_batch.error = e;
+				queue.put(error_batch);
+			}
+		}
+		catch (InterruptedException e) {
+			// Builder stopped.
+		}
+	}
+	
+	
+	/** Read off header and line with number of vertices and polygons.
+	 * <ul> 
+	 * <li> Returns {number of vertices, number of polygons}.
+	 * <li> Throws exception if either number is negative or
+	 *   too large to store the vertex coordinates
+	 *   or polygon vertices in an array.
+	 * </ul>
+	 */
+	protected int[] _ReadHeader(OffTokenizer tokenizer) throws IOException
+	{
+		String line = tokenizer.ReadLine();
 		if (line == null)
 		{ throw new IOException("Read error. File is empty."); }
 		
-		line.trim();
+		line = line.trim();
 		
 		if (!line.equals("OFF"))
 		{ throw new IOException("Read error. File does not begin with OFF."); }
 		
-		line = get_next_non_comment_line(reader);
-		if (line == null)
+		if (!tokenizer.NextNonCommentLine())
 		{ throw new IOException("Read error. File does not contain line with number of vertices and polygons."); }
 		
-		String[] listX = line.split("\\s+");
-		
-		if (listX.length == 0)
-		{ throw new IOException("Incorrect OFF file format. File missing number of vertices and polygons."); }
-		else if (listX.length == 1)
+		final int numv = tokenizer.ReadInt();
+		if (!tokenizer.HasTokenOnLine())
 		{ throw new IOException("Incorrect OFF file format. File missing number of polygons."); }
+		final int numpoly = tokenizer.ReadInt();
+		tokenizer.SkipRestOfLine();
 		
-		int numv = Integer.parseInt(listX[0]);
-		int numpoly = Integer.parseInt(listX[1]);
+		if (numv < 0)
+		{ throw new IOException("Incorrect OFF file format. Number of vertices is negative."); }
+		if (numpoly < 0)
+		{ throw new IOException("Incorrect OFF file format. Number of polygons is negative."); }
 		
-		mesh.AddVertices(numv);
-		for (int iv = 0; iv < numv; iv++) {
-			line = get_next_non_comment_line(reader);
-			if (line == null)
-			{ throw new IOException("Read error. File is missing some vertex coordinates."); }
+		// Vertex coordinates and polygon vertices (at least 3 per polygon)
+		//   are stored in int and float arrays.
+		if (3L*numv > Integer.MAX_VALUE) {
+			throw new IOException
+				("Read error. Too many vertices (" + String.valueOf(numv) + ").");
+		}
+		if (3L*numpoly > Integer.MAX_VALUE) {
+			throw new IOException
+				("Read error. Too many polygons (" + String.valueOf(numpoly) + ").");
+		}
+		
+		return new int[] { numv, numpoly };
+	}
+	
+	
+	/** Read coordinates of vertex iv into coord[3*iv..3*iv+2].
+	 * <ul>
+	 * <li> Tokenizer is at the start of the vertex line.
+	 *   Skips the rest of the line.
+	 * <li> As with line.split(), a line with fewer than 3 tokens
+	 *   is an error even if some token is not a number.
+	 * </ul>
+	 */
+	protected void _ReadVertexCoord
+	(OffTokenizer tokenizer, int iv, float[] coord) throws IOException
+	{
+		for (int ic = 0; ic < 3; ic++) {
+			if (!tokenizer.HasTokenOnLine())
+			{ throw new IOException(_VertexCoordErrorMessage(iv)); }
 			
-			listX = line.split("\\s+");
-			if (listX.length < 3) {
-				String msg = "Read error. Error reading vertex " +
-						String.valueOf(iv) + " coordinates.";
-				throw new IOException(msg);
+			try {
+				coord[3*iv+ic] = tokenizer.ReadFloat();
+			}
+			catch (NumberFormatException e) {
+				if (ic + tokenizer.SkipRestOfLineAndCountTokens() < 3)
+				{ throw new IOException(_VertexCoordErrorMessage(iv)); }
+				throw e;
 			}
+		}
+		tokenizer.SkipRestOfLine();
+	}
+	
 	
-			float coord[] = { Float.parseFloat(listX[0]), 
-					Float.parseFloat(listX[1]), Float.parseFloat(listX[2]) };
+	/** Read num_poly_vert vertices of polygon ipoly
+	 *    into poly_vert[k0..(k0+num_poly_vert-1)].
+	 * <ul>
+	 * <li> Tokenizer is after the number of polygon vertices.
+	 *   Skips the rest of the line.
+	 * <li> Returns poly_vert or, if poly_vert is too short,
+	 *   a longer copy of poly_vert.  Array grows only as vertices
+	 *   are read, so a very large num_poly_vert on a short line
+	 *   is reported as an error, not as an out of memory error.
+	 * <li> As with line.split(), a line with too few tokens
+	 *   is an error even if some token is not a number.
+	 * <li> Checks the polygon as AddCell() does, so errors in the
+	 *   polygon are reported before errors in later lines,
+	 *   with the same messages as AddCell().
+	 * </ul>
+	 */
+	protected int[] _ReadPolygonVertices
+	(OffTokenizer tokenizer, int ipoly, int num_poly_vert, 
+			int[] poly_vert, int k0) throws IOException, Exception
+	{
+		for (int k = 0; k < num_poly_vert; k++) {
+			if (!tokenizer.HasTokenOnLine())
+			{ throw new IOException(_PolygonVerticesErrorMessage(ipoly)); }
 			
-			mesh.SetCoord(iv, coord);
-
+			if (k0+k >= poly_vert.length) {
+				poly_vert = Arrays.copyOf
+					(poly_vert, Math.max(2*poly_vert.length, k0+k+1));
+			}
+			
+			try {
+				poly_vert[k0+k] = tokenizer.ReadInt();
+			}
+			catch (NumberFormatException e) {
+				if (k + tokenizer.SkipRestOfLineAndCountTokens() < num_poly_vert)
+				{ throw new IOException(_PolygonVerticesErrorMessage(ipoly)); }
+				throw e;
+			}
 		}
+		tokenizer.SkipRestOfLine();
 		
+		if (num_poly_vert < 3) {
+			throw new Exception
+				("Illegal argument to AddCell.  Vector cell_vertex must have 3 or more vertices.");
+		}
 		
-		for (int ipoly = 0; ipoly < numpoly; ipoly++) {
-			line = get_next_non_comment_line(reader);
-			if (line == null)
-			{ throw new IOException("Read error. File is missing some polygon vertices."); }
-			
-			listX = line.split("\\s+");
-			if (listX.length < 1) {
-				String msg = "Read error. Error reading polygon " +
-						String.valueOf(ipoly) + " vertices.";
-				throw new IOException(msg);
+		for (int k = 0; k < num_poly_vert; k++) {
+			if (poly_vert[k0+k] < 0) {
+				throw new Exception
+					("Illegal argument to HalfEdgeMeshBase::_CreateVertex.  Vertex index must be non-negative.");
 			}
+		}
+		
+		return poly_vert;
+	}
+	
+	
+	/** Return message for error reading coordinates of vertex iv. */
+	protected String _VertexCoordErrorMessage(int iv)
+	{ 
+		return "Read error. Error reading vertex " +
+			String.valueOf(iv) + " coordinates.";
+	}
+	
+	/** Return message for error reading vertices of polygon ipoly. */
+	protected String _PolygonVerticesErrorMessage(int ipoly)
+	{
+		return "Read error. Error reading polygon " +
+			String.valueOf(ipoly) + " vertices.";
+	}
+	
+	
+	/** Return message for file with too few vertex lines. */
+	protected String _MissingVertexCoordMessage()
+	{ return "Read error. File is missing some vertex coordinates."; }
+	
+	/** Return message for file with too few polygon lines. */
+	protected String _MissingPolygonVerticesMessage()
+	{ return "Read error. File is missing some polygon vertices."; }
+	
+	
+	/** Read vertices and polygons of off file into flat arrays.
+	 * <ul> <li> Returns a batch containing all vertex coordinates
+	 *   and all polygons. </ul>
+	 */
+	protected OffBatch _ReadFlatArrays(OffTokenizer tokenizer)
+		throws IOException, Exception
+	{
+		final int[] header = _ReadHeader(tokenizer);
+		final int numv = header[0];
+		final int numpoly = header[1];
+		
+		final float[] coord = new float[3*numv];
+		for (int iv = 0; iv < numv; iv++) {
+			if (!tokenizer.NextNonCommentLine())
+			{ throw new IOException(_MissingVertexCoordMessage()); }
 			
-			int num_poly_vert = Integer.parseInt(listX[0]);
+			_ReadVertexCoord(tokenizer, iv, coord);
+		}
+		
+		final int[] poly_first = new int[numpoly+1];
+		int[] poly_vert = new int[3*numpoly];
+		int num_poly_vert_total = 0;
+		for (int ipoly = 0; ipoly < numpoly; ipoly++) {
+			if (!tokenizer.NextNonCommentLine())
+			{ throw new IOException(_MissingPolygonVerticesMessage()); }
 			
-			if (listX.length < num_poly_vert+1) {
-				String msg = "Read error. Error reading polygon " +
-						String.valueOf(ipoly) + " vertices.";
-				throw new IOException(msg);
+			final int num_poly_vert = tokenizer.ReadInt();
+			poly_vert = _ReadPolygonVertices
+				(tokenizer, ipoly, num_poly_vert, poly_vert, num_poly_vert_total);
+			num_poly_vert_total += num_poly_vert;
+			poly_first[ipoly+1] = num_poly_vert_total;
+		}
+		
+		final OffBatch batch = new OffBatch();
+		batch.coord = coord;
+		batch.poly_first = poly_first;
+		batch.poly_vert = Arrays.copyOf(poly_vert, num_poly_vert_total);
+		return batch;
+	}
+	
+	
+	/** Add cells to mesh with mesh.AddCells()
+	 *    or mesh.AddCellsParallel().
+	 */
+	protected void _AddCells
+	(MESH_TYPE mesh, int[] poly_first, int[] poly_vert, float[] coord)
+		throws Exception
+	{
+		if (flag_parallel_build)
+		{ mesh.AddCellsParallel(poly_first, poly_vert, coord); }
+		else
+		{ mesh.AddCells(poly_first, poly_vert, coord); }
+	}
+	
+	
+	/** Split bytes [start..] of channel into chunks of whole lines.
+	 * <ul> <li> Chunks have at least PARALLEL_READ_CHUNK_SIZE bytes,
+	 *   except for the last chunk.  Creates up to 4 chunks per processor. </ul>
+	 */
+	protected OffChunk[] _SplitIntoChunks(FileChannel channel, long start)
+		throws IOException
+	{
+		final long size = channel.size();
+		final int max_num_chunks = 4*Runtime.getRuntime().availableProcessors();
+		final int num_chunks = (int) Math.max(1, Math.min
+				(max_num_chunks, (size-start)/PARALLEL_READ_CHUNK_SIZE));
+		
+		final OffChunk[] chunk = new OffChunk[num_chunks];
+		long chunk_start = start;
+		for (int k = 0; k < num_chunks; k++) {
+			chunk[k] = new OffChunk();
+			chunk[k].start = chunk_start;
+			if (k+1 < num_chunks) {
+				// End chunk at the end of the line containing byte b.
+				final long b = start + ((size-start)*(k+1))/num_chunks;
+				final OffTokenizer tokenizer = 
+					new OffTokenizer(channel, Math.max(b, chunk_start), size);
+				tokenizer.SkipRestOfLine();
+				chunk_start = tokenizer.Position();
 			}
-
-			ArrayList<Integer> cell_vlist = new ArrayList<Integer>();
-			for (int k = 1; k < num_poly_vert+1; k++)
-			{ cell_vlist.add(Integer.parseInt(listX[k])); }
-
-			mesh.AddCell(ipoly, cell_vlist);
+			else {
+				chunk_start = size;
+			}
+			chunk[k].end = chunk_start;
 		}
+		
+		return chunk;
 	}
 	
 	
-	/** Open and read off file.
-	 * 	<ul> <li> Precondition: Dimension of vertices is 3. </ul>
-	 *  @param input_filename Input file name.
+	/** Set chunk.num_lines to the number of lines in chunk
+	 *    that are not blank or comments.
 	 */
-	public void OpenAndReadFile(String input_filename, MESH_TYPE mesh)
+	protected void _CountChunkLines(FileChannel channel, OffChunk chunk)
 	{
 		try {
-			File input_file = new File(input_filename);
-			FileInputStream file_stream = new FileInputStream(input_file);
-			ReadFile(file_stream, mesh);
+			final OffTokenizer tokenizer = 
+				new OffTokenizer(channel, chunk.start, chunk.end);
+			while (tokenizer.NextNonCommentLine()) {
+				chunk.num_lines++;
+				tokenizer.SkipRestOfLine();
+			}
 		}
-		catch (IOException e) {
-			System.err.println("Error reading file " + input_filename + ".");
-			System.err.println(e.getMessage());
-			System.exit(-1);
+		catch (Exception e) {
+			chunk.error = e;
+		}
+	}
+	
+	
+	/** Parse vertex and polygon lines in chunk.
+	 * <ul>
+	 * <li> Vertex coordinates are written directly into coord[].
+	 *   Polygons are stored in chunk.
+	 * <li> Lines after the last polygon are ignored.
+	 * <li> Stops at the first error and stores it in chunk.error.
+	 * </ul>
+	 */
+	protected void _ParseChunk
+	(FileChannel channel, OffChunk chunk, int numv, int numpoly, float[] coord)
+	{
+		chunk.first_poly = Math.max(chunk.first_line - numv, 0);
+		final int num_poly_lines = Math.max(0, Math.min
+				(chunk.first_line + chunk.num_lines - numv, numpoly) - chunk.first_poly);
+		chunk.num_poly_vert = new int[num_poly_lines];
+		chunk.poly_vert = new int[3*num_poly_lines];
+		
+		try {
+			final OffTokenizer tokenizer = 
+				new OffTokenizer(channel, chunk.start, chunk.end);
+			final int num_lines = numv + numpoly;
+			int iline = chunk.first_line;
+			while (iline < num_lines && tokenizer.NextNonCommentLine()) {
+				if (iline < numv) {
+					_ReadVertexCoord(tokenizer, iline, coord);
+				}
+				else {
+					final int ipoly = iline - numv;
+					final int num_poly_vert = tokenizer.ReadInt();
+					chunk.poly_vert = _ReadPolygonVertices
+						(tokenizer, ipoly, num_poly_vert, chunk.poly_vert,
+							chunk.num_poly_vert_total);
+					chunk.num_poly_vert[chunk.num_poly] = num_poly_vert;
+					chunk.num_poly++;
+					chunk.num_poly_vert_total += num_poly_vert;
+				}
+				iline++;
+			}
 		}
 		catch (Exception e) {
-			System.err.println("Error reading file " + input_filename + ".");
-			System.err.println(e.getMessage());
-			System.exit(-1);
+			chunk.error = e;
 		}
 	}
 }
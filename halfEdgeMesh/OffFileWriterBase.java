@@ -22,6 +22,7 @@ package halfEdgeMesh;
 */
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.util.*;
 
 
@@ -29,60 +30,140 @@ import java.util.*;
  * @param <MESH_TYPE> Type of mesh. */
 public abstract class OffFileWriterBase<MESH_TYPE extends HalfEdgeMeshBase> {
 
+	/** If true, write only vertices in some cell, numbered contiguously.
+	 * <ul> <li> Otherwise, write vertices [0..mesh.MaxVertexIndex()],
+	 *   including deleted and isolated vertices. </ul>
+	 */
+	protected boolean flag_compact = false;
+	
+	/** Return true if writer removes gaps in vertex indices. */
+	public boolean FlagCompact()
+	{ return flag_compact; }
+	
+	/** Set flag_compact.
+	 * <ul> 
+	 * <li> If flag is true, deleted and isolated vertices
+	 *   (e.g., vertices merged by edge collapses) are not written,
+	 *   and cells are written using the renumbered vertex indices.
+	 * <li> Mesh is not modified.
+	 * </ul>
+	 */
+	public void SetCompact(boolean flag)
+	{ flag_compact = flag; }
+	
+	
 	/** Write mesh to off file.
 	 * 	<ul> <li> Precondition: Dimension of vertices is 3. </ul>
 	 */
 	public void WriteFile(PrintStream outfile, MESH_TYPE mesh) throws IOException, Exception
 	{
+		WriteFile((OutputStream) outfile, mesh);
+		outfile.flush();
+	}
+	
+	
+	/** Write mesh to off file.
+	 * <ul>
+	 * <li> Bytes are formatted into a reusable buffer and
+	 *    written whenever the buffer is full.
+	 * <li> Does not flush or close outfile.
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * </ul>
+	 */
+	public void WriteFile(OutputStream outfile, MESH_TYPE mesh) throws IOException, Exception
+	{ WriteFile(new OffByteWriter(outfile), mesh); }
+	
+	
+	/** Write mesh to off file.
+	 * <ul>
+	 * <li> Writes to channel at its current position.
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * </ul>
+	 */
+	public void WriteFile(FileChannel channel, MESH_TYPE mesh) throws IOException, Exception
+	{ WriteFile(new OffByteWriter(channel), mesh); }
+	
+	
+	/** Write mesh to off file using writer.
+	 * <ul>
+	 * <li> Flushes writer after writing the mesh.
+	 * <li> Precondition: Dimension of vertices is 3.
+	 * </ul>
+	 */
+	public void WriteFile(OffByteWriter writer, MESH_TYPE mesh) throws IOException, Exception
+	{
+		// new_vertex_index[iv] is the index of vertex iv in the file.
+		int[] new_vertex_index = null;
+		int numv = mesh.MaxVertexIndex()+1;
+		if (flag_compact) {
+			new_vertex_index = mesh.ComputeCompactVertexIndices(true);
+			numv = 0;
+			for (int iv = 0; iv < new_vertex_index.length; iv++) {
+				if (new_vertex_index[iv] >= 0) { numv++; }
+			}
+		}
+		
 		// Write OFF header.
-		outfile.println("OFF");
+		writer.WriteString("OFF");
+		writer.WriteNewline();
 		
 		// Write number of vertices and polygons.
-		outfile.println(String.valueOf(mesh.MaxVertexIndex()+1) + " " +
-				String.valueOf(mesh.NumCells()) + " 0");
-		outfile.println("");
-		
-		StringBuffer buffer = new StringBuffer();
+		writer.WriteInt(numv);
+		writer.WriteChar(' ');
+		writer.WriteInt(mesh.NumCells());
+		writer.WriteString(" 0");
+		writer.WriteNewline();
+		writer.WriteNewline();
 		
+		final int dimension = VertexBase.Dimension();
+		final float[] coord = new float[dimension];
 		for (int iv = 0; iv < mesh.MaxVertexIndex()+1; iv++) {
 			VertexBase v = mesh.Vertex(iv);
-			if (v == null)
-			{ buffer.append("0.0 0.0 0.0\n"); }
-			else {
-				buffer.append(v.CoordStr());
-				buffer.append("\n");
+			if (flag_compact) {
+				if (new_vertex_index[iv] < 0) { continue; }
+			}
+			else if (v == null) {
+				writer.WriteString("0.0 0.0 0.0");
+				writer.WriteNewline();
+				continue;
 			}
+			
+			v.GetCoord(coord);
+			for (int ic = 0; ic < dimension; ic++) {
+				if (ic > 0) { writer.WriteChar(' '); }
+				writer.WriteFloat(coord[ic]);
+			}
+			writer.WriteNewline();
 		}
-		buffer.append("\n");
-		outfile.print(buffer);
+		writer.WriteNewline();
 		
-		buffer.delete(0, buffer.length());
 		// Write polygon vertices.
 		int num_poly = 0;
-		Set<Integer> poly_indices = mesh.CellIndices();
-		List<Integer> poly_list = new ArrayList<Integer>(poly_indices);
-		Collections.sort(poly_list);
+		final int[] poly_list = mesh.CellIndexStream().sorted().toArray();
 		for (int ipoly: poly_list) {
 			CellBase poly = mesh.Cell(ipoly);
 			
 			if (poly == null) { continue; }
 			
 			if (num_poly > mesh.NumCells()) {
-				// Error. Number of cells in mesh.cell_hashtable does not equal NumCells()?
+				// Error. Number of cells in mesh.cell_table does not equal NumCells()?
 				throw new IOException("Error in OffFileWriteBase::WriteFile. Incorrect mesh.NumCells().");
 			}
 			
-			String s = String.valueOf(poly.NumVertices()) + " ";
+			writer.WriteInt(poly.NumVertices());
+			writer.WriteChar(' ');
 			HalfEdgeBase half_edge = poly.HalfEdge();
 			for (int k = 0; k < poly.NumVertices(); k++) {
-				s += " " + String.valueOf(half_edge.FromVertexIndex());
+				int iv = half_edge.FromVertexIndex();
+				if (flag_compact) { iv = new_vertex_index[iv]; }
+				writer.WriteChar(' ');
+				writer.WriteInt(iv);
 				half_edge = half_edge.NextHalfEdgeInCell();
 			}
-			buffer.append(s);
-			buffer.append("\n");
+			writer.WriteNewline();
 			num_poly++;
 		}
-		outfile.print(buffer);
+		writer.Flush();
 		
 		return;
 	}
@@ -95,9 +176,9 @@ public abstract class OffFileWriterBase<MESH_TYPE extends HalfEdgeMeshBase> {
 	public void OpenAndWriteFile(String output_filename, MESH_TYPE mesh)
 	{
 		try {
-			FileOutputStream file_stream = new FileOutputStream(output_filename);
-			PrintStream print_stream = new PrintStream(file_stream, false);
-			WriteFile(print_stream, mesh);
+			try (FileOutputStream file_stream = new FileOutputStream(output_filename)) {
+				WriteFile(file_stream.getChannel(), mesh);
+			}
 		}
 		catch (IOException e) {
 			System.err.println("Error writing file " + output_filename + ".");
@@ -0,0 +1,521 @@
+package halfEdgeMesh;
+
+/// \file OffTokenizer.java
+/// Byte level tokenizer for off files.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/** Byte level tokenizer for off files.
+ * <ul>
+ * <li> Reads bytes into a reusable buffer and parses integers
+ *   and floats directly from the buffer.
+ *   Does not create String or other objects for each token.
+ * <li> Reads bytes from an InputStream or from a memory mapped
+ *   FileChannel.  Mapped files are copied from the OS page cache
+ *   into the buffer in blocks, without read() system calls
+ *   or character decoding.  Files over 2 GB are mapped
+ *   in windows of at most DEFAULT_MAP_WINDOW_SIZE bytes.
+ * <li> Tokens are separated by white space (space, tab, form feed
+ *   or vertical tab).  Lines end with '\n', '\r' or "\r\n".
+ * <li> Lines whose first non-blank character is '#' are comments.
+ * <li> Numbers are parsed exactly as Integer.parseInt()
+ *   and Float.parseFloat() parse them.  Unusual tokens
+ *   (e.g., very long mantissas, "NaN" or "Infinity")
+ *   are converted to a String and passed to those functions.
+ *   Malformed numbers throw NumberFormatException.
+ * </ul>
+ */
+public class OffTokenizer {
+
+	/** Default buffer size. */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/** Exact powers of ten, 10^0 to 10^22, as doubles. */
+	protected static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+		1e21, 1e22 };
+
+	/** Largest integer such that all smaller integers
+	 *    are exactly represented as doubles.
+	 */
+	protected static final long MAX_EXACT_DOUBLE_INT = 1L << 53;
+
+	/** Default size of memory mapped windows of a file. */
+	public static final int DEFAULT_MAP_WINDOW_SIZE = 1 << 30;
+
+	/** Input stream.  null if reading from a file channel. */
+	protected final InputStream infile;
+
+	/** File channel.  null if reading from an input stream. */
+	protected final FileChannel channel;
+
+	/** Mapped window of channel.  null if no window is mapped. */
+	protected MappedByteBuffer window = null;
+
+	/** Offset in channel of the next window. */
+	protected long next_window_start = 0;
+
+	/** Read channel only up to channel_end.
+	 *  - Long.MAX_VALUE, if reading to the end of the channel.
+	 */
+	protected long channel_end = Long.MAX_VALUE;
+
+	/** Input offset of the first byte read. */
+	protected long start_offset = 0;
+
+	/** Number of bytes read into buffer since the start. */
+	protected long num_bytes_read = 0;
+
+	/** Maximum number of bytes in a mapped window. */
+	protected int window_size = DEFAULT_MAP_WINDOW_SIZE;
+
+	/** Buffer of bytes read from infile. */
+	protected byte[] buffer;
+
+	/** Position of next unread byte in buffer. */
+	protected int pos = 0;
+
+	/** End of bytes read into buffer. */
+	protected int end = 0;
+
+	/** True if end of infile was reached. */
+	protected boolean flag_eof = false;
+
+
+	/** Constructor. */
+	public OffTokenizer(InputStream infile)
+	{ this(infile, DEFAULT_BUFFER_SIZE); }
+
+	/** Constructor.
+	 * @param buffer_size Initial buffer size.  Buffer grows
+	 *   if a token or line is longer than the buffer.
+	 */
+	public OffTokenizer(InputStream infile, int buffer_size)
+	{
+		this.infile = infile;
+		this.channel = null;
+		buffer = new byte[Math.max(buffer_size, 16)];
+	}
+
+	/** Constructor.  Memory map channel.
+	 * <ul> <li> Reads from the start of the channel. </ul>
+	 */
+	public OffTokenizer(FileChannel channel)
+	{ this(channel, DEFAULT_BUFFER_SIZE, DEFAULT_MAP_WINDOW_SIZE); }
+
+	/** Constructor.  Memory map channel.
+	 * @param buffer_size Initial buffer size.
+	 * @param window_size Maximum number of bytes mapped at one time.
+	 */
+	public OffTokenizer(FileChannel channel, int buffer_size, int window_size)
+	{
+		this.infile = null;
+		this.channel = channel;
+		this.window_size = Math.max(window_size, 1);
+		buffer = new byte[Math.max(buffer_size, 16)];
+	}
+
+	/** Constructor.  Memory map bytes [start..(end-1)] of channel.
+	 * <ul> <li> Bytes after end are never read. </ul>
+	 */
+	public OffTokenizer(FileChannel channel, long start, long end)
+	{
+		this(channel, DEFAULT_BUFFER_SIZE, DEFAULT_MAP_WINDOW_SIZE);
+		next_window_start = start;
+		channel_end = end;
+		start_offset = start;
+	}
+
+
+	// *** Get functions ***
+
+	/** Return input offset of the next unread byte.
+	 * <ul> <li> Offset is relative to the start of the channel
+	 *   or input stream. </ul>
+	 */
+	public long Position()
+	{ return start_offset + num_bytes_read - (end - pos); }
+
+
+	// *** Line functions ***
+
+	/** Read line and return it as a String.
+	 * <ul>
+	 * <li> Returns null if there are no more lines.
+	 * <li> Use only for short lines, e.g., the off file header.
+	 * </ul>
+	 */
+	public String ReadLine() throws IOException
+	{
+		if (_Peek() < 0) { return null; }
+
+		int k = pos;
+		while (true) {
+			if (k == end) {
+				final int offset = k - pos;
+				final boolean flag_fill = _Fill();
+				k = pos + offset;
+				if (!flag_fill) { break; }
+				continue;
+			}
+			if (IsEndOfLine(buffer[k])) { break; }
+			k++;
+		}
+
+		final String line =
+			new String(buffer, pos, k-pos, StandardCharsets.ISO_8859_1);
+		pos = k;
+		SkipRestOfLine();
+		return line;
+	}
+
+
+	/** Move to first token of the next line that is
+	 *    not blank or a comment.
+	 * <ul>
+	 * <li> If the current line has a token, does not move.
+	 * <li> Returns false if there is no such line.
+	 * </ul>
+	 */
+	public boolean NextNonCommentLine() throws IOException
+	{
+		while (true) {
+			_SkipBlanks();
+			final int c = _Peek();
+			if (c < 0) { return false; }
+
+			if (IsEndOfLine((byte) c)) { pos++; }
+			else if (c == '#') { SkipRestOfLine(); }
+			else { return true; }
+		}
+	}
+
+
+	/** Return true if the current line has another token. */
+	public boolean HasTokenOnLine() throws IOException
+	{
+		_SkipBlanks();
+		final int c = _Peek();
+		return (c >= 0 && !IsEndOfLine((byte) c));
+	}
+
+
+	/** Skip to the start of the next line. */
+	public void SkipRestOfLine() throws IOException
+	{
+		while (true) {
+			if (pos == end && !_Fill()) { return; }
+
+			final byte c = buffer[pos];
+			pos++;
+			if (c == '\n') { return; }
+			if (c == '\r') {
+				if (_Peek() == '\n') { pos++; }
+				return;
+			}
+		}
+	}
+
+
+	/** Skip to the start of the next line and return the number
+	 *    of tokens skipped on the current line.
+	 */
+	public int SkipRestOfLineAndCountTokens() throws IOException
+	{
+		int num_tokens = 0;
+		while (HasTokenOnLine()) {
+			pos = _FillToken();
+			num_tokens++;
+		}
+		SkipRestOfLine();
+
+		return num_tokens;
+	}
+
+
+	// *** Number functions ***
+
+	/** Read next token as an int.
+	 * <ul> <li> Precondition: HasTokenOnLine() is true. </ul>
+	 */
+	public int ReadInt() throws IOException
+	{
+		final int tend = _FillToken();
+		int k = pos;
+		boolean flag_negative = false;
+		if (buffer[k] == '-' || buffer[k] == '+') {
+			flag_negative = (buffer[k] == '-');
+			k++;
+		}
+
+		// Accumulate as negative value so that Integer.MIN_VALUE fits.
+		long x = 0;
+		final int kstart = k;
+		while (k < tend && k-kstart < 10) {
+			final int digit = buffer[k] - '0';
+			if (digit < 0 || digit > 9) { break; }
+			x = 10*x - digit;
+			k++;
+		}
+
+		if (k == kstart || k != tend) { return _ParseIntToken(tend); }
+		if (!flag_negative) { x = -x; }
+		if (x < Integer.MIN_VALUE || x > Integer.MAX_VALUE)
+		{ return _ParseIntToken(tend); }
+
+		pos = tend;
+		return (int) x;
+	}
+
+
+	/** Read next token as a float.
+	 * <ul>
+	 * <li> Precondition: HasTokenOnLine() is true.
+	 * <li> Returns the same value as Float.parseFloat().
+	 * </ul>
+	 */
+	public float ReadFloat() throws IOException
+	{
+		final int tend = _FillToken();
+		int k = pos;
+		boolean flag_negative = false;
+		if (buffer[k] == '-' || buffer[k] == '+') {
+			flag_negative = (buffer[k] == '-');
+			k++;
+		}
+
+		// Read mantissa digits into x, ignoring the decimal point.
+		long x = 0;
+		int num_digits = 0;
+		int num_significant_digits = 0;
+		int exp10 = 0;
+		boolean flag_point = false;
+		for (; k < tend; k++) {
+			final byte c = buffer[k];
+			if (c == '.' && !flag_point) {
+				flag_point = true;
+				continue;
+			}
+
+			final int digit = c - '0';
+			if (digit < 0 || digit > 9) { break; }
+			num_digits++;
+			if (x > 0 || digit > 0) { num_significant_digits++; }
+			if (num_significant_digits > 18) { return _ParseFloatToken(tend); }
+			x = 10*x + digit;
+			if (flag_point) { exp10--; }
+		}
+
+		if (num_digits == 0) { return _ParseFloatToken(tend); }
+
+		if (k < tend && (buffer[k] == 'e' || buffer[k] == 'E')) {
+			k++;
+			boolean flag_negative_exp = false;
+			if (k < tend && (buffer[k] == '-' || buffer[k] == '+')) {
+				flag_negative_exp = (buffer[k] == '-');
+				k++;
+			}
+
+			int e = 0;
+			final int kstart = k;
+			for (; k < tend && k-kstart < 4; k++) {
+				final int digit = buffer[k] - '0';
+				if (digit < 0 || digit > 9) { break; }
+				e = 10*e + digit;
+			}
+			if (k == kstart) { return _ParseFloatToken(tend); }
+			exp10 += (flag_negative_exp ? -e : e);
+		}
+
+		if (k != tend) { return _ParseFloatToken(tend); }
+
+		if (x == 0) {
+			pos = tend;
+			return (flag_negative ? -0.0f : 0.0f);
+		}
+
+		if (x > MAX_EXACT_DOUBLE_INT || exp10 < -22 || exp10 > 22)
+		{ return _ParseFloatToken(tend); }
+
+		// x and 10^|exp10| are exact doubles, so d is the decimal value
+		//   correctly rounded to a double.
+		final double d = (exp10 >= 0) ? x*POW10[exp10] : x/POW10[-exp10];
+
+		// Rounding d to a float equals rounding the decimal value to
+		//   a float unless d is exactly halfway between two floats.
+		//   Subnormal and out of range floats are also left
+		//   to Float.parseFloat().
+		if (d < Float.MIN_NORMAL || d > Float.MAX_VALUE)
+		{ return _ParseFloatToken(tend); }
+		if ((Double.doubleToRawLongBits(d) & 0x1FFFFFFFL) == 0x10000000L)
+		{ return _ParseFloatToken(tend); }
+
+		pos = tend;
+		final float f = (float) d;
+		return (flag_negative ? -f : f);
+	}
+
+
+	// *** Static functions ***
+
+	/** Return true if c ends a line. */
+	public static boolean IsEndOfLine(byte c)
+	{ return (c == '\n' || c == '\r'); }
+
+	/** Return true if c separates tokens on a line. */
+	public static boolean IsBlank(byte c)
+	{ return (c == ' ' || c == '\t' || c == '\f' || c == 0x0B); }
+
+
+	// *** Protected functions ***
+
+	/** Return next byte without reading it.
+	 * <ul> <li> Returns -1 at end of input. </ul>
+	 */
+	protected int _Peek() throws IOException
+	{
+		if (pos == end && !_Fill()) { return -1; }
+		return (buffer[pos] & 0xFF);
+	}
+
+
+	/** Move unread bytes to the start of the buffer and read
+	 *    more bytes from infile or channel.
+	 * <ul>
+	 * <li> Changes pos, even if no bytes are read.
+	 * <li> Grows the buffer if it is full.
+	 * <li> Returns false if no more bytes could be read.
+	 * </ul>
+	 */
+	protected boolean _Fill() throws IOException
+	{
+		if (flag_eof) { return false; }
+
+		if (pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, end-pos);
+			end -= pos;
+			pos = 0;
+		}
+
+		if (end == buffer.length)
+		{ buffer = Arrays.copyOf(buffer, 2*buffer.length); }
+
+		final int n = (channel == null) ?
+			infile.read(buffer, end, buffer.length-end) :
+			_ReadFromWindow(buffer, end, buffer.length-end);
+		if (n < 0) {
+			flag_eof = true;
+			return false;
+		}
+
+		end += n;
+		num_bytes_read += n;
+		return true;
+	}
+
+
+	/** Copy up to len bytes from the mapped window into bytes[offset..].
+	 * <ul>
+	 * <li> Maps the next window when the current window is used up.
+	 * <li> Returns number of bytes copied or -1 at end of channel.
+	 * </ul>
+	 */
+	protected int _ReadFromWindow(byte[] bytes, int offset, int len)
+		throws IOException
+	{
+		if (window == null || !window.hasRemaining()) {
+			final long channel_size = Math.min(channel.size(), channel_end);
+			if (next_window_start >= channel_size) { return -1; }
+
+			final long size =
+				Math.min(window_size, channel_size - next_window_start);
+			window = channel.map
+				(FileChannel.MapMode.READ_ONLY, next_window_start, size);
+			next_window_start += size;
+		}
+
+		final int n = Math.min(len, window.remaining());
+		window.get(bytes, offset, n);
+		return n;
+	}
+
+
+	/** Skip blanks on the current line. */
+	protected void _SkipBlanks() throws IOException
+	{
+		while (true) {
+			if (pos == end && !_Fill()) { return; }
+			if (!IsBlank(buffer[pos])) { return; }
+			pos++;
+		}
+	}
+
+
+	/** Make sure the whole token starting at pos is in the buffer.
+	 * <ul>
+	 * <li> Returns end of token.
+	 * <li> Token ends at white space or end of input.
+	 * </ul>
+	 */
+	protected int _FillToken() throws IOException
+	{
+		int k = pos;
+		while (true) {
+			if (k == end) {
+				final int offset = k - pos;
+				final boolean flag_fill = _Fill();
+				k = pos + offset;
+				if (!flag_fill) { return k; }
+				continue;
+			}
+
+			final byte c = buffer[k];
+			if (IsBlank(c) || IsEndOfLine(c)) { return k; }
+			k++;
+		}
+	}
+
+
+	/** Return token [pos..tend-1] as a String. */
+	protected String _TokenString(int tend)
+	{ return new String(buffer, pos, tend-pos, StandardCharsets.ISO_8859_1); }
+
+	/** Parse token [pos..tend-1] with Integer.parseInt(). */
+	protected int _ParseIntToken(int tend)
+	{
+		final int x = Integer.parseInt(_TokenString(tend));
+		pos = tend;
+		return x;
+	}
+
+	/** Parse token [pos..tend-1] with Float.parseFloat(). */
+	protected float _ParseFloatToken(int tend)
+	{
+		final float x = Float.parseFloat(_TokenString(tend));
+		pos = tend;
+		return x;
+	}
+}
@@ -0,0 +1,57 @@
+package halfEdgeMesh;
+
+/** Renumbering information.
+ * <ul>
+ * 		<li> New index of each vertex, half edge and cell
+ * 			after the mesh was renumbered, e.g., by HalfEdgeMeshBase.Compact().
+ * 		<li> Arrays are indexed by the old (original) index.
+ * 		<li> New index is -1 if no element had that old index
+ * 			or if the element was deleted.
+ * </ul>
+ */
+public class RenumberInfo {
+
+	/** new_vertex_index[iv] is the new index of old vertex iv. */
+	public int[] new_vertex_index;
+
+	/** new_half_edge_index[ihalf_edge] is the new index of
+	 *    old half edge ihalf_edge. */
+	public int[] new_half_edge_index;
+
+	/** new_cell_index[icell] is the new index of old cell icell. */
+	public int[] new_cell_index;
+
+	/** Constructor. */
+	public RenumberInfo
+	(int[] new_vertex_index, int[] new_half_edge_index, int[] new_cell_index)
+	{
+		this.new_vertex_index = new_vertex_index;
+		this.new_half_edge_index = new_half_edge_index;
+		this.new_cell_index = new_cell_index;
+	}
+
+	/** Return new index of old vertex iv.
+	 * <ul> <li> Return -1 if iv was not renumbered. </ul>
+	 */
+	public int NewVertexIndex(int iv)
+	{ return _NewIndex(new_vertex_index, iv); }
+
+	/** Return new index of old half edge ihalf_edge.
+	 * <ul> <li> Return -1 if ihalf_edge was not renumbered. </ul>
+	 */
+	public int NewHalfEdgeIndex(int ihalf_edge)
+	{ return _NewIndex(new_half_edge_index, ihalf_edge); }
+
+	/** Return new index of old cell icell.
+	 * <ul> <li> Return -1 if icell was not renumbered. </ul>
+	 */
+	public int NewCellIndex(int icell)
+	{ return _NewIndex(new_cell_index, icell); }
+
+	/** Return new_index[i] or -1 if i is out of range. */
+	protected static int _NewIndex(int[] new_index, int i)
+	{
+		if (i < 0 || i >= new_index.length) { return -1; }
+		return new_index[i];
+	}
+}
@@ -0,0 +1,123 @@
+package halfEdgeMesh;
+
+/// \file SpaceFillingCurve.java
+/// Morton and Hilbert space filling curve keys.
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+/** Morton (Z-order) and Hilbert curve keys of grid points.
+ * <ul>
+ * <li> Grid points have non-negative integer coordinates,
+ *   each less than 2^nbits.
+ * <li> Keys have (dimension*nbits) bits.  Requires dimension*nbits <= 63.
+ * <li> Points that are close along either curve are close in space.
+ *   Consecutive points along the Hilbert curve are always adjacent
+ *   grid points.  The Morton curve is cheaper to compute,
+ *   but has occasional long jumps.
+ * </ul>
+ */
+public class SpaceFillingCurve {
+
+	/** Return Morton key of grid point x.
+	 * <ul> <li> Interleaves the bits of x[0], x[1], ..., from the
+	 *   most significant bit to the least significant bit.
+	 *   x[0] supplies the most significant bit at each level. </ul>
+	 * @param x Grid point coordinates.  Each coordinate is less than 2^nbits.
+	 */
+	public static long MortonKey(int[] x, int nbits)
+	{
+		final int dimension = x.length;
+		long key = 0;
+		for (int b = nbits-1; b >= 0; b--) {
+			for (int d = 0; d < dimension; d++)
+			{ key = (key << 1) | ((x[d] >>> b) & 1); }
+		}
+
+		return key;
+	}
+
+
+	/** Return Hilbert key of grid point x.
+	 * <ul>
+	 * <li> Uses J. Skilling's algorithm ("Programming the Hilbert curve",
+	 *   AIP Conf. Proc. 707, 2004) which transforms x
+	 *   so that interleaving its bits gives the Hilbert key.
+	 * <li> Modifies x.
+	 * </ul>
+	 * @param x Grid point coordinates.  Each coordinate is less than 2^nbits.
+	 */
+	public static long HilbertKey(int[] x, int nbits)
+	{
+		_AxesToTranspose(x, nbits);
+		return MortonKey(x, nbits);
+	}
+
+
+	/** Set x to grid point containing coord.
+	 * <ul>
+	 * <li> Grid cell containing coord is floor((coord[d]-cmin[d])*scale),
+	 *   clamped to [0..(2^nbits-1)].
+	 * </ul>
+	 * @param scale Number of grid cells per unit length.
+	 */
+	public static void ToGrid
+	(float[] coord, float[] cmin, float scale, int nbits, int[] x)
+	{
+		final int max_grid_coord = (1 << nbits)-1;
+		for (int d = 0; d < x.length; d++) {
+			final int g = (int) ((coord[d]-cmin[d])*scale);
+			x[d] = Math.max(0, Math.min(max_grid_coord, g));
+		}
+	}
+
+
+	/** Transform grid point x into the "transposed" Hilbert index,
+	 *    i.e., bits of the Hilbert index spread over x[0], x[1], ...
+	 */
+	protected static void _AxesToTranspose(int[] x, int nbits)
+	{
+		final int n = x.length;
+		final int M = 1 << (nbits-1);
+
+		// Inverse undo excess work.
+		for (int Q = M; Q > 1; Q >>>= 1) {
+			final int P = Q-1;
+			for (int i = 0; i < n; i++) {
+				if ((x[i] & Q) != 0)
+				{ x[0] ^= P; }
+				else {
+					final int t = (x[0] ^ x[i]) & P;
+					x[0] ^= t;
+					x[i] ^= t;
+				}
+			}
+		}
+
+		// Gray encode.
+		for (int i = 1; i < n; i++)
+		{ x[i] ^= x[i-1]; }
+		int t = 0;
+		for (int Q = M; Q > 1; Q >>>= 1) {
+			if ((x[n-1] & Q) != 0)
+			{ t ^= Q-1; }
+		}
+		for (int i = 0; i < n; i++)
+		{ x[i] ^= t; }
+	}
+}
@@ -22,6 +22,7 @@ package halfEdgeMesh;
 */
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.io.PrintStream;
 
 /** Base class for vertices. 
@@ -29,8 +30,8 @@ import java.io.PrintStream;
  *  Contains:
  *  <ul>
  *  	<li> Vertex index.
- *  	<li> Vertex coordinates.
- *  	<li> ArrayList of half edges whose from vertex is this vertex.
+ *  	<li> Reference to the mesh store of vertex coordinates.
+ *  	<li> Array of half edges whose from vertex is this vertex.
  *  </ul>
  */
 public abstract class VertexBase {
@@ -41,14 +42,83 @@ public abstract class VertexBase {
 	/** index: Unique non-negative integer identifying the vertex. */
 	protected int index;
 	
-	/** Array of half edges whose from vertex is this. */
-	protected List<HalfEdgeBase> half_edge_from = new ArrayList<HalfEdgeBase>();
+	/** Initial length of array half_edge_from[].
+	 *  - Typical vertex in a triangle mesh has 6 incident half edges.
+	 */
+	static final int INITIAL_HALF_EDGE_FROM_LENGTH = 6;
+	
+	/** Empty array shared by all vertices with no half edges. */
+	static final HalfEdgeBase[] EMPTY_HALF_EDGE_ARRAY = new HalfEdgeBase[0];
+	
+	/** Array of half edges whose from vertex is this.
+	 *  - Half edges are in half_edge_from[0..(num_half_edge_from-1)].
+	 *  - Array grows (doubles) as needed.
+	 */
+	protected HalfEdgeBase[] half_edge_from = EMPTY_HALF_EDGE_ARRAY;
+	
+	/** Number of half edges whose from vertex is this. */
+	protected int num_half_edge_from = 0;
 	
 	/** Swap half edges in half_edge_from. */
 	protected void _SwapHalfEdgesInHalfEdgeFromList(int k0, int k1) {
-		HalfEdgeBase temp = KthHalfEdgeFrom(k0);
-		half_edge_from.set(k0, KthHalfEdgeFrom(k1));
-		half_edge_from.set(k1, temp);
+		HalfEdgeBase temp = half_edge_from[k0];
+		half_edge_from[k0] = half_edge_from[k1];
+		half_edge_from[k1] = temp;
+	}
+	
+	/** Ensure that half_edge_from[] has length at least n. */
+	protected void _EnsureHalfEdgeFromLength(int n)
+	{
+		if (n <= half_edge_from.length) { return; }
+		
+		int new_length = 
+			Math.max(n, Math.max(INITIAL_HALF_EDGE_FROM_LENGTH, 2*half_edge_from.length));
+		half_edge_from = Arrays.copyOf(half_edge_from, new_length);
+	}
+	
+	/** Append half_edge to half_edge_from[]. */
+	protected void _AddHalfEdgeFrom(HalfEdgeBase half_edge)
+	{
+		_EnsureHalfEdgeFromLength(num_half_edge_from+1);
+		half_edge_from[num_half_edge_from] = half_edge;
+		num_half_edge_from++;
+	}
+	
+	/** Remove half_edge_from[k].
+	 *  - Replaces half_edge_from[k] with the last half edge in half_edge_from[].
+	 */
+	protected void _RemoveKthHalfEdgeFrom(int k)
+	{
+		final int ilast = num_half_edge_from-1;
+		half_edge_from[k] = half_edge_from[ilast];
+		half_edge_from[ilast] = null;
+		num_half_edge_from--;
+	}
+	
+	/** Append half edges in v0.half_edge_from[] to half_edge_from[]
+	 *    and remove all half edges from v0.half_edge_from[].
+	 */
+	protected void _MoveHalfEdgesFrom(VertexBase v0)
+	{
+		_EnsureHalfEdgeFromLength(num_half_edge_from+v0.num_half_edge_from);
+		System.arraycopy(v0.half_edge_from, 0, half_edge_from, 
+							num_half_edge_from, v0.num_half_edge_from);
+		num_half_edge_from += v0.num_half_edge_from;
+		
+		v0.half_edge_from = EMPTY_HALF_EDGE_ARRAY;
+		v0.num_half_edge_from = 0;
+	}
+	
+	/** Return number of times half_edge appears in half_edge_from[]. */
+	protected int _CountHalfEdgeFrom(HalfEdgeBase half_edge)
+	{
+		int num = 0;
+		for (int k = 0; k < num_half_edge_from; k++) {
+			if (half_edge_from[k] == half_edge)
+			{ num++; }
+		}
+		
+		return num;
 	}
 	
 	
@@ -58,18 +128,29 @@ public abstract class VertexBase {
 	 *    move half_edge_from[k] to half_edge_from[0].
 	 */
 	public void MoveBoundaryHalfEdgeToHalfEdgeFrom0()
+	{ _MoveBoundaryHalfEdgeToHalfEdgeFrom0(HalfEdgeBase::IsBoundary); }
+	
+	
+	/** Move boundary half edge to half_edge_from[0],
+	 *    where is_boundary decides which half edges are boundary half edges.
+	 *  - Same as MoveBoundaryHalfEdgeToHalfEdgeFrom0(), but allows
+	 *    deciding boundary half edges before the half edges
+	 *    around each edge are linked.
+	 */
+	protected void _MoveBoundaryHalfEdgeToHalfEdgeFrom0
+	(Predicate<HalfEdgeBase> is_boundary)
 	{
 		if (NumHalfEdgesFrom() < 1) {
 			// Nothing to move.
 			return;
 		}
 		
-		if (KthHalfEdgeFrom(0).IsBoundary())
+		if (is_boundary.test(KthHalfEdgeFrom(0)))
 		{ return; }
 		
 		for (int k = 1; k < NumHalfEdgesFrom(); k++) {
 			HalfEdgeBase half_edge = KthHalfEdgeFrom(k);
-			if (half_edge.IsBoundary()) {
+			if (is_boundary.test(half_edge)) {
 				// Swap half_edge_from[0] and half_edge_from[k].
 				_SwapHalfEdgesInHalfEdgeFromList(0,k);
 				return;
@@ -83,12 +164,12 @@ public abstract class VertexBase {
 		//   is a boundary half edge for some k.
 		HalfEdgeBase prev_half_edge0 = 
 				KthHalfEdgeFrom(0).PrevHalfEdgeInCell();
-		if (prev_half_edge0.IsBoundary())
+		if (is_boundary.test(prev_half_edge0))
 		{ return; }
 		
 		for (int k = 1; k < NumHalfEdgesFrom(); k++) {
 			HalfEdgeBase half_edge = KthHalfEdgeFrom(k);
-			if (half_edge.PrevHalfEdgeInCell().IsBoundary()) {
+			if (is_boundary.test(half_edge.PrevHalfEdgeInCell())) {
 				// Swap half_edge_from[0] and half_edge_from[k].
 				_SwapHalfEdgesInHalfEdgeFromList(0,k);
 				return;
@@ -96,13 +177,31 @@ public abstract class VertexBase {
 		}
 	}
 
-	/** Vertex coordinates */
-	public float[] coord = new float[DIMENSION];
+	/** Store of vertex coordinates.
+	 * <ul> <li> Shared by all vertices in the mesh.
+	 *   Set by HalfEdgeMeshBase when the vertex is created. </ul>
+	 */
+	protected CoordStoreBase coord_store;
 	
+	/** Remove all half edges from half_edge_from[].
+	 * - Sets the entries to null, so that a pooled vertex
+	 *   does not keep deleted half edges.
+	 */
+	protected void _ClearHalfEdgesFrom()
+	{
+		Arrays.fill(half_edge_from, 0, num_half_edge_from, null);
+		num_half_edge_from = 0;
+	}
+	
+	/** Initialize vertex.
+	 * - Also called when a deleted vertex is reused
+	 *   from the factory pool.
+	 */
 	protected void Init()
 	{
-		for (int ic = 0; ic < Dimension(); ic++)
-		{ coord[ic] = 0.0f; }
+		_ClearHalfEdgesFrom();
+		if (coord_store != null)
+		{ coord_store.SetZero(index); }
 	};
 	
 	
@@ -116,7 +215,30 @@ public abstract class VertexBase {
 	 * @param ic Coordinate index.  Precondition: ic is in the range [0..(Dimension()-1)]
 	 */
 	public float Coord(int ic)
-	{ return(coord[ic]); }
+	{ return(coord_store.Get(index, ic)); }
+	
+	/** Copy vertex coordinates into coord[]. */
+	public void GetCoord(float[] coord)
+	{ coord_store.GetCoord(index, coord); }
+
+	/** Return a copy of the vertex coordinates.
+	 * <ul> <li> Changing the returned array does not change the vertex. </ul>
+	 * @deprecated Replaces the public field coord, which was removed
+	 *   when coordinates moved to the mesh coordinate store.
+	 *   Use Coord(ic) or GetCoord() to read coordinates and
+	 *   HalfEdgeMeshBase.SetCoord() to change them.
+	 */
+	@Deprecated
+	public float[] Coord()
+	{
+		float[] coord = new float[Dimension()];
+		GetCoord(coord);
+		return coord;
+	}
+	
+	/** Return store of vertex coordinates. */
+	public CoordStoreBase CoordStore()
+	{ return coord_store; }
 	
 	/** Return vertex index. */
 	public int Index()
@@ -124,13 +246,13 @@ public abstract class VertexBase {
 	
 	/** Return number of half edges whose from vertex is this vertex. */
 	public int NumHalfEdgesFrom()
-	{ return(half_edge_from.size()); };
+	{ return(num_half_edge_from); };
 
-	/** Return the kth half edge in the ArrayList of half edges
+	/** Return the kth half edge in the array of half edges
 	 *    whose from vertex is k. 
 	 */
 	public HalfEdgeBase KthHalfEdgeFrom(int k)
-	{ return(half_edge_from.get(k)); };
+	{ return(half_edge_from[k]); };
 
 	
 	/** Return true if vertex is on the boundary. */
@@ -155,9 +277,9 @@ public abstract class VertexBase {
 	 */
 	public HalfEdgeBase FindHalfEdgeTo(int iv)
 	{
-		for (int k = 0; k < NumHalfEdgesFrom(); k++) {
-			HalfEdgeBase half_edge = KthHalfEdgeFrom(k);
-			if (half_edge.ToVertexIndex() == iv)
+		for (int k = 0; k < num_half_edge_from; k++) {
+			HalfEdgeBase half_edge = half_edge_from[k];
+			if (half_edge.next_half_edge_in_cell.from_vertex.index == iv)
 			{ return half_edge; }
 		}
 		
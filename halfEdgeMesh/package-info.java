@@ -1,8 +1,10 @@
 /** 
  *  An implementation of a half edge mesh in java.
  *  <p>
- *  The mesh is stored in HalfEdgeMeshBase, including hash tables
+ *  The mesh is stored in HalfEdgeMeshBase, including tables
  *  of all the vertices, half edges and cells in the mesh.
+ *  Tables are hash tables by default, or dense arrays indexed
+ *  by element index (HalfEdgeMeshBase.SetArrayStorage(true)).
  *  <ul>
  *  <li> Each vertex, half edge and cell is in its own class.
  *  <li> All allocations of vertices, half edges and cells should be done 
@@ -74,7 +74,8 @@ extends HalfEdgeMeshBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> {
 		final VertexBase vB = half_edge0.ToVertex();
 		
 		float midpoint_coord[] = new float[VertexBase.Dimension()];
-		ComputeGeom.compute_midpoint(vA.coord, vB.coord, midpoint_coord);
+		ComputeGeom.compute_midpoint
+			(coord_store, vA.Index(), vB.Index(), midpoint_coord);
 		
 		final int numh = half_edge0.CountNumHalfEdgesAroundEdge();
 		ArrayList<HalfEdgeBase> half_edges_incident_on_triangles = 
@@ -105,8 +106,7 @@ extends HalfEdgeMeshBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> {
 		for (HalfEdgeBase temp_half_edge:half_edges_not_incident_on_triangles) {
 			_RemoveHalfEdgeFromVertexList(temp_half_edge);
 			_RemoveHalfEdgeFromCell(temp_half_edge);
-			int itemp_half_edge = temp_half_edge.Index();
-			half_edge_hashtable.remove(itemp_half_edge);
+			_RemoveHalfEdgeFromTable(temp_half_edge);
 		}
 		
 		// Move all half edges from vA to be from vB.
@@ -114,7 +114,7 @@ extends HalfEdgeMeshBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> {
 		_MoveVertexHalfEdgeFromList(vA, vB);
 		
 		// Ensure that vB.half_edge_from[0] is boundary edge.
-		vB.MoveBoundaryHalfEdgeToHalfEdgeFrom0();
+		_MoveBoundaryHalfEdgeToHalfEdgeFrom0(vB);
 		
 		// Set vB to midpoint of (vA, vB).
 		SetCoord(vB.Index(), midpoint_coord);
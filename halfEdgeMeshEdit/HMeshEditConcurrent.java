@@ -0,0 +1,265 @@
+package halfEdgeMeshEdit;
+
+/** 
+ * @file HMeshEditConcurrent.java
+ * Wrapper allowing concurrent reads of an HMeshEditBase mesh
+ *   while edits are serialized.
+ * @Version 0.1.0
+ * @author Rephael Wenger
+ */
+
+/*
+* Copyright (C) 2021-2023 Rephael Wenger
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public License
+* (LGPL) as published by the Free Software Foundation; either
+* version 2.1 of the License, or any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+* Lesser General Public License for more details.
+*
+* You should have received a copy of the GNU Lesser General Public
+* License along with this library; if not, write to the Free Software
+* Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+import halfEdgeMesh.CellBase;
+import halfEdgeMesh.HalfEdgeBase;
+import halfEdgeMesh.VertexBase;
+
+/**
+ * Concurrent access to an HMeshEditBase mesh by many reader threads
+ *   and one writer thread at a time.
+ * <ul>
+ * <li> Read() runs a query as an optimistic read
+ *   (StampedLock.tryOptimisticRead()).  Readers do not block
+ *   or write any shared memory, so queries scale with the number of cores.
+ * <li> If an edit (e.g., CollapseEdge() or SplitCell()) ran while
+ *   the query ran, the query result is discarded and the query is retried.
+ *   After MAX_OPTIMISTIC_TRIES failed tries, or if an edit is
+ *   in progress, the query runs under the read lock.
+ * <li> Edit functions and Write() hold the write lock.
+ * <li> Queries passed to Read() must not modify the mesh
+ *   and must terminate even if they see a partially edited mesh.
+ *   Mesh get, count and find functions, CheckManifold(), and
+ *   MeasureMeshBase functions meet these conditions.
+ *   Exceptions thrown by a query that overlapped an edit
+ *   are ignored and the query is retried.
+ * <li> Queries should return values (indices, counts, measurements),
+ *   not references to elements used after Read() returns.
+ * <li> IsIllegalEdgeCollapseH(), IsIllegalSplitCell() and other
+ *   routines that set vertex visited flags modify the mesh.
+ *   Call them only from Write().
+ * <li> FindHalfEdge() repairs stale edge index entries only
+ *   when called by the thread running Write(), while it holds
+ *   the write lock.  Queries never modify the edge index.
+ *   (See HalfEdgeMeshBase.SetEdgeIndexRepairThread().)
+ * <li> While shared by multiple threads, the mesh should only
+ *   be accessed through this object.
+ * </ul>
+ */
+public class HMeshEditConcurrent
+	<VERTEX_TYPE extends VertexBase, HALF_EDGE_TYPE extends HalfEdgeBase,
+	CELL_TYPE extends CellBase,
+	MESH_TYPE extends HMeshEditBase<VERTEX_TYPE,HALF_EDGE_TYPE,CELL_TYPE> > {
+
+	/** Maximum number of optimistic tries before Read()
+	 *    runs the query under the read lock.
+	 */
+	public static final int MAX_OPTIMISTIC_TRIES = 3;
+
+	/** Query or edit of a mesh. */
+	@FunctionalInterface
+	public interface MeshFunction<MESH_TYPE,RESULT_TYPE> {
+		RESULT_TYPE Apply(MESH_TYPE mesh) throws Exception;
+	}
+
+	/** Mesh. */
+	protected final MESH_TYPE mesh;
+
+	/** Lock.  Write lock is held by edits. */
+	protected final StampedLock lock = new StampedLock();
+
+	/** Number of queries completed by optimistic reads. */
+	protected final LongAdder num_optimistic_reads = new LongAdder();
+
+	/** Number of optimistic tries that overlapped an edit. */
+	protected final LongAdder num_retries = new LongAdder();
+
+	/** Number of queries run under the read lock. */
+	protected final LongAdder num_locked_reads = new LongAdder();
+
+
+	/** Constructor.
+	 * <ul> <li> Turns off repair of stale edge index entries
+	 *   except by the thread running Write(). </ul>
+	 */
+	public HMeshEditConcurrent(MESH_TYPE mesh)
+	{
+		this.mesh = mesh;
+		mesh.SetRepairEdgeIndex(false);
+	}
+
+
+	// *** Get functions ***
+
+	/** Return mesh.
+	 * <ul> <li> Accessing the mesh directly is not thread safe. </ul>
+	 */
+	public MESH_TYPE Mesh()
+	{ return mesh; }
+
+	/** Return number of queries completed by optimistic reads. */
+	public long NumOptimisticReads()
+	{ return num_optimistic_reads.sum(); }
+
+	/** Return number of optimistic tries that overlapped an edit. */
+	public long NumRetries()
+	{ return num_retries.sum(); }
+
+	/** Return number of queries run under the read lock. */
+	public long NumLockedReads()
+	{ return num_locked_reads.sum(); }
+
+
+	// *** Read and write functions ***
+
+	/** Run query on mesh and return its result.
+	 * <ul>
+	 * <li> Query runs as an optimistic read and is retried
+	 *   if it overlaps an edit.
+	 * <li> Query may be run more than once.
+	 * </ul>
+	 */
+	public <RESULT_TYPE> RESULT_TYPE Read
+	(MeshFunction<MESH_TYPE,RESULT_TYPE> query) throws Exception
+	{
+		for (int k = 0; k < MAX_OPTIMISTIC_TRIES; k++) {
+			final long stamp = lock.tryOptimisticRead();
+			if (stamp == 0) {
+				// Edit in progress.  Wait for read lock.
+				break;
+			}
+
+			RESULT_TYPE result;
+			try {
+				result = query.Apply(mesh);
+			}
+			catch (Exception e) {
+				if (lock.validate(stamp)) { throw e; }
+
+				// Exception caused by a concurrent edit.
+				num_retries.increment();
+				continue;
+			}
+
+			if (lock.validate(stamp)) {
+				num_optimistic_reads.increment();
+				return result;
+			}
+
+			num_retries.increment();
+		}
+
+		return ReadLocked(query);
+	}
+
+
+	/** Run query on mesh under the read lock and return its result.
+	 * <ul>
+	 * <li> Blocks edits, but not other readers, while the query runs.
+	 * <li> Use for queries that may not terminate on
+	 *   a partially edited mesh.
+	 * </ul>
+	 */
+	public <RESULT_TYPE> RESULT_TYPE ReadLocked
+	(MeshFunction<MESH_TYPE,RESULT_TYPE> query) throws Exception
+	{
+		final long stamp = lock.readLock();
+		try {
+			num_locked_reads.increment();
+			return query.Apply(mesh);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+
+	/** Run edit on mesh under the write lock and return its result.
+	 * <ul> <li> FindHalfEdge() calls by edit repair stale
+	 *   edge index entries.  FindHalfEdge() calls by concurrent
+	 *   optimistic reads do not. </ul>
+	 */
+	public <RESULT_TYPE> RESULT_TYPE Write
+	(MeshFunction<MESH_TYPE,RESULT_TYPE> edit) throws Exception
+	{
+		final long stamp = lock.writeLock();
+		try {
+			mesh.SetEdgeIndexRepairThread(Thread.currentThread());
+			return edit.Apply(mesh);
+		}
+		finally {
+			mesh.SetEdgeIndexRepairThread(null);
+			lock.unlockWrite(stamp);
+		}
+	}
+
+
+	// *** Edit functions ***
+
+	/** Collapse edge ihalf_edge0 under the write lock.
+	 * <ul> <li> Returns index of vertex formed by merging endpoints
+	 *   or -1 if edge was not collapsed. </ul>
+	 */
+	public int CollapseEdge(int ihalf_edge0) throws Exception
+	{
+		return Write(mesh -> {
+			final VertexBase v = mesh.CollapseEdge(ihalf_edge0);
+			return (v == null) ? -1 : v.Index();
+		});
+	}
+
+	/** Split cell at from vertices of ihalf_edgeA and ihalf_edgeB
+	 *    under the write lock.
+	 * <ul> <li> Returns index of half edge representing split edge
+	 *   or -1 if cell was not split. </ul>
+	 */
+	public int SplitCell(int ihalf_edgeA, int ihalf_edgeB) throws Exception
+	{
+		return Write(mesh -> {
+			final HalfEdgeBase half_edge = mesh.SplitCell(ihalf_edgeA, ihalf_edgeB);
+			return (half_edge == null) ? -1 : half_edge.Index();
+		});
+	}
+
+	/** Join two cells sharing edge ihalf_edgeA under the write lock.
+	 * <ul> <li> Returns index of new joined cell or -1 if cells
+	 *   were not joined. </ul>
+	 */
+	public int JoinTwoCells(int ihalf_edgeA) throws Exception
+	{
+		return Write(mesh -> {
+			final CellBase cell = mesh.JoinTwoCells(ihalf_edgeA);
+			return (cell == null) ? -1 : cell.Index();
+		});
+	}
+
+	/** Triangulate cell from ihalf_edge0.FromVertexIndex()
+	 *    under the write lock.
+	 */
+	public void TriangulateCellFromVertex(int ihalf_edge0) throws Exception
+	{
+		Write(mesh -> {
+			mesh.TriangulateCellFromVertex(ihalf_edge0);
+			return null;
+		});
+	}
+
+}
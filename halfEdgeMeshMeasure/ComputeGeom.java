@@ -24,6 +24,8 @@ package halfEdgeMeshMeasure;
 * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 */
 
+import halfEdgeMesh.CoordStoreBase;
+
 
 /// Class for geometric computations (midpoints, edge lengths, angles, etc.)
 public class ComputeGeom {
@@ -240,5 +242,64 @@ public class ComputeGeom {
 		
 		return cos_angle;
 	}
+	
+	
+	// *** Functions on coordinates in a CoordStoreBase ***
+	
+	/** Compute the midpoint of vertices iv0 and iv1
+	 *    and store in coord2[].
+	 */
+	public static void compute_midpoint
+	(CoordStoreBase coord_store, int iv0, int iv1, float[] coord2)
+	{
+		for (int d = 0; d < Dimension(); d++) {
+			coord2[d] = 
+				(coord_store.Get(iv0, d) + coord_store.Get(iv1, d))/2.0f;
+		}
+	}
+	
+	
+	/** Compute the squared distance between vertices iv0 and iv1. */
+	public static double compute_squared_distance
+	(CoordStoreBase coord_store, int iv0, int iv1)
+	{
+		double sum = 0.0;
+		for (int d = 0; d < Dimension(); d++) {
+			double diff = coord_store.Get(iv0, d) - coord_store.Get(iv1, d);
+			sum += (diff*diff);
+		}
+		
+		return sum;
+	}
+	
+	
+	/** Subtract coordinates of iv1 from coordinates of iv0. */
+	public static void subtract_coord
+	(CoordStoreBase coord_store, int iv0, int iv1, float[] coord2)
+	{
+		for (int d = 0; d < DIMENSION; d++)
+		{ coord2[d] = coord_store.Get(iv0, d) - coord_store.Get(iv1, d); }
+	}
+	
+	
+	/** Compute cosine of triangle angle at vertex iv1
+	 * in triangle(iv0, iv1, iv2).
+	 * - Sets flag_zero to true and returns 0 if iv0 or iv2
+	 *   is at (or very, very close to) iv1.
+	 */
+	public static double compute_cos_triangle_angle
+	(CoordStoreBase coord_store, int iv0, int iv1, int iv2, 
+			FlagZero flag_zero)
+	{
+		float[] vect0 = new float[DIMENSION];
+		float[] vect1 = new float[DIMENSION];
+		subtract_coord(coord_store, iv0, iv1, vect0);
+		subtract_coord(coord_store, iv2, iv1, vect1);
+		
+		double cos_angle =
+			compute_cos_angle(vect0, vect1, flag_zero);
+		
+		return cos_angle;
+	}
 
 }
\ No newline at end of file
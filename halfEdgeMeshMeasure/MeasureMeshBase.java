@@ -49,7 +49,8 @@ public abstract class MeasureMeshBase
 	{
 		VertexBase vfrom = half_edge.FromVertex();
 		VertexBase vto = half_edge.ToVertex();
-		double length_squared = ComputeGeom.compute_squared_distance(vfrom.coord, vto.coord);
+		double length_squared = ComputeGeom.compute_squared_distance
+			(vfrom.CoordStore(), vfrom.Index(), vto.Index());
 		
 		return length_squared;
 	}
@@ -138,8 +139,8 @@ public abstract class MeasureMeshBase
 		
 		min_cell_ratio_info.Initialize();
 		boolean flag_set = false;
-		for (int icell:mesh.CellIndices()) {
-			CellBase cell = mesh.Cell(icell);
+		for (PrimitiveIterator.OfInt iter = mesh.CellIndexIterator(); iter.hasNext(); ) {
+			CellBase cell = mesh.Cell(iter.nextInt());
 			compute_cell_edge_length_ratio_squared(cell, ratio_info);
 			if (!flag_set || 
 				(ratio_info.ratio < min_cell_ratio_info.ratio)) 
@@ -164,7 +165,7 @@ public abstract class MeasureMeshBase
 		VertexBase v2 = half_edge2.FromVertex();
 		
 		final double cos_angle = ComputeGeom.compute_cos_triangle_angle
-		(v0.coord, v1.coord, v2.coord, flag_zero);
+		(v1.CoordStore(), v0.Index(), v1.Index(), v2.Index(), flag_zero);
 		
 		return cos_angle;
 	}
@@ -237,8 +238,8 @@ public abstract class MeasureMeshBase
 		cos_min_max_angle_info.Initialize();
 		
 		boolean flag_set = false;
-		for (int icell:mesh.CellIndices()) {
-			final CellBase cell = mesh.Cell(icell);
+		for (PrimitiveIterator.OfInt iter = mesh.CellIndexIterator(); iter.hasNext(); ) {
+			final CellBase cell = mesh.Cell(iter.nextInt());
 			compute_cos_min_max_cell_angles(cell, cell_angle_info);
 			
 			final double cos_min_angle = cell_angle_info.cos_min_angle;
@@ -308,8 +309,8 @@ public abstract class MeasureMeshBase
 		}
 		
 		boolean flag_set = false;
-		for (int icell:mesh.CellIndices()) {
-			final CellBase cell = mesh.Cell(icell);
+		for (PrimitiveIterator.OfInt iter = mesh.CellIndexIterator(); iter.hasNext(); ) {
+			final CellBase cell = mesh.Cell(iter.nextInt());
 			compute_cos_min_max_cell_angles(cell, cell_angle_info);
 			
 			final double cos_min_angle = cell_angle_info.cos_min_angle;
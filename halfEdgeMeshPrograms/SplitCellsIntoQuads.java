@@ -125,10 +125,7 @@ public class SplitCellsIntoQuads {
 			int num_boundary_edges = mesh.CountNumBoundaryEdges();
 			
 			// Mark all original vertices as old.
-			for (int iv:mesh.VertexIndices()) {
-				VertexB v = mesh.Vertex(iv);
-				v.flag_old = true;
-			}
+			mesh.ForEachVertex(v -> v.flag_old = true);
 			
 			// Split edges.
 			List<HalfEdgeA> edge_list = mesh.GetEdgeList();
@@ -0,0 +1,355 @@
+package halfEdgeMeshPrograms;
+
+import java.io.*;
+import java.util.*;
+
+import halfEdgeMesh.*;
+
+/** Test program for adding cells with AddCells() and AddCellsParallel().
+ * <ul>
+ * 		<li> Generates random polygon soups with repeated, non-manifold
+ *           and inconsistently oriented edges.
+ * 		<li> Builds each soup by calling AddCell() for each cell,
+ *           and with AddCells() and AddCellsParallel().
+ * 		<li> Checks that all three meshes are identical, including
+ *           the order of half edges around each edge and
+ *           in each half_edge_from[] list.
+ * 		<li> Repeats with cells added in batches, with cells already
+ *           in the mesh (some deleted), and with and without
+ *           an edge index.
+ * </ul>
+ * @author Rephael Wenger
+ */
+public class TestAddCells {
+
+	static boolean flag_silent = false;
+	static boolean flag_time = false;
+	static boolean flag_verbose = false;
+	static long seed = 12;
+	static int num_soups = 300;
+
+	/** Maximum number of vertices of each random cell. */
+	static final int MAX_NUM_CELL_VERTICES = 5;
+
+	public static void main(String[] argv)
+	{
+		long begin_time = System.nanoTime();
+
+		parse_command_line(argv);
+
+		Random random = new Random(seed);
+		int num_tests = 0;
+
+		try {
+			for (int isoup = 0; isoup < num_soups; isoup++) {
+				// Small soups have many repeated edges.
+				final int numv = 3 + random.nextInt((isoup%2 == 0) ? 8 : 40);
+				final int numc = 1 + random.nextInt((isoup%2 == 0) ? 12 : 200);
+				ArrayList<int[]> cell_list =
+					generate_random_soup(random, numv, numc);
+
+				// Add first half of cells, delete some,
+				//   and then add second half.
+				final int num_existing = cell_list.size()/2;
+				int[] deleted_cell = new int[random.nextInt(3)];
+				for (int i = 0; i < deleted_cell.length; i++)
+				{ deleted_cell[i] = random.nextInt(Math.max(1, num_existing)); }
+
+				num_tests += check_add_cells
+					(isoup, new ArrayList<int[]>(), new int[0], cell_list);
+				num_tests += check_add_cells
+					(isoup, cell_list.subList(0, num_existing), deleted_cell,
+						cell_list.subList(num_existing, cell_list.size()));
+			}
+
+			if (!flag_silent) {
+				System.out.println
+					("Passed all " + String.valueOf(num_tests) +
+						" AddCells() and AddCellsParallel() tests.");
+			}
+
+			long end_time = System.nanoTime();
+
+			if (flag_time)
+			{ print_time("Total time:         ", (end_time-begin_time)); }
+		}
+		catch(Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+
+	// *** SUBROUTINES ****
+
+	/** Return list of numc random cells with vertices in [0..(numv-1)].
+	 * - Vertices of each cell are distinct.
+	 */
+	static ArrayList<int[]> generate_random_soup
+	(Random random, int numv, int numc)
+	{
+		ArrayList<int[]> cell_list = new ArrayList<int[]>();
+		for (int k = 0; k < numc; k++) {
+			final int num_cell_vertices = Math.min
+				(numv, 3 + random.nextInt(MAX_NUM_CELL_VERTICES-2));
+			int[] cell_vertex = new int[num_cell_vertices];
+			for (int i = 0; i < num_cell_vertices; i++) {
+				cell_vertex[i] = random.nextInt(numv);
+				for (int i2 = 0; i2 < i; i2++) {
+					if (cell_vertex[i2] == cell_vertex[i]) {
+						// Choose again.
+						i--;
+						break;
+					}
+				}
+			}
+			cell_list.add(cell_vertex);
+		}
+
+		return cell_list;
+	}
+
+
+	/** Build mesh with cells added by AddCell(), AddCells()
+	 *    and AddCellsParallel() and check that the meshes are identical.
+	 * - Returns number of meshes compared.
+	 */
+	static int check_add_cells
+	(int isoup, List<int[]> existing_cell, int[] deleted_cell,
+			List<int[]> cell_list) throws Exception
+	{
+		int num_tests = 0;
+
+		for (int num_batches = 1; num_batches <= 3; num_batches += 2) {
+			for (int iedge_index = 0; iedge_index < 3; iedge_index++) {
+				final boolean flag_edge_index = (iedge_index > 0);
+				final boolean flag_repair = (iedge_index == 1);
+				final HalfEdgeMeshA mesh0 = build_mesh
+					(existing_cell, deleted_cell, cell_list, num_batches, 0,
+						flag_edge_index, flag_repair);
+
+				ErrorInfo error_info = mesh0.CheckAll();
+				if (error_info.FlagError()) {
+					System.err.println
+						("Error detected in mesh data structure after AddCell() (soup " +
+							String.valueOf(isoup) + ").");
+					System.err.println(error_info.Message());
+					System.err.println("  Exiting...");
+					System.exit(-1);
+				}
+
+				for (int method = 1; method <= 2; method++) {
+					final HalfEdgeMeshA mesh1 = build_mesh
+						(existing_cell, deleted_cell, cell_list, num_batches, method,
+							flag_edge_index, flag_repair);
+					String difference = compare_meshes(mesh0, mesh1);
+					error_info = mesh1.CheckAll();
+					if (difference == null && error_info.FlagError())
+					{ difference = error_info.Message(); }
+					if (difference != null) {
+						System.err.println
+							("Error. " + ((method == 1) ? "AddCells()" : "AddCellsParallel()") +
+								" and AddCell() create different meshes (soup " +
+								String.valueOf(isoup) + ", " + String.valueOf(num_batches) +
+								" batches, edge index " +
+								(flag_edge_index ? "on" : "off") + ").");
+						System.err.println("  " + difference);
+						System.err.println("  Exiting...");
+						System.exit(-1);
+					}
+					num_tests++;
+				}
+			}
+		}
+
+		if (flag_verbose) {
+			System.out.println
+				("Soup " + String.valueOf(isoup) + " with " +
+					String.valueOf(cell_list.size()) + " cells passed.");
+		}
+
+		return num_tests;
+	}
+
+
+	/** Build mesh from existing_cell and cell_list.
+	 * <ul>
+	 * 		<li> Adds existing_cell with AddCell() and deletes deleted_cell.
+	 * 		<li> Adds cell_list in num_batches batches with AddCell() (method 0),
+	 *           AddCells() (method 1) or AddCellsParallel() (method 2).
+	 * </ul>
+	 */
+	static HalfEdgeMeshA build_mesh
+	(List<int[]> existing_cell, int[] deleted_cell, List<int[]> cell_list,
+			int num_batches, int method, boolean flag_edge_index,
+			boolean flag_repair) throws Exception
+	{
+		HalfEdgeMeshA mesh = new HalfEdgeMeshA();
+		if (flag_edge_index) { mesh.SetEdgeIndex(true); }
+		mesh.SetRepairEdgeIndex(flag_repair);
+
+		for (int[] cell_vertex:existing_cell)
+		{ mesh.AddNewCell(to_list(cell_vertex)); }
+		for (int icell:deleted_cell) {
+			if (mesh.Cell(icell) != null)
+			{ mesh.DeleteCell(icell); }
+		}
+
+		final int numc = cell_list.size();
+		for (int ibatch = 0; ibatch < num_batches; ibatch++) {
+			List<int[]> batch = cell_list.subList
+				(ibatch*numc/num_batches, (ibatch+1)*numc/num_batches);
+
+			if (method == 0) {
+				for (int[] cell_vertex:batch)
+				{ mesh.AddNewCell(to_list(cell_vertex)); }
+				continue;
+			}
+
+			int num_half_edges = 0;
+			for (int[] cell_vertex:batch)
+			{ num_half_edges += cell_vertex.length; }
+			final int[] cell_first = new int[batch.size()+1];
+			final int[] cell_vertex = new int[num_half_edges];
+			for (int k = 0; k < batch.size(); k++) {
+				System.arraycopy(batch.get(k), 0, cell_vertex, cell_first[k],
+									batch.get(k).length);
+				cell_first[k+1] = cell_first[k] + batch.get(k).length;
+			}
+
+			if (method == 1)
+			{ mesh.AddCells(cell_first, cell_vertex, null); }
+			else
+			{ mesh.AddCellsParallel(cell_first, cell_vertex, null); }
+		}
+
+		return mesh;
+	}
+
+
+	/** Return description of first difference between mesh0 and mesh1,
+	 *    or null if the meshes are identical.
+	 */
+	static String compare_meshes(HalfEdgeMeshA mesh0, HalfEdgeMeshA mesh1)
+	{
+		if (mesh0.NumEdges() != mesh1.NumEdges() ||
+			mesh0.NumBoundaryEdges() != mesh1.NumBoundaryEdges() ||
+			mesh0.NumIsolatedVertices() != mesh1.NumIsolatedVertices() ||
+			mesh0.NumHalfEdges() != mesh1.NumHalfEdges() ||
+			mesh0.MaxHalfEdgeIndex() != mesh1.MaxHalfEdgeIndex() ||
+			mesh0.MaxVertexIndex() != mesh1.MaxVertexIndex())
+		{ return "Numbers of edges, boundary edges, isolated vertices or half edges differ."; }
+
+		for (int ihalf_edge = 0; ihalf_edge <= mesh0.MaxHalfEdgeIndex(); ihalf_edge++) {
+			HalfEdgeBase half_edge0 = mesh0.HalfEdge(ihalf_edge);
+			HalfEdgeBase half_edge1 = mesh1.HalfEdge(ihalf_edge);
+			if (half_edge0 == null && half_edge1 == null) { continue; }
+			if (half_edge0 == null || half_edge1 == null ||
+				half_edge0.NextHalfEdgeAroundEdge().Index() !=
+					half_edge1.NextHalfEdgeAroundEdge().Index()) {
+				return "Half edges around edge of half edge " +
+						String.valueOf(ihalf_edge) + " differ.";
+			}
+		}
+
+		for (int iv = 0; iv <= mesh0.MaxVertexIndex(); iv++) {
+			VertexBase v0 = mesh0.Vertex(iv);
+			VertexBase v1 = mesh1.Vertex(iv);
+			if (v0 == null && v1 == null) { continue; }
+			if (v0 == null || v1 == null ||
+				v0.NumHalfEdgesFrom() != v1.NumHalfEdgesFrom())
+			{ return "Vertex " + String.valueOf(iv) + " differs."; }
+
+			for (int k = 0; k < v0.NumHalfEdgesFrom(); k++) {
+				if (v0.KthHalfEdgeFrom(k).Index() != v1.KthHalfEdgeFrom(k).Index()) {
+					return "Half edges from vertex " + String.valueOf(iv) +
+							" differ.";
+				}
+			}
+		}
+
+		return null;
+	}
+
+	static ArrayList<Integer> to_list(int[] cell_vertex)
+	{
+		ArrayList<Integer> list = new ArrayList<Integer>();
+		for (int iv:cell_vertex)
+		{ list.add(iv); }
+		return list;
+	}
+
+
+	protected static void parse_command_line(String[] argv)
+	{
+		int iarg = 0;
+
+		while (iarg < argv.length &&
+				argv[iarg].charAt(0) == '-') {
+			String s= argv[iarg];
+			if (s.equals("-s"))
+			{ flag_silent = true; }
+			else if (s.equals("-verbose"))
+			{ flag_verbose = true; }
+			else if (s.equals("-time"))
+			{ flag_time = true; }
+			else if (s.equals("-seed") && iarg+1 < argv.length) {
+				iarg++;
+				seed = Long.parseLong(argv[iarg]);
+			}
+			else if (s.equals("-num_soups") && iarg+1 < argv.length) {
+				iarg++;
+				num_soups = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-h"))
+			{ help(); }
+			else {
+				System.err.println("Usage error. Option " + s + " is undefined.");
+				usage_error();
+			}
+
+			iarg++;
+		}
+
+		if (iarg != argv.length)
+		{ usage_error(); }
+	}
+
+	static void print_time(String label, long time) {
+		double nanoseconds_per_second = 1E9;
+		String s = String.format("%.4f", (time/nanoseconds_per_second));
+		System.out.println(label + s + " seconds.");
+	}
+
+
+	static void usage_msg(PrintStream out)
+	{
+		out.println("Usage: TestAddCells [-s] [-verbose] [-time] [-seed {S}] [-num_soups {N}] [-h]");
+	}
+
+
+	static void usage_error()
+	{
+		usage_msg(System.err);
+		System.exit(-1);
+	}
+
+	static void help()
+	{
+		usage_msg(System.out);
+		System.out.println();
+		System.out.println("TestAddCells - Test HalfEdgeMesh AddCells() and AddCellsParallel()\n" +
+				"  by building random polygon soups with AddCell(), AddCells()\n" +
+				"  and AddCellsParallel() and checking that the meshes are identical.");
+		System.out.println();
+		System.out.println("Options:");
+		System.out.println("-s:        Silent. Output only warnings and error messages.");
+		System.out.println("-verbose:  Report each soup tested.");
+		System.out.println("-time:     Report run time.");
+		System.out.println("-seed {S}: Random number seed.  Default 12.");
+		System.out.println("-num_soups {N}: Number of random soups.  Default 300.");
+		System.out.println("-h:        Output this help message and exit.");
+		System.exit(0);
+	}
+
+}
@@ -0,0 +1,480 @@
+package halfEdgeMeshPrograms;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import halfEdgeMesh.*;
+
+/** Test program for reading off files with ReadFileParallel()
+ *    and pipelined and parallel builds.
+ * <ul>
+ * 		<li> Generates random off files of grids of triangles and
+ *           quadrilaterals, with comments, blank lines and
+ *           mixed line ends.  Large files are split by
+ *           ReadFileParallel() into several chunks.
+ * 		<li> Adds random errors to most files, e.g., malformed
+ *           or missing numbers, missing lines, bad polygon sizes
+ *           or vertex indices, or a truncated file.  Some files
+ *           have several errors, so the first one must be reported.
+ * 		<li> Reads each file with ReadFile() from an input stream,
+ *           and with ReadFile() from a memory mapped channel,
+ *           ReadFileParallel(), a pipelined build
+ *           and a parallel build.
+ * 		<li> Checks that all readers throw the same exception
+ *           as ReadFile() or build identical meshes.
+ * </ul>
+ * @author Rephael Wenger
+ */
+public class TestOffReaders {
+
+	static boolean flag_silent = false;
+	static boolean flag_time = false;
+	static boolean flag_verbose = false;
+	static long seed = 23;
+	static int num_files = 60;
+
+	/** Every LARGE_FILE_PERIOD'th file is large enough to
+	 *    be split into several chunks.
+	 */
+	static final int LARGE_FILE_PERIOD = 4;
+
+	/** Readers compared with ReadFile(InputStream,...). */
+	static final String[] READER_NAME = {
+		"ReadFile(FileChannel)", "ReadFileParallel()",
+		"pipelined build", "parallel build",
+		"ReadFileParallel() with parallel build" };
+
+	/** Temporary off file. */
+	static File temp_file = null;
+
+	public static void main(String[] argv)
+	{
+		long begin_time = System.nanoTime();
+
+		parse_command_line(argv);
+
+		Random random = new Random(seed);
+		int num_tests = 0;
+		int num_errors = 0;
+
+		try {
+			temp_file = File.createTempFile("TestOffReaders", ".off");
+			temp_file.deleteOnExit();
+
+			for (int ifile = 0; ifile < num_files; ifile++) {
+				final boolean flag_large = (ifile%LARGE_FILE_PERIOD == LARGE_FILE_PERIOD-1);
+				final int nx = flag_large ?
+					150 + random.nextInt(100) : 1 + random.nextInt(20);
+				final int ny = flag_large ?
+					150 + random.nextInt(50) : 1 + random.nextInt(20);
+				ArrayList<String[]> line_list = generate_grid(random, nx, ny);
+				final int numv = (nx+1)*(ny+1);
+
+				// Files with no errors, one error or two errors.
+				//   Large files have no header errors and up to
+				//   three errors, which may be in different chunks.
+				final int num_file_errors = flag_large ?
+					random.nextInt(4) : random.nextInt(5)/2;
+				for (int k = 0; k < num_file_errors; k++)
+				{ add_random_error(random, line_list, numv, !flag_large); }
+
+				byte[] text = to_bytes(line_list, random);
+				if (num_file_errors > 0 && random.nextInt(6) == 0) {
+					// Truncate file.
+					text = Arrays.copyOf(text, random.nextInt(text.length+1));
+				}
+
+				try (FileOutputStream out = new FileOutputStream(temp_file))
+				{ out.write(text); }
+
+				final String error = check_readers(ifile);
+				if (error != null) { num_errors++; }
+				num_tests += READER_NAME.length;
+
+				if (flag_verbose) {
+					System.out.println
+						("File " + String.valueOf(ifile) + ": " +
+							String.valueOf(text.length) + " bytes.  " +
+							((error == null) ? "No errors." : error));
+				}
+			}
+
+			if (!flag_silent) {
+				System.out.println
+					("Passed all " + String.valueOf(num_tests) +
+						" off reader tests on " + String.valueOf(num_files) +
+						" files (" + String.valueOf(num_errors) +
+						" with read errors).");
+			}
+
+			long end_time = System.nanoTime();
+
+			if (flag_time)
+			{ print_time("Total time:         ", (end_time-begin_time)); }
+		}
+		catch(Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+
+	// *** SUBROUTINES ****
+
+	/** Return tokens of off file of grid of nx by ny squares.
+	 * - Each square is a quadrilateral or two triangles.
+	 */
+	static ArrayList<String[]> generate_grid(Random random, int nx, int ny)
+	{
+		final int numv = (nx+1)*(ny+1);
+		ArrayList<String[]> poly_list = new ArrayList<String[]>();
+		for (int iy = 0; iy < ny; iy++) {
+			for (int ix = 0; ix < nx; ix++) {
+				final int iv0 = iy*(nx+1)+ix;
+				final int iv1 = iv0+1;
+				final int iv2 = iv1+nx+1;
+				final int iv3 = iv0+nx+1;
+				if (random.nextBoolean())
+				{ poly_list.add(to_tokens(4, iv0, iv1, iv2, iv3)); }
+				else {
+					poly_list.add(to_tokens(3, iv0, iv1, iv2));
+					poly_list.add(to_tokens(3, iv0, iv2, iv3));
+				}
+			}
+		}
+
+		ArrayList<String[]> line_list = new ArrayList<String[]>();
+		line_list.add(new String[] { "OFF" });
+		line_list.add(to_tokens(numv, poly_list.size(), 0));
+		for (int iy = 0; iy <= ny; iy++) {
+			for (int ix = 0; ix <= nx; ix++) {
+				line_list.add(new String[] {
+						Float.toString(ix + random.nextFloat()/2),
+						Float.toString(iy + random.nextFloat()/2),
+						Float.toString((random.nextFloat()-0.5f)*1e-3f) });
+			}
+		}
+		line_list.addAll(poly_list);
+
+		return line_list;
+	}
+
+
+	/** Return integers as tokens. */
+	static String[] to_tokens(int... x)
+	{
+		String[] token = new String[x.length];
+		for (int k = 0; k < x.length; k++)
+		{ token[k] = Integer.toString(x[k]); }
+		return token;
+	}
+
+
+	/** Add random error to off file line_list.
+	 * @param numv Number of vertices in the grid.
+	 * @param flag_header If true, error may be in the header.
+	 */
+	static void add_random_error
+	(Random random, ArrayList<String[]> line_list, int numv,
+			boolean flag_header)
+	{
+		// Line of a random vertex or polygon.
+		final int iline = 2 + random.nextInt(line_list.size()-2);
+		final boolean flag_vertex_line = (iline < 2+numv);
+		String[] token = line_list.get(iline);
+		final int k = random.nextInt(token.length);
+
+		int error_type = random.nextInt(10);
+		while (!flag_header && (error_type == 6 || error_type == 7))
+		{ error_type = random.nextInt(10); }
+
+		switch (error_type) {
+		case 0:
+			token[k] = flag_vertex_line ? "1.5.5" : "x7";
+			break;
+
+		case 1:
+			// Too few tokens.
+			line_list.set(iline, Arrays.copyOf(token, token.length-1));
+			break;
+
+		case 2:
+			// Missing vertex or polygon line.
+			line_list.remove(iline);
+			break;
+
+		case 3:
+			if (flag_vertex_line) { token[k] = "NaN"; }
+			else { token[k] = (k == 0) ? "2" : "-1"; }
+			break;
+
+		case 4:
+			if (!flag_vertex_line) {
+				// Bad polygon size or vertex index.
+				token[k] = (k == 0) ? "1000000" : Integer.toString(numv + 5);
+			}
+			else { token[k] = ""; }
+			break;
+
+		case 5:
+			// Extra tokens are ignored.
+			line_list.set(iline, Arrays.copyOf(token, token.length+1));
+			line_list.get(iline)[token.length] = "junk";
+			break;
+
+		case 6:
+			// Wrong number of vertices or polygons.
+			line_list.set(1, to_tokens
+				(numv + random.nextInt(5) - 2,
+					line_list.size() - 2 - numv + random.nextInt(5) - 2));
+			break;
+
+		case 7:
+			{
+				final String[][] bad_header = {
+					{ "OFF" }, { "OF" }, { "-3", "1" }, { "3", "-1" },
+					{ "5" }, { "5x", "1" }, { "2147483647", "1" } };
+				final String[] header = bad_header[random.nextInt(bad_header.length)];
+				if (header.length == 1 && header[0].startsWith("OF"))
+				{ line_list.set(0, header); }
+				else
+				{ line_list.set(1, header); }
+			}
+			break;
+
+		default:
+			token[k] = flag_vertex_line ? "1e39" : "2.0";
+			break;
+		}
+	}
+
+
+	/** Return off file text of line_list with random comments,
+	 *    blanks and line ends.
+	 */
+	static byte[] to_bytes(ArrayList<String[]> line_list, Random random)
+	{
+		final String[] line_end = { "\n", "\n", "\r\n", "\r" };
+		final String[] blank = { " ", " ", "  ", "\t" };
+
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < line_list.size(); i++) {
+			if (i > 0 && random.nextInt(20) == 0) {
+				s.append(random.nextBoolean() ? "# comment 1 2 3" : "  ");
+				s.append(line_end[random.nextInt(line_end.length)]);
+			}
+
+			final String[] token = line_list.get(i);
+			for (int k = 0; k < token.length; k++) {
+				if (k > 0) { s.append(blank[random.nextInt(blank.length)]); }
+				s.append(token[k]);
+			}
+			s.append(line_end[random.nextInt(line_end.length)]);
+		}
+
+		return s.toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+
+	/** Read temp_file with each reader and compare with ReadFile().
+	 * - Exits if some reader differs from ReadFile().
+	 * - Returns the message of the exception thrown by ReadFile(),
+	 *   or null if ReadFile() succeeds.
+	 */
+	static String check_readers(int ifile) throws Exception
+	{
+		HalfEdgeMeshA mesh0 = new HalfEdgeMeshA();
+		final String error0 = read_file(-1, mesh0);
+
+		for (int ireader = 0; ireader < READER_NAME.length; ireader++) {
+			HalfEdgeMeshA mesh = new HalfEdgeMeshA();
+			final String error = read_file(ireader, mesh);
+
+			String difference = null;
+			if (error0 != null || error != null) {
+				if (error0 == null || !error0.equals(error)) {
+					difference = "ReadFile() error: " + String.valueOf(error0) +
+							"  Reader error: " + String.valueOf(error);
+				}
+			}
+			else
+			{ difference = compare_meshes(mesh0, mesh); }
+
+			if (difference != null) {
+				System.err.println
+					("Error. Reading file " + String.valueOf(ifile) + " with " +
+						READER_NAME[ireader] + " differs from ReadFile().");
+				System.err.println("  " + difference);
+				System.err.println("  Exiting...");
+				System.exit(-1);
+			}
+		}
+
+		return error0;
+	}
+
+
+	/** Read temp_file into mesh with reader ireader.
+	 * - Reader -1 is ReadFile() from an input stream.
+	 * - Returns class and message of exception thrown by the reader,
+	 *   or null if there is no exception.
+	 */
+	static String read_file(int ireader, HalfEdgeMeshA mesh) throws IOException
+	{
+		OffFileReaderA reader = new OffFileReaderA();
+		reader.SetPipelinedBuild(ireader == 2);
+		reader.SetParallelBuild(ireader >= 3);
+
+		try (FileInputStream file_stream = new FileInputStream(temp_file)) {
+			final FileChannel channel = file_stream.getChannel();
+			switch (ireader) {
+			case 0:
+				reader.ReadFile(channel, mesh);
+				break;
+
+			case 1:
+			case 4:
+				reader.ReadFileParallel(channel, mesh);
+				break;
+
+			default:
+				reader.ReadFile(file_stream, mesh);
+				break;
+			}
+		}
+		catch (Exception e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+
+		return null;
+	}
+
+
+	/** Return description of first difference between mesh0 and mesh1,
+	 *    or null if the meshes are identical.
+	 */
+	static String compare_meshes(HalfEdgeMeshA mesh0, HalfEdgeMeshA mesh1)
+	{
+		if (mesh0.NumVertices() != mesh1.NumVertices() ||
+			mesh0.NumHalfEdges() != mesh1.NumHalfEdges() ||
+			mesh0.NumCells() != mesh1.NumCells() ||
+			mesh0.MaxVertexIndex() != mesh1.MaxVertexIndex() ||
+			mesh0.MaxHalfEdgeIndex() != mesh1.MaxHalfEdgeIndex() ||
+			mesh0.MaxCellIndex() != mesh1.MaxCellIndex())
+		{ return "Numbers of vertices, half edges or cells differ."; }
+
+		for (int iv = 0; iv <= mesh0.MaxVertexIndex(); iv++) {
+			VertexBase v0 = mesh0.Vertex(iv);
+			VertexBase v1 = mesh1.Vertex(iv);
+			if (v0 == null && v1 == null) { continue; }
+			if (v0 == null || v1 == null ||
+				v0.NumHalfEdgesFrom() != v1.NumHalfEdgesFrom())
+			{ return "Vertex " + String.valueOf(iv) + " differs."; }
+
+			for (int ic = 0; ic < VertexBase.Dimension(); ic++) {
+				if (Float.floatToRawIntBits(v0.Coord(ic)) !=
+					Float.floatToRawIntBits(v1.Coord(ic)))
+				{ return "Coordinates of vertex " + String.valueOf(iv) + " differ."; }
+			}
+
+			for (int k = 0; k < v0.NumHalfEdgesFrom(); k++) {
+				if (v0.KthHalfEdgeFrom(k).Index() != v1.KthHalfEdgeFrom(k).Index()) {
+					return "Half edges from vertex " + String.valueOf(iv) +
+							" differ.";
+				}
+			}
+		}
+
+		for (int ihalf_edge = 0; ihalf_edge <= mesh0.MaxHalfEdgeIndex(); ihalf_edge++) {
+			HalfEdgeBase half_edge0 = mesh0.HalfEdge(ihalf_edge);
+			HalfEdgeBase half_edge1 = mesh1.HalfEdge(ihalf_edge);
+			if (half_edge0 == null && half_edge1 == null) { continue; }
+			if (half_edge0 == null || half_edge1 == null ||
+				half_edge0.FromVertexIndex() != half_edge1.FromVertexIndex() ||
+				half_edge0.CellIndex() != half_edge1.CellIndex() ||
+				half_edge0.NextHalfEdgeInCell().Index() !=
+					half_edge1.NextHalfEdgeInCell().Index() ||
+				half_edge0.NextHalfEdgeAroundEdge().Index() !=
+					half_edge1.NextHalfEdgeAroundEdge().Index())
+			{ return "Half edge " + String.valueOf(ihalf_edge) + " differs."; }
+		}
+
+		return null;
+	}
+
+
+	protected static void parse_command_line(String[] argv)
+	{
+		int iarg = 0;
+
+		while (iarg < argv.length &&
+				argv[iarg].charAt(0) == '-') {
+			String s= argv[iarg];
+			if (s.equals("-s"))
+			{ flag_silent = true; }
+			else if (s.equals("-verbose"))
+			{ flag_verbose = true; }
+			else if (s.equals("-time"))
+			{ flag_time = true; }
+			else if (s.equals("-seed") && iarg+1 < argv.length) {
+				iarg++;
+				seed = Long.parseLong(argv[iarg]);
+			}
+			else if (s.equals("-num_files") && iarg+1 < argv.length) {
+				iarg++;
+				num_files = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-h"))
+			{ help(); }
+			else {
+				System.err.println("Usage error. Option " + s + " is undefined.");
+				usage_error();
+			}
+
+			iarg++;
+		}
+
+		if (iarg != argv.length)
+		{ usage_error(); }
+	}
+
+	static void print_time(String label, long time) {
+		double nanoseconds_per_second = 1E9;
+		String s = String.format("%.4f", (time/nanoseconds_per_second));
+		System.out.println(label + s + " seconds.");
+	}
+
+
+	static void usage_msg(PrintStream out)
+	{
+		out.println("Usage: TestOffReaders [-s] [-verbose] [-time] [-seed {S}] [-num_files {N}] [-h]");
+	}
+
+
+	static void usage_error()
+	{
+		usage_msg(System.err);
+		System.exit(-1);
+	}
+
+	static void help()
+	{
+		usage_msg(System.out);
+		System.out.println();
+		System.out.println("TestOffReaders - Test ReadFileParallel() and pipelined and parallel\n" +
+				"  builds by reading random, possibly malformed, off files\n" +
+				"  and comparing the meshes or errors with ReadFile().");
+		System.out.println();
+		System.out.println("Options:");
+		System.out.println("-s:        Silent. Output only warnings and error messages.");
+		System.out.println("-verbose:  Report each file tested.");
+		System.out.println("-time:     Report run time.");
+		System.out.println("-seed {S}: Random number seed.  Default 23.");
+		System.out.println("-num_files {N}: Number of random off files.  Default 60.");
+		System.out.println("-h:        Output this help message and exit.");
+		System.exit(0);
+	}
+
+}
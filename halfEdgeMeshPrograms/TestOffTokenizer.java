@@ -0,0 +1,612 @@
+package halfEdgeMeshPrograms;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import halfEdgeMesh.*;
+
+/** Test program for OffTokenizer.
+ * <ul>
+ * 		<li> Generates random text with comment lines, blank lines,
+ *           mixed line ends and lines of valid and malformed
+ *           int and float tokens.
+ * 		<li> Reads the text with OffTokenizer from input streams
+ *           and memory mapped file channels, with small buffers
+ *           and windows so tokens cross buffer boundaries.
+ * 		<li> Checks that each line has the expected tokens and
+ *           that ReadInt() and ReadFloat() return the same values
+ *           as Integer.parseInt() and Float.parseFloat(),
+ *           float bit for float bit, or throw NumberFormatException
+ *           on the same tokens.
+ * 		<li> Checks many random floats, including floats halfway
+ *           between two floats, against Float.parseFloat().
+ * </ul>
+ * @author Rephael Wenger
+ */
+public class TestOffTokenizer {
+
+	static boolean flag_silent = false;
+	static boolean flag_time = false;
+	static long seed = 21;
+	static int num_texts = 300;
+	static int num_floats = 1000000;
+
+	/** Line types. */
+	static final int FLOAT_LINE = 0;
+	static final int INT_LINE = 1;
+	static final int COUNT_LINE = 2;
+	static final int COMMENT_LINE = 3;
+	static final int BLANK_LINE = 4;
+
+	/** Float tokens that are edge cases for ReadFloat(). */
+	static final String[] FLOAT_EDGE_CASES = {
+		"0", "-0", "+0", "0.0", "-0.0", ".0", "0.", "00.000e5",
+		"1e38", "3.4028235e38", "3.4028236e38", "3.5e38", "1e39",
+		"1.17549435e-38", "1.1754942e-38", "1.4e-45", "7e-46", "1e-46",
+		"1e-50", "1e22", "1e23", "1e-22", "1e-23", "4.5e15", "16777217",
+		"8388608.5", "33554434", "9007199254740993",
+		"123456789012345678", "1234567890123456789",
+		"0.000000000000000000001", "00000000000000000000001.5",
+		"NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", "inf",
+		"1e", "1e+", "1e-", "e5", ".", "-", "+", "-.", ".e1",
+		"1..2", "1.2.3", "1e5.5", "1e+-5", "0x1p3", "0x1.8p1",
+		"1f", "1d", "1F", "2.5D", "1e0004", "1e-0004", "1e10000",
+		"1e-10000", "1_000" };
+
+	/** Int tokens that are edge cases for ReadInt(). */
+	static final String[] INT_EDGE_CASES = {
+		"0", "-0", "+0", "2147483647", "-2147483648", "2147483648",
+		"-2147483649", "02147483647", "0000000000012", "99999999999",
+		"-", "+", "+-1", "1.0", "1e3", "0x10", "12a" };
+
+	/** Characters of random malformed tokens. */
+	static final String FLOAT_CHARS = "0123456789.eE+-xpfdIN";
+	static final String INT_CHARS = "0123456789+-.e";
+
+	/** Characters separating tokens on a line. */
+	static final String BLANKS = " \t\f\u000B";
+
+	/** Temporary file for testing file channels. */
+	static File temp_file = null;
+
+	public static void main(String[] argv)
+	{
+		long begin_time = System.nanoTime();
+
+		parse_command_line(argv);
+
+		Random random = new Random(seed);
+		int num_tests = 0;
+
+		try {
+			temp_file = File.createTempFile("TestOffTokenizer", ".txt");
+			temp_file.deleteOnExit();
+
+			for (int itext = 0; itext < num_texts; itext++) {
+				ArrayList<TextLine> line_list = generate_random_text(random);
+				byte[] text = to_bytes(line_list, random);
+				num_tests += check_text(itext, line_list, text);
+			}
+
+			check_random_floats(random);
+			num_tests++;
+
+			if (!flag_silent) {
+				System.out.println
+					("Passed all " + String.valueOf(num_tests) +
+						" OffTokenizer tests.");
+			}
+
+			long end_time = System.nanoTime();
+
+			if (flag_time)
+			{ print_time("Total time:         ", (end_time-begin_time)); }
+		}
+		catch(Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+
+	// *** SUBROUTINES ****
+
+	/** Line of random text. */
+	static class TextLine {
+
+		/** Line type. */
+		int type;
+
+		/** Tokens on line.  Empty for comment and blank lines. */
+		String[] token;
+
+		TextLine(int type, String[] token)
+		{
+			this.type = type;
+			this.token = token;
+		}
+	}
+
+
+	/** Return list of random lines. */
+	static ArrayList<TextLine> generate_random_text(Random random)
+	{
+		ArrayList<TextLine> line_list = new ArrayList<TextLine>();
+		final int num_lines = random.nextInt(60);
+		for (int i = 0; i < num_lines; i++) {
+			final int type = random.nextInt(5);
+			if (type == COMMENT_LINE || type == BLANK_LINE) {
+				line_list.add(new TextLine(type, new String[0]));
+				continue;
+			}
+
+			String[] token = new String[1 + random.nextInt(8)];
+			for (int k = 0; k < token.length; k++) {
+				token[k] = (type == INT_LINE) ?
+					random_int_token(random) : random_float_token(random);
+			}
+			line_list.add(new TextLine(type, token));
+		}
+
+		return line_list;
+	}
+
+
+	/** Return random float token, possibly malformed. */
+	static String random_float_token(Random random)
+	{
+		switch (random.nextInt(8)) {
+		case 0:
+			return Float.toString(Float.intBitsToFloat(random.nextInt()));
+
+		case 1:
+			return Float.toString
+				((random.nextFloat()-0.5f) *
+					(float) Math.pow(10, random.nextInt(12)-4));
+
+		case 2:
+			return String.format
+				(Locale.ROOT, "%." + String.valueOf(random.nextInt(10)) + "f",
+					(random.nextDouble()-0.5)*2000);
+
+		case 3:
+			return random_decimal(random);
+
+		case 4:
+			return random_halfway_float(random);
+
+		case 5:
+			return FLOAT_EDGE_CASES[random.nextInt(FLOAT_EDGE_CASES.length)];
+
+		case 6:
+			return random.nextBoolean() ?
+				Float.toString(Float.MIN_NORMAL*random.nextFloat()) :
+				random_near_halfway_float(random);
+
+		default:
+			return random_chars(random, FLOAT_CHARS, 1+random.nextInt(8));
+		}
+	}
+
+
+	/** Return random int token, possibly malformed. */
+	static String random_int_token(Random random)
+	{
+		switch (random.nextInt(5)) {
+		case 0:
+			return Integer.toString(random.nextInt());
+
+		case 1:
+			return (random.nextBoolean() ? "+" : "") +
+				Integer.toString(random.nextInt(2001)-1000);
+
+		case 2:
+			return Long.toString(random.nextLong() >> random.nextInt(64));
+
+		case 3:
+			return INT_EDGE_CASES[random.nextInt(INT_EDGE_CASES.length)];
+
+		default:
+			return random_chars(random, INT_CHARS, 1+random.nextInt(6));
+		}
+	}
+
+
+	/** Return random decimal with up to 24 digits,
+	 *    optional decimal point and optional exponent.
+	 */
+	static String random_decimal(Random random)
+	{
+		StringBuilder s = new StringBuilder();
+		final int r = random.nextInt(4);
+		if (r == 0) { s.append('-'); }
+		else if (r == 1) { s.append('+'); }
+
+		final int num_digits = 1 + random.nextInt(24);
+		final int ipoint = random.nextInt(num_digits+2)-1;
+		for (int k = 0; k < num_digits; k++) {
+			if (k == ipoint) { s.append('.'); }
+			s.append((char) ('0' + random.nextInt(10)));
+		}
+		if (ipoint == num_digits) { s.append('.'); }
+
+		if (random.nextBoolean()) {
+			s.append(random.nextBoolean() ? 'e' : 'E');
+			final int r2 = random.nextInt(3);
+			if (r2 == 0) { s.append('-'); }
+			else if (r2 == 1) { s.append('+'); }
+			s.append(random.nextInt(random.nextBoolean() ? 50 : 1000));
+		}
+
+		return s.toString();
+	}
+
+
+	/** Return decimal exactly halfway between two adjacent floats.
+	 * - Halfway values are v = 2^(24+s) + (2k+1)*2^s,
+	 *   scaled by a power of two so the decimal is short.
+	 */
+	static String random_halfway_float(Random random)
+	{
+		final int s = random.nextInt(6);
+		final long v = (1L << (24+s)) + (2L*random.nextInt(1 << 23)+1) * (1L << s);
+		BigDecimal x = new BigDecimal(v);
+		final int t = random.nextInt(6);
+		x = x.divide(new BigDecimal(1L << t));
+		String token = random.nextBoolean() ? x.toPlainString() : x.toString();
+		if (random.nextBoolean()) { token = "-" + token; }
+		return token;
+	}
+
+
+	/** Return 16 digit decimal within one double ulp of the value
+	 *    halfway between two adjacent floats in [1e-6,1e8].
+	 * - Decimal is usually not halfway, but its nearest
+	 *   double may be.  ReadFloat() cannot round such
+	 *   decimals through a double.
+	 */
+	static String random_near_halfway_float(Random random)
+	{
+		final float f = (float) Math.pow(10, 14*random.nextDouble()-6);
+		final double halfway = ((double) f + (double) Math.nextUp(f))/2;
+		final BigDecimal delta =
+			new BigDecimal(Math.ulp(halfway)*(random.nextDouble()-0.5));
+		return new BigDecimal(halfway).add(delta).round
+			(new MathContext(16)).toString();
+	}
+
+
+	/** Return random string of n characters from chars. */
+	static String random_chars(Random random, String chars, int n)
+	{
+		StringBuilder s = new StringBuilder();
+		for (int k = 0; k < n; k++)
+		{ s.append(chars.charAt(random.nextInt(chars.length()))); }
+		return s.toString();
+	}
+
+
+	/** Return random run of n blanks. */
+	static String random_blanks(Random random, int n)
+	{ return random_chars(random, BLANKS, n); }
+
+
+	/** Return text of line_list with random blanks and line ends. */
+	static byte[] to_bytes(ArrayList<TextLine> line_list, Random random)
+	{
+		final String[] line_end = { "\n", "\r\n", "\r" };
+
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < line_list.size(); i++) {
+			final TextLine line = line_list.get(i);
+			s.append(random_blanks(random, random.nextInt(3)));
+			if (line.type == COMMENT_LINE) {
+				s.append('#');
+				s.append(random_chars(random, "0123456789 #e.\t", random.nextInt(10)));
+			}
+			for (int k = 0; k < line.token.length; k++) {
+				if (k > 0) { s.append(random_blanks(random, 1+random.nextInt(3))); }
+				s.append(line.token[k]);
+			}
+			s.append(random_blanks(random, random.nextInt(3)));
+
+			// Last line may have no line end.
+			if (i+1 < line_list.size() || random.nextBoolean())
+			{ s.append(line_end[random.nextInt(line_end.length)]); }
+		}
+
+		return s.toString().getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+
+	/** Read text with tokenizers from input streams and file channels
+	 *    and check the tokens read.
+	 * - Returns number of tokenizers tested.
+	 */
+	static int check_text(int itext, ArrayList<TextLine> line_list, byte[] text)
+		throws Exception
+	{
+		try (FileOutputStream out = new FileOutputStream(temp_file))
+		{ out.write(text); }
+
+		int num_tests = 0;
+		for (int itokenizer = 0; itokenizer < 5; itokenizer++) {
+			String error = null;
+			try (FileInputStream file_stream = new FileInputStream(temp_file)) {
+				final FileChannel channel = file_stream.getChannel();
+				OffTokenizer tokenizer;
+				switch (itokenizer) {
+				case 0:
+					tokenizer = new OffTokenizer(new ByteArrayInputStream(text));
+					break;
+
+				case 1:
+					// Smallest buffer.  Tokens cross buffer boundaries.
+					tokenizer = new OffTokenizer(new ByteArrayInputStream(text), 1);
+					break;
+
+				case 2:
+					tokenizer = new OffTokenizer(channel);
+					break;
+
+				case 3:
+					// Tokens cross buffer and window boundaries.
+					tokenizer = new OffTokenizer(channel, 1, 7);
+					break;
+
+				default:
+					tokenizer = new OffTokenizer(channel, 0, text.length);
+					break;
+				}
+
+				error = compare_tokens(line_list, tokenizer);
+			}
+
+			if (error != null) {
+				System.err.println
+					("Error. Tokenizer " + String.valueOf(itokenizer) +
+						" failed on text " + String.valueOf(itext) + ".");
+				System.err.println("  " + error);
+				System.err.println("  Exiting...");
+				System.exit(-1);
+			}
+			num_tests++;
+		}
+
+		return num_tests;
+	}
+
+
+	/** Return description of first difference between tokens
+	 *    read by tokenizer and line_list, or null if there is none.
+	 * - On lines with a malformed token, checks the tokens
+	 *   up to and including the malformed token.
+	 */
+	static String compare_tokens
+	(ArrayList<TextLine> line_list, OffTokenizer tokenizer) throws IOException
+	{
+		int iline = 0;
+		for (TextLine line: line_list) {
+			if (line.type == COMMENT_LINE || line.type == BLANK_LINE)
+			{ continue; }
+
+			final String line_label = "Line " + String.valueOf(iline);
+			iline++;
+
+			if (!tokenizer.NextNonCommentLine())
+			{ return line_label + " is missing."; }
+
+			if (line.type == COUNT_LINE) {
+				final int num_tokens = tokenizer.SkipRestOfLineAndCountTokens();
+				if (num_tokens != line.token.length)
+				{ return line_label + " has wrong number of tokens."; }
+				continue;
+			}
+
+			boolean flag_malformed = false;
+			for (int k = 0; k < line.token.length && !flag_malformed; k++) {
+				final String token = line.token[k];
+				final String token_label =
+					line_label + ", token " + String.valueOf(k) + " \"" + token + "\"";
+				if (!tokenizer.HasTokenOnLine())
+				{ return token_label + " is missing."; }
+
+				if (line.type == INT_LINE) {
+					Integer x0 = null;
+					try { x0 = Integer.parseInt(token); }
+					catch (NumberFormatException e) { flag_malformed = true; }
+
+					try {
+						final int x = tokenizer.ReadInt();
+						if (x0 == null)
+						{ return token_label + " is malformed, but was read as an int."; }
+						if (x != x0)
+						{ return token_label + " was read as " + String.valueOf(x) + "."; }
+					}
+					catch (NumberFormatException e) {
+						if (x0 != null)
+						{ return token_label + " is an int, but was rejected."; }
+					}
+				}
+				else {
+					Float x0 = null;
+					try { x0 = Float.parseFloat(token); }
+					catch (NumberFormatException e) { flag_malformed = true; }
+
+					try {
+						final float x = tokenizer.ReadFloat();
+						if (x0 == null)
+						{ return token_label + " is malformed, but was read as a float."; }
+						if (Float.floatToRawIntBits(x) != Float.floatToRawIntBits(x0))
+						{ return token_label + " was read as " + Float.toString(x) + "."; }
+					}
+					catch (NumberFormatException e) {
+						if (x0 != null)
+						{ return token_label + " is a float, but was rejected."; }
+					}
+				}
+			}
+
+			if (!flag_malformed && tokenizer.HasTokenOnLine())
+			{ return line_label + " has extra tokens."; }
+			tokenizer.SkipRestOfLine();
+		}
+
+		if (tokenizer.NextNonCommentLine())
+		{ return "Text has extra lines."; }
+
+		return null;
+	}
+
+
+	/** Check ReadFloat() against Float.parseFloat() on num_floats
+	 *    random float tokens.
+	 * - Uses the tokens that ReadFloat() parses without
+	 *   calling Float.parseFloat(), and halfway cases.
+	 */
+	static void check_random_floats(Random random) throws Exception
+	{
+		final int NUM_TOKENS_PER_LINE = 8;
+
+		String[] token = new String[num_floats];
+		StringBuilder s = new StringBuilder();
+		for (int i = 0; i < num_floats; i++) {
+			switch (random.nextInt(5)) {
+			case 0:
+				token[i] = Float.toString
+					(Float.intBitsToFloat(random.nextInt()) % 1e20f);
+				break;
+
+			case 4:
+				token[i] = random_near_halfway_float(random);
+				break;
+
+			case 1:
+				token[i] = String.format
+					(Locale.ROOT, "%." + String.valueOf(random.nextInt(8)) + "f",
+						(random.nextDouble()-0.5)*2000);
+				break;
+
+			case 2:
+				token[i] = random_decimal(random);
+				break;
+
+			default:
+				token[i] = random_halfway_float(random);
+				break;
+			}
+
+			s.append(token[i]);
+			s.append(((i+1)%NUM_TOKENS_PER_LINE == 0) ? '\n' : ' ');
+		}
+
+		OffTokenizer tokenizer = new OffTokenizer
+			(new ByteArrayInputStream(s.toString().getBytes(StandardCharsets.ISO_8859_1)));
+		for (int i = 0; i < num_floats; i++) {
+			if (i%NUM_TOKENS_PER_LINE == 0)
+			{ tokenizer.NextNonCommentLine(); }
+
+			float x0;
+			try { x0 = Float.parseFloat(token[i]); }
+			catch (NumberFormatException e) {
+				// Malformed decimal, e.g., "-." from random_decimal().
+				tokenizer.SkipRestOfLine();
+				i = (i/NUM_TOKENS_PER_LINE+1)*NUM_TOKENS_PER_LINE - 1;
+				continue;
+			}
+
+			// ReadFloat() requires HasTokenOnLine(), which skips blanks.
+			tokenizer.HasTokenOnLine();
+			final float x = tokenizer.ReadFloat();
+			if (Float.floatToRawIntBits(x) != Float.floatToRawIntBits(x0)) {
+				System.err.println
+					("Error. ReadFloat() read \"" + token[i] + "\" as " +
+						Float.toString(x) + ".  Float.parseFloat() returns " +
+						Float.toString(x0) + ".");
+				System.err.println("  Exiting...");
+				System.exit(-1);
+			}
+		}
+	}
+
+
+	protected static void parse_command_line(String[] argv)
+	{
+		int iarg = 0;
+
+		while (iarg < argv.length &&
+				argv[iarg].charAt(0) == '-') {
+			String s= argv[iarg];
+			if (s.equals("-s"))
+			{ flag_silent = true; }
+			else if (s.equals("-time"))
+			{ flag_time = true; }
+			else if (s.equals("-seed") && iarg+1 < argv.length) {
+				iarg++;
+				seed = Long.parseLong(argv[iarg]);
+			}
+			else if (s.equals("-num_texts") && iarg+1 < argv.length) {
+				iarg++;
+				num_texts = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-num_floats") && iarg+1 < argv.length) {
+				iarg++;
+				num_floats = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-h"))
+			{ help(); }
+			else {
+				System.err.println("Usage error. Option " + s + " is undefined.");
+				usage_error();
+			}
+
+			iarg++;
+		}
+
+		if (iarg != argv.length)
+		{ usage_error(); }
+	}
+
+	static void print_time(String label, long time) {
+		double nanoseconds_per_second = 1E9;
+		String s = String.format("%.4f", (time/nanoseconds_per_second));
+		System.out.println(label + s + " seconds.");
+	}
+
+
+	static void usage_msg(PrintStream out)
+	{
+		out.println("Usage: TestOffTokenizer [-s] [-time] [-seed {S}] [-num_texts {N}] [-num_floats {N}] [-h]");
+	}
+
+
+	static void usage_error()
+	{
+		usage_msg(System.err);
+		System.exit(-1);
+	}
+
+	static void help()
+	{
+		usage_msg(System.out);
+		System.out.println();
+		System.out.println("TestOffTokenizer - Test OffTokenizer by reading random text\n" +
+				"  with valid and malformed tokens and comparing the results\n" +
+				"  with Integer.parseInt() and Float.parseFloat().");
+		System.out.println();
+		System.out.println("Options:");
+		System.out.println("-s:        Silent. Output only warnings and error messages.");
+		System.out.println("-time:     Report run time.");
+		System.out.println("-seed {S}: Random number seed.  Default 21.");
+		System.out.println("-num_texts {N}:  Number of random texts.  Default 300.");
+		System.out.println("-num_floats {N}: Number of random floats compared");
+		System.out.println("           with Float.parseFloat().  Default 1000000.");
+		System.out.println("-h:        Output this help message and exit.");
+		System.exit(0);
+	}
+
+}
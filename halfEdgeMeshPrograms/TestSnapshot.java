@@ -0,0 +1,409 @@
+package halfEdgeMeshPrograms;
+
+import java.io.*;
+import java.util.*;
+
+import halfEdgeMesh.*;
+import halfEdgeMeshEdit.*;
+
+/** Test program for mesh snapshots and RollbackToSnapshot().
+ * <ul>
+ * 		<li> Builds a triangulated grid and copies it with CopyFrom().
+ * 		<li> Takes a snapshot, applies random edits (collapse, split,
+ *           join, delete and add cells, set coordinates, compact)
+ *           and rolls back to the snapshot.
+ * 		<li> Checks that the rolled back mesh is identical to the copy,
+ *           including element indices, half edge links, half_edge_from[]
+ *           lists, coordinates, counts and the indices of new elements.
+ * 		<li> Repeats with and without reuse of indices and an edge index.
+ * </ul>
+ * @author Rephael Wenger
+ */
+public class TestSnapshot {
+
+	static boolean flag_silent = false;
+	static boolean flag_time = false;
+	static long seed = 18;
+	static int num_rounds = 200;
+	static int num_edits = 40;
+
+	/** Number of grid vertices along each axis. */
+	static int grid_size = 12;
+
+	public static void main(String[] argv)
+	{
+		long begin_time = System.nanoTime();
+
+		parse_command_line(argv);
+
+		Random random = new Random(seed);
+
+		try {
+			for (int iconfig = 0; iconfig < 4; iconfig++) {
+				final boolean flag_reuse_indices = (iconfig%2 == 1);
+				final boolean flag_edge_index = (iconfig >= 2);
+
+				HMeshEditC mesh = new HMeshEditC();
+				mesh.SetReuseIndices(flag_reuse_indices);
+				mesh.SetEdgeIndex(flag_edge_index);
+				build_grid(mesh, grid_size);
+				check_mesh(mesh, "building grid");
+
+				HMeshEditC mesh_copy = new HMeshEditC();
+				mesh_copy.SetReuseIndices(flag_reuse_indices);
+				mesh_copy.CopyFrom(mesh);
+
+				mesh.TakeSnapshot();
+				for (int iround = 0; iround < num_rounds; iround++) {
+					final String label =
+						"round " + String.valueOf(iround) +
+						" (reuse indices " + (flag_reuse_indices ? "on" : "off") +
+						", edge index " + (flag_edge_index ? "on" : "off") + ")";
+
+					// Random cells may make the mesh non-manifold, so
+					//   edits may leave cells that CheckAll() rejects.
+					//   Only the rolled back mesh is checked.
+					for (int k = 0; k < num_edits; k++)
+					{ apply_random_edit(mesh, random); }
+
+					mesh.RollbackToSnapshot();
+					check_mesh(mesh, "rollback in " + label);
+					check_same(mesh, mesh_copy, "rollback in " + label);
+
+					// New elements get the same indices as in the copy.
+					final ArrayList<Integer> cell_vertex = random_cell(mesh, random);
+					HMeshEditC mesh_copy2 = new HMeshEditC();
+					mesh_copy2.SetReuseIndices(flag_reuse_indices);
+					mesh_copy2.CopyFrom(mesh_copy);
+					mesh.AddNewCell(cell_vertex);
+					mesh.SplitEdge(mesh.Cell(mesh.MaxCellIndex()).HalfEdge().Index());
+					mesh_copy2.AddNewCell(cell_vertex);
+					mesh_copy2.SplitEdge
+						(mesh_copy2.Cell(mesh_copy2.MaxCellIndex()).HalfEdge().Index());
+					check_same(mesh, mesh_copy2, "adding cell after " + label);
+
+					mesh.RollbackToSnapshot();
+					check_same(mesh, mesh_copy, "second rollback in " + label);
+				}
+			}
+
+			if (!flag_silent) {
+				System.out.println
+					("Passed all " + String.valueOf(4*num_rounds) +
+						" snapshot rollback tests.");
+			}
+
+			long end_time = System.nanoTime();
+
+			if (flag_time)
+			{ print_time("Total time:         ", (end_time-begin_time)); }
+		}
+		catch(Exception e) {
+			System.err.println(e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+
+	// *** SUBROUTINES ****
+
+	/** Add triangulated grid of n by n vertices to mesh. */
+	static void build_grid(HMeshEditC mesh, int n) throws Exception
+	{
+		final int numc = 2*(n-1)*(n-1);
+		final int[] cell_first = new int[numc+1];
+		final int[] cell_vertex = new int[3*numc];
+		final float[] coord = new float[3*n*n];
+		for (int iy = 0; iy < n; iy++) {
+			for (int ix = 0; ix < n; ix++) {
+				coord[3*(iy*n+ix)] = ix;
+				coord[3*(iy*n+ix)+1] = iy;
+			}
+		}
+
+		int j = 0;
+		for (int iy = 0; iy+1 < n; iy++) {
+			for (int ix = 0; ix+1 < n; ix++) {
+				final int iv0 = iy*n+ix;
+				final int[] triangles =
+					{ iv0, iv0+1, iv0+n+1, iv0, iv0+n+1, iv0+n };
+				System.arraycopy(triangles, 0, cell_vertex, j, triangles.length);
+				j += triangles.length;
+			}
+		}
+		for (int k = 0; k <= numc; k++)
+		{ cell_first[k] = 3*k; }
+
+		mesh.AddCells(cell_first, cell_vertex, coord);
+	}
+
+
+	/** Apply a random edit to mesh.
+	 * - Skips edits that are illegal or that would change mesh topology.
+	 */
+	static void apply_random_edit(HMeshEditC mesh, Random random)
+		throws Exception
+	{
+		final int ihalf_edge = random_half_edge(mesh, random);
+		if (ihalf_edge < 0) { return; }
+		final HalfEdgeBase half_edge = mesh.HalfEdge(ihalf_edge);
+
+		switch (random.nextInt(9)) {
+		case 0:
+			if (!mesh.IsIllegalEdgeCollapseH(ihalf_edge) &&
+				!mesh.DoesEdgeCollapseChangeMeshTopologyH(ihalf_edge))
+			{ mesh.CollapseEdge(ihalf_edge); }
+			break;
+
+		case 1:
+			mesh.SplitEdge(ihalf_edge);
+			break;
+
+		case 2:
+			if (!mesh.IsIllegalJoinTwoCells(ihalf_edge))
+			{ mesh.JoinTwoCells(ihalf_edge); }
+			break;
+
+		case 3:
+			{
+				final int ihalf_edgeB =
+					half_edge.NextHalfEdgeInCell().NextHalfEdgeInCell().Index();
+				if (!mesh.IsIllegalSplitCell(ihalf_edge, ihalf_edgeB))
+				{ mesh.SplitCell(ihalf_edge, ihalf_edgeB); }
+			}
+			break;
+
+		case 4:
+			if (half_edge.Cell().NumVertices()%2 == 0)
+			{ mesh.SplitCellIntoQuads(ihalf_edge); }
+			break;
+
+		case 5:
+			mesh.DeleteCell(half_edge.CellIndex());
+			break;
+
+		case 6:
+			mesh.AddNewCell(random_cell(mesh, random));
+			break;
+
+		case 7:
+			mesh.SetCoord
+				(half_edge.FromVertexIndex(),
+					new float[] { random.nextFloat(), random.nextFloat(),
+						random.nextFloat() });
+			break;
+
+		default:
+			if (random.nextInt(4) == 0)
+			{ mesh.Compact(); }
+			break;
+		}
+	}
+
+
+	/** Return index of random half edge in mesh, or -1 if mesh
+	 *    has no half edges.
+	 */
+	static int random_half_edge(HMeshEditC mesh, Random random)
+	{
+		if (mesh.NumHalfEdges() == 0) { return -1; }
+
+		while (true) {
+			final int ihalf_edge = random.nextInt(mesh.MaxHalfEdgeIndex()+1);
+			if (mesh.HalfEdge(ihalf_edge) != null)
+			{ return ihalf_edge; }
+		}
+	}
+
+
+	/** Return list of three distinct random vertices of mesh. */
+	static ArrayList<Integer> random_cell(HMeshEditC mesh, Random random)
+	{
+		ArrayList<Integer> cell_vertex = new ArrayList<Integer>();
+		while (cell_vertex.size() < 3) {
+			final int iv = random.nextInt(mesh.MaxVertexIndex()+1);
+			if (mesh.Vertex(iv) != null && !cell_vertex.contains(iv))
+			{ cell_vertex.add(iv); }
+		}
+		return cell_vertex;
+	}
+
+
+	/** Check mesh data structure and exit if an error is found. */
+	static void check_mesh(HMeshEditC mesh, String label)
+	{
+		ErrorInfo error_info = mesh.CheckAll();
+		if (error_info.FlagError()) {
+			System.err.println
+				("Error detected in mesh data structure after " + label + ".");
+			System.err.println(error_info.Message());
+			System.err.println("  Exiting...");
+			System.exit(-1);
+		}
+	}
+
+
+	/** Check that mesh is identical to mesh_copy and exit if not. */
+	static void check_same(HMeshEditC mesh, HMeshEditC mesh_copy, String label)
+	{
+		final String difference = compare_meshes(mesh, mesh_copy);
+		if (difference != null) {
+			System.err.println
+				("Error. Mesh differs from copy after " + label + ".");
+			System.err.println("  " + difference);
+			System.err.println("  Exiting...");
+			System.exit(-1);
+		}
+	}
+
+
+	/** Return description of first difference between mesh0 and mesh1,
+	 *    or null if the meshes are identical.
+	 */
+	static String compare_meshes(HMeshEditC mesh0, HMeshEditC mesh1)
+	{
+		if (mesh0.NumVertices() != mesh1.NumVertices() ||
+			mesh0.NumHalfEdges() != mesh1.NumHalfEdges() ||
+			mesh0.NumCells() != mesh1.NumCells() ||
+			mesh0.MaxVertexIndex() != mesh1.MaxVertexIndex() ||
+			mesh0.MaxHalfEdgeIndex() != mesh1.MaxHalfEdgeIndex() ||
+			mesh0.MaxCellIndex() != mesh1.MaxCellIndex())
+		{ return "Numbers of vertices, half edges or cells differ."; }
+
+		if (mesh0.NumEdges() != mesh1.NumEdges() ||
+			mesh0.NumBoundaryEdges() != mesh1.NumBoundaryEdges() ||
+			mesh0.NumIsolatedVertices() != mesh1.NumIsolatedVertices())
+		{ return "Numbers of edges, boundary edges or isolated vertices differ."; }
+
+		for (int numv = 0; numv < 16; numv++) {
+			if (mesh0.NumCellsOfSize(numv) != mesh1.NumCellsOfSize(numv)) {
+				return "Number of cells with " + String.valueOf(numv) +
+						" vertices differ.";
+			}
+		}
+
+		for (int iv = 0; iv <= mesh0.MaxVertexIndex(); iv++) {
+			VertexBase v0 = mesh0.Vertex(iv);
+			VertexBase v1 = mesh1.Vertex(iv);
+			if (v0 == null && v1 == null) { continue; }
+			if (v0 == null || v1 == null ||
+				v0.NumHalfEdgesFrom() != v1.NumHalfEdgesFrom())
+			{ return "Vertex " + String.valueOf(iv) + " differs."; }
+
+			for (int ic = 0; ic < VertexBase.Dimension(); ic++) {
+				if (Float.floatToIntBits(v0.Coord(ic)) !=
+					Float.floatToIntBits(v1.Coord(ic)))
+				{ return "Coordinates of vertex " + String.valueOf(iv) + " differ."; }
+			}
+
+			for (int k = 0; k < v0.NumHalfEdgesFrom(); k++) {
+				if (v0.KthHalfEdgeFrom(k).Index() != v1.KthHalfEdgeFrom(k).Index()) {
+					return "Half edges from vertex " + String.valueOf(iv) +
+							" differ.";
+				}
+			}
+		}
+
+		for (int ihalf_edge = 0; ihalf_edge <= mesh0.MaxHalfEdgeIndex(); ihalf_edge++) {
+			HalfEdgeBase half_edge0 = mesh0.HalfEdge(ihalf_edge);
+			HalfEdgeBase half_edge1 = mesh1.HalfEdge(ihalf_edge);
+			if (half_edge0 == null && half_edge1 == null) { continue; }
+			if (half_edge0 == null || half_edge1 == null ||
+				half_edge0.FromVertexIndex() != half_edge1.FromVertexIndex() ||
+				half_edge0.CellIndex() != half_edge1.CellIndex() ||
+				half_edge0.NextHalfEdgeInCell().Index() !=
+					half_edge1.NextHalfEdgeInCell().Index() ||
+				half_edge0.NextHalfEdgeAroundEdge().Index() !=
+					half_edge1.NextHalfEdgeAroundEdge().Index())
+			{ return "Half edge " + String.valueOf(ihalf_edge) + " differs."; }
+		}
+
+		for (int icell = 0; icell <= mesh0.MaxCellIndex(); icell++) {
+			CellBase cell0 = mesh0.Cell(icell);
+			CellBase cell1 = mesh1.Cell(icell);
+			if (cell0 == null && cell1 == null) { continue; }
+			if (cell0 == null || cell1 == null ||
+				cell0.NumVertices() != cell1.NumVertices() ||
+				cell0.HalfEdge().Index() != cell1.HalfEdge().Index())
+			{ return "Cell " + String.valueOf(icell) + " differs."; }
+		}
+
+		return null;
+	}
+
+
+	protected static void parse_command_line(String[] argv)
+	{
+		int iarg = 0;
+
+		while (iarg < argv.length &&
+				argv[iarg].charAt(0) == '-') {
+			String s= argv[iarg];
+			if (s.equals("-s"))
+			{ flag_silent = true; }
+			else if (s.equals("-time"))
+			{ flag_time = true; }
+			else if (s.equals("-seed") && iarg+1 < argv.length) {
+				iarg++;
+				seed = Long.parseLong(argv[iarg]);
+			}
+			else if (s.equals("-num_rounds") && iarg+1 < argv.length) {
+				iarg++;
+				num_rounds = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-num_edits") && iarg+1 < argv.length) {
+				iarg++;
+				num_edits = Integer.parseInt(argv[iarg]);
+			}
+			else if (s.equals("-h"))
+			{ help(); }
+			else {
+				System.err.println("Usage error. Option " + s + " is undefined.");
+				usage_error();
+			}
+
+			iarg++;
+		}
+
+		if (iarg != argv.length)
+		{ usage_error(); }
+	}
+
+	static void print_time(String label, long time) {
+		double nanoseconds_per_second = 1E9;
+		String s = String.format("%.4f", (time/nanoseconds_per_second));
+		System.out.println(label + s + " seconds.");
+	}
+
+
+	static void usage_msg(PrintStream out)
+	{
+		out.println("Usage: TestSnapshot [-s] [-time] [-seed {S}] [-num_rounds {N}] [-num_edits {N}] [-h]");
+	}
+
+
+	static void usage_error()
+	{
+		usage_msg(System.err);
+		System.exit(-1);
+	}
+
+	static void help()
+	{
+		usage_msg(System.out);
+		System.out.println();
+		System.out.println("TestSnapshot - Test HalfEdgeMesh snapshots by applying random edits\n" +
+				"  to a triangulated grid, rolling back to the snapshot\n" +
+				"  and comparing the mesh with a copy made before the edits.");
+		System.out.println();
+		System.out.println("Options:");
+		System.out.println("-s:        Silent. Output only warnings and error messages.");
+		System.out.println("-time:     Report run time.");
+		System.out.println("-seed {S}: Random number seed.  Default 18.");
+		System.out.println("-num_rounds {N}: Number of rounds of edits and rollback.  Default 200.");
+		System.out.println("-num_edits {N}:  Number of random edits in each round.  Default 40.");
+		System.out.println("-h:        Output this help message and exit.");
+		System.exit(0);
+	}
+
+}
@@ -44,6 +44,12 @@ public class decimate_mesh {
 	static boolean flag_triangulate_cells = false;
 	static boolean flag_allow_non_manifold = false;
 	static boolean flag_fail_on_non_manifold = false;	
+	static boolean flag_reuse_indices = false;
+	static boolean flag_pool = false;
+	static boolean flag_edge_index = false;
+	static boolean flag_compact = false;
+	static boolean flag_reorder = false;
+	static int quantize_nbits = 0;
 	
 	static MeasureMeshC measure_mesh = new MeasureMeshC();
 	
@@ -56,12 +62,25 @@ public class decimate_mesh {
 		long begin_time = System.nanoTime();
 		
 		HMeshEditC mesh = new HMeshEditC();
+		mesh.SetArrayStorage(true);
 		OffFileReaderC file_reader = new OffFileReaderC();
 		OffFileWriterC file_writer = new OffFileWriterC();
 		
 		parse_command_line(argv);
+		file_writer.SetCompact(flag_compact);
+		if (quantize_nbits > 0) {
+			try { mesh.SetCoordQuantization(quantize_nbits); }
+			catch (Exception e) {
+				System.err.println(e.getMessage());
+				System.exit(-1);
+			}
+		}
 		
 		file_reader.OpenAndReadFile(input_filename, mesh);
+		if (flag_reorder) { mesh.ReorderByHilbertCurve(); }
+		mesh.SetReuseIndices(flag_reuse_indices);
+		mesh.SetPoolElements(flag_pool);
+		mesh.SetEdgeIndex(flag_edge_index);
 		
 		long time2 = System.nanoTime();
 		
@@ -205,14 +224,11 @@ public class decimate_mesh {
 		
 		boolean flag_check = !flag_reduce_checks;
 		
-		ArrayList<Integer> cell_list = new ArrayList<Integer>();
-		cell_list.addAll(mesh.CellIndices());
-		
 		// Sort so that cells are processed in sorted order.
-		Collections.sort(cell_list);
+		final int[] cell_list = mesh.CellIndexStream().sorted().toArray();
 		
 		int kount = 0;
-		for (Integer icell:cell_list) {
+		for (int icell:cell_list) {
 			
 			// Note: Some cells may have been deleted.  Cell icell may not exist.
 			if (mesh.Cell(icell) == null) 
@@ -395,14 +411,11 @@ public class decimate_mesh {
 		boolean flag_check = !flag_reduce_checks;
 		
 		// Create a list of the cell indices.
-		ArrayList<Integer> cell_list = new ArrayList<Integer>();
-		cell_list.addAll(mesh.CellIndices());
-		
 		// Sort so that cells are processed in sorted order.
-		Collections.sort(cell_list);
+		final int[] cell_list = mesh.CellIndexStream().sorted().toArray();
 		
 		int kount = 0;
-		for (Integer icell:cell_list) {
+		for (int icell:cell_list) {
 			
 			CellBase cell = mesh.Cell(icell);
 			// Note: Some cells may have been deleted.  Cell icell may not exist.
@@ -577,14 +590,11 @@ public class decimate_mesh {
 		boolean flag_check = !flag_reduce_checks;
 		
 		// Create a list of the cell indices.
-		ArrayList<Integer> cell_list = new ArrayList<Integer>();
-		cell_list.addAll(mesh.CellIndices());
-		
 		// Sort so that cells are processed in sorted order.
-		Collections.sort(cell_list);
+		final int[] cell_list = mesh.CellIndexStream().sorted().toArray();
 		
 		int kount = 0;
-		for (Integer icell:cell_list) {
+		for (int icell:cell_list) {
 			CellBase cell = mesh.Cell(icell);
 			// Note: Some cells may have been deleted.  Cell icell may not exist.
 			if (cell == null) { continue; }
@@ -614,14 +624,11 @@ public class decimate_mesh {
 		MinMaxInfo min_max_info = new MinMaxInfo();
 		
 		// Create a list of the cell indices.
-		ArrayList<Integer> cell_list = new ArrayList<Integer>();
-		cell_list.addAll(mesh.CellIndices());
-		
 		// Sort so that cells are processed in sorted order.
-		Collections.sort(cell_list);
+		final int[] cell_list = mesh.CellIndexStream().sorted().toArray();
 		
 		int kount = 0;
-		for (Integer icell:cell_list) {
+		for (int icell:cell_list) {
 			
 			CellBase cell = mesh.Cell(icell);
 			// Note: Some cells may have been deleted.  Cell icell may not exist.
@@ -702,14 +709,11 @@ public class decimate_mesh {
 		boolean flag_check = !flag_reduce_checks;
 		
 		// Create a list of the cell indices.
-		ArrayList<Integer> cell_list = new ArrayList<Integer>();
-		cell_list.addAll(mesh.CellIndices());
-		
 		// Sort so that cells are processed in sorted order.
-		Collections.sort(cell_list);
+		final int[] cell_list = mesh.CellIndexStream().sorted().toArray();
 		
 		int kount = 0;
-		for (Integer icell:cell_list) {
+		for (int icell:cell_list) {
 			
 			CellBase cell = mesh.Cell(icell);
 			// Note: Some cells may have been deleted.  Cell icell may not exist.
@@ -981,6 +985,21 @@ public class decimate_mesh {
 			{ flag_allow_non_manifold = true; }
 			else if (s.equals("-fail_on_non_manifold"))
 			{ flag_fail_on_non_manifold = true; }
+			else if (s.equals("-reuse_indices"))
+			{ flag_reuse_indices = true; }
+			else if (s.equals("-pool"))
+			{ flag_pool = true; }
+			else if (s.equals("-edge_index"))
+			{ flag_edge_index = true; }
+			else if (s.equals("-compact"))
+			{ flag_compact = true; }
+			else if (s.equals("-reorder"))
+			{ flag_reorder = true; }
+			else if (s.equals("-quantize")) {
+				iarg++;
+				if (iarg >= argv.length) { usage_error(); }
+				quantize_nbits = parse_quantize_nbits(argv[iarg]);
+			}
 			else if (s.equals("-s")) {
 				flag_silent = true;
 				flag_terse = true;
@@ -1029,12 +1048,12 @@ public class decimate_mesh {
 	{
 		int FIVE = 5;
 		int num_vertices = mesh.NumVertices();
-		int num_edges = mesh.CountNumEdges();
-		int num_boundary_edges = mesh.CountNumBoundaryEdges();
+		int num_edges = mesh.NumEdges();
+		int num_boundary_edges = mesh.NumBoundaryEdges();
 		int num_cells = mesh.NumCells();
-		int num_triangles = mesh.CountNumTriangles();
-		int num_quads = mesh.CountNumQuads();
-		int num_large_cells = mesh.CountNumCellsOfSizeGE(FIVE);
+		int num_triangles = mesh.NumCellsOfSize(3);
+		int num_quads = mesh.NumCellsOfSize(4);
+		int num_large_cells = mesh.NumCellsOfSizeGE(FIVE);
 		MinMaxInfo length_info = new MinMaxInfo();
 		MinCellRatioInfo ratio_info = new MinCellRatioInfo();
 		CosMinMaxAngleInfo angle_info = new CosMinMaxAngleInfo();
@@ -1107,6 +1126,19 @@ public class decimate_mesh {
 	}
 	
 	
+	/// Return number of bits for option -quantize.
+	/// - Exits with usage error unless s is 16 or 21.
+	static int parse_quantize_nbits(String s)
+	{
+		if (s.equals("16")) { return 16; }
+		if (s.equals("21")) { return 21; }
+		System.err.println
+			("Usage error. Argument of -quantize must be 16 or 21.");
+		usage_error();
+		return 0;
+	}
+	
+	
 	static void usage_msg(PrintStream out)
 	{
 		out.println("Usage: decimate_mesh [OPTIONS] <input filename> [<output_filename>]");
@@ -1115,6 +1147,8 @@ public class decimate_mesh {
 		out.println("  [-split_cells] [-join_cells]");
 		out.println("  [-triangulate_cells | -triangulate]");
 		out.println("  [-allow_non_manifold] [-fail_on_non_manifold]");
+		out.println("  [-reuse_indices] [-pool] [-edge_index] [-compact]");
+		out.println("  [-reorder] [-quantize {16|21}]");
 		out.println("  [-s | -terse] [-no_warn] [-time] [-h]");
 	}
 	
@@ -1143,6 +1177,17 @@ public class decimate_mesh {
 		out.println("     that create non-manifold conditions.");
 		out.println("-fail_on_non_manifold: Exit with non-zero return code (fail)");
 		out.println("     if non-manifold or inconsistent orientations detected.");
+		out.println("-reuse_indices: Reuse indices of deleted half edges and cells");
+		out.println("     for new half edges and cells.");
+		out.println("-pool:    Reuse deleted vertex, half edge and cell objects");
+		out.println("     for new ones, instead of allocating new objects.");
+		out.println("-edge_index: Find edges using a hash table of vertex pairs.");
+		out.println("-compact: Write only vertices in some cell, numbered contiguously.");
+		out.println("     Removes gaps left by collapsed edges from the output file.");
+		out.println("-reorder: Renumber vertices and cells along a Hilbert curve");
+		out.println("     after reading, so nearby elements have nearby indices.");
+		out.println("-quantize {16|21}: Store vertex coordinates as 16 or 21 bit");
+		out.println("     integers relative to the bounding box, instead of floats.");
 		out.println("-terse:   Terse output. Suppress messages output after each");
 		out.println("     collapse/join/split iteration.");
 		out.println("   Does not suppress warning messages at each iteration.");
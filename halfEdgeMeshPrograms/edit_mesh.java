@@ -315,7 +315,8 @@ public class edit_mesh {
 		if (max_num < 1)
 			{ return; }
 		
-		for (Integer icell: mesh.CellIndices()) {
+		for (PrimitiveIterator.OfInt iter = mesh.CellIndexIterator(); iter.hasNext(); ) {
+			final int icell = iter.nextInt();
 			CellBase cell = mesh.Cell(icell);
 			if (cell == null)
 				{ continue; }
@@ -953,12 +954,12 @@ public class edit_mesh {
 	{
 		int FIVE = 5;
 		int num_vertices = mesh.NumVertices();
-		int num_edges = mesh.CountNumEdges();
-		int num_boundary_edges = mesh.CountNumBoundaryEdges();
+		int num_edges = mesh.NumEdges();
+		int num_boundary_edges = mesh.NumBoundaryEdges();
 		int num_cells = mesh.NumCells();
-		int num_triangles = mesh.CountNumTriangles();
-		int num_quads = mesh.CountNumQuads();
-		int num_large_cells = mesh.CountNumCellsOfSizeGE(FIVE);
+		int num_triangles = mesh.NumCellsOfSize(3);
+		int num_quads = mesh.NumCellsOfSize(4);
+		int num_large_cells = mesh.NumCellsOfSizeGE(FIVE);
 		MinMaxInfo length_info = new MinMaxInfo();
 		MinCellRatioInfo ratio_info = new MinCellRatioInfo();
 		CosMinMaxAngleInfo angle_info = new CosMinMaxAngleInfo();
@@ -28,6 +28,10 @@ public class meshinfo {
 
 	static String input_filename;
 	static boolean flag_more_info = false;
+	static boolean flag_memory = false;
+	static boolean flag_hash_storage = false;
+	static boolean flag_edge_index = false;
+	static int quantize_nbits = 0;
 	static MeasureMeshA measure_mesh = new MeasureMeshA();
 	
 	public static void main(String[] argv)
@@ -37,6 +41,15 @@ public class meshinfo {
 
 		
 		parse_command_line(argv);
+		mesh.SetArrayStorage(!flag_hash_storage);
+		mesh.SetEdgeIndex(flag_edge_index);
+		if (quantize_nbits > 0) {
+			try { mesh.SetCoordQuantization(quantize_nbits); }
+			catch (Exception e) {
+				System.err.println(e.getMessage());
+				System.exit(-1);
+			}
+		}
 		
 		file_reader.OpenAndReadFile(input_filename, mesh);
 		
@@ -54,6 +67,10 @@ public class meshinfo {
 			print_min_cell_edge_length_ratio(mesh, flag_more_info);
 			print_min_max_angles(mesh, flag_more_info);
 			print_manifold_info(mesh, flag_more_info);
+			if (flag_memory) {
+				out.println();
+				print_memory_footprint(mesh);
+			}
 			out.println();
 		}
 		catch(Exception e) {
@@ -71,9 +88,9 @@ public class meshinfo {
 	(HalfEdgeMeshA mesh, boolean flag_more_info)
 	{
 		int num_vertices = mesh.NumVertices();
-		int num_isolated_vertices = mesh.CountNumIsolatedVertices();
-		int num_edges = mesh.CountNumEdges();
-		int num_boundary_edges = mesh.CountNumBoundaryEdges();
+		int num_isolated_vertices = mesh.NumIsolatedVertices();
+		int num_edges = mesh.NumEdges();
+		int num_boundary_edges = mesh.NumBoundaryEdges();
 		int num_cells = mesh.NumCells();
 		
 		out.printf("Number of mesh vertices: %d%n", num_vertices-num_isolated_vertices);
@@ -87,12 +104,12 @@ public class meshinfo {
 		out.printf("Number of mesh cells: %d%n", num_cells);
 		
 		if (flag_more_info) {
-			int num_triangles = mesh.CountNumTriangles();
+			int num_triangles = mesh.NumCellsOfSize(3);
 			out.printf("  Number of mesh triangles: %d%n", num_triangles);
-			int num_quads = mesh.CountNumQuads();
+			int num_quads = mesh.NumCellsOfSize(4);
 			out.printf("  Number of mesh quadrilaterals: %d%n", num_quads);
-			int num_pentagons = mesh.CountNumPentagons();
-			int num_large_cells = mesh.CountNumCellsOfSizeGE(6);
+			int num_pentagons = mesh.NumCellsOfSize(5);
+			int num_large_cells = mesh.NumCellsOfSizeGE(6);
 			if (num_pentagons > 0) {
 				out.printf("  Number of mesh pentagons: %d%n", num_pentagons);
 				out.printf("  Number of cells with > 5 vertices: %d%n",
@@ -261,6 +278,52 @@ public class meshinfo {
 
 
 	
+	/**
+	 * Print estimated memory used by the mesh.
+	 */
+	public static void print_memory_footprint(HalfEdgeMeshA mesh)
+	{
+		MeshFootprint footprint = mesh.EstimateFootprint();
+		
+		if (mesh.IsArrayStorage())
+		{ out.println("Estimated memory (array storage):"); }
+		else
+		{ out.println("Estimated memory (hash table storage):"); }
+		print_bytes("Vertices", footprint.VertexBytes());
+		if (mesh.CoordQuantizationBits() > 0) {
+			print_bytes("Vertex coordinates (" + 
+							mesh.CoordQuantizationBits() + " bit)", 
+						footprint.CoordBytes());
+		}
+		else
+		{ print_bytes("Vertex coordinates", footprint.CoordBytes()); }
+		print_bytes("Half edges", footprint.HalfEdgeBytes());
+		print_bytes("Cells", footprint.CellBytes());
+		print_bytes("Vertex half edge lists", footprint.AdjacencyBytes());
+		print_bytes("Element tables", footprint.TableBytes());
+		if (mesh.FlagEdgeIndex())
+		{ print_bytes("Edge index", footprint.EdgeIndexBytes()); }
+		print_bytes("Free index lists", footprint.FreeListBytes());
+		print_bytes("Pooled elements", footprint.PoolBytes());
+		print_bytes("Total", footprint.TotalBytes());
+		print_bytes("Unused capacity (included above)", footprint.UnusedBytes());
+		
+		int num_cells = mesh.NumCells();
+		if (num_cells > 0) {
+			out.printf("  Bytes per cell: %.1f%n", 
+						((double) footprint.TotalBytes())/num_cells);
+		}
+	}
+	
+	
+	/// Print label and number of bytes, in bytes and in MB.
+	static void print_bytes(String label, long num_bytes)
+	{
+		out.printf("  %-34s %12d  (%.1f MB)%n", 
+					label + ":", num_bytes, num_bytes/(1024.0*1024.0));
+	}
+	
+	
 	// *** SUBROUTINES ****
 	
 	protected static void parse_command_line(String[] argv)
@@ -274,6 +337,17 @@ public class meshinfo {
 			{ help(); }
 			else if (s.equals("-more"))
 			{ flag_more_info = true; }
+			else if (s.equals("-memory"))
+			{ flag_memory = true; }
+			else if (s.equals("-hash_storage"))
+			{ flag_hash_storage = true; }
+			else if (s.equals("-edge_index"))
+			{ flag_edge_index = true; }
+			else if (s.equals("-quantize")) {
+				iarg++;
+				if (iarg >= argv.length) { usage_error(); }
+				quantize_nbits = parse_quantize_nbits(argv[iarg]);
+			}
 			else {
 				System.err.println("Usage error. Option " + s + " is undefined.");
 				usage_error();
@@ -289,9 +363,24 @@ public class meshinfo {
 	}
 	
 	
+	/// Return number of bits for option -quantize.
+	/// - Exits with usage error unless s is 16 or 21.
+	static int parse_quantize_nbits(String s)
+	{
+		if (s.equals("16")) { return 16; }
+		if (s.equals("21")) { return 21; }
+		System.err.println
+			("Usage error. Argument of -quantize must be 16 or 21.");
+		usage_error();
+		return 0;
+	}
+	
+	
 	static void usage_msg(PrintStream out)
 	{
-		out.println("Usage: meshinfo [-more] [-h] <input filename>");
+		out.println("Usage: meshinfo [-more] [-memory]");
+		out.println("  [-hash_storage] [-edge_index] [-quantize {16|21}]");
+		out.println("  [-h] <input filename>");
 	}
 	
 	
@@ -310,6 +399,12 @@ public class meshinfo {
 		out.println("Options:");
 		out.println("-h:        Output this help message and exit.");
 		out.println("-more:     Print additional information.");
+		out.println("-memory:   Print estimated memory used by the mesh.");
+		out.println("-hash_storage: Store vertices, half edges and cells");
+		out.println("     in hash tables instead of arrays.");
+		out.println("-edge_index:   Build hash table of mesh edges.");
+		out.println("-quantize {16|21}: Store vertex coordinates as 16 or 21 bit");
+		out.println("     integers relative to the bounding box, instead of floats.");
 		
 		System.exit(0);
 	}